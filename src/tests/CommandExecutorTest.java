@@ -0,0 +1,159 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.*;
+import org.junit.rules.TemporaryFolder;
+
+import todomato.FileHandler;
+import todomato.Processor;
+import todomato.SplitProcessorsHandler;
+import todomato.Task;
+import todomato.TaskList;
+import todomato.TaskView;
+
+//@author A0120766H
+public class CommandExecutorTest {
+	private static final int NUMBER_OF_WRITERS = 3;
+	private static final int NUMBER_OF_READERS = 2;
+	private static final int COMMANDS_PER_WRITER = 20;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+	private volatile boolean isWriting;
+	private TaskList listBefore;
+	private File dataFile;
+	private byte[] dataBefore;
+
+	@Before
+	public void createTestData() throws Exception {
+		System.setProperty("user.dir", folder.getRoot().toString());
+		new File(folder.getRoot(), "tasks.txt").createNewFile();
+		listBefore = Processor.getList();
+		if (Processor.getStore() instanceof FileHandler) {
+			dataFile = ((FileHandler) Processor.getStore()).getFile();
+			dataBefore = dataFile.exists() ? Files.readAllBytes(dataFile.toPath()) : null;
+		}
+		setList(new TaskList());
+	}
+
+	/**
+	 * Puts back the list and data file the tests that run after this one
+	 * expect
+	 */
+	@After
+	public void restoreTestData() throws Exception {
+		Processor.getPersistence().flush();
+		setList(listBefore);
+		// leaves no search behind
+		SplitProcessorsHandler.processCommand("display");
+		if (dataBefore != null) {
+			Files.write(dataFile.toPath(), dataBefore);
+		}
+	}
+
+	private void setList(TaskList list) throws Exception {
+		Field f = Processor.class.getDeclaredField("list");
+		f.setAccessible(true);
+		f.set(null, list);
+	}
+
+	@Test
+	public void testConcurrentCommandsAndReaders() throws InterruptedException {
+		isWriting = true;
+		List<Thread> writers = new ArrayList<Thread>();
+		for (int i = 0; i < NUMBER_OF_WRITERS; i++) {
+			writers.add(startWriter(i));
+		}
+		List<Thread> readers = new ArrayList<Thread>();
+		readers.add(startBrowser());
+		for (int i = 0; i < NUMBER_OF_READERS; i++) {
+			readers.add(startReader());
+		}
+		for (Thread writer : writers) {
+			writer.join();
+		}
+		isWriting = false;
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		assertEquals(Collections.emptyList(), errors);
+		// every writer adds two Tasks and deletes one of them per round
+		assertEquals(NUMBER_OF_WRITERS * COMMANDS_PER_WRITER, Processor.getSnapshot().getSize());
+	}
+
+	private Thread startWriter(final int writer) {
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					for (int i = 0; i < COMMANDS_PER_WRITER; i++) {
+						SplitProcessorsHandler.processCommand("add writer " + writer + " task " + i);
+						SplitProcessorsHandler.processCommand("add writer " + writer + " spare " + i);
+						SplitProcessorsHandler.processCommand("delete 1");
+					}
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	private Thread startBrowser() {
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					while (isWriting) {
+						// matches every Task, so delete 1 always has a row
+						SplitProcessorsHandler.processCommand("find writer");
+						SplitProcessorsHandler.processCommand("display");
+					}
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+
+	private Thread startReader() {
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				try {
+					while (isWriting) {
+						TaskList snapshot = Processor.getSnapshot();
+						int count = 0;
+						for (int i = 0; i < snapshot.getSize(); i++) {
+							assertNotNull(snapshot.getListItem(i).getDescription());
+							count++;
+						}
+						assertEquals(snapshot.getSize(), count);
+						TaskView displayed = Processor.getDisplaySnapshot();
+						for (Task task : displayed) {
+							assertNotNull(task.toString());
+						}
+					}
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+			}
+		};
+		thread.start();
+		return thread;
+	}
+}
@@ -0,0 +1,87 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import todomato.DisplayProcessor;
+import todomato.InvalidInputException;
+import todomato.Processor;
+import todomato.Task;
+import todomato.TaskList;
+
+//@author A0101578H
+public class DisplayProcessorTest {
+	private static final String LIST = "list";
+	private static final String LINE_BREAK = "\r\n";
+	private static final int NUMBER_OF_TASKS = 45;
+
+	private TaskList list;
+
+	@Before
+	public void createTestData() throws NoSuchFieldException, IllegalAccessException, InvalidInputException {
+		list = new TaskList();
+		for (int i = 1; i <= NUMBER_OF_TASKS; i++) {
+			list.addToList(new Task("task " + i));
+		}
+		Field f = Processor.class.getDeclaredField(LIST);
+		f.setAccessible(true);
+		f.set(null, list);
+		// start display next from the top
+		DisplayProcessor.processDisplay("");
+	}
+
+	@Test
+	public void testDisplayAll() throws InvalidInputException {
+		assertEquals("All tasks have been displayed: " + list.toString(), DisplayProcessor.processDisplay(""));
+	}
+
+	@Test
+	public void testDisplayPage() throws InvalidInputException {
+		String display = DisplayProcessor.processDisplay("page 3");
+		assertTrue(display.startsWith("Tasks 41 to 45 of 45 have been displayed: 41: task 41" + LINE_BREAK));
+		assertEquals(5, display.split(LINE_BREAK).length);
+	}
+
+	@Test
+	public void testDisplayRange() throws InvalidInputException {
+		String display = DisplayProcessor.processDisplay("10-12");
+		assertEquals("Tasks 10 to 12 of 45 have been displayed: 10: task 10" + LINE_BREAK + "11: task 11"
+				+ LINE_BREAK + "12: task 12" + LINE_BREAK, display);
+	}
+
+	@Test
+	public void testDisplayNext() throws InvalidInputException {
+		DisplayProcessor.processDisplay("1-30");
+		assertTrue(DisplayProcessor.processDisplay("next 10").startsWith("Tasks 31 to 40 of 45"));
+		assertTrue(DisplayProcessor.processDisplay("next").startsWith("Tasks 41 to 45 of 45"));
+		// starts again from the top after the last task
+		assertTrue(DisplayProcessor.processDisplay("next 2").startsWith("Tasks 1 to 2 of 45"));
+	}
+
+	@Test
+	public void testDisplayStreamed() throws InvalidInputException, IOException {
+		StringWriter out = new StringWriter();
+		assertEquals("Tasks 21 to 40 of 45 have been displayed", DisplayProcessor.processDisplay("page 2", out));
+		StringWriter expected = new StringWriter();
+		list.write(expected, 20, 40);
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	@Test
+	public void testInvalidWindows() {
+		String[] windows = { "page 4", "page 0", "50-60", "12-10", "next none" };
+		for (String window : windows) {
+			try {
+				DisplayProcessor.processDisplay(window);
+				fail(window);
+			} catch (InvalidInputException e) {
+			}
+		}
+	}
+}
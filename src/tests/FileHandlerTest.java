@@ -0,0 +1,446 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import hirondelle.date4j.DateTime;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import todomato.FileHandler;
+import todomato.Task;
+import todomato.TaskList;
+import todomato.TaskListDiff;
+
+//@author A0099332Y
+public class FileHandlerTest {
+	private static final String JOURNAL_PROPERTY = "todomato.journal";
+	private static final String JOURNAL_THRESHOLD_PROPERTY = "todomato.journal.threshold";
+	private static final String STORAGE_PROPERTY = "todomato.storage";
+	private static final String LAZY_LOAD_PROPERTY = "todomato.lazyLoad";
+	private static final String PARALLEL_LOAD_THRESHOLD_PROPERTY = "todomato.parallelLoad.threshold";
+	private static final String WATCH_PROPERTY = "todomato.watch";
+	private static final String TASK1 = "CS2103 Tutorial#13:00#null#2014-04-10#2014-04-10#Home#0#395871680#2014-04-09 20:27:24.669000000#LOW#false#null#null#null\r\n";
+	private static final String TASK2 = "ES1531 Exam Prep#null#null#null#2014-04-23#Home#0#-1379251807#2014-04-09 20:27:29.951000000#HIGH#false#null#null#null\r\n";
+	private File tasks;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void createTestData() throws IOException {
+		tasks = folder.newFile("tasks.txt");
+		BufferedWriter out = new BufferedWriter(new FileWriter(tasks));
+		out.write("null\r\nnull\r\nnull\r\n");
+		out.write(TASK1);
+		out.write(TASK2);
+		out.close();
+		System.setProperty(JOURNAL_PROPERTY, "true");
+	}
+
+	@After
+	public void resetSettings() {
+		System.clearProperty(JOURNAL_PROPERTY);
+		System.clearProperty(JOURNAL_THRESHOLD_PROPERTY);
+		System.clearProperty(STORAGE_PROPERTY);
+		System.clearProperty(LAZY_LOAD_PROPERTY);
+		System.clearProperty(PARALLEL_LOAD_THRESHOLD_PROPERTY);
+		System.clearProperty(WATCH_PROPERTY);
+	}
+
+	@Test
+	public void testUpdateFileKeepsLiveList() {
+		System.clearProperty(JOURNAL_PROPERTY);
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		list.addToList(new Task("buy milk"));
+
+		assertSame(list, fileHandler.updateFile(list));
+		TaskList reread = fileHandler.readFile();
+		assertEquals(list.toString(), reread.toString());
+	}
+
+	@Test
+	public void testNextIdIsSaved() {
+		System.clearProperty(JOURNAL_PROPERTY);
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		long deletedId = list.addToList(new Task("buy milk")).getId();
+		list.deleteListItem(2);
+		fileHandler.updateFile(list);
+
+		TaskList reread = fileHandler.readFile();
+		assertEquals(list.getNextId(), reread.getNextId());
+		assertTrue(reread.addToList(new Task("buy eggs")).getId() > deletedId);
+	}
+
+	@Test
+	public void testExternalChangesAreAppliedById() throws IOException {
+		System.clearProperty(JOURNAL_PROPERTY);
+		System.setProperty(WATCH_PROPERTY, "true");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		list.addToList(new Task("buy milk"));
+
+		BufferedWriter out = new BufferedWriter(new FileWriter(tasks));
+		out.write("null\r\nnull\r\nnull\r\n");
+		out.write(TASK1.replace("#Home#", "#COM1#"));
+		out.write("ES2007D Essay#null#null#null#2014-04-25#Home#0#12345#2014-04-09 20:30:00.000000000#LOW#false#null#null#null\r\n");
+		out.close();
+		TaskListDiff diff = fileHandler.readExternalChanges(list);
+		diff.applyTo(list);
+
+		assertEquals(Arrays.asList(0), diff.getUpdatedRows());
+		assertEquals(Arrays.asList(1), diff.getRemovedRows());
+		assertEquals(3, list.getSize());
+		assertEquals("COM1", list.getListItem(0).getLocation());
+		assertEquals("buy milk", list.getListItem(1).getDescription());
+		assertEquals("ES2007D Essay", list.getListItem(2).getDescription());
+
+		fileHandler.updateFile(list);
+		assertNull(fileHandler.readExternalChanges(list));
+	}
+
+	@Test
+	public void testJournalAppendDoesNotRewriteDataFile() {
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		long dataFileLength = tasks.length();
+
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+		list.getListItem(0).setLocation("COM1");
+		list.markUpdated(0);
+		fileHandler.updateFile(list);
+		list.deleteListItem(1);
+		fileHandler.updateFile(list);
+
+		assertEquals(dataFileLength, tasks.length());
+		TaskList replayed = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), replayed.toString());
+		assertEquals("buy milk", replayed.getListItem(1).getDescription());
+	}
+
+	@Test
+	public void testRestructureWritesSnapshot() {
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+		list.reverse();
+		fileHandler.updateFile(list);
+
+		assertFalse(new File(tasks.getAbsolutePath() + ".journal").exists());
+		TaskList replayed = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), replayed.toString());
+	}
+
+	@Test
+	public void testJournalIsFoldedIntoDataFile() throws InterruptedException {
+		System.setProperty(JOURNAL_THRESHOLD_PROPERTY, "1");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+		File compacting = new File(tasks.getAbsolutePath() + ".journal.compacting");
+		for (int i = 0; i < 50 && compacting.exists(); i++) {
+			Thread.sleep(20);
+		}
+
+		assertFalse(compacting.exists());
+		System.clearProperty(JOURNAL_PROPERTY);
+		TaskList snapshot = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), snapshot.toString());
+	}
+
+	@Test
+	public void testIncompleteLastRecordIsIgnored() throws IOException {
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+
+		BufferedWriter out = new BufferedWriter(new FileWriter(tasks.getAbsolutePath() + ".journal", true));
+		out.write("A#3#half written");
+		out.close();
+
+		TaskList replayed = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), replayed.toString());
+	}
+
+	@Test
+	public void testAppendsAfterTruncatedRecordSurviveReload() throws IOException {
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+		File journal = new File(tasks.getAbsolutePath() + ".journal");
+		long completeLength = journal.length();
+		list.addToList(new Task("buy eggs"));
+		fileHandler.updateFile(list);
+
+		RandomAccessFile out = new RandomAccessFile(journal, "rw");
+		out.setLength(completeLength + 5);
+		out.close();
+
+		fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList reloaded = fileHandler.readFile();
+		assertEquals(completeLength, journal.length());
+		reloaded.addToList(new Task("buy bread"));
+		fileHandler.updateFile(reloaded);
+
+		TaskList replayed = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(reloaded.toString(), replayed.toString());
+		assertEquals("buy bread", replayed.getListItem(replayed.getSize() - 1).getDescription());
+	}
+
+	@Test
+	public void testUnescapedFileKeepsTrailingBackslash() throws IOException {
+		System.clearProperty(JOURNAL_PROPERTY);
+		BufferedWriter out = new BufferedWriter(new FileWriter(tasks, true));
+		out.write("copy to D:\\backup\\" + TASK2.substring(TASK2.indexOf('#')));
+		out.close();
+
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		assertEquals(3, list.getSize());
+		assertEquals("copy to D:\\backup\\", list.getListItem(2).getDescription());
+		assertEquals("Home", list.getListItem(2).getLocation());
+
+		fileHandler.updateFile(list);
+		TaskList reread = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), reread.toString());
+		assertEquals("copy to D:\\backup\\", reread.getListItem(2).getDescription());
+	}
+
+	@Test
+	public void testUnreadableLineIsLeftOut() throws IOException {
+		BufferedWriter out = new BufferedWriter(new FileWriter(tasks, true));
+		out.write("half a task#null#null\r\n");
+		out.write(TASK1.replace("CS2103", "CS2101"));
+		out.close();
+
+		TaskList list = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(3, list.getSize());
+		assertEquals("CS2101 Tutorial", list.getListItem(2).getDescription());
+	}
+
+	@Test
+	public void testBinaryStoreKeepsChanges() {
+		System.setProperty(STORAGE_PROPERTY, "binary");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		long recordsLength = new File(tasks.getAbsolutePath() + ".bin").length();
+
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+		list.getListItem(0).setLocation("COM1");
+		list.markUpdated(0);
+		fileHandler.updateFile(list);
+		list.deleteListItem(1);
+		fileHandler.updateFile(list);
+		list.addToList(1, new Task("return books"));
+		fileHandler.updateFile(list);
+
+		assertEquals(recordsLength, new File(tasks.getAbsolutePath() + ".bin").length());
+		TaskList reloaded = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), reloaded.toString());
+		assertEquals("return books", reloaded.getListItem(1).getDescription());
+	}
+
+	@Test
+	public void testBinaryStoreKeepsLastDayOfMonth() {
+		System.clearProperty(JOURNAL_PROPERTY);
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		DateTime endTime = new DateTime("23:59:59");
+		DateTime endDate = new DateTime("2014-03-31");
+		Task task = new Task("submit report", null, endTime, endDate, endDate, null, 0);
+		task.setTimeCreated(new DateTime("2014-03-31 23:59:59"));
+		list.addToList(task);
+		fileHandler.updateFile(list);
+
+		System.setProperty(STORAGE_PROPERTY, "binary");
+		TaskList converted = new FileHandler(tasks.getAbsolutePath()).readFile();
+		TaskList reloaded = new FileHandler(tasks.getAbsolutePath()).readFile();
+		for (TaskList loaded : Arrays.asList(converted, reloaded)) {
+			Task loadedTask = loaded.getListItem(2);
+			assertEquals(endDate, loadedTask.getEndDate());
+			assertEquals(endTime, loadedTask.getEndTime());
+			assertEquals(new DateTime("2014-03-31 23:59:59"), loadedTask.getTimeCreated());
+		}
+	}
+
+	@Test
+	public void testBinaryStoreIsConvertedBackToText() {
+		System.setProperty(STORAGE_PROPERTY, "binary");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+
+		System.clearProperty(STORAGE_PROPERTY);
+		TaskList converted = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), converted.toString());
+		assertFalse(new File(tasks.getAbsolutePath() + ".bin").exists());
+	}
+
+	@Test
+	public void testShardedStoreOnlyRewritesChangedShards() {
+		System.clearProperty(JOURNAL_PROPERTY);
+		System.setProperty(STORAGE_PROPERTY, "sharded");
+		File shards = new File(tasks.getAbsolutePath() + ".shards");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		File april = new File(shards, "2014-04.txt");
+		assertTrue(april.setLastModified(0));
+
+		list.addToList(1, new Task("buy milk"));
+		fileHandler.updateFile(list);
+		list.getListItem(1).setLocation("COM1");
+		list.markUpdated(1);
+		fileHandler.updateFile(list);
+
+		assertEquals(0, april.lastModified());
+		assertTrue(new File(shards, "undated.txt").exists());
+		TaskList reloaded = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), reloaded.toString());
+		assertEquals("buy milk", reloaded.getListItem(1).getDescription());
+
+		reloaded.deleteListItem(0);
+		reloaded.deleteListItem(1);
+		fileHandler.updateFile(reloaded);
+		assertFalse(april.exists());
+	}
+
+	@Test
+	public void testShardedStoreFollowsReorderedTasks() throws IOException {
+		System.clearProperty(JOURNAL_PROPERTY);
+		System.setProperty(STORAGE_PROPERTY, "sharded");
+		File shards = new File(tasks.getAbsolutePath() + ".shards");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		list.addToList(new Task("submit report", null, null, null, new DateTime("2014-05-02"), null, 0));
+		fileHandler.updateFile(list);
+
+		list.reverse();
+		fileHandler.updateFile(list);
+
+		String april = new String(Files.readAllBytes(new File(shards, "2014-04.txt").toPath()));
+		String may = new String(Files.readAllBytes(new File(shards, "2014-05.txt").toPath()));
+		assertTrue(april.contains("CS2103 Tutorial"));
+		assertTrue(april.contains("ES1531 Exam Prep"));
+		assertFalse(april.contains("submit report"));
+		assertTrue(may.contains("submit report"));
+		assertFalse(may.contains("CS2103 Tutorial"));
+		TaskList reloaded = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), reloaded.toString());
+	}
+
+	@Test
+	public void testShardedStoreIsConvertedBackToText() {
+		System.clearProperty(JOURNAL_PROPERTY);
+		System.setProperty(STORAGE_PROPERTY, "sharded");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+
+		System.clearProperty(STORAGE_PROPERTY);
+		TaskList converted = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), converted.toString());
+		assertFalse(new File(tasks.getAbsolutePath() + ".shards").exists());
+	}
+
+	@Test
+	public void testLazyLoadParsesTasksOnAccess() {
+		System.clearProperty(JOURNAL_PROPERTY);
+		System.setProperty(LAZY_LOAD_PROPERTY, "true");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		assertEquals(2, list.getUnreadCount());
+
+		assertEquals("ES1531 Exam Prep", list.getListItem(1).getDescription());
+		assertEquals(1, list.getUnreadCount());
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+		assertEquals(1, list.getUnreadCount());
+
+		System.clearProperty(LAZY_LOAD_PROPERTY);
+		TaskList reread = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(list.toString(), reread.toString());
+		assertEquals(0, list.getUnreadCount());
+	}
+
+	@Test
+	public void testParallelLoadKeepsOrder() throws IOException {
+		System.clearProperty(JOURNAL_PROPERTY);
+		BufferedWriter out = new BufferedWriter(new FileWriter(tasks, true));
+		for (int i = 0; i < 5000; i++) {
+			out.write("Task " + i + "#null#null#null#2014-04-23#Home#0#" + i
+					+ "#2014-04-09 20:27:29.951000000#HIGH#false#null#null#null\r\n");
+		}
+		out.close();
+		TaskList sequential = new FileHandler(tasks.getAbsolutePath()).readFile();
+
+		System.setProperty(PARALLEL_LOAD_THRESHOLD_PROPERTY, "1");
+		TaskList parallel = new FileHandler(tasks.getAbsolutePath()).readFile();
+		assertEquals(5002, parallel.getSize());
+		assertEquals(sequential.toString(), parallel.toString());
+		assertEquals("Task 4999", parallel.getListItem(5001).getDescription());
+	}
+
+	@Test
+	public void testNewerTempFileIsRecovered() throws IOException {
+		System.clearProperty(JOURNAL_PROPERTY);
+		File temp = new File(tasks.getAbsolutePath() + ".tmp");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		fileHandler.updateFile(list);
+		byte[] older = Files.readAllBytes(tasks.toPath());
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+		byte[] newer = Files.readAllBytes(tasks.toPath());
+
+		Files.write(tasks.toPath(), older);
+		Files.write(temp.toPath(), newer);
+		TaskList recovered = new FileHandler(tasks.getAbsolutePath()).readFile();
+
+		assertFalse(temp.exists());
+		assertEquals(list.toString(), recovered.toString());
+	}
+
+	@Test
+	public void testTornTempFileIsDiscarded() throws IOException {
+		System.clearProperty(JOURNAL_PROPERTY);
+		File temp = new File(tasks.getAbsolutePath() + ".tmp");
+		FileHandler fileHandler = new FileHandler(tasks.getAbsolutePath());
+		TaskList list = fileHandler.readFile();
+		fileHandler.updateFile(list);
+		String saved = list.toString();
+		list.addToList(new Task("buy milk"));
+		fileHandler.updateFile(list);
+		byte[] newer = Files.readAllBytes(tasks.toPath());
+
+		list.deleteListItem(2);
+		fileHandler.updateFile(list);
+		Files.write(temp.toPath(), Arrays.copyOf(newer, newer.length - 10));
+		TaskList recovered = new FileHandler(tasks.getAbsolutePath()).readFile();
+
+		assertFalse(temp.exists());
+		assertEquals(saved, recovered.toString());
+	}
+}
@@ -0,0 +1,63 @@
+package tests;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import todomato.JdbcTaskStore;
+import todomato.Task;
+import todomato.TaskList;
+
+//@author A0099332Y
+// Runs only when the H2 driver is on the class path
+public class JdbcTaskStoreTest {
+	private static final String DRIVER = "org.h2.Driver";
+	private static final String TASK1 = "CS2103 Tutorial#13:00#null#2014-04-10#2014-04-10#Home#0#395871680#2014-04-09 20:27:24.669000000#LOW#false#null#null#null";
+	private static final String TASK2 = "ES1531 Exam Prep#null#null#null#2014-04-23#Home#0#-1379251807#2014-04-09 20:27:29.951000000#HIGH#true#null#null#null";
+	private String url;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void createStore() throws SQLException {
+		try {
+			Class.forName(DRIVER);
+		} catch (ClassNotFoundException e) {
+			assumeTrue(false);
+		}
+		url = "jdbc:h2:" + folder.getRoot().getAbsolutePath() + "/tasks";
+		TaskList list = new TaskList();
+		list.addToList(Task.createTaskFromFileString(TASK1));
+		list.addToList(Task.createTaskFromFileString(TASK2));
+		JdbcTaskStore store = new JdbcTaskStore(url);
+		store.writeAll(list);
+		store.close();
+	}
+
+	@Test
+	public void testChangesAreSavedByRow() throws SQLException {
+		JdbcTaskStore store = new JdbcTaskStore(url);
+		TaskList list = store.readFile();
+		list.addToList(1, new Task("buy milk"));
+		assertNotNull(store.updateFile(list));
+		list.getListItem(0).setLocation("COM1");
+		list.markUpdated(0);
+		list.deleteListItem(2);
+		assertNotNull(store.updateFile(list));
+		store.close();
+
+		store = new JdbcTaskStore(url);
+		TaskList reloaded = store.readFile();
+		store.close();
+		assertEquals(list.toString(), reloaded.toString());
+		assertEquals("COM1", reloaded.getListItem(0).getLocation());
+		assertEquals("buy milk", reloaded.getListItem(1).getDescription());
+	}
+}
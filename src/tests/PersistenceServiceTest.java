@@ -0,0 +1,122 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import todomato.FileHandler;
+import todomato.PersistenceService;
+import todomato.Task;
+import todomato.TaskList;
+
+//@author A0099332Y
+public class PersistenceServiceTest {
+	private static final long LONG_INTERVAL = 60 * 1000;
+	private static final long SHORT_DELAY = 20;
+	private File tasks;
+	private FileHandler fileHandler;
+	private TaskList list;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void createList() throws IOException {
+		tasks = folder.newFile("tasks.txt");
+		fileHandler = new FileHandler(tasks.getAbsolutePath());
+		list = fileHandler.readFile();
+	}
+
+	@Test
+	public void testImmediateSavesBeforeReturning() throws IOException {
+		PersistenceService persistence = new PersistenceService(fileHandler,
+				PersistenceService.Policy.IMMEDIATE, LONG_INTERVAL, SHORT_DELAY);
+		list.addToList(new Task("buy milk"));
+		persistence.markDirty(list);
+
+		assertFalse(persistence.isDirty());
+		assertTrue(readData().contains("buy milk"));
+	}
+
+	@Test
+	public void testIntervalCoalescesUntilFlush() throws IOException {
+		PersistenceService persistence = new PersistenceService(fileHandler,
+				PersistenceService.Policy.INTERVAL, LONG_INTERVAL, SHORT_DELAY);
+		list.addToList(new Task("buy milk"));
+		persistence.markDirty(list);
+		list.addToList(new Task("return books"));
+		persistence.markDirty(list);
+
+		assertTrue(persistence.isDirty());
+		assertFalse(readData().contains("buy milk"));
+		assertTrue(persistence.flush());
+		assertTrue(readData().contains("buy milk"));
+		assertTrue(readData().contains("return books"));
+	}
+
+	@Test
+	public void testIdleSavesAfterDelay() throws InterruptedException {
+		PersistenceService persistence = new PersistenceService(fileHandler,
+				PersistenceService.Policy.IDLE, LONG_INTERVAL, SHORT_DELAY);
+		list.addToList(new Task("buy milk"));
+		persistence.markDirty(list);
+		for (int i = 0; i < 50 && persistence.isDirty(); i++) {
+			Thread.sleep(SHORT_DELAY);
+		}
+
+		assertFalse(persistence.isDirty());
+		assertEquals(list.toString(), new FileHandler(tasks.getAbsolutePath()).readFile().toString());
+	}
+
+	@Test
+	public void testCloseSavesPendingChanges() throws IOException {
+		PersistenceService persistence = new PersistenceService(fileHandler,
+				PersistenceService.Policy.INTERVAL, LONG_INTERVAL, SHORT_DELAY);
+		list.addToList(new Task("buy milk"));
+		persistence.markDirty(list);
+
+		assertTrue(persistence.close());
+		assertFalse(persistence.isDirty());
+		assertTrue(readData().contains("buy milk"));
+	}
+
+	@Test
+	public void testFailedWriteIsRetried() throws InterruptedException, IOException {
+		FileHandler failingOnce = new FileHandler(tasks.getAbsolutePath()) {
+			private boolean hasFailed = false;
+
+			@Override
+			public TaskList updateFile(TaskList taskList, boolean isForced) {
+				if (!hasFailed) {
+					hasFailed = true;
+					return null;
+				}
+				return super.updateFile(taskList, isForced);
+			}
+		};
+		PersistenceService persistence = new PersistenceService(failingOnce,
+				PersistenceService.Policy.IMMEDIATE, SHORT_DELAY, SHORT_DELAY);
+		list.addToList(new Task("buy milk"));
+		persistence.markDirty(list);
+
+		assertTrue(persistence.isDirty());
+		for (int i = 0; i < 50 && persistence.isDirty(); i++) {
+			Thread.sleep(SHORT_DELAY);
+		}
+		assertFalse(persistence.isDirty());
+		assertTrue(readData().contains("buy milk"));
+		persistence.close();
+	}
+
+	private String readData() throws IOException {
+		return new String(Files.readAllBytes(tasks.toPath()), Charset.defaultCharset());
+	}
+}
@@ -75,7 +75,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_ONE +
 				"5: " + ITEM_FOUR;
 		SortProcessor.processSort("startdate");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -88,7 +88,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_ONE +
 				"5: " + ITEM_FOUR;
 		SortProcessor.processSort("startdate a");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -101,7 +101,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_TWO +
 				"5: " + ITEM_THREE;
 		SortProcessor.processSort("startdate d");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -114,7 +114,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_ONE +
 				"5: " + ITEM_FOUR;
 		SortProcessor.processSort("enddate");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -127,7 +127,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_ONE +
 				"5: " + ITEM_FOUR;
 		SortProcessor.processSort("enddate a");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -140,7 +140,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_TWO +
 				"5: " + ITEM_THREE;
 		SortProcessor.processSort("enddate d");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -153,7 +153,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_FIVE +
 				"5: " + ITEM_FOUR;
 		SortProcessor.processSort("complete");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -166,7 +166,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_FIVE +
 				"5: " + ITEM_FOUR;
 		SortProcessor.processSort("complete a");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -179,7 +179,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_TWO +
 				"5: " + ITEM_ONE;
 		SortProcessor.processSort("complete d");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -192,7 +192,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_TWO +
 				"5: " + ITEM_FOUR;
 		SortProcessor.processSort("priority");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -205,7 +205,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_FIVE +
 				"5: " + ITEM_THREE;
 		SortProcessor.processSort("priority a");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -218,7 +218,7 @@ public class SortProcessorTest {
 				"4: " + ITEM_TWO +
 				"5: " + ITEM_FOUR;
 		SortProcessor.processSort("priority d");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -232,7 +232,7 @@ public class SortProcessorTest {
 		SortProcessor.processSort("priority");
 		SortProcessor.processSort("priority a");
 		SortProcessor.processSort("priority d");
-		String resultList = getList().toString();
+		String resultList = Processor.getDisplayList().toString();
 		assertEquals(expectedList, resultList);
 	}
 	
@@ -0,0 +1,99 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import todomato.Task;
+import todomato.TaskArchive;
+
+//@author A0099332Y
+public class TaskArchiveTest {
+	private TaskArchive archive;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Before
+	public void createArchive() throws IOException {
+		archive = new TaskArchive(folder.newFile("tasks.txt"));
+	}
+
+	@Test
+	public void testEmptyArchive() throws IOException {
+		assertTrue(archive.readTasks().isEmpty());
+	}
+
+	@Test
+	public void testArchivedTasksAreReadInOrder() throws IOException {
+		archive.archive(Arrays.asList(new Task("CS2103 Tutorial"), new Task("ES1531 Exam Prep")));
+		archive.archive(Arrays.asList(new Task("buy milk")));
+
+		ArrayList<String> tasks = archive.readTasks();
+		assertEquals(3, tasks.size());
+		assertEquals("ES1531 Exam Prep", Task.createTaskFromFileString(tasks.get(1)).getDescription());
+		assertEquals("buy milk", Task.createTaskFromFileString(tasks.get(2)).getDescription());
+	}
+
+	@Test
+	public void testRestoredTasksAreRemoved() throws IOException {
+		archive.archive(Arrays.asList(new Task("CS2103 Tutorial"), new Task("ES1531 Exam Prep")));
+		archive.markRestored(Arrays.asList(0));
+
+		ArrayList<String> tasks = archive.readTasks();
+		assertNull(tasks.get(0));
+		assertNotNull(tasks.get(1));
+	}
+
+	@Test
+	public void testIncompleteLastMemberIsIgnored() throws IOException {
+		archive.archive(Arrays.asList(new Task("CS2103 Tutorial")));
+		File archiveFile = archive.getFile();
+		long complete = archiveFile.length();
+		archive.archive(Arrays.asList(new Task("ES1531 Exam Prep")));
+		byte[] bytes = Files.readAllBytes(archiveFile.toPath());
+		Files.write(archiveFile.toPath(), Arrays.copyOf(bytes, (int) complete + 12));
+
+		ArrayList<String> tasks = archive.readTasks();
+		assertEquals(1, tasks.size());
+		assertEquals("CS2103 Tutorial", Task.createTaskFromFileString(tasks.get(0)).getDescription());
+	}
+
+	@Test
+	public void testMemberWithoutTrailerIsIgnored() throws IOException {
+		archive.archive(Arrays.asList(new Task("CS2103 Tutorial"), new Task("ES1531 Exam Prep")));
+		File archiveFile = archive.getFile();
+		archive.archive(Arrays.asList(new Task("buy milk"), new Task("buy eggs")));
+		byte[] bytes = Files.readAllBytes(archiveFile.toPath());
+		Files.write(archiveFile.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+
+		ArrayList<String> tasks = archive.readTasks();
+		assertEquals(2, tasks.size());
+		assertEquals("ES1531 Exam Prep", Task.createTaskFromFileString(tasks.get(1)).getDescription());
+	}
+
+	@Test
+	public void testMembersAfterIncompleteMemberAreRead() throws IOException {
+		archive.archive(Arrays.asList(new Task("CS2103 Tutorial")));
+		File archiveFile = archive.getFile();
+		long complete = archiveFile.length();
+		archive.archive(Arrays.asList(new Task("ES1531 Exam Prep")));
+		byte[] bytes = Files.readAllBytes(archiveFile.toPath());
+		Files.write(archiveFile.toPath(), Arrays.copyOf(bytes, (int) complete + 15));
+		archive.archive(Arrays.asList(new Task("buy milk")));
+
+		ArrayList<String> tasks = archive.readTasks();
+		assertEquals(2, tasks.size());
+		assertEquals("CS2103 Tutorial", Task.createTaskFromFileString(tasks.get(0)).getDescription());
+		assertEquals("buy milk", Task.createTaskFromFileString(tasks.get(1)).getDescription());
+	}
+}
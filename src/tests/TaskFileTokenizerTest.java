@@ -0,0 +1,72 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import hirondelle.date4j.DateTime;
+
+import org.junit.Test;
+
+import todomato.Task;
+import todomato.TaskFileTokenizer;
+
+//@author A0096620E
+public class TaskFileTokenizerTest {
+	private static final String TASK = "CS2103 Tutorial#13:00#null#2014-04-10#2014-04-10#Home#0#395871680#2014-04-09 20:27:24.669000000#LOW#false#null#null#null";
+
+	@Test
+	public void testReadsEveryField() {
+		Task task = TaskFileTokenizer.parse(TASK);
+		assertEquals("CS2103 Tutorial", task.getDescription());
+		assertEquals(Integer.valueOf(13), task.getStartTime().getHour());
+		assertNull(task.getEndTime());
+		assertEquals(Integer.valueOf(10), task.getEndDate().getDay());
+		assertEquals("Home", task.getLocation());
+		assertEquals(395871680, task.getId());
+		assertEquals(Integer.valueOf(669000000), task.getTimeCreated().getNanoseconds());
+		assertFalse(task.getCompleted());
+		assertEquals(TASK, task.toFileString());
+	}
+
+	@Test
+	public void testEscapedTextSurvivesRoundTrip() {
+		Task task = new Task("read ch#3\r\nthen C:\\notes");
+		task.setLocation("COM1 #02-01");
+		Task read = TaskFileTokenizer.parse(task.toFileString());
+		assertEquals(task.getDescription(), read.getDescription());
+		assertEquals(task.getLocation(), read.getLocation());
+		assertEquals(task.getTimeCreated(), read.getTimeCreated());
+	}
+
+	@Test
+	public void testUnreadableDatesAreNull() {
+		Task task = TaskFileTokenizer.parse("a#25:00#null#2014-02-30#2014-04-23 10:00:00#null#-3#7#2014-04-09 20:27:29.9#HIGH#true#evt#null#13:00:05");
+		assertNull(task.getStartTime());
+		assertNull(task.getStartDate());
+		assertEquals(Integer.valueOf(10), task.getEndDate().getHour());
+		assertEquals(-3, task.getRecurrencePeriod());
+		assertEquals("2014-04-09 20:27:29.9", task.getTimeCreated().toString());
+		assertTrue(task.getCompleted());
+	}
+
+	@Test
+	public void testPackedFieldsKeepTheirText() {
+		Task task = new Task("a");
+		task.setStartDate(new DateTime("2014-04-10T13:00"));
+		task.setEndDate(new DateTime("2014-04-10 13:00"));
+		task.setNoticeTime(DateTime.forDateOnly(1969, 12, 31));
+		task.setPriorityLevel("URGENT");
+		Task copy = new Task(task);
+
+		assertEquals("2014-04-10T13:00", copy.getStartDate().toString());
+		assertEquals("2014-04-10 13:00", copy.getEndDate().toString());
+		assertEquals("1969-12-31", task.getNoticeTime().toString());
+		assertEquals("URGENT", copy.getPriorityLevel());
+		assertEquals(task.getTimeCreated(), copy.getTimeCreated());
+		assertEquals(task.toFileString(), TaskFileTokenizer.parse(task.toFileString()).toFileString());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMissingFieldsAreRejected() {
+		TaskFileTokenizer.parse("a#null#null");
+	}
+}
@@ -0,0 +1,116 @@
+package tests;
+
+import hirondelle.date4j.DateTime;
+
+import todomato.Task;
+import todomato.TaskFileTokenizer;
+
+//@author A0096620E
+/**
+ * Compares the heap taken by Tasks read from the data file against the
+ * previous Task, which held a DateTime object for each date and time, a
+ * Boolean and its own copy of the priority level. The previous fields are
+ * kept here as reference. Run as a Java application, preferably with the
+ * same -Xmx for every run; the heap is measured after a full collection with
+ * all Tasks of a round still reachable.
+ *
+ */
+public class TaskHeapBenchmark {
+	private static final String[] LINES = {
+			"CS2103 Tutorial#13:00#null#2014-04-10#2014-04-10#Home#0#395871680#2014-04-09 20:27:24.669000000#LOW#false#null#null#null",
+			"ES1531 Exam Prep#null#null#null#2014-04-23#Home#0#-1379251807#2014-04-09 20:27:29.951000000#HIGH#false#null#null#null",
+			"Project meeting#10:00#12:00#2014-04-11#2014-04-11#COM1#7#1180238544#2014-04-09 20:30:01.102000000#MEDIUM#true#abc123#2014-04-10 08:00:00#2014-04-11 09:00" };
+	private static final int[] TASK_COUNTS = { 10000, 100000 };
+	private static final int GC_ROUNDS = 5;
+
+	public static void main(String[] args) {
+		for (int count : TASK_COUNTS) {
+			long before = measureLegacy(count);
+			long after = measureCompact(count);
+			System.out.println(String.format("%6d tasks: before %4d bytes/task, after %4d bytes/task", count,
+					before / count, after / count));
+		}
+	}
+
+	private static long measureLegacy(int count) {
+		long start = usedHeap();
+		LegacyTask[] tasks = new LegacyTask[count];
+		for (int i = 0; i < count; i++) {
+			tasks[i] = new LegacyTask(TaskFileTokenizer.parse(line(i)));
+		}
+		long used = usedHeap() - start;
+		keep(tasks);
+		return used;
+	}
+
+	private static long measureCompact(int count) {
+		long start = usedHeap();
+		Task[] tasks = new Task[count];
+		for (int i = 0; i < count; i++) {
+			tasks[i] = TaskFileTokenizer.parse(line(i));
+		}
+		long used = usedHeap() - start;
+		keep(tasks);
+		return used;
+	}
+
+	/**
+	 * Gives every line its own description, as the tasks of a list have
+	 */
+	private static String line(int i) {
+		return i + " " + LINES[i % LINES.length];
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < GC_ROUNDS; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	private static void keep(Object[] tasks) {
+		if (tasks[tasks.length - 1] == null) {
+			System.out.println(tasks.length);
+		}
+	}
+
+	/**
+	 * The fields of Task before they were packed
+	 */
+	@SuppressWarnings("unused")
+	private static class LegacyTask {
+		private String description;
+		private DateTime startTime;
+		private DateTime endTime;
+		private DateTime noticeTime;
+		private DateTime startDate;
+		private DateTime endDate;
+		private String location;
+		private String eventId;
+		private DateTime updateTime;
+		private int recurrencePeriod;
+		private long id;
+		private String priorityLevel;
+		private DateTime timeCreated;
+		private Boolean isCompleted;
+
+		LegacyTask(Task task) {
+			description = task.getDescription();
+			startTime = task.getStartTime();
+			endTime = task.getEndTime();
+			noticeTime = task.getNoticeTime();
+			startDate = task.getStartDate();
+			endDate = task.getEndDate();
+			location = task.getLocation();
+			eventId = task.getEventId();
+			updateTime = task.getUpdateTime();
+			recurrencePeriod = task.getRecurrencePeriod();
+			id = task.getId();
+			// each task read its own String from the line
+			priorityLevel = new String(task.getPriorityLevel());
+			timeCreated = task.getTimeCreated();
+			isCompleted = Boolean.valueOf(task.getCompleted());
+		}
+	}
+}
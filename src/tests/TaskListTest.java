@@ -0,0 +1,202 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import hirondelle.date4j.DateTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import org.junit.Test;
+
+import todomato.Task;
+import todomato.TaskList;
+
+//@author A0120766H
+public class TaskListTest {
+	private static final String TASK1 = "CS2103 Tutorial#13:00#null#2014-04-10#2014-04-10#Home#0#395871680#2014-04-09 20:27:24.669000000#LOW#false#null#null#null";
+	private static final String TASK2 = "ES1531 Exam Prep#null#null#null#2014-04-23#Home#0#395871680#2014-04-09 20:27:24.669000000#HIGH#false#null#null#null";
+
+	@Test
+	public void testAddedTasksGetNewIds() {
+		TaskList list = new TaskList();
+		Task first = list.addToList(new Task("buy milk"));
+		Task second = list.addToList(new Task("buy eggs"));
+
+		assertEquals(TaskList.FIRST_ID, first.getId());
+		assertEquals(TaskList.FIRST_ID + 1, second.getId());
+		assertEquals(TaskList.FIRST_ID + 2, list.getNextId());
+	}
+
+	@Test
+	public void testIdsStayIndexedAfterMoves() {
+		TaskList list = new TaskList();
+		for (int i = 0; i < 10; i++) {
+			list.addToList(new Task("task " + i));
+		}
+		long idOfFirst = list.getListItem(0).getId();
+		long idOfLast = list.getListItem(9).getId();
+
+		list.swap(0, 9);
+		assertEquals(9, list.getItem(idOfFirst));
+		list.reverse();
+		assertEquals(0, list.getItem(idOfFirst));
+		assertEquals(9, list.getItem(idOfLast));
+		list.deleteListItem(3);
+		list.addToList(1, new Task("inserted"));
+		assertEquals(0, list.getItem(idOfFirst));
+		assertEquals(9, list.getItem(idOfLast));
+		list.deleteListItem(0);
+		assertEquals(-1, list.getItem(idOfFirst));
+	}
+
+	@Test
+	public void testCollidingIntIdsAreReplaced() {
+		TaskList list = new TaskList();
+		Task first = list.addToList(Task.createTaskFromFileString(TASK1));
+		Task second = list.addToList(Task.createTaskFromFileString(TASK2));
+
+		assertEquals(395871680, first.getId());
+		assertEquals(TaskList.FIRST_ID, second.getId());
+		assertEquals(1, list.getItem(second.getId()));
+	}
+
+	@Test
+	public void testIndexesFollowChanges() {
+		TaskList list = new TaskList();
+		list.addToList(Task.createTaskFromFileString(TASK1));
+		list.addToList(Task.createTaskFromFileString(TASK2));
+		DateTime april = new DateTime("2014-04-01");
+		DateTime may = new DateTime("2014-05-01");
+
+		assertEquals(Arrays.asList(0, 1), list.findEndingBetween(april, may));
+		assertEquals(Arrays.asList(1), list.findWithPriority("HIGH"));
+		assertEquals(Arrays.asList(), list.findCompleted(true));
+
+		list.editListItem(0).setCompleted(true);
+		list.getListItem(0).setEndDate(may);
+		list.markUpdated(0);
+		assertEquals(Arrays.asList(0), list.findCompleted(true));
+		assertEquals(Arrays.asList(1), list.findEndingBetween(april, new DateTime("2014-04-30")));
+
+		list.swap(0, 1);
+		list.deleteListItem(0);
+		assertEquals(Arrays.asList(0), list.findCompleted(true));
+		assertEquals(Arrays.asList(), list.findWithPriority("HIGH"));
+	}
+
+	@Test
+	public void testFindOverlapping() {
+		TaskList list = new TaskList();
+		// from 13:00 on 2014-04-10 to the end of that day
+		list.addToList(Task.createTaskFromFileString(TASK1));
+		// all of 2014-04-23
+		list.addToList(Task.createTaskFromFileString(TASK2));
+		list.addToList(new Task("undated"));
+
+		assertEquals(Arrays.asList(0), list.findHappeningAt(new DateTime("2014-04-10 14:00")));
+		assertEquals(Arrays.asList(), list.findHappeningAt(new DateTime("2014-04-10 12:59")));
+		assertEquals(Arrays.asList(0, 1), list.findOverlapping(new DateTime("2014-04-10 23:00"),
+				new DateTime("2014-04-23")));
+		assertEquals(Arrays.asList(), list.findOverlapping(new DateTime("2014-04-11"),
+				new DateTime("2014-04-22")));
+
+		list.editListItem(1).setStartDate(new DateTime("2014-04-11"));
+		list.markUpdated(1);
+		assertEquals(Arrays.asList(1), list.findOverlapping(new DateTime("2014-04-11"),
+				new DateTime("2014-04-22")));
+	}
+
+	@Test
+	public void testFindOverlappingMatchesScan() {
+		Random random = new Random(2103);
+		DateTime firstDay = new DateTime("2014-01-01");
+		TaskList list = new TaskList();
+		for (int i = 0; i < 2000; i++) {
+			DateTime startDate = firstDay.plusDays(random.nextInt(365));
+			DateTime endDate = startDate.plusDays(random.nextInt(5));
+			list.addToList(new Task("task " + i, null, null, startDate, endDate, null, 0));
+		}
+		for (int i = 0; i < 500; i++) {
+			list.deleteListItem(random.nextInt(list.getSize()));
+		}
+		for (int i = 0; i < 50; i++) {
+			DateTime from = firstDay.plusDays(random.nextInt(365));
+			DateTime to = from.plusDays(random.nextInt(10));
+			ArrayList<Integer> expected = new ArrayList<Integer>();
+			for (int j = 0; j < list.getSize(); j++) {
+				Task task = list.getListItem(j);
+				if (!task.getStartDate().gt(to) && !task.getEndDate().lt(from)) {
+					expected.add(j);
+				}
+			}
+			assertEquals(expected, list.findOverlapping(from, to));
+		}
+	}
+
+	@Test
+	public void testCopiesShareTasksUntilEdited() {
+		TaskList list = new TaskList();
+		for (int i = 0; i < 5; i++) {
+			list.addToList(new Task("task " + i));
+		}
+		TaskList copy = new TaskList();
+		copy.deepCopy(list);
+		assertSame(list.getListItem(2), copy.getListItem(2));
+
+		list.editListItem(2).setDescription("changed");
+		list.markUpdated(2);
+		list.deleteListItem(0);
+		list.addToList(0, new Task("added"));
+		assertEquals("changed", list.getListItem(2).getDescription());
+		assertEquals("task 2", copy.getListItem(2).getDescription());
+		assertEquals("task 0", copy.getListItem(0).getDescription());
+		assertSame(list.getListItem(3), copy.getListItem(3));
+	}
+
+	@Test
+	public void testShownStringsFollowEdits() {
+		TaskList list = new TaskList();
+		list.addToList(Task.createTaskFromFileString(TASK1));
+		Task before = list.getListItem(0);
+		assertEquals("CS2103 Tutorial at 13:00 on Apr 10 2014 in Home", before.toString());
+		assertSame(before.toString(), before.toString());
+
+		list.editListItem(0).setLocation("COM1");
+		list.markUpdated(0);
+		Task after = list.getListItem(0);
+		assertEquals("CS2103 Tutorial at 13:00 on Apr 10 2014 in COM1", after.toString());
+		assertEquals("CS2103 TUTORIAL AT 13:00 ON APR 10 2014 IN COM1", after.toSearchString());
+		assertEquals("CS2103 TUTORIAL AT 13:00 ON APR 10 2014 IN HOME", before.toSearchString());
+	}
+
+	@Test
+	public void testChangesMatchArrayList() {
+		Random random = new Random(2103);
+		TaskList list = new TaskList();
+		ArrayList<Task> expected = new ArrayList<Task>();
+		for (int i = 0; i < 5000; i++) {
+			int operation = random.nextInt(4);
+			if (operation == 0 && !expected.isEmpty()) {
+				int j = random.nextInt(expected.size());
+				assertSame(expected.remove(j), list.deleteListItem(j));
+			} else if (operation == 1 && !expected.isEmpty()) {
+				int j = random.nextInt(expected.size());
+				int k = random.nextInt(expected.size());
+				list.swap(j, k);
+				expected.set(j, expected.set(k, expected.get(j)));
+			} else {
+				int j = random.nextInt(expected.size() + 1);
+				Task task = new Task("task " + i);
+				list.addToList(j, task);
+				expected.add(j, task);
+			}
+		}
+		assertEquals(expected, list.getList());
+		list.reverse();
+		Collections.reverse(expected);
+		assertEquals(expected, list.getList());
+	}
+}
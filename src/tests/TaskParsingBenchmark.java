@@ -0,0 +1,133 @@
+package tests;
+
+import hirondelle.date4j.DateTime;
+
+import todomato.Task;
+import todomato.TaskFileTokenizer;
+
+//@author A0096620E
+/**
+ * Compares the time taken to read task lines with TaskFileTokenizer against
+ * the previous String.split implementation, which is kept here as reference.
+ * Run as a Java application; each round parses the same lines after a warm
+ * up so that both paths are compiled.
+ *
+ */
+public class TaskParsingBenchmark {
+	private static final String[] LINES = {
+			"CS2103 Tutorial#13:00#null#2014-04-10#2014-04-10#Home#0#395871680#2014-04-09 20:27:24.669000000#LOW#false#null#null#null",
+			"ES1531 Exam Prep#null#null#null#2014-04-23#Home#0#-1379251807#2014-04-09 20:27:29.951000000#HIGH#false#null#null#null",
+			"Project meeting#10:00#12:00#2014-04-11#2014-04-11#COM1#7#1180238544#2014-04-09 20:30:01.102000000#MEDIUM#true#abc123#2014-04-10 08:00:00#2014-04-11 09:00" };
+	private static final int LINES_PER_ROUND = 100000;
+	private static final int WARM_UP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+
+	public static void main(String[] args) {
+		for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+			runSplit();
+			runTokenizer();
+		}
+		long splitTime = 0;
+		long tokenizerTime = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			splitTime += runSplit();
+			tokenizerTime += runTokenizer();
+		}
+		System.out.println(String.format("split:     %d ns/line", splitTime / (MEASURED_ROUNDS * LINES_PER_ROUND)));
+		System.out.println(String.format("tokenizer: %d ns/line", tokenizerTime / (MEASURED_ROUNDS * LINES_PER_ROUND)));
+	}
+
+	private static long runSplit() {
+		long start = System.nanoTime();
+		int checksum = 0;
+		for (int i = 0; i < LINES_PER_ROUND; i++) {
+			Task task = parseBySplit(LINES[i % LINES.length]);
+			checksum += touch(task);
+		}
+		return report(start, checksum);
+	}
+
+	private static long runTokenizer() {
+		long start = System.nanoTime();
+		int checksum = 0;
+		for (int i = 0; i < LINES_PER_ROUND; i++) {
+			Task task = TaskFileTokenizer.parse(LINES[i % LINES.length]);
+			checksum += touch(task);
+		}
+		return report(start, checksum);
+	}
+
+	/**
+	 * Reads the dates of task, as the program does when displaying it, so
+	 * that lazily parsed DateTimes are counted too
+	 */
+	private static int touch(Task task) {
+		int sum = (int) task.getId() + task.getTimeCreated().getSecond();
+		if (task.getEndDate() != null) {
+			sum += task.getEndDate().getDay();
+		}
+		if (task.getStartTime() != null) {
+			sum += task.getStartTime().getHour();
+		}
+		return sum;
+	}
+
+	private static long report(long start, int checksum) {
+		long elapsed = System.nanoTime() - start;
+		if (checksum == 42) {
+			System.out.println(checksum);
+		}
+		return elapsed;
+	}
+
+	/**
+	 * The implementation of Task.createTaskFromFileString before
+	 * TaskFileTokenizer
+	 */
+	private static Task parseBySplit(String fileInput) {
+		String[] parts = fileInput.split("#");
+		DateTime startTime = null;
+		DateTime endTime = null;
+		DateTime startDate = null;
+		DateTime endDate = null;
+		String location = null;
+		DateTime updateTime = null;
+		DateTime noticeTime = null;
+		if (DateTime.isParseable(parts[1])) {
+			startTime = new DateTime(parts[1]);
+		}
+		if (DateTime.isParseable(parts[2])) {
+			endTime = new DateTime(parts[2]);
+		}
+		if (DateTime.isParseable(parts[3])) {
+			startDate = new DateTime(parts[3]);
+		}
+		if (DateTime.isParseable(parts[4])) {
+			endDate = new DateTime(parts[4]);
+		}
+		if (!parts[5].equals("null")) {
+			location = parts[5];
+		}
+		if (DateTime.isParseable(parts[12])) {
+			updateTime = new DateTime(parts[12]);
+		}
+		if (DateTime.isParseable(parts[13])) {
+			noticeTime = new DateTime(parts[13]);
+		}
+		Task userTask = new Task(parts[0]);
+		userTask.setStartTime(startTime);
+		userTask.setEndTime(endTime);
+		userTask.setStartDate(startDate);
+		userTask.setEndDate(endDate);
+		userTask.setLocation(location);
+		userTask.setRecurrencePeriod(Integer.parseInt(parts[6]));
+		userTask.setId(Integer.parseInt(parts[7]));
+		userTask.setTimeCreated(new DateTime(parts[8]));
+		userTask.setPriorityLevel(parts[9]);
+		userTask.setCompleted(parts[10].equals("true"));
+		userTask.setEventId(parts[11]);
+		userTask.setUpdateTime(updateTime);
+		userTask.setNoticeTime(noticeTime);
+		return userTask;
+	}
+}
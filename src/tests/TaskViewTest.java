@@ -0,0 +1,81 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+import org.junit.Test;
+
+import todomato.Task;
+import todomato.TaskList;
+import todomato.TaskView;
+
+//@author A0120766H
+public class TaskViewTest {
+	private static final TaskView.Filter WITH_MILK = new TaskView.Filter() {
+		@Override
+		public ArrayList<Integer> select(TaskList list) {
+			ArrayList<Integer> indexes = new ArrayList<Integer>();
+			for (int i = 0; i < list.getSize(); i++) {
+				if (list.getListItem(i).getDescription().contains("milk")) {
+					indexes.add(i);
+				}
+			}
+			return indexes;
+		}
+	};
+	private static final Comparator<Task> BY_DESCRIPTION = new Comparator<Task>() {
+		@Override
+		public int compare(Task first, Task second) {
+			return first.getDescription().compareTo(second.getDescription());
+		}
+	};
+
+	private TaskList createList(String... descriptions) {
+		TaskList list = new TaskList();
+		for (String description : descriptions) {
+			list.addToList(new Task(description));
+		}
+		return list;
+	}
+
+	@Test
+	public void testViewLeavesListAsItIs() {
+		TaskList list = createList("milk tea", "bread", "milk", "eggs");
+		String listBefore = list.toString();
+		int versionBefore = list.getVersion();
+
+		TaskView view = new TaskView(list).filter(WITH_MILK).sort(BY_DESCRIPTION, false);
+		assertEquals("1: milk\r\n2: milk tea\r\n", view.toString());
+		assertEquals(2, view.getListIndex(0));
+		assertEquals(0, view.getListIndex(1));
+		assertEquals(-1, view.getListIndex(2));
+		assertEquals(listBefore, list.toString());
+		assertEquals(versionBefore, list.getVersion());
+	}
+
+	@Test
+	public void testViewFollowsChanges() {
+		TaskList list = createList("milk tea", "bread", "milk");
+		TaskView view = new TaskView(list).filter(WITH_MILK).sort(BY_DESCRIPTION, true);
+		assertEquals("1: milk tea\r\n2: milk\r\n", view.toString());
+
+		list.addToList(new Task("soy milk"));
+		list.deleteListItem(0);
+		assertEquals("1: soy milk\r\n2: milk\r\n", view.toString());
+		assertEquals(2, view.getListIndex(0));
+	}
+
+	@Test
+	public void testUnfilteredKeepsOrder() {
+		TaskList list = createList("c", "a", "b");
+		TaskView view = new TaskView(list).sort(BY_DESCRIPTION, false).filter(WITH_MILK);
+		assertTrue(view.isEmpty());
+
+		TaskView unfiltered = view.unfiltered(list);
+		assertEquals("1: a\r\n2: b\r\n3: c\r\n", unfiltered.toString());
+		assertFalse(unfiltered.isWholeList());
+		assertTrue(new TaskView(list).isWholeList());
+	}
+}
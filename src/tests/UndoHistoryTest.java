@@ -0,0 +1,275 @@
+package tests;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import todomato.Task;
+import todomato.TaskList;
+import todomato.UndoHistory;
+
+//@author A0120766H
+public class UndoHistoryTest {
+	private static final int NUMBER_OF_TASKS = 5000;
+	private static final int NUMBER_OF_CHANGES = 10;
+	private static final int DEPTH = 4;
+	private static final long SMALL_BUDGET = 1024;
+	private static final long LOG_THRESHOLD = 4096;
+	private static final int NUMBER_OF_ROUNDS = 50;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Makes NUMBER_OF_CHANGES changes to list, each replacing its first Task
+	 * @return list as it was before each change
+	 */
+	private ArrayList<String> makeChanges(TaskList list, UndoHistory history) {
+		ArrayList<String> before = new ArrayList<String>();
+		for (int i = 0; i < NUMBER_OF_CHANGES; i++) {
+			before.add(list.toString());
+			history.startChange(list);
+			list.editListItem(0).setDescription("change " + i + " with a longer description to take up memory");
+			list.markUpdated(0);
+		}
+		return before;
+	}
+
+	/**
+	 * @return copy of list as it is read back from its data file after a
+	 *         restart
+	 */
+	private TaskList restart(TaskList list) {
+		TaskList restarted = new TaskList();
+		for (int i = 0; i < list.getSize(); i++) {
+			restarted.addToList(Task.createTaskFromFileString(list.getFileString(i)));
+		}
+		restarted.setNextId(list.getNextId());
+		return restarted;
+	}
+
+	private TaskList createList(int size) {
+		TaskList list = new TaskList();
+		for (int i = 0; i < size; i++) {
+			list.addToList(new Task("task " + i));
+		}
+		return list;
+	}
+
+	@Test
+	public void testUndoAndRedoCommands() {
+		TaskList list = createList(5);
+		UndoHistory history = new UndoHistory();
+		String original = list.toString();
+
+		history.startChange(list);
+		list.addToList(new Task("added"));
+		String added = list.toString();
+
+		// like "delete 2-4" and "update 1,2", each undone in one step
+		history.startChange(list);
+		for (int i = 3; i >= 1; i--) {
+			list.deleteListItem(i);
+		}
+		history.startChange(list);
+		for (int i = 0; i < 2; i++) {
+			list.editListItem(i).setDescription("edited " + i);
+			list.markUpdated(i);
+		}
+		String edited = list.toString();
+
+		assertTrue(history.undo(list));
+		assertTrue(history.undo(list));
+		assertEquals(added, list.toString());
+		assertTrue(history.undo(list));
+		assertEquals(original, list.toString());
+		assertFalse(history.undo(list));
+
+		assertTrue(history.redo(list));
+		assertTrue(history.redo(list));
+		assertTrue(history.redo(list));
+		assertEquals(edited, list.toString());
+		assertFalse(history.redo(list));
+	}
+
+	@Test
+	public void testNewChangeClearsRedo() {
+		TaskList list = createList(3);
+		UndoHistory history = new UndoHistory();
+		history.startChange(list);
+		list.deleteListItem(0);
+		history.undo(list);
+
+		history.startChange(list);
+		list.addToList(new Task("added"));
+		assertFalse(history.redo(list));
+	}
+
+	@Test
+	public void testRestructuredAndReplacedLists() {
+		TaskList list = createList(4);
+		UndoHistory history = new UndoHistory();
+		String original = list.toString();
+
+		history.startChange(list);
+		list.reverse();
+		list.deleteListItem(0);
+		// a list replaced by another, as after a sync
+		TaskList replaced = createList(2);
+		history.startChange(replaced);
+		replaced.addToList(new Task("added"));
+
+		history.undo(replaced);
+		history.undo(replaced);
+		assertEquals(original, replaced.toString());
+	}
+
+	@Test
+	public void testChangeHoldsOnlyTasksChanged() {
+		TaskList list = createList(NUMBER_OF_TASKS);
+		UndoHistory history = new UndoHistory();
+		ArrayList<Task> before = list.getList();
+
+		history.startChange(list);
+		list.editListItem(10).setLocation("home");
+		list.markUpdated(10);
+		history.startChange(list);
+		for (int i = 49; i >= 0; i--) {
+			list.deleteListItem(i);
+		}
+		assertEquals(51, history.getTaskCount());
+
+		history.undo(list);
+		history.undo(list);
+		assertEquals(before, list.getList());
+	}
+
+	@Test
+	public void testOldestChangesForgottenAfterDepth() {
+		TaskList list = createList(3);
+		UndoHistory history = new UndoHistory(DEPTH, Long.MAX_VALUE, null);
+		ArrayList<String> before = makeChanges(list, history);
+
+		assertEquals(DEPTH, history.getUndoCount());
+		for (int i = 0; i < DEPTH; i++) {
+			assertTrue(history.undo(list));
+		}
+		assertFalse(history.undo(list));
+		assertEquals(before.get(NUMBER_OF_CHANGES - DEPTH), list.toString());
+	}
+
+	@Test
+	public void testOldestChangesForgottenAfterBudget() {
+		TaskList list = createList(3);
+		UndoHistory history = new UndoHistory(NUMBER_OF_CHANGES, SMALL_BUDGET, null);
+		makeChanges(list, history);
+
+		assertTrue(history.getUndoCount() < NUMBER_OF_CHANGES);
+		assertTrue(history.getUndoCount() >= 1);
+		assertEquals(0, history.getSpilledCount());
+		int kept = history.getUndoCount();
+		for (int i = 0; i < kept; i++) {
+			assertTrue(history.undo(list));
+		}
+		assertFalse(history.undo(list));
+	}
+
+	@Test
+	public void testSpilledChangesCanBeUndone() {
+		TaskList list = createList(3);
+		File spillFile = new File(folder.getRoot(), "tasks.txt.undo");
+		UndoHistory history = new UndoHistory(NUMBER_OF_CHANGES, SMALL_BUDGET, spillFile);
+		ArrayList<String> before = makeChanges(list, history);
+		String after = list.toString();
+
+		assertEquals(NUMBER_OF_CHANGES, history.getUndoCount());
+		assertTrue(history.getSpilledCount() > 0);
+		assertTrue(history.getSpilledBytes() > 0);
+		assertTrue(spillFile.exists());
+		for (int i = NUMBER_OF_CHANGES - 1; i >= 0; i--) {
+			assertTrue(history.undo(list));
+			assertEquals(before.get(i), list.toString());
+		}
+		assertFalse(history.undo(list));
+		assertEquals(0, history.getSpilledCount());
+		assertFalse(spillFile.exists());
+
+		// changes read back from the file can be redone as well
+		for (int i = 0; i < NUMBER_OF_CHANGES; i++) {
+			assertTrue(history.redo(list));
+		}
+		assertEquals(after, list.toString());
+	}
+
+	@Test
+	public void testLoggedChangesUndoneAfterRestart() {
+		TaskList list = createList(3);
+		File logFile = new File(folder.getRoot(), "tasks.txt.undolog");
+		UndoHistory history = new UndoHistory(NUMBER_OF_CHANGES, Long.MAX_VALUE, logFile, Long.MAX_VALUE);
+		ArrayList<String> before = makeChanges(list, history);
+		String after = list.toString();
+		history.undo(list);
+		history.close();
+
+		TaskList restarted = restart(list);
+		UndoHistory reopened = new UndoHistory(NUMBER_OF_CHANGES, Long.MAX_VALUE, logFile, Long.MAX_VALUE);
+		assertTrue(reopened.redo(restarted));
+		assertEquals(after, restarted.toString());
+		// only the changes to be undone next were read from the log
+		assertTrue(reopened.getSpilledCount() > 0);
+		for (int i = NUMBER_OF_CHANGES - 1; i >= 0; i--) {
+			assertTrue(reopened.undo(restarted));
+			assertEquals(before.get(i), restarted.toString());
+		}
+		assertFalse(reopened.undo(restarted));
+		assertEquals(0, reopened.getSpilledCount());
+	}
+
+	@Test
+	public void testLogDiscardedForChangedList() {
+		TaskList list = createList(3);
+		File logFile = new File(folder.getRoot(), "tasks.txt.undolog");
+		UndoHistory history = new UndoHistory(NUMBER_OF_CHANGES, Long.MAX_VALUE, logFile, Long.MAX_VALUE);
+		makeChanges(list, history);
+		history.close();
+
+		// changed by another program while the log was not in use
+		TaskList restarted = restart(list);
+		restarted.addToList(new Task("added elsewhere"));
+		String changed = restarted.toString();
+		UndoHistory reopened = new UndoHistory(NUMBER_OF_CHANGES, Long.MAX_VALUE, logFile, Long.MAX_VALUE);
+		assertFalse(reopened.undo(restarted));
+		assertEquals(changed, restarted.toString());
+		assertFalse(logFile.exists() && logFile.length() > 0);
+	}
+
+	@Test
+	public void testLogCompactedAndBudgetKept() {
+		TaskList list = createList(3);
+		File logFile = new File(folder.getRoot(), "tasks.txt.undolog");
+		UndoHistory history = new UndoHistory(DEPTH, SMALL_BUDGET, logFile, LOG_THRESHOLD);
+		ArrayList<String> before = new ArrayList<String>();
+		for (int i = 0; i < NUMBER_OF_ROUNDS; i++) {
+			before.addAll(makeChanges(list, history));
+			history.flush();
+			assertTrue(logFile.length() < 2 * LOG_THRESHOLD);
+		}
+		assertEquals(DEPTH, history.getUndoCount());
+		assertTrue(history.getSpilledCount() > 0);
+		assertTrue(history.getMemoryBytes() <= SMALL_BUDGET);
+		history.close();
+
+		TaskList restarted = restart(list);
+		UndoHistory reopened = new UndoHistory(DEPTH, SMALL_BUDGET, logFile, LOG_THRESHOLD);
+		for (int i = before.size() - 1; i >= before.size() - DEPTH; i--) {
+			assertTrue(reopened.undo(restarted));
+			assertEquals(before.get(i), restarted.toString());
+		}
+		assertFalse(reopened.undo(restarted));
+	}
+}
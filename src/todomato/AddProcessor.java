@@ -100,9 +100,9 @@ public class AddProcessor extends Processor {
 		Task userTask = null;
 		userTask = parseTask(input);
 		list.addToList(userTask);
-		fileHandler.updateFile(list);
+		saveList();
 		
-		displayList = list;
+		showList();
 		
 		String statusString = "";
 		Boolean errorPresent = false;
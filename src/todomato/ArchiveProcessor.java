@@ -0,0 +1,273 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+
+//@author A0101578H
+/**
+ * This class contains methods to process archive commands by the user.
+ * Completed tasks that have not been changed for a number of days (see
+ * Settings) are moved out of the user's list into the TaskArchive, so that
+ * they are no longer loaded at start up or scanned by other commands.
+ *
+ * <p>
+ * The following archive commands are supported:
+ * <ul>
+ * <li> archive old completed tasks now
+ * <ul> <li> "archive" </ul>
+ * <li> search the archive, showing the tasks found
+ * <ul> <li> "archive find tutorial" </ul>
+ * <li> restore tasks shown by the last search to the end of the list
+ * <ul> <li> "archive restore 1,2" </ul>
+ * </ul>
+ *
+ * <p>
+ * Archiving and restoring cannot be undone, so both clear the undo and redo
+ * history.
+ *
+ */
+public class ArchiveProcessor extends Processor {
+	private static final String DELIMITER_FOR_ARGUMENT = "\\s*(,| )\\s*";
+	private static final String ARGUMENT_FIND = "find";
+	private static final String ARGUMENT_RESTORE = "restore";
+	private static final String TASKS = " task(s)";
+	private static final String SUCCESSFUL_ARCHIVE = "Archived: ";
+	private static final String SUCCESSFUL_RESTORE = "Restored: ";
+	private static final String SUCCESSFUL_FIND = "Archive search completed";
+	private static final String NO_TASKS_FOUND_MESSAGE = "No archived tasks found";
+	private static final String INVALID_ARGUMENT = "Enter archive, archive find <words> or archive restore <index>";
+	private static final String INVALID_INPUT_NO_SEARCH = "Search the archive before restoring";
+	private static final String ERROR_MESSAGE_NUMBER_FORMAT = "Restore failed: Index not in number format";
+	private static final String ERROR_MESSAGE_INDEX_OUT_OF_BOUND = "Restore failed: Index out of bound";
+	private static final String ERROR_MESSAGE_ARCHIVE = "Archive could not be read or written";
+	private static final int INDEX_OF_TYPE = 0;
+	private static final int INDEX_OF_SEARCH_TERM = 1;
+	// age used by the archive command when archiving at start up is off
+	private static final int DEFAULT_ARCHIVE_AGE = 30;
+
+	// numbers in the archive of the tasks shown by the last search
+	private static ArrayList<Integer> searchResults = null;
+	// tasks found by the last search, as shown by the display list
+	private static TaskList shownTasks = null;
+
+	/**
+	 * Method for processing the different archive commands
+	 *
+	 * @param argument: user-specified
+	 * @return success message
+	 * @throws InvalidInputException
+	 */
+	public static String processArchive(String argument) throws InvalidInputException {
+		String[] argArr = argument.trim().split(DELIMITER_FOR_ARGUMENT, 2);
+		String argType = argArr[INDEX_OF_TYPE];
+		try {
+			if (argType.isEmpty()) {
+				return SUCCESSFUL_ARCHIVE + archiveCompletedTasks(getCommandAge()) + TASKS;
+			}
+			if (argType.equalsIgnoreCase(ARGUMENT_FIND) && argArr.length > 1) {
+				return findArchivedTasks(argArr[INDEX_OF_SEARCH_TERM]);
+			}
+			if (argType.equalsIgnoreCase(ARGUMENT_RESTORE) && argArr.length > 1) {
+				return restoreTasks(argArr[INDEX_OF_SEARCH_TERM]);
+			}
+		} catch (IOException e) {
+			return ERROR_MESSAGE_ARCHIVE;
+		}
+		throw new InvalidInputException(INVALID_ARGUMENT);
+	}
+
+	/**
+	 * Archives old completed tasks when the program starts, if this has been
+	 * turned on in Settings
+	 */
+	public static void archiveOnStartUp() {
+		if (Settings.getArchiveAge() < 0) {
+			return;
+		}
+		try {
+			CommandExecutor.call(new Callable<Integer>() {
+				@Override
+				public Integer call() throws IOException {
+					synchronized (persistence.getLock()) {
+						return archiveCompletedTasks(Settings.getArchiveAge());
+					}
+				}
+			});
+		} catch (InvalidInputException e) {
+			return;
+		} catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Moves completed tasks that have not been changed for at least age days
+	 * to the archive. The tasks are on disk in the archive before they are
+	 * deleted from the list. The completed tasks are found through the index
+	 * of the list, which the find commands use as well.
+	 *
+	 * @param age: in days
+	 * @return number of tasks archived
+	 * @throws IOException
+	 */
+	private static int archiveCompletedTasks(int age) throws IOException {
+		DateTime today = DateTime.today(TimeZone.getDefault());
+		ArrayList<Task> archivedTasks = new ArrayList<Task>();
+		ArrayList<Integer> archivedIndices = new ArrayList<Integer>();
+		for (int i : list.findCompleted(true)) {
+			Task task = list.getListItem(i);
+			if (isOlderThan(task, age, today)) {
+				archivedTasks.add(task);
+				archivedIndices.add(i);
+			}
+		}
+		if (archivedTasks.isEmpty()) {
+			return 0;
+		}
+
+		archive.archive(archivedTasks);
+		for (int i = archivedIndices.size() - 1; i >= 0; i--) {
+			list.deleteListItem(archivedIndices.get(i));
+		}
+		clearHistory();
+		showList();
+		saveList();
+		return archivedTasks.size();
+	}
+
+	/**
+	 * @return age in days set up in Settings, or the default age if tasks
+	 *         are not archived at start up
+	 */
+	private static int getCommandAge() {
+		int age = Settings.getArchiveAge();
+		return age < 0 ? DEFAULT_ARCHIVE_AGE : age;
+	}
+
+	/**
+	 * Method for checking if a task was last changed at least age days ago
+	 *
+	 * @param task
+	 * @param age: in days
+	 * @param today
+	 * @return true if the task is old enough to be archived
+	 */
+	private static boolean isOlderThan(Task task, int age, DateTime today) {
+		DateTime lastChanged = task.getUpdateTime();
+		if (lastChanged == null) {
+			lastChanged = task.getTimeCreated();
+		}
+		try {
+			return lastChanged.numDaysFrom(today) >= age;
+		} catch (RuntimeException e) {
+			// time created was kept as text as it could not be read
+			return false;
+		}
+	}
+
+	/**
+	 * Shows the archived tasks that contain searchTerm
+	 *
+	 * @param searchTerm
+	 * @return a status message stating whether or not tasks have been found
+	 * @throws IOException
+	 */
+	private static String findArchivedTasks(String searchTerm) throws IOException {
+		// make search case insensitive by converting everything to uppercase
+		searchTerm = searchTerm.toUpperCase();
+		ArrayList<String> archivedTasks = archive.readTasks();
+		TaskList tasksFound = new TaskList();
+		searchResults = new ArrayList<Integer>();
+		for (int i = 0; i < archivedTasks.size(); i++) {
+			if (archivedTasks.get(i) == null) {
+				continue;
+			}
+			Task task = Task.createTaskFromFileString(archivedTasks.get(i));
+			if (task.toSearchString().contains(searchTerm)) {
+				tasksFound.addToList(task);
+				searchResults.add(i);
+			}
+		}
+		displayList = new TaskView(tasksFound);
+		shownTasks = tasksFound;
+
+		if (tasksFound.isEmpty()) {
+			return NO_TASKS_FOUND_MESSAGE;
+		}
+		return SUCCESSFUL_FIND;
+	}
+
+	/**
+	 * Adds the tasks shown by the last search back to the list. The list is
+	 * on disk before the tasks are marked as restored in the archive.
+	 *
+	 * @param indices: user-specified indices in the last search
+	 * @return success message with the number of tasks restored
+	 * @throws InvalidInputException
+	 * @throws IOException
+	 */
+	private static String restoreTasks(String indices) throws InvalidInputException, IOException {
+		if (searchResults == null) {
+			throw new InvalidInputException(INVALID_INPUT_NO_SEARCH);
+		}
+		int[] intIndices;
+		try {
+			String[] strIndices = indices.split(DELIMITER_FOR_ARGUMENT);
+			intIndices = new int[strIndices.length];
+			for (int i = 0; i < strIndices.length; i++) {
+				intIndices[i] = Integer.parseInt(strIndices[i]) - 1;
+			}
+		} catch (NumberFormatException e) {
+			return ERROR_MESSAGE_NUMBER_FORMAT;
+		}
+		Arrays.sort(intIndices);
+		for (int index : intIndices) {
+			if (index < 0 || index >= searchResults.size()) {
+				return ERROR_MESSAGE_INDEX_OUT_OF_BOUND;
+			}
+		}
+
+		ArrayList<String> archivedTasks = archive.readTasks();
+		ArrayList<Integer> restored = new ArrayList<Integer>();
+		for (int index : intIndices) {
+			int number = searchResults.get(index);
+			if (!restored.contains(number) && archivedTasks.get(number) != null) {
+				list.addToList(Task.createTaskFromFileString(archivedTasks.get(number)));
+				restored.add(number);
+			}
+		}
+		clearHistory();
+		showList();
+		saveList();
+		persistence.flush();
+		archive.markRestored(restored);
+		clearSearch();
+		return SUCCESSFUL_RESTORE + restored.size() + TASKS;
+	}
+
+	/**
+	 * Forgets the last search, e.g. after switching to another workspace
+	 */
+	public static void clearSearch() {
+		searchResults = null;
+		shownTasks = null;
+	}
+
+	/**
+	 * @param view
+	 * @return true if view shows the tasks found by the last search of the
+	 *         archive
+	 */
+	static boolean isShowingArchive(TaskView view) {
+		return shownTasks != null && view.getTaskList() == shownTasks;
+	}
+
+	private static void clearHistory() {
+		history.clear();
+	}
+}
@@ -0,0 +1,604 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+//@author A0099332Y
+/**
+ * This class stores a TaskList in a binary file that is accessed through a
+ * MappedByteBuffer, so that saving a change only rewrites the records of the
+ * tasks that were changed.
+ *
+ * <p>
+ * The records file starts with a header holding the number of record slots,
+ * the first slot of the list, the head of the free-list, the length of the
+ * string heap and the next id of the list. It is followed by fixed-width records, one per slot, that
+ * hold the numeric and date fields of a task, a link to the slot of the next
+ * task in the list and references into the string heap. Descriptions,
+ * locations and other strings are kept in a separate heap file that is only
+ * appended to, and rebuilt when most of it is no longer referenced.
+ *
+ * <p>
+ * Slots of deleted tasks are linked into the free-list and reused by the next
+ * task that is added. Changes that cannot be expressed per task (sorting,
+ * changes to the sync time or login) rewrite every record.
+ *
+ */
+public class BinaryTaskStore implements TaskListListener {
+
+	private static final String RECORDS_EXTENSION = ".bin";
+	private static final String HEAP_EXTENSION = ".heap";
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	private static final int MAGIC = 0x54444D42;
+	private static final int VERSION = 3;
+	private static final int NO_SLOT = -1;
+	private static final int NO_STRING = -1;
+	private static final int INITIAL_CAPACITY = 64 * 1024;
+	private static final int MIN_GARBAGE_TO_COMPACT = 64 * 1024;
+
+	private static final int HEADER_SIZE = 64;
+	private static final int HEADER_MAGIC = 0;
+	private static final int HEADER_VERSION = 4;
+	private static final int HEADER_SLOT_COUNT = 8;
+	private static final int HEADER_FIRST_SLOT = 12;
+	private static final int HEADER_FREE_HEAD = 16;
+	private static final int HEADER_LIVE_COUNT = 20;
+	private static final int HEADER_HEAP_LENGTH = 24;
+	private static final int HEADER_SYNC_TIME = 28;
+	private static final int HEADER_USER_NAME = 36;
+	private static final int HEADER_PASSWORD = 44;
+	private static final int HEADER_NEXT_ID = 52;
+
+	private static final int DATE_TIME_SIZE = 12;
+	private static final int STRING_REF_SIZE = 8;
+	private static final int RECORD_FLAGS = 0;
+	private static final int RECORD_NEXT = 4;
+	private static final int RECORD_ID = 8;
+	private static final int RECORD_RECUR = 12;
+	private static final int RECORD_START_TIME = 16;
+	private static final int RECORD_END_TIME = RECORD_START_TIME + DATE_TIME_SIZE;
+	private static final int RECORD_START_DATE = RECORD_END_TIME + DATE_TIME_SIZE;
+	private static final int RECORD_END_DATE = RECORD_START_DATE + DATE_TIME_SIZE;
+	private static final int RECORD_TIME_CREATED = RECORD_END_DATE + DATE_TIME_SIZE;
+	private static final int RECORD_UPDATE_TIME = RECORD_TIME_CREATED + DATE_TIME_SIZE;
+	private static final int RECORD_NOTICE_TIME = RECORD_UPDATE_TIME + DATE_TIME_SIZE;
+	private static final int RECORD_DESCRIPTION = RECORD_NOTICE_TIME + DATE_TIME_SIZE;
+	private static final int RECORD_LOCATION = RECORD_DESCRIPTION + STRING_REF_SIZE;
+	private static final int RECORD_PRIORITY = RECORD_LOCATION + STRING_REF_SIZE;
+	private static final int RECORD_EVENT_ID = RECORD_PRIORITY + STRING_REF_SIZE;
+	private static final int RECORD_ID_HIGH = RECORD_EVENT_ID + STRING_REF_SIZE;
+	private static final int RECORD_SIZE = RECORD_ID_HIGH + 4;
+	private static final int[] RECORD_STRINGS = { RECORD_DESCRIPTION, RECORD_LOCATION,
+			RECORD_PRIORITY, RECORD_EVENT_ID };
+
+	private static final int FLAG_IN_USE = 1;
+	private static final int FLAG_COMPLETED = 2;
+
+	private static final int DATE_TIME_PRESENT = 1;
+	private static final int YEAR_SHIFT = 1;
+	private static final int MONTH_SHIFT = 17;
+	private static final int DAY_SHIFT = 21;
+	private static final int HOUR_SHIFT = 27;
+	private static final int MINUTE_SHIFT = 32;
+	private static final int SECOND_SHIFT = 39;
+	private static final int DAY_MASK = 0x3F;
+	private static final int NO_NANOSECONDS = -1;
+
+	private File recordsFile;
+	private File heapFile;
+	private MappedByteBuffer records;
+	private MappedByteBuffer heap;
+
+	private int slotCount;
+	private int firstSlot = NO_SLOT;
+	private int freeHead = NO_SLOT;
+	private int heapLength;
+	private long heapGarbage;
+
+	private TaskList trackedList;
+	private ArrayList<Integer> slots = new ArrayList<Integer>();
+	private int[] nextSlot = new int[0];
+	private Map<Integer, Task> dirtyRecords = new LinkedHashMap<Integer, Task>();
+	private Set<Integer> dirtyLinks = new HashSet<Integer>();
+	private boolean isRewriteNeeded;
+
+	/**
+	 * @param dataFile the text data file that this store replaces
+	 */
+	public BinaryTaskStore(File dataFile) {
+		String path = dataFile.getAbsolutePath();
+		this.recordsFile = new File(path + RECORDS_EXTENSION);
+		this.heapFile = new File(path + RECORDS_EXTENSION + HEAP_EXTENSION);
+	}
+
+	/**
+	 * @return true if a binary store has been written for the data file
+	 */
+	public boolean exists() {
+		return recordsFile.exists() && recordsFile.length() >= HEADER_SIZE;
+	}
+
+	public File getFile() {
+		return recordsFile;
+	}
+
+	/**
+	 * Deletes the files of the store, after it has been converted back to the
+	 * text format
+	 *
+	 * @return true if both files were deleted
+	 */
+	public boolean delete() {
+		records = null;
+		heap = null;
+		boolean isRecordsDeleted = recordsFile.delete();
+		return heapFile.delete() && isRecordsDeleted;
+	}
+
+	/**
+	 * Stops recording the changes made to the list, once it is no longer
+	 * saved to this store
+	 */
+	public void close() {
+		if (trackedList != null) {
+			trackedList.removeListener(this);
+			trackedList = null;
+		}
+	}
+
+	/**
+	 * Reads every task in the store, following the links between records,
+	 * and starts recording the changes made to the returned list.
+	 *
+	 * @return the stored task list
+	 * @throws IOException if the store cannot be read
+	 */
+	public TaskList load() throws IOException {
+		open();
+		if (records.getInt(HEADER_MAGIC) != MAGIC || records.getInt(HEADER_VERSION) != VERSION) {
+			throw new IOException(recordsFile + " is not a task store");
+		}
+		slotCount = records.getInt(HEADER_SLOT_COUNT);
+		firstSlot = records.getInt(HEADER_FIRST_SLOT);
+		freeHead = records.getInt(HEADER_FREE_HEAD);
+		heapLength = records.getInt(HEADER_HEAP_LENGTH);
+
+		TaskList taskList = new TaskList();
+		taskList.setLastSyncTime(new DateTime(readString(HEADER_SYNC_TIME)));
+		taskList.setUserName(readString(HEADER_USER_NAME));
+		taskList.setPassword(readString(HEADER_PASSWORD));
+		taskList.setNextId(records.getLong(HEADER_NEXT_ID));
+
+		nextSlot = new int[Math.max(slotCount, 1)];
+		for (int slot = 0; slot < slotCount; slot++) {
+			nextSlot[slot] = records.getInt(recordOffset(slot) + RECORD_NEXT);
+		}
+		ArrayList<Integer> listedSlots = new ArrayList<Integer>();
+		long liveStringBytes = 0;
+		for (int slot = firstSlot; slot != NO_SLOT; slot = nextSlot[slot]) {
+			if (slot < 0 || slot >= slotCount || listedSlots.size() == slotCount) {
+				throw new IOException(recordsFile + " has a broken link at slot " + slot);
+			}
+			taskList.addToList(readRecord(slot));
+			listedSlots.add(slot);
+			liveStringBytes += getStringBytes(slot);
+		}
+		heapGarbage = heapLength - liveStringBytes;
+
+		track(taskList, listedSlots);
+		return taskList;
+	}
+
+	/**
+	 * Saves the changes made to taskList since the last save by rewriting
+	 * only the records of the tasks involved, or every record if the list
+	 * cannot be saved that way.
+	 *
+	 * @param taskList
+	 * @throws IOException
+	 */
+	public void save(TaskList taskList) throws IOException {
+		if (taskList != trackedList || isRewriteNeeded || heapGarbage > getCompactionThreshold()) {
+			writeAll(taskList);
+			return;
+		}
+		if (dirtyRecords.isEmpty() && dirtyLinks.isEmpty()) {
+			return;
+		}
+
+		ensureCapacity(slotCount);
+		for (Map.Entry<Integer, Task> entry : dirtyRecords.entrySet()) {
+			int slot = entry.getKey();
+			if (slot < records.getInt(HEADER_SLOT_COUNT)) {
+				heapGarbage += getStringBytes(slot);
+			}
+			if (entry.getValue() == null) {
+				writeFreeRecord(slot);
+			} else {
+				writeRecord(slot, entry.getValue());
+			}
+		}
+		for (int slot : dirtyLinks) {
+			records.putInt(recordOffset(slot) + RECORD_NEXT, nextSlot[slot]);
+		}
+		heap.force();
+		records.force();
+		writeHeader(taskList);
+		records.force();
+
+		dirtyRecords.clear();
+		dirtyLinks.clear();
+	}
+
+	/**
+	 * Replaces the contents of the store with taskList, which also drops
+	 * every string in the heap that is no longer used, and starts recording
+	 * the changes made to taskList.
+	 *
+	 * @param taskList
+	 * @throws IOException
+	 */
+	public void writeAll(TaskList taskList) throws IOException {
+		open();
+		int size = taskList.getSize();
+		slotCount = size;
+		firstSlot = size == 0 ? NO_SLOT : 0;
+		freeHead = NO_SLOT;
+		heapLength = 0;
+		heapGarbage = 0;
+		nextSlot = new int[Math.max(size, 1)];
+		ensureCapacity(size);
+
+		ArrayList<Integer> listedSlots = new ArrayList<Integer>(size);
+		for (int slot = 0; slot < size; slot++) {
+			nextSlot[slot] = slot + 1 < size ? slot + 1 : NO_SLOT;
+			writeRecord(slot, taskList.getListItem(slot));
+			listedSlots.add(slot);
+		}
+		writeString(HEADER_SYNC_TIME, String.valueOf(taskList.getLastSyncTime()));
+		writeString(HEADER_USER_NAME, String.valueOf(taskList.getUserName()));
+		writeString(HEADER_PASSWORD, String.valueOf(taskList.getPassword()));
+		heap.force();
+		records.force();
+		writeHeader(taskList);
+		records.force();
+
+		track(taskList, listedSlots);
+	}
+
+	@Override
+	public void taskAdded(int index, Task task) {
+		int slot = allocateSlot();
+		nextSlot[slot] = index < slots.size() ? slots.get(index) : NO_SLOT;
+		linkAfter(index - 1, slot);
+		slots.add(index, slot);
+		dirtyRecords.put(slot, task);
+	}
+
+	@Override
+	public void taskRemoved(int index, Task task) {
+		int slot = slots.remove(index);
+		linkAfter(index - 1, nextSlot[slot]);
+		nextSlot[slot] = freeHead;
+		freeHead = slot;
+		dirtyRecords.put(slot, null);
+	}
+
+	@Override
+	public void taskUpdated(int index, Task task) {
+		dirtyRecords.put(slots.get(index), task);
+	}
+
+	@Override
+	public void listRestructured() {
+		isRewriteNeeded = true;
+	}
+
+	/**
+	 * Starts recording changes made to taskList, whose tasks are stored in
+	 * listedSlots in order. Stops recording the previous list.
+	 *
+	 * @param taskList
+	 * @param listedSlots
+	 */
+	private void track(TaskList taskList, ArrayList<Integer> listedSlots) {
+		if (trackedList != null) {
+			trackedList.removeListener(this);
+		}
+		trackedList = taskList;
+		trackedList.addListener(this);
+		slots = listedSlots;
+		dirtyRecords.clear();
+		dirtyLinks.clear();
+		isRewriteNeeded = false;
+	}
+
+	/**
+	 * @return a free slot, taken from the free-list if possible
+	 */
+	private int allocateSlot() {
+		int slot = freeHead;
+		if (slot != NO_SLOT) {
+			freeHead = nextSlot[slot];
+			return slot;
+		}
+		slot = slotCount++;
+		if (slot >= nextSlot.length) {
+			int[] grown = new int[nextSlot.length * 2];
+			System.arraycopy(nextSlot, 0, grown, 0, nextSlot.length);
+			nextSlot = grown;
+		}
+		return slot;
+	}
+
+	/**
+	 * Makes the task at position index in the list link to slot
+	 *
+	 * @param index position in the list, or -1 for the start of the list
+	 * @param slot
+	 */
+	private void linkAfter(int index, int slot) {
+		if (index < 0) {
+			firstSlot = slot;
+			return;
+		}
+		int previous = slots.get(index);
+		nextSlot[previous] = slot;
+		dirtyLinks.add(previous);
+	}
+
+	private long getCompactionThreshold() {
+		return Math.max(MIN_GARBAGE_TO_COMPACT, heapLength - heapGarbage);
+	}
+
+	/**
+	 * Maps the records and heap files, creating them if needed
+	 *
+	 * @throws IOException
+	 */
+	private void open() throws IOException {
+		if (records == null) {
+			records = map(recordsFile, Math.max(recordsFile.length(), INITIAL_CAPACITY));
+		}
+		if (heap == null) {
+			heap = map(heapFile, Math.max(heapFile.length(), INITIAL_CAPACITY));
+		}
+	}
+
+	private static MappedByteBuffer map(File target, long size) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(target, "rw");
+		try {
+			return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Grows the records file so that it can hold slotsNeeded records
+	 *
+	 * @param slotsNeeded
+	 * @throws IOException
+	 */
+	private void ensureCapacity(int slotsNeeded) throws IOException {
+		long needed = recordOffset(slotsNeeded);
+		if (needed > records.capacity()) {
+			records.force();
+			records = map(recordsFile, Math.max(needed, records.capacity() * 2L));
+		}
+	}
+
+	/**
+	 * Grows the heap file so that it can hold bytesNeeded more bytes
+	 *
+	 * @param bytesNeeded
+	 * @throws IOException
+	 */
+	private void ensureHeapCapacity(int bytesNeeded) throws IOException {
+		long needed = (long) heapLength + bytesNeeded;
+		if (needed > Integer.MAX_VALUE) {
+			throw new IOException(heapFile + " is full");
+		}
+		if (needed > heap.capacity()) {
+			heap.force();
+			heap = map(heapFile, Math.min(Integer.MAX_VALUE, Math.max(needed, heap.capacity() * 2L)));
+		}
+	}
+
+	/**
+	 * Writes the header, which is done last so that it only refers to records
+	 * and strings that are already on disk
+	 *
+	 * @param taskList
+	 */
+	private void writeHeader(TaskList taskList) {
+		records.putInt(HEADER_MAGIC, MAGIC);
+		records.putInt(HEADER_VERSION, VERSION);
+		records.putInt(HEADER_SLOT_COUNT, slotCount);
+		records.putInt(HEADER_FIRST_SLOT, firstSlot);
+		records.putInt(HEADER_FREE_HEAD, freeHead);
+		records.putInt(HEADER_LIVE_COUNT, taskList.getSize());
+		records.putInt(HEADER_HEAP_LENGTH, heapLength);
+		records.putLong(HEADER_NEXT_ID, taskList.getNextId());
+	}
+
+	private int recordOffset(int slot) {
+		return HEADER_SIZE + slot * RECORD_SIZE;
+	}
+
+	private Task readRecord(int slot) {
+		int offset = recordOffset(slot);
+		Task task = new Task(readString(offset + RECORD_DESCRIPTION));
+		task.setStartTime(readDateTime(offset + RECORD_START_TIME));
+		task.setEndTime(readDateTime(offset + RECORD_END_TIME));
+		task.setStartDate(readDateTime(offset + RECORD_START_DATE));
+		task.setEndDate(readDateTime(offset + RECORD_END_DATE));
+		task.setLocation(readString(offset + RECORD_LOCATION));
+		task.setRecurrencePeriod(records.getInt(offset + RECORD_RECUR));
+		long id = records.getInt(offset + RECORD_ID) & 0xFFFFFFFFL;
+		task.setId((long) records.getInt(offset + RECORD_ID_HIGH) << 32 | id);
+		task.setTimeCreated(readDateTime(offset + RECORD_TIME_CREATED));
+		task.setPriorityLevel(readString(offset + RECORD_PRIORITY));
+		task.setCompleted((records.getInt(offset + RECORD_FLAGS) & FLAG_COMPLETED) != 0);
+		task.setEventId(readString(offset + RECORD_EVENT_ID));
+		task.setUpdateTime(readDateTime(offset + RECORD_UPDATE_TIME));
+		task.setNoticeTime(readDateTime(offset + RECORD_NOTICE_TIME));
+		return task;
+	}
+
+	private void writeRecord(int slot, Task task) throws IOException {
+		int offset = recordOffset(slot);
+		int flags = FLAG_IN_USE;
+		if (Boolean.TRUE.equals(task.getCompleted())) {
+			flags |= FLAG_COMPLETED;
+		}
+		writeString(offset + RECORD_DESCRIPTION, task.getDescription());
+		writeString(offset + RECORD_LOCATION, task.getLocation());
+		writeString(offset + RECORD_PRIORITY, task.getPriorityLevel());
+		writeString(offset + RECORD_EVENT_ID, task.getEventId());
+		writeDateTime(offset + RECORD_START_TIME, task.getStartTime());
+		writeDateTime(offset + RECORD_END_TIME, task.getEndTime());
+		writeDateTime(offset + RECORD_START_DATE, task.getStartDate());
+		writeDateTime(offset + RECORD_END_DATE, task.getEndDate());
+		writeDateTime(offset + RECORD_TIME_CREATED, task.getTimeCreated());
+		writeDateTime(offset + RECORD_UPDATE_TIME, task.getUpdateTime());
+		writeDateTime(offset + RECORD_NOTICE_TIME, task.getNoticeTime());
+		records.putInt(offset + RECORD_ID, (int) task.getId());
+		records.putInt(offset + RECORD_ID_HIGH, (int) (task.getId() >>> 32));
+		records.putInt(offset + RECORD_RECUR, task.getRecurrencePeriod());
+		records.putInt(offset + RECORD_NEXT, nextSlot[slot]);
+		records.putInt(offset + RECORD_FLAGS, flags);
+	}
+
+	private void writeFreeRecord(int slot) {
+		int offset = recordOffset(slot);
+		for (int stringOffset : RECORD_STRINGS) {
+			records.putInt(offset + stringOffset, NO_STRING);
+		}
+		records.putInt(offset + RECORD_NEXT, nextSlot[slot]);
+		records.putInt(offset + RECORD_FLAGS, 0);
+	}
+
+	/**
+	 * @param slot
+	 * @return number of heap bytes used by the strings of the record in slot
+	 */
+	private long getStringBytes(int slot) {
+		int offset = recordOffset(slot);
+		long bytes = 0;
+		for (int stringOffset : RECORD_STRINGS) {
+			if (records.getInt(offset + stringOffset) != NO_STRING) {
+				bytes += records.getInt(offset + stringOffset + 4);
+			}
+		}
+		return bytes;
+	}
+
+	/**
+	 * @param refOffset position of a string reference in the records file
+	 * @return the referenced string, or null
+	 */
+	private String readString(int refOffset) {
+		int heapOffset = records.getInt(refOffset);
+		if (heapOffset == NO_STRING) {
+			return null;
+		}
+		byte[] bytes = new byte[records.getInt(refOffset + 4)];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = heap.get(heapOffset + i);
+		}
+		return new String(bytes, CHARSET);
+	}
+
+	/**
+	 * Appends value to the heap and stores a reference to it
+	 *
+	 * @param refOffset position of the string reference in the records file
+	 * @param value
+	 * @throws IOException
+	 */
+	private void writeString(int refOffset, String value) throws IOException {
+		if (value == null) {
+			records.putInt(refOffset, NO_STRING);
+			records.putInt(refOffset + 4, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(CHARSET);
+		ensureHeapCapacity(bytes.length);
+		for (int i = 0; i < bytes.length; i++) {
+			heap.put(heapLength + i, bytes[i]);
+		}
+		records.putInt(refOffset, heapLength);
+		records.putInt(refOffset + 4, bytes.length);
+		heapLength += bytes.length;
+	}
+
+	/**
+	 * Date and time fields are packed into a long holding the year, month,
+	 * day, hour, minute and second, each offset by one so that 0 marks a
+	 * field that is absent, followed by an int for the nanoseconds.
+	 * The day takes 6 bits, as the 31st is stored as 32.
+	 *
+	 * @param offset
+	 * @return DateTime stored at offset, or null
+	 */
+	private DateTime readDateTime(int offset) {
+		long packed = records.getLong(offset);
+		if ((packed & DATE_TIME_PRESENT) == 0) {
+			return null;
+		}
+		int nanoseconds = records.getInt(offset + 8);
+		return new DateTime(unpack(packed, YEAR_SHIFT, 0xFFFF), unpack(packed, MONTH_SHIFT, 0xF),
+				unpack(packed, DAY_SHIFT, DAY_MASK), unpack(packed, HOUR_SHIFT, 0x1F),
+				unpack(packed, MINUTE_SHIFT, 0x7F), unpack(packed, SECOND_SHIFT, 0x7F),
+				nanoseconds == NO_NANOSECONDS ? null : Integer.valueOf(nanoseconds));
+	}
+
+	private void writeDateTime(int offset, DateTime dateTime) {
+		long packed = 0;
+		int nanoseconds = NO_NANOSECONDS;
+		if (dateTime != null) {
+			try {
+				packed = DATE_TIME_PRESENT | pack(dateTime.getYear(), YEAR_SHIFT)
+						| pack(dateTime.getMonth(), MONTH_SHIFT) | pack(dateTime.getDay(), DAY_SHIFT)
+						| pack(dateTime.getHour(), HOUR_SHIFT) | pack(dateTime.getMinute(), MINUTE_SHIFT)
+						| pack(dateTime.getSecond(), SECOND_SHIFT);
+				if (dateTime.getNanoseconds() != null) {
+					nanoseconds = dateTime.getNanoseconds();
+				}
+			} catch (RuntimeException e) {
+				// a DateTime that cannot be parsed is stored as null
+				packed = 0;
+				nanoseconds = NO_NANOSECONDS;
+			}
+		}
+		records.putLong(offset, packed);
+		records.putInt(offset + 8, nanoseconds);
+	}
+
+	private static long pack(Integer field, int shift) {
+		if (field == null) {
+			return 0;
+		}
+		return (field.longValue() + 1) << shift;
+	}
+
+	private static Integer unpack(long packed, int shift, int mask) {
+		int field = (int) ((packed >>> shift) & mask);
+		if (field == 0) {
+			return null;
+		}
+		return field - 1;
+	}
+}
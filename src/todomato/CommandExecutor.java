@@ -0,0 +1,140 @@
+package todomato;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+//@author A0120766H
+/**
+ * This class runs every change to the lists of the Processor on one writer
+ * thread, in the order they were submitted, whether they come from commands
+ * typed into the console or the window, or from background threads such as
+ * the data file watcher and the workspace loader.
+ *
+ * <p>
+ * After each change, the Processor publishes a snapshot of the list and the
+ * display list (see Processor.getSnapshot), so that threads that only read,
+ * such as the notification scan, never wait for a command to finish.
+ *
+ */
+class CommandExecutor {
+
+	private static final String WRITER_THREAD_NAME = "todomato-writer";
+
+	private static volatile Thread writerThread;
+	private static ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, WRITER_THREAD_NAME);
+			thread.setDaemon(true);
+			writerThread = thread;
+			return thread;
+		}
+	});
+
+	/**
+	 * Runs change on the writer thread and waits for it to finish. A change
+	 * made on the writer thread itself is run right away.
+	 *
+	 * @param change
+	 * @return the result of change
+	 * @throws InvalidInputException thrown by change
+	 * @throws IOException thrown by change
+	 */
+	static <T> T call(Callable<T> change) throws InvalidInputException, IOException {
+		if (Thread.currentThread() == writerThread) {
+			return runAndPublish(change);
+		}
+		Future<T> result = writer.submit(publishing(change));
+		boolean isInterrupted = false;
+		try {
+			while (true) {
+				try {
+					return result.get();
+				} catch (InterruptedException e) {
+					// the change cannot be taken back once it has started
+					isInterrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			throw rethrow(e.getCause());
+		} finally {
+			if (isInterrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Runs change on the writer thread after the changes submitted before
+	 * it, without waiting for it
+	 *
+	 * @param change
+	 */
+	static void submit(final Runnable change) {
+		if (Thread.currentThread() == writerThread) {
+			change.run();
+			Processor.finishChange();
+			return;
+		}
+		writer.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					change.run();
+				} finally {
+					Processor.finishChange();
+				}
+			}
+		});
+	}
+
+	private static <T> Callable<T> publishing(final Callable<T> change) {
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				return runAndPublish(change);
+			}
+		};
+	}
+
+	private static <T> T runAndPublish(Callable<T> change) throws InvalidInputException, IOException {
+		try {
+			return change.call();
+		} catch (InvalidInputException e) {
+			throw e;
+		} catch (IOException e) {
+			throw e;
+		} catch (Exception e) {
+			throw rethrow(e);
+		} finally {
+			Processor.finishChange();
+		}
+	}
+
+	/**
+	 * @param cause thrown by a change
+	 * @return cause to throw, if it is not thrown here
+	 * @throws InvalidInputException
+	 * @throws IOException
+	 */
+	private static RuntimeException rethrow(Throwable cause) throws InvalidInputException, IOException {
+		if (cause instanceof InvalidInputException) {
+			throw (InvalidInputException) cause;
+		}
+		if (cause instanceof IOException) {
+			throw (IOException) cause;
+		}
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new RuntimeException(cause);
+	}
+}
@@ -0,0 +1,127 @@
+package todomato;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.logging.Logger;
+
+//@author A0099332Y
+/**
+ * This class watches a data file with a WatchService and runs a listener on
+ * its own thread whenever the file is created or modified.
+ *
+ * <p>
+ * The directory of the file is watched, as a data file is replaced by
+ * renaming a temporary file over it. Events that arrive close together, as
+ * an editor saving the file usually causes several, are reported once. The
+ * listener is also run for the saves of FileHandler itself, and should check
+ * whether the file has really changed.
+ *
+ */
+public class DataFileWatcher {
+
+	private static final String WATCHER_THREAD_NAME = "data-file-watcher";
+	private static final String WATCH_FAILED_MSG = "Could not watch %1$s for changes";
+	// time to wait for the other events of the same save
+	private static final long SETTLE_DELAY = 100;
+	private static final Logger logger = Logger.getLogger(DataFileWatcher.class.getName());
+
+	private Path directory;
+	private Path fileName;
+	private Runnable listener;
+	private WatchService watchService;
+
+	/**
+	 * @param dataFile file to watch
+	 * @param listener run whenever dataFile may have changed
+	 */
+	public DataFileWatcher(File dataFile, Runnable listener) {
+		Path path = dataFile.getAbsoluteFile().toPath();
+		this.directory = path.getParent();
+		this.fileName = path.getFileName();
+		this.listener = listener;
+	}
+
+	/**
+	 * Starts watching the file on a daemon thread
+	 *
+	 * @return true if the file is being watched
+	 */
+	public boolean start() {
+		try {
+			watchService = directory.getFileSystem().newWatchService();
+			directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+		} catch (IOException e) {
+			logger.warning(String.format(WATCH_FAILED_MSG, fileName));
+			return false;
+		}
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		}, WATCHER_THREAD_NAME);
+		thread.setDaemon(true);
+		thread.start();
+		return true;
+	}
+
+	/**
+	 * Stops watching the file. The listener is not run after this returns,
+	 * unless it is already running.
+	 */
+	public void stop() {
+		if (watchService == null) {
+			return;
+		}
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			return;
+		}
+	}
+
+	private void watch() {
+		try {
+			while (true) {
+				if (!isFileChanged(watchService.take())) {
+					continue;
+				}
+				Thread.sleep(SETTLE_DELAY);
+				WatchKey key = watchService.poll();
+				while (key != null) {
+					isFileChanged(key);
+					key = watchService.poll();
+				}
+				listener.run();
+			}
+		} catch (InterruptedException e) {
+			return;
+		} catch (ClosedWatchServiceException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Takes the events from key and resets it
+	 *
+	 * @param key
+	 * @return true if one of the events was for the watched file
+	 */
+	private boolean isFileChanged(WatchKey key) {
+		boolean isChanged = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+				isChanged = true;
+			}
+		}
+		key.reset();
+		return isChanged;
+	}
+}
@@ -266,10 +266,10 @@ public class DataSyncer extends Processor {
 		DateTime timeCreated = stringToDateTime(tJson.get(TIME_CREATED_KEY_IN_JSON).getAsString());
 		
 		ArrayList<DateTime> taskTime = createDateTimeForATask(timeCode, startDate, startTime, endDate, endTime);
-		Integer id = null;
+		Long id = null;
 		
 		if (!idJson.isJsonNull()){
-			id = Integer.parseInt(idJson.getAsString());
+			id = Long.parseLong(idJson.getAsString());
 		}
 		
 		Task task = createATask(isCompleted, priorityLevel, eventId, description,
@@ -294,7 +294,7 @@ public class DataSyncer extends Processor {
 	private Task createATask(boolean isCompleted, String priorityLevel,
 			String eventId, String description, String location,
 			DateTime updateTime, DateTime timeCreated,
-			ArrayList<DateTime> taskTime, Integer id) {
+			ArrayList<DateTime> taskTime, Long id) {
 		DateTime startDate = taskTime.get(INDEX_OF_START_DATE);
 		DateTime startTime = taskTime.get(INDEX_OF_START_TIME);
 		DateTime endDate = taskTime.get(INDEX_OF_END_DATE);
@@ -482,20 +482,21 @@ public class DataSyncer extends Processor {
 		
 		JsonObject tJson = new JsonObject();
 		
-		// if the task has never been updated, set its updateTime to its createTime
-		if(t.getUpdateTime() == null) {
-			t.setUpdateTime(t.getTimeCreated());
+		// if the task has never been updated, send its createTime as its updateTime
+		DateTime updateTime = t.getUpdateTime();
+		if(updateTime == null) {
+			updateTime = t.getTimeCreated();
 		}
 		
 		// Get local Task data
-		String id = Integer.toString(t.getId());
+		String id = Long.toString(t.getId());
 		String description = t.getDescription();
 		String starttime = formatTime(t.getStartTime());
 		String startdate = formatTime(t.getStartDate());
 		String endtime = formatTime(t.getEndTime());
 		String enddate = formatTime(t.getEndDate());
 		String created = formatTime(t.getTimeCreated());
-		String edit = formatTime(t.getUpdateTime());
+		String edit = formatTime(updateTime);
 		String location = t.getLocation();
 		String eid = t.getEventId();
 		String completed  = t.getCompleted().toString();
@@ -2,6 +2,7 @@ package todomato;
 
 import hirondelle.date4j.DateTime;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -101,8 +102,8 @@ public class DeleteProcessor extends Processor {
 			else {
 				statusMessage = SUCCESSFUL_DELETE + deleteSingle(argType);
 			}
-			displayList = list;
-			fileHandler.updateFile(list);
+			showList();
+			saveList();
 			//logger.log(Level.INFO, "end of processing");
 			return statusMessage;
 		} catch(NumberFormatException e) {
@@ -136,8 +137,17 @@ public class DeleteProcessor extends Processor {
 		if (lowerLimitIndex > upperLimitIndex) {
 			throw new InvalidInputException(INVALID_RANGE_LIMITS);
 		}
-		for (int i = upperLimitIndex; i >= lowerLimitIndex; i--) {
-			list.deleteListItem(i);
+		if (upperLimitIndex >= list.getSize()) {
+			throw new IndexOutOfBoundsException();
+		}
+		// the range is of tasks as shown by the display list
+		int[] indexes = new int[upperLimitIndex - lowerLimitIndex + 1];
+		for (int i = 0; i < indexes.length; i++) {
+			indexes[i] = getListIndex(lowerLimitIndex + i);
+		}
+		Arrays.sort(indexes);
+		for (int i = indexes.length - 1; i >= 0; i--) {
+			list.deleteListItem(indexes[i]);
 			numberOfTasksDeleted++;
 		}
 		return Integer.toString(numberOfTasksDeleted);
@@ -149,14 +159,7 @@ public class DeleteProcessor extends Processor {
 	 * @return number of tasks deleted
 	 */
 	private static String deleteCompleted() {
-		int numberOfTasksDeleted = 0;
-		for (int i = list.getSize() - 1; i >= 0 ; i--) { 
-			if (list.getListItem(i).getCompleted()) {
-				list.deleteListItem(i);
-				numberOfTasksDeleted++;
-			}		
-		}
-		return Integer.toString(numberOfTasksDeleted);
+		return deleteIndexes(list.findCompleted(true));
 	}
 
 	/**
@@ -166,7 +169,6 @@ public class DeleteProcessor extends Processor {
 	 * @return number of tasks deleted
 	 */
 	private static String deleteStartDate(String[] arg) {
-		int numberOfTasksDeleted = 0;
 		String date = arg[INDEX_OF_DATE_1] + " " + arg[INDEX_OF_DATE_2];
 		try {
 			date = parseDateString(date);
@@ -174,30 +176,7 @@ public class DeleteProcessor extends Processor {
 			return INVALID_DATE;
 		}
 		DateTime dateDT = convertStringToDateTime(date);
-		for (int i = list.getSize() - 1; i >= 0; i--) {
-			if(isSameStartDate(i,dateDT)) {
-				list.deleteListItem(i);
-				numberOfTasksDeleted++;
-			}
-		}
-		return Integer.toString(numberOfTasksDeleted);
-	}
-	
-	/**
-	 * Method for checking if a task's startdate is same as a specified date
-	 * 
-	 * @param i: user-specified index of task
-	 * @param dateDT: date to be checked against
-	 * @return true if task's startdate is the same
-	 */
-	private static boolean isSameStartDate(int i, DateTime dateDT) {
-		if (list.getListItem(i).getStartDate() == null) {
-			return false;
-		}
-		if (list.getListItem(i).getStartDate().isSameDayAs(dateDT)) {
-			return true;
-		}
-		return false;
+		return deleteIndexes(list.findStartingBetween(dateDT, dateDT));
 	}
 	
 	/**
@@ -207,7 +186,6 @@ public class DeleteProcessor extends Processor {
 	 * @return number of tasks deleted
 	 */
 	private static String deleteEndDate(String[] arg) {
-		int numberOfTasksDeleted = 0;
 		String date = arg[INDEX_OF_DATE_1] + " " + arg[INDEX_OF_DATE_2];
 		try {
 			date = parseDateString(date);
@@ -215,30 +193,20 @@ public class DeleteProcessor extends Processor {
 			return INVALID_DATE;
 		}
 		DateTime dateDT = convertStringToDateTime(date);
-		for (int i = list.getSize() - 1; i >= 0; i--) {
-			if(isSameEndDate(i,dateDT)) {
-				list.deleteListItem(i);
-				numberOfTasksDeleted++;
-			}
-		}
-		return Integer.toString(numberOfTasksDeleted);
+		return deleteIndexes(list.findEndingBetween(dateDT, dateDT));
 	}
 
 	/**
-	 * Method for checking if a task's enddate is same as a specified date
+	 * Method for deleting the tasks found by a query on the list
 	 * 
-	 * @param i: user-specified index of task 
-	 * @param dateDT: date to be checked against
-	 * @return true if task has the same date
+	 * @param indexes: indexes of the tasks, in ascending order
+	 * @return number of tasks deleted
 	 */
-	private static boolean isSameEndDate(int i, DateTime dateDT) {
-		if (list.getListItem(i).getEndDate() == null) {
-			return false;
+	private static String deleteIndexes(ArrayList<Integer> indexes) {
+		for (int i = indexes.size() - 1; i >= 0; i--) {
+			list.deleteListItem(indexes.get(i));
 		}
-		if (list.getListItem(i).getEndDate().isSameDayAs(dateDT)) {
-			return true;
-		}
-		return false;
+		return Integer.toString(indexes.size());
 	}
 
 	/**
@@ -261,9 +229,10 @@ public class DeleteProcessor extends Processor {
 	 * 
 	 * @param indexStr: user-specified index of task to be deleted
 	 * @return task details of deleted task
+	 * @throws InvalidInputException
 	 */
-	private static String deleteSingle(String indexStr) {
-		int index = Integer.parseInt(indexStr) - 1;
+	private static String deleteSingle(String indexStr) throws InvalidInputException {
+		int index = getListIndex(Integer.parseInt(indexStr) - 1);
 		Task deletedTask = list.getListItem(index);
 		list.deleteListItem(index);
 		return deletedTask.toString();
@@ -274,11 +243,12 @@ public class DeleteProcessor extends Processor {
 	 * 
 	 * @param strIndices: user-specified indices of tasks to be deleted
 	 * @return number of tasks deleted
+	 * @throws InvalidInputException
 	 */
-	private static String deleteMultiple(String[] strIndices) {
+	private static String deleteMultiple(String[] strIndices) throws InvalidInputException {
 		int[] intIndices = new int[strIndices.length];
 		for (int i = 0; i < strIndices.length; i++) {
-			intIndices[i] = Integer.parseInt(strIndices[i]);
+			intIndices[i] = getListIndex(Integer.parseInt(strIndices[i]) - 1) + 1;
 		}
 		Arrays.sort(intIndices);
 		reverse(intIndices);
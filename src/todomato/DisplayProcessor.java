@@ -1,25 +1,242 @@
 package todomato;
 
+import hirondelle.date4j.DateTime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
 //@author A0101578H
 /**
- * This class contains methods to process display commands by the user. 
- * 
+ * This class contains methods to process display commands by the user.
+ *
  * <p>
- * The following ways to display are supported: 
+ * The following ways to display are supported:
  * <ul>
  * <li> display all tasks
  * <ul> <li> "display" </ul>
+ * <li> display a page of tasks, a range of tasks, or the tasks after the
+ * ones displayed last
+ * <ul> <li> "display page 3" </ul>
+ * <ul> <li> "display 100-200" </ul>
+ * <ul> <li> "display next 20" </ul>
+ * <li> display tasks happening during a period, or at a time
+ * <ul> <li> "display between thurs 2pm and thurs 4pm" </ul>
+ * <ul> <li> "display between today and next mon" </ul>
+ * <ul> <li> "display at apr 10 1pm" </ul>
  * </ul>
- * 
+ *
+ * <p>
+ * A date without a time is taken as the whole day, and a time without a
+ * date as that time today. Only the tasks found are shown, in the same way
+ * as by the find command. Listing tasks shows every task again, in the order
+ * of the last sort.
+ *
+ * <p>
+ * Tasks that are listed can also be written straight to a Writer or
+ * PrintStream as they are rendered, instead of being returned as one String
+ * (see processDisplay(String, Appendable)).
+ *
  */
 public class DisplayProcessor extends Processor {
-	private static final String SUCCESS_DISPLAY = "All tasks have been displayed: ";
-	
+	private static final String SUCCESS_DISPLAY = "All tasks have been displayed";
+	private static final String SUCCESS_DISPLAY_WINDOW = "Tasks %1$d to %2$d of %3$d have been displayed";
+	private static final String SUCCESS_DISPLAY_PERIOD = "Tasks happening then have been displayed";
+	private static final String NO_TASKS_FOUND_MESSAGE = "No tasks found";
+	private static final String NO_TASKS_IN_WINDOW = "There are only %1$d tasks";
+	private static final String INVALID_ARGUMENT = "Enter display, display between <date/time> and <date/time> or display at <date/time>";
+	private static final String INVALID_WINDOW = "Enter display page <page>, display <first>-<last> or display next <number of tasks>";
+	private static final String LISTING_SEPARATOR = ": ";
+	private static final String ARGUMENT_BETWEEN = "between";
+	private static final String ARGUMENT_AT = "at";
+	private static final String ARGUMENT_PAGE = "page";
+	private static final String ARGUMENT_NEXT = "next";
+	private static final String DELIMITER_FOR_PERIOD = "\\s+and\\s+";
+	private static final String DELIMITER_FOR_RANGE = "\\s*-\\s*";
+	private static final String PATTERN_OF_RANGE = "\\d+\\s*-\\s*\\d+";
+	private static final int INDEX_OF_TYPE = 0;
+	private static final int INDEX_OF_PERIOD = 1;
+	private static final int INDEX_OF_COUNT = 1;
+	private static final int INDEX_OF_FIRST = 0;
+	private static final int INDEX_OF_LAST = 1;
+	private static final int PARTS_OF_PERIOD = 2;
+	private static final int PAGE_SIZE = 20;
+	private static final int OFFSET_INDEX = 1;
+
+	// index of the task after the last one listed, where display next starts
+	private static int nextToDisplay = 0;
+
 	/**
-	 * @param argument  
-	 * @return Status message along with a String of the list 
+	 * @param argument
+	 * @return Status message along with a String of the list
+	 * @throws InvalidInputException
 	 */
 	public static String processDisplay(String argument) throws InvalidInputException {
-		return SUCCESS_DISPLAY + list.toString();
+		StringBuilder listing = new StringBuilder();
+		try {
+			String status = processDisplay(argument, listing);
+			if (isFinding(split(argument))) {
+				return status;
+			}
+			return status + LISTING_SEPARATOR + listing;
+		} catch (IOException e) {
+			// a StringBuilder does not throw
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Processes argument in the same way as processDisplay(String), but
+	 * writes the tasks listed to out as they are rendered, so that a long
+	 * list takes no more memory than a single task
+	 *
+	 * @param argument
+	 * @param out Writer or PrintStream to write the tasks listed to
+	 * @return Status message, without the tasks listed
+	 * @throws InvalidInputException
+	 * @throws IOException if out cannot be written to
+	 */
+	public static String processDisplay(String argument, Appendable out) throws InvalidInputException,
+			IOException {
+		String[] parts = split(argument);
+		if (isFinding(parts)) {
+			if (parts[INDEX_OF_TYPE].equalsIgnoreCase(ARGUMENT_AT)) {
+				DateTime time = parseDateTime(parts[INDEX_OF_PERIOD]);
+				return displayOverlapping(time, time);
+			}
+			String[] period = parts[INDEX_OF_PERIOD].split(DELIMITER_FOR_PERIOD);
+			if (period.length != PARTS_OF_PERIOD) {
+				throw new InvalidInputException(INVALID_ARGUMENT);
+			}
+			return displayOverlapping(parseDateTime(period[0]), parseDateTime(period[1]));
+		}
+		String type = parts[INDEX_OF_TYPE];
+		if (argument != null && argument.trim().matches(PATTERN_OF_RANGE)) {
+			String[] limits = argument.trim().split(DELIMITER_FOR_RANGE);
+			int first = parseNumber(limits[INDEX_OF_FIRST]);
+			int last = parseNumber(limits[INDEX_OF_LAST]);
+			if (last < first) {
+				throw new InvalidInputException(INVALID_WINDOW);
+			}
+			return displayWindow(first - OFFSET_INDEX, last, out);
+		}
+		if (type.equalsIgnoreCase(ARGUMENT_PAGE) && parts.length > INDEX_OF_COUNT) {
+			long from = (long) (parseNumber(parts[INDEX_OF_COUNT]) - 1) * PAGE_SIZE;
+			return displayWindow(from, from + PAGE_SIZE, out);
+		}
+		if (type.equalsIgnoreCase(ARGUMENT_NEXT)) {
+			int count = parts.length > INDEX_OF_COUNT ? parseNumber(parts[INDEX_OF_COUNT]) : PAGE_SIZE;
+			// start again from the top after the last task has been listed
+			int from = nextToDisplay < list.getSize() ? nextToDisplay : 0;
+			return displayWindow(from, (long) from + count, out);
+		}
+		return displayWindow(0, list.getSize(), out);
+	}
+
+	/**
+	 * Writes the tasks from index from up to index to to out, or all of them
+	 * if the window covers the whole list
+	 *
+	 * @param from
+	 * @param to index after the last task to write, which may be past the
+	 *            end of the list
+	 * @param out
+	 * @return a status message stating which tasks have been written
+	 * @throws InvalidInputException if the window starts past the end
+	 * @throws IOException
+	 */
+	private static String displayWindow(long from, long to, Appendable out) throws InvalidInputException,
+			IOException {
+		showList();
+		int size = displayList.getSize();
+		if (from == 0 && to >= size) {
+			displayList.write(out, 0, size);
+			nextToDisplay = size;
+			return SUCCESS_DISPLAY;
+		}
+		if (from >= size) {
+			throw new InvalidInputException(String.format(NO_TASKS_IN_WINDOW, size));
+		}
+		int last = (int) Math.min(to, size);
+		displayList.write(out, (int) from, last);
+		nextToDisplay = last;
+		return String.format(SUCCESS_DISPLAY_WINDOW, from + OFFSET_INDEX, last, size);
+	}
+
+	/**
+	 * @return true if parts find tasks by time rather than list them
+	 */
+	private static boolean isFinding(String[] parts) {
+		return parts.length > INDEX_OF_PERIOD
+				&& (parts[INDEX_OF_TYPE].equalsIgnoreCase(ARGUMENT_BETWEEN) || parts[INDEX_OF_TYPE]
+						.equalsIgnoreCase(ARGUMENT_AT));
+	}
+
+	private static String[] split(String argument) {
+		return (argument == null ? "" : argument).trim().split("\\s+", 2);
+	}
+
+	/**
+	 * @return the positive number in input
+	 * @throws InvalidInputException if input is not a positive number
+	 */
+	private static int parseNumber(String input) throws InvalidInputException {
+		try {
+			int number = Integer.parseInt(input.trim());
+			if (number < 1) {
+				throw new InvalidInputException(INVALID_WINDOW);
+			}
+			return number;
+		} catch (NumberFormatException e) {
+			throw new InvalidInputException(INVALID_WINDOW);
+		}
+	}
+
+	/**
+	 * Shows the tasks with a time span that overlaps the period from from to
+	 * to, found through the interval index of the list
+	 *
+	 * @param from
+	 * @param to
+	 * @return a status message stating whether or not tasks have been found
+	 */
+	private static String displayOverlapping(final DateTime from, final DateTime to) {
+		displayList = displayList.unfiltered(list).filter(new TaskView.Filter() {
+			@Override
+			public ArrayList<Integer> select(TaskList list) {
+				return list.findOverlapping(from, to);
+			}
+		});
+
+		if (displayList.isEmpty()) {
+			return NO_TASKS_FOUND_MESSAGE;
+		}
+		return SUCCESS_DISPLAY_PERIOD;
+	}
+
+	/**
+	 * Parses "<date>", "<time>" or "<date> <time>", such as "thu 2pm"
+	 *
+	 * @param input
+	 * @return date and time of input, or only the date if input has no time
+	 * @throws InvalidInputException
+	 */
+	private static DateTime parseDateTime(String input) throws InvalidInputException {
+		input = input.trim();
+		int lastSpace = input.lastIndexOf(SPACE);
+		String date = lastSpace == NOT_FOUND ? currentDate.toString() : input.substring(0, lastSpace);
+		String time = input.substring(lastSpace + 1);
+		if (!isParseableByDate(date) || !isParseableByTime(time)) {
+			if (!isParseableByDate(input)) {
+				throw new InvalidInputException(INVALID_ARGUMENT);
+			}
+			return convertStringToDateTime(parseDateString(input));
+		}
+		DateTime day = convertStringToDateTime(parseDateString(date));
+		DateTime timeOfDay = convertStringToDateTime(parseTimeString(time));
+		if (day == null || timeOfDay == null) {
+			throw new InvalidInputException(INVALID_ARGUMENT);
+		}
+		return new DateTime(day.getYear(), day.getMonth(), day.getDay(), timeOfDay.getHour(),
+				timeOfDay.getMinute(), null, null);
 	}
 }
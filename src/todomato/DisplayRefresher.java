@@ -0,0 +1,23 @@
+package todomato;
+
+//@author A0120766H
+/**
+ * Interface for the display of the task list, which is told when the list
+ * was changed by a background thread instead of a command entered by the
+ * user. Both methods are called on the event dispatch thread.
+ *
+ */
+public interface DisplayRefresher {
+
+	/**
+	 * Shows the whole display list again
+	 */
+	public void refresh();
+
+	/**
+	 * Shows only the rows of the display list changed by diff
+	 *
+	 * @param diff changes that were applied to the display list
+	 */
+	public void refreshRows(TaskListDiff diff);
+}
@@ -1,34 +1,120 @@
 package todomato;
+
 import hirondelle.date4j.DateTime;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 
 //@author A0099332Y
 /**
  * This class reads, writes, and updates a local data file stored
  * on the user's computer. It reads in tasks as Task objects.
  *
+ * <p>
+ * When the operation journal is enabled (see Settings), changes to a task
+ * are appended to a journal next to the data file, which is folded back into
+ * the data file in the background once it grows past a threshold. Complete
+ * copies of the list are written to a temporary file and renamed into place.
+ *
+ * <p>
+ * When binary storage is enabled (see Settings), tasks are kept in a
+ * BinaryTaskStore instead, which is created from the text data file the first
+ * time. Turning binary storage off again converts the store back to text.
+ * Sharded storage works the same way with a ShardedTaskStore, which splits
+ * the tasks by the month they end in so that a save only rewrites the
+ * shards holding the tasks that changed.
+ *
+ * <p>
+ * Saving keeps the list in memory as the source of truth. Every write is
+ * checked against the length and CRC32 of the bytes that were written
+ * instead of being read back into a new list.
+ *
+ * <p>
+ * The data file is never written in place. A new copy is written to a
+ * temporary file, forced to disk and renamed over the data file, so that a
+ * crash leaves either the old or the new copy. Each copy carries a generation
+ * number and a checksum (see IndexedDataFile). At start up, a temporary file
+ * left behind by a crash replaces the data file if it is intact and newer.
+ *
+ * <p>
+ * When watching is enabled (see Settings) and the plain data file is used,
+ * FileHandler remembers the lines of the file it last read or wrote, so that
+ * changes made to the file by other programs can be diffed against the list
+ * in memory (see readExternalChanges).
+ *
  */
 
-public class FileHandler {
-	
+public class FileHandler implements TaskStore {
+
 	private static final String LINE_BREAK = "\r\n";
+	private static final String SNAPSHOT_EXTENSION = ".snapshot";
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final String NOT_INTACT_MSG = "%1$s was not written completely, reading what is left of it";
+	private static final String WRITE_FAILED_MSG = "Could not save to %1$s: %2$s";
+	private static final Logger logger = Logger.getLogger(FileHandler.class.getName());
+	private static final String FOLDED_EXTENSION = ".folded";
+	private static final String COMPACTION_THREAD_NAME = "journal-compaction";
+	private static final int VERIFY_BUFFER_SIZE = 64 * 1024;
+	private static final String DATE_FORMAT = "YYYY-MM-DD";
 	private String fileLocation;
 	private File file;
-	
+	private File tempFile;
+	private volatile long generation;
+	private OperationJournal journal;
+	private BinaryTaskStore binaryStore;
+	private ShardedTaskStore shardedStore;
+	private File snapshotFile;
+	private File foldedFile;
+	private ExecutorService compactionExecutor;
+	private Future<?> compaction;
+	private long writtenLength;
+	private long writtenChecksum;
+	private HashMap<Integer, Integer> writtenLines;
+	private long knownChecksum;
+	private HashMap<Integer, Integer> knownLines;
+
 	/**
 	 * @param fileLoc
 	 */
 	public FileHandler (String fileLoc) {
 		this.fileLocation = fileLoc;
-		this.file = createNewFileWhenNotExist(new File (fileLocation));	
+		this.file = createNewFileWhenNotExist(new File (fileLocation));
+		this.tempFile = new File(file.getAbsolutePath() + TEMP_EXTENSION);
+		recoverSnapshot();
+		if (Settings.isBinaryStorageEnabled()) {
+			initBinaryStore();
+			return;
+		}
+		convertBinaryStoreToText();
+		if (Settings.isShardedStorageEnabled()) {
+			initShardedStore();
+			return;
+		}
+		convertShardedStoreToText();
+		if (Settings.isJournalEnabled()) {
+			initJournal();
+		}
 	}
-	
+
 	public File createNewFileWhenNotExist (File f) {
 		File dataFile = f;
 		if(!f.exists()) {
@@ -42,99 +128,579 @@ public class FileHandler {
 	}
 
 	/**
+	 * Reads the whole data file. This is only needed at start up or to
+	 * recover from a failed save, as updateFile does not re-read the file.
+	 * When lazy loading is enabled, tasks are only parsed when first accessed.
+	 * 
 	 * @return a task list generated by strings in the data file
 	 */
+	@Override
 	public TaskList readFile() {
-		
+		if (binaryStore != null) {
+			try {
+				return binaryStore.load();
+			} catch (IOException e) {
+				return null;
+			}
+		}
+		if (shardedStore != null) {
+			try {
+				return shardedStore.load();
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		IndexedDataFile indexedFile = indexFile(file);
+		if (indexedFile == null) {
+			return null;
+		}
+		if (!indexedFile.isIntact()) {
+			logger.warning(String.format(NOT_INTACT_MSG, file));
+		}
+		generation = indexedFile.getGeneration();
+		if (isWatchable()) {
+			knownChecksum = indexedFile.getChecksum();
+			knownLines = TaskListDiff.countLines(indexedFile, indexedFile.getTaskCount());
+		}
+
+		TaskList taskList;
+		if (Settings.isLazyLoadEnabled()) {
+			taskList = indexedFile.readLazily();
+		} else {
+			taskList = indexedFile.readAll();
+		}
+		if (journal != null) {
+			journal.replay(taskList);
+			journal.track(taskList);
+		}
+		return taskList;
+	}
+
+	/**
+	 * @param taskList the updated task list stored in runtime
+	 * @return taskList if it was saved, or null if the data file could not
+	 *         be written correctly
+	 * @throws IOException
+	 */
+	@Override
+	public TaskList updateFile(TaskList taskList) {
+		return updateFile(taskList, false);
+	}
+
+	/**
+	 * @param taskList the updated task list stored in runtime
+	 * @param isForced true if the changes must be on disk before returning
+	 * @return taskList if it was saved, or null if the data file could not
+	 *         be written correctly
+	 */
+	@Override
+	public TaskList updateFile(TaskList taskList, boolean isForced) {
+		if (binaryStore != null) {
+			try {
+				binaryStore.save(taskList);
+				return taskList;
+			} catch (IOException e) {
+				return null;
+			}
+		}
+		if (shardedStore != null) {
+			try {
+				shardedStore.save(taskList);
+				return taskList;
+			} catch (IOException e) {
+				return null;
+			}
+		}
+		if (journal != null) {
+			return updateJournal(taskList, isForced);
+		}
+
 		try {
-			Boolean isSyncTimeRetrieved = false;
-			Boolean isUserNameRetrieved = false;
-			Boolean isPasswordRetrieved = false;
-			String currentLine;
-			Task currentTask;
-			TaskList taskList = new TaskList();
-			BufferedReader bufferedReader = new BufferedReader(new FileReader(file.getAbsoluteFile()));
-		
-			while ((currentLine = bufferedReader.readLine()) != null) {
-				if (!isSyncTimeRetrieved) {
-					taskList.setLastSyncTime (new DateTime(currentLine));
-					isSyncTimeRetrieved = true;
-				} else if (!isUserNameRetrieved) {
-					taskList.setUserName(currentLine);
-					isUserNameRetrieved = true;
-				} else if (!isPasswordRetrieved) {
-					taskList.setPassword(currentLine);
-					isPasswordRetrieved = true;
-				} else {
-					currentTask = readTask(currentLine);
-					taskList.addToList(currentTask);
+
+			long nextGeneration = generation + 1;
+			writeSnapshot(taskList, tempFile, true, nextGeneration);
+			if (!isWriteVerified(tempFile)) {
+				writeSnapshot(taskList, tempFile, true, nextGeneration);
+				if (!isWriteVerified(tempFile)) {
+					tempFile.delete();
+					return null;
 				}
 			}
-			
-			bufferedReader.close();
+			replaceFile(tempFile, file);
+			generation = nextGeneration;
+			knownChecksum = writtenChecksum;
+			knownLines = writtenLines;
+			if (isForced) {
+				forceDirectory();
+			}
+
 			return taskList;
-			
+
 		} catch (IOException e) {
+			logger.warning(String.format(WRITE_FAILED_MSG, file, e.getMessage()));
+			tempFile.delete();
 			return null;
-			
 		}
-			
-			
 	}
-	
+
 	/**
-	 * @param taskList the updated task list stored in runtime
-	 * @return the updated task list generated by strings in the date file
+	 * @return true if the data file is the only place the list is saved to,
+	 *         and watching is enabled, so that changes to it by other
+	 *         programs can be picked up
+	 */
+	public boolean isWatchable() {
+		return Settings.isWatchEnabled() && binaryStore == null && shardedStore == null && journal == null;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Checks whether the data file was changed by another program since it
+	 * was last read or written, and if so compares its tasks with taskList.
+	 * Must not be called while the list is being saved.
+	 *
+	 * @param taskList the list in memory
+	 * @return the changes to apply to taskList, or null if the file has not
+	 *         changed or cannot be read
+	 */
+	public TaskListDiff readExternalChanges(TaskList taskList) {
+		if (!isWatchable() || knownLines == null) {
+			return null;
+		}
+		IndexedDataFile indexedFile = indexFile(file);
+		if (indexedFile == null || indexedFile.getChecksum() == knownChecksum) {
+			return null;
+		}
+		TaskListDiff diff = TaskListDiff.compare(knownLines, indexedFile, indexedFile.getTaskCount(), taskList);
+		knownChecksum = indexedFile.getChecksum();
+		knownLines = TaskListDiff.countLines(indexedFile, indexedFile.getTaskCount());
+		generation = Math.max(generation, indexedFile.getGeneration());
+		return diff;
+	}
+
+	/**
+	 * Saves the changes to taskList by appending them to the journal if
+	 * possible, or by writing a complete snapshot otherwise
+	 *
+	 * @param taskList
+	 * @param isForced
+	 * @return taskList
+	 */
+	private TaskList updateJournal(TaskList taskList, boolean isForced) {
+		try {
+			if (journal.canAppend(taskList)) {
+				journal.append(isForced);
+				if (journal.getLength() > Settings.getJournalThreshold()) {
+					startCompaction();
+				}
+			} else {
+				replaceSnapshot(taskList);
+			}
+			return taskList;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes taskList as the new data file and discards the journal. The
+	 * journal is only deleted after the snapshot is complete, so a snapshot
+	 * file found along with a journal at start up is incomplete.
+	 *
+	 * @param taskList
 	 * @throws IOException
 	 */
-	public TaskList updateFile(TaskList taskList) {
-		
+	private void replaceSnapshot(TaskList taskList) throws IOException {
+		waitForCompaction();
+		journal.getFile().createNewFile();
+		long nextGeneration = generation + 1;
+		writeSnapshot(taskList, snapshotFile, true, nextGeneration);
+		if (!isWriteVerified(snapshotFile)) {
+			throw new IOException(snapshotFile + " was not written correctly");
+		}
+		journal.clear();
+		replaceFile(snapshotFile, file);
+		generation = nextGeneration;
+		journal.track(taskList);
+	}
+
+	/**
+	 * Moves the journal aside and folds it into the data file on a background
+	 * thread, unless a previous journal is still being folded
+	 */
+	private void startCompaction() {
+		if (compaction != null && !compaction.isDone()) {
+			return;
+		}
+		if (!journal.startCompaction()) {
+			return;
+		}
+		compaction = compactionExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				foldJournal();
+			}
+		});
+	}
+
+	/**
+	 * Applies the journal that was moved aside to the data file. It only reads
+	 * files, so it does not need to see the list that is being changed in the
+	 * meantime.
+	 */
+	private void foldJournal() {
+		IndexedDataFile indexedFile = indexFile(file);
+		if (indexedFile == null) {
+			return;
+		}
+		TaskList folded = indexedFile.readAll();
+		long foldedGeneration = indexedFile.getGeneration() + 1;
+		journal.replayCompacting(folded);
+		try {
+			writeSnapshot(folded, foldedFile, true, foldedGeneration);
+			if (!isWriteVerified(foldedFile)) {
+				foldedFile.delete();
+				return;
+			}
+			journal.finishCompaction();
+			replaceFile(foldedFile, file);
+			generation = foldedGeneration;
+		} catch (IOException e) {
+			foldedFile.delete();
+		}
+	}
+
+	private void waitForCompaction() {
+		if (compaction == null) {
+			return;
+		}
+		try {
+			compaction.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			foldedFile.delete();
+		}
+	}
+
+	/**
+	 * Stops the journal compaction thread, after any compaction that has
+	 * been started, and stops the binary or sharded store recording changes
+	 */
+	@Override
+	public void close() {
+		if (compactionExecutor != null) {
+			compactionExecutor.shutdown();
+		}
+		if (binaryStore != null) {
+			binaryStore.close();
+		}
+		if (shardedStore != null) {
+			shardedStore.close();
+		}
+	}
+
+	/**
+	 * @param date
+	 * @return date as "YYYY-MM-DD", which sorts in date order, or null if it
+	 *         has no year, month and day
+	 */
+	static String formatDate(DateTime date) {
+		if (date == null || !date.hasYearMonthDay()) {
+			return null;
+		}
+		return date.format(DATE_FORMAT);
+	}
+
+	/**
+	 * Sets up the binary store, converting the text data file into it if it
+	 * has not been created yet. Falls back to the text data file if the store
+	 * cannot be written.
+	 */
+	private void initBinaryStore() {
+		binaryStore = new BinaryTaskStore(file);
+		if (binaryStore.exists()) {
+			return;
+		}
+		TaskList taskList = readSnapshot(file);
+		try {
+			if (taskList == null) {
+				throw new IOException(file + " could not be read");
+			}
+			binaryStore.writeAll(taskList);
+		} catch (IOException e) {
+			binaryStore.delete();
+			binaryStore = null;
+		}
+	}
+
+	/**
+	 * Writes the tasks of a binary store that is no longer used back to the
+	 * text data file, unless the text data file has been saved since
+	 */
+	private void convertBinaryStoreToText() {
+		BinaryTaskStore store = new BinaryTaskStore(file);
+		if (!store.exists() || store.getFile().lastModified() < file.lastModified()) {
+			return;
+		}
+		try {
+			IndexedDataFile indexedFile = indexFile(file);
+			long nextGeneration = indexedFile == null ? 1 : indexedFile.getGeneration() + 1;
+			writeSnapshot(store.load(), tempFile, true, nextGeneration);
+			if (isWriteVerified(tempFile)) {
+				replaceFile(tempFile, file);
+				store.delete();
+			}
+		} catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Sets up the sharded store, converting the text data file into it if it
+	 * has not been created yet. Falls back to the text data file if the
+	 * shards cannot be written.
+	 */
+	private void initShardedStore() {
+		shardedStore = new ShardedTaskStore(file);
+		if (shardedStore.exists()) {
+			return;
+		}
+		TaskList taskList = readSnapshot(file);
+		try {
+			if (taskList == null) {
+				throw new IOException(file + " could not be read");
+			}
+			shardedStore.writeAll(taskList);
+		} catch (IOException e) {
+			shardedStore.delete();
+			shardedStore = null;
+		}
+	}
+
+	/**
+	 * Writes the tasks of a sharded store that is no longer used back to the
+	 * text data file, unless the text data file has been saved since
+	 */
+	private void convertShardedStoreToText() {
+		ShardedTaskStore store = new ShardedTaskStore(file);
+		if (!store.exists() || store.lastModified() < file.lastModified()) {
+			return;
+		}
+		try {
+			IndexedDataFile indexedFile = indexFile(file);
+			long nextGeneration = indexedFile == null ? 1 : indexedFile.getGeneration() + 1;
+			writeSnapshot(store.load(), tempFile, true, nextGeneration);
+			if (isWriteVerified(tempFile)) {
+				replaceFile(tempFile, file);
+				store.delete();
+			}
+		} catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Replaces the data file with a temporary file left behind by a save
+	 * that was interrupted, if the temporary file was written completely and
+	 * is newer than the data file. Otherwise the temporary file is deleted.
+	 */
+	private void recoverSnapshot() {
+		if (!tempFile.exists()) {
+			return;
+		}
+		IndexedDataFile temp = indexFile(tempFile);
+		IndexedDataFile current = indexFile(file);
+		try {
+			if (temp != null && temp.isIntact() && (current == null || !current.isIntact()
+					|| temp.getGeneration() > current.getGeneration())) {
+				replaceFile(tempFile, file);
+			} else {
+				tempFile.delete();
+			}
+		} catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * Sets up the journal and finishes any snapshot or compaction that was
+	 * interrupted the last time the program was closed
+	 */
+	private void initJournal() {
+		String path = file.getAbsolutePath();
+		journal = new OperationJournal(file);
+		snapshotFile = new File(path + SNAPSHOT_EXTENSION);
+		foldedFile = new File(path + FOLDED_EXTENSION);
+		compactionExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, COMPACTION_THREAD_NAME);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
 		try {
-		
-			String content;
-			
-			FileWriter fileWriter = new FileWriter(file.getAbsoluteFile());
-			BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
-			
-	
-			if (!file.exists()) {
-				file.createNewFile();
-			}
-			
-			content = taskList.getLastSyncTime() + LINE_BREAK + taskList.getUserName() 
+			if (snapshotFile.exists()) {
+				if (journal.getFile().exists()) {
+					snapshotFile.delete();
+				} else {
+					journal.clear();
+					replaceFile(snapshotFile, file);
+				}
+			}
+			if (foldedFile.exists()) {
+				if (journal.isCompacting()) {
+					foldedFile.delete();
+				} else {
+					replaceFile(foldedFile, file);
+				}
+			}
+		} catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * @param dataFile
+	 * @return a task list generated by strings in dataFile, parsed in
+	 *         parallel for large files
+	 */
+	private TaskList readSnapshot(File dataFile) {
+		IndexedDataFile indexedFile = indexFile(dataFile);
+		if (indexedFile == null) {
+			return null;
+		}
+		return indexedFile.readAll();
+	}
+
+	/**
+	 * @param dataFile
+	 * @return the indexed contents of dataFile, or null if it cannot be read
+	 */
+	private static IndexedDataFile indexFile(File dataFile) {
+		try {
+			return IndexedDataFile.index(dataFile);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the generation, next id, escaped line, header and every task of taskList to
+	 * target, followed by the checksum line, and remembers the length and
+	 * CRC32 of what was written for isWriteVerified, and its lines for
+	 * readExternalChanges
+	 *
+	 * @param taskList
+	 * @param target
+	 * @param isForced true if the content must be on disk before returning
+	 * @param fileGeneration generation number of the new copy
+	 * @throws IOException
+	 */
+	private void writeSnapshot(TaskList taskList, File target, boolean isForced,
+			long fileGeneration) throws IOException {
+		String content;
+		HashMap<Integer, Integer> lines = isWatchable() ? new HashMap<Integer, Integer>() : null;
+		FileOutputStream fileOutputStream = new FileOutputStream(target.getAbsoluteFile());
+		CheckedOutputStream checkedStream = new CheckedOutputStream(fileOutputStream, new CRC32());
+		BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(checkedStream));
+
+		try {
+			bufferedWriter.write(IndexedDataFile.GENERATION_PREFIX + fileGeneration + LINE_BREAK);
+			bufferedWriter.write(IndexedDataFile.NEXT_ID_PREFIX + taskList.getNextId() + LINE_BREAK);
+			bufferedWriter.write(IndexedDataFile.ESCAPED_LINE + LINE_BREAK);
+			content = taskList.getLastSyncTime() + LINE_BREAK + taskList.getUserName()
 					+ LINE_BREAK + taskList.getPassword() + LINE_BREAK;
 			bufferedWriter.write(content);
-			
-			for (Task task : taskList.getList()) {
-				content = task.toFileString() + LINE_BREAK;
-				bufferedWriter.write(content);
+
+			for (int i = 0; i < taskList.getSize(); i++) {
+				String line = taskList.getFileString(i);
+				bufferedWriter.write(line + LINE_BREAK);
+				if (lines != null) {
+					TaskListDiff.addLine(lines, line.hashCode());
+				}
+			}
+
+			bufferedWriter.flush();
+			long contentChecksum = checkedStream.getChecksum().getValue();
+			bufferedWriter.write(IndexedDataFile.getChecksumLine(fileGeneration, contentChecksum) + LINE_BREAK);
+			bufferedWriter.flush();
+			if (isForced) {
+				fileOutputStream.getFD().sync();
 			}
-	
+			writtenLength = fileOutputStream.getChannel().position();
+			writtenChecksum = checkedStream.getChecksum().getValue();
+			writtenLines = lines;
+		} finally {
 			bufferedWriter.close();
-			
-			TaskList updatedList = readFile();
-			
-			
-			return updatedList;
-		
+		}
+	}
+
+	/**
+	 * Checks that target holds exactly the bytes of the last writeSnapshot,
+	 * which is much cheaper than parsing it back into Tasks
+	 *
+	 * @param target
+	 * @return true if the length and CRC32 of target match what was written
+	 * @throws IOException
+	 */
+	private boolean isWriteVerified(File target) throws IOException {
+		if (target.length() != writtenLength) {
+			return false;
+		}
+		CRC32 checksum = new CRC32();
+		byte[] buffer = new byte[VERIFY_BUFFER_SIZE];
+		FileInputStream fileInputStream = new FileInputStream(target);
+		try {
+			int bytesRead;
+			while ((bytesRead = fileInputStream.read(buffer)) != -1) {
+				checksum.update(buffer, 0, bytesRead);
+			}
+		} finally {
+			fileInputStream.close();
+		}
+		return checksum.getValue() == writtenChecksum;
+	}
+
+	/**
+	 * Forces the rename of the data file to disk, where the platform allows
+	 * directories to be opened
+	 */
+	private void forceDirectory() {
+		try {
+			FileChannel directory = FileChannel.open(file.getAbsoluteFile().getParentFile().toPath(),
+					StandardOpenOption.READ);
+			try {
+				directory.force(true);
+			} finally {
+				directory.close();
+			}
 		} catch (IOException e) {
-			
-			//TODO
-			return null;
-			
+			return;
 		}
 	}
-	
+
 	/**
-	 * @param line each line in data file that represents a task
-	 * @return task generated by the input line
+	 * Replaces target with source in a single step where the file system
+	 * allows it
+	 *
+	 * @param source
+	 * @param target
+	 * @throws IOException
 	 */
-	
-	private Task readTask(String line) {
-		Task task = null;
-		task = Task.createTaskFromFileString(line);
-		return task;
+	static void replaceFile(File source, File target) throws IOException {
+		try {
+			Files.move(source.toPath(), target.toPath(),
+					StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
 	}
-	
-	
+
+
 }
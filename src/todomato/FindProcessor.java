@@ -1,12 +1,16 @@
 package todomato;
 
+import java.util.ArrayList;
+
 //@author A0120766H
 /**
  * This class processes find commands by the user.
  * 
  * The user should enter the keyword "find" followed
  * a String of word(s) that they would like to search
- * for.
+ * for. The tasks found are shown as a view of the
+ * list (see TaskView), which stays up to date as the
+ * list changes.
  *  
  *
  */
@@ -16,47 +20,36 @@ public class FindProcessor extends Processor {
 	private static final String SUCCESS_MSG = "Search completed";
 
 	/**
-	 * Finds and modifies the displayList to display all tasks that contain
-	 * the String argument. 
+	 * Modifies the displayList to display all tasks that contain the String
+	 * argument. The list itself is left in its order and is not saved.
 	 * @param argument String to be found
 	 * @return a status message stating whether or not tasks have been found
 	 */
 	public static String processFind(String argument) {
 		//Make search case insensitive by converting everything to uppercase
-		argument = argument.toUpperCase();
-		TaskList tasksFound = new TaskList();
-		TaskList tasksNotFound = new TaskList();
-		
-		createTasksFoundList(argument, tasksFound, tasksNotFound);
-		reorderList(tasksFound, tasksNotFound);
-		
-		fileHandler.updateFile(list);		
-		displayList = tasksFound;
+		final String searchTerm = argument.toUpperCase();
+		displayList = displayList.unfiltered(list).filter(new TaskView.Filter() {
+			@Override
+			public ArrayList<Integer> select(TaskList list) {
+				return findTasks(searchTerm, list);
+			}
+		});
 		
-		if (tasksFound.isEmpty())
+		if (displayList.isEmpty())
 			return NO_TASKS_FOUND_MESSAGE;
 		
 		return SUCCESS_MSG;
 	}
 
-	private static void reorderList(TaskList tasksFound, TaskList tasksNotFound) {
-		list.deepCopy(tasksFound);
-		for (Task i : tasksNotFound.getList()) {
-			list.addToList(i);
-		}
-	}
-
-	private static void createTasksFoundList(String argument,
-			TaskList tasksFound, TaskList tasksNotFound) {
-		for (Task i : list.getList()) {
-			String task = i.toString().toUpperCase();
-			if (task.contains(argument) && task != "") {
-				tasksFound.addToList(i);
-				System.out.println(task);
-			} else {
-				tasksNotFound.addToList(i);
+	private static ArrayList<Integer> findTasks(String searchTerm, TaskList list) {
+		ArrayList<Integer> tasksFound = new ArrayList<Integer>();
+		for (int i = 0; i < list.getSize(); i++) {
+			String task = list.getListItem(i).toSearchString();
+			if (task.contains(searchTerm)) {
+				tasksFound.add(i);
 			}
 		}
+		return tasksFound;
 	}
 
 }
\ No newline at end of file
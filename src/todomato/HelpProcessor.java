@@ -27,9 +27,14 @@ public class HelpProcessor {
 			"\t delete <index> \n\n" +
 			"Todomato also supports these features: \n" +
 			"- Finding tasks containing your specified search term \n" +
+			"- Showing tasks happening between two dates or times \n" +
+			"- Listing tasks a page at a time with display page <page> or display next \n" +
 			"- Sorting of tasks in the list \n" +
 			"- Undo \n" +
-			"- Redo \n\n" +
+			"- Redo \n" +
+			"- Showing the memory taken by undo and redo with history \n" +
+			"- Archiving old completed tasks, and searching or restoring them \n" +
+			"- Switching between task lists with use <name> \n\n" +
 			"Please refer to user guide for more details.";
 	
 	public static void processHelp() {
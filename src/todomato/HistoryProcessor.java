@@ -0,0 +1,28 @@
+package todomato;
+
+//@author A0120766H
+/**
+ * This class contains methods to process history commands by the user,
+ * which tell how much the changes kept for undo and redo take. The same
+ * figures can be watched over JMX (see UndoHistoryMXBean).
+ *
+ */
+public class HistoryProcessor extends Processor {
+	private static final String HISTORY_MSG = "%1$d change(s) can be undone (%2$d on disk) and %3$d redone, "
+			+ "taking %4$d KB of memory (limit %5$d KB) and %6$d KB on disk";
+	private static final long BYTES_PER_KB = 1024;
+
+	/**
+	 * @return Status message with the number of changes kept for undo and
+	 *         redo, and the memory and disk space they take
+	 */
+	public static String processHistory() {
+		return String.format(HISTORY_MSG, history.getUndoCount(), history.getSpilledCount(),
+				history.getRedoCount(), toKb(history.getMemoryBytes()), toKb(history.getBudget()),
+				toKb(history.getSpilledBytes()));
+	}
+
+	private static long toKb(long bytes) {
+		return (bytes + BYTES_PER_KB - 1) / BYTES_PER_KB;
+	}
+}
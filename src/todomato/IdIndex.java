@@ -0,0 +1,134 @@
+package todomato;
+
+import java.util.Arrays;
+
+//@author A0120766H
+/**
+ * Hash map from task ids to positions in a TaskList, kept in arrays of
+ * primitives so that it takes no objects per task. It uses open addressing
+ * with linear probing, and id 0 (Task.NO_ID) marks an empty slot.
+ *
+ */
+class IdIndex {
+
+	static final int NOT_FOUND = -1;
+	private static final int INITIAL_CAPACITY = 16;
+	// the table is grown once it is more than 3/4 full
+	private static final int LOAD_NUMERATOR = 3;
+	private static final int LOAD_DENOMINATOR = 4;
+
+	private long[] ids = new long[INITIAL_CAPACITY];
+	private int[] positions = new int[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * @param id
+	 * @return position stored for id, or NOT_FOUND
+	 */
+	int get(long id) {
+		if (id == Task.NO_ID) {
+			return NOT_FOUND;
+		}
+		for (int slot = slotOf(id, ids.length);; slot = nextSlot(slot)) {
+			if (ids[slot] == id) {
+				return positions[slot];
+			}
+			if (ids[slot] == Task.NO_ID) {
+				return NOT_FOUND;
+			}
+		}
+	}
+
+	/**
+	 * Stores position for id, replacing the position stored for it before
+	 *
+	 * @param id must not be Task.NO_ID
+	 * @param position
+	 */
+	void put(long id, int position) {
+		if ((size + 1) * LOAD_DENOMINATOR > ids.length * LOAD_NUMERATOR) {
+			resize(ids.length * 2);
+		}
+		int slot = slotOf(id, ids.length);
+		while (ids[slot] != Task.NO_ID && ids[slot] != id) {
+			slot = nextSlot(slot);
+		}
+		if (ids[slot] == Task.NO_ID) {
+			ids[slot] = id;
+			size++;
+		}
+		positions[slot] = position;
+	}
+
+	/**
+	 * Removes id, moving back the ids after it that were pushed past their
+	 * own slot, so that no lookup stops early at the freed slot
+	 *
+	 * @param id
+	 */
+	void remove(long id) {
+		if (id == Task.NO_ID) {
+			return;
+		}
+		int slot = slotOf(id, ids.length);
+		while (ids[slot] != id) {
+			if (ids[slot] == Task.NO_ID) {
+				return;
+			}
+			slot = nextSlot(slot);
+		}
+		size--;
+		int free = slot;
+		for (slot = nextSlot(slot); ids[slot] != Task.NO_ID; slot = nextSlot(slot)) {
+			int home = slotOf(ids[slot], ids.length);
+			boolean isBetween = free <= slot ? free < home && home <= slot : free < home || home <= slot;
+			if (!isBetween) {
+				ids[free] = ids[slot];
+				positions[free] = positions[slot];
+				free = slot;
+			}
+		}
+		ids[free] = Task.NO_ID;
+	}
+
+	void clear() {
+		if (size > 0) {
+			Arrays.fill(ids, Task.NO_ID);
+			size = 0;
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void resize(int capacity) {
+		long[] oldIds = ids;
+		int[] oldPositions = positions;
+		ids = new long[capacity];
+		positions = new int[capacity];
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldIds[i] != Task.NO_ID) {
+				int slot = slotOf(oldIds[i], capacity);
+				while (ids[slot] != Task.NO_ID) {
+					slot = nextSlot(slot);
+				}
+				ids[slot] = oldIds[i];
+				positions[slot] = oldPositions[i];
+			}
+		}
+	}
+
+	private int nextSlot(int slot) {
+		return (slot + 1) & (ids.length - 1);
+	}
+
+	/**
+	 * Spreads the bits of id, as ids created one after another only differ
+	 * in their lowest bits
+	 */
+	private static int slotOf(long id, int capacity) {
+		long hash = id * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & (capacity - 1);
+	}
+}
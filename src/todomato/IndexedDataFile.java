@@ -0,0 +1,370 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+//@author A0099332Y
+/**
+ * This class holds the contents of a data file together with the offsets of
+ * its lines, so that the TaskList read from it only parses a task when it is
+ * first accessed. Indexing a file only needs to look for line breaks, which
+ * is much cheaper than parsing every task.
+ *
+ * <p>
+ * When every task is needed at once, files with more lines than the parallel
+ * load threshold (see Settings) are parsed on a ForkJoinPool, with each
+ * worker parsing its own range of lines into its own part of the result.
+ *
+ * <p>
+ * Data files written by FileHandler start with a line holding the generation
+ * of the file, and end with a line repeating the generation followed by the
+ * CRC32 of everything before it. A file is intact if that last line is
+ * present and matches. Files from before generations were added have neither
+ * line, and are taken to be intact with generation 0.
+ *
+ * <p>
+ * The generation line may be followed by a line holding the next id to be
+ * given to a task (see TaskList). Files without it only hold int ids, which
+ * are all below the first id a TaskList gives out.
+ *
+ * <p>
+ * Files whose text fields are escaped (see TaskFileTokenizer) have an
+ * escaped line after that. The lines of older files are read as they were
+ * written, and handed out in the escaped format by readFileString, so that
+ * every other store only ever sees escaped lines. When every task is read at
+ * once, a line that cannot be read is left out of the list instead of failing
+ * the whole load.
+ *
+ */
+public class IndexedDataFile implements TaskSource {
+
+	private static final int NO_OF_HEADER_LINES = 3;
+	private static final int INITIAL_NO_OF_LINES = 1024;
+	private static final byte CARRIAGE_RETURN = '\r';
+	private static final byte LINE_FEED = '\n';
+	private static final int LINES_PER_PARSE = 1024;
+	static final String GENERATION_PREFIX = "#generation ";
+	static final String CHECKSUM_PREFIX = "#checksum ";
+	static final String NEXT_ID_PREFIX = "#nextid ";
+	static final String ESCAPED_LINE = "#escaped";
+	private static final char ESCAPE = '\\';
+	private static final String UNREADABLE_LINE_MSG = "Leaving out line %1$d of the data file, which cannot be read: %2$s";
+	private static final Logger logger = Logger.getLogger(IndexedDataFile.class.getName());
+	private static final String CHECKSUM_SEPERATOR = " ";
+
+	private byte[] content;
+	private int[] lineStarts = new int[INITIAL_NO_OF_LINES];
+	private int[] lineEnds = new int[INITIAL_NO_OF_LINES];
+	private int lineCount;
+	private int firstLine;
+	private long generation;
+	private long nextId;
+	private boolean isIntact = true;
+	private boolean isEscaped = false;
+	private Charset charset = Charset.defaultCharset();
+
+	private IndexedDataFile(byte[] content) {
+		this.content = content;
+		indexLines();
+		readGeneration();
+		readNextId();
+		readEscaped();
+	}
+
+	/**
+	 * Reads dataFile and indexes its lines
+	 *
+	 * @param dataFile
+	 * @return the indexed contents of dataFile
+	 * @throws IOException
+	 */
+	public static IndexedDataFile index(File dataFile) throws IOException {
+		return new IndexedDataFile(Files.readAllBytes(dataFile.toPath()));
+	}
+
+	/**
+	 * @return a task list with the header of the file, that parses its tasks
+	 *         on first access
+	 */
+	public TaskList readLazily() {
+		TaskList taskList = readHeader();
+		taskList.setSource(this, getTaskCount());
+		return taskList;
+	}
+
+	/**
+	 * Parses the header and every task, in parallel if the file has more
+	 * lines than the parallel load threshold. Lines that cannot be parsed are
+	 * left out.
+	 *
+	 * @return a task list generated by strings in the file
+	 */
+	public TaskList readAll() {
+		TaskList taskList = readHeader();
+		Task[] tasks = new Task[getTaskCount()];
+		if (lineCount > Settings.getParallelLoadThreshold()) {
+			ForkJoinPool pool = new ForkJoinPool();
+			try {
+				pool.invoke(new ParseRange(tasks, 0, tasks.length));
+			} finally {
+				pool.shutdown();
+			}
+		} else {
+			parse(tasks, 0, tasks.length);
+		}
+		for (int i = 0; i < tasks.length; i++) {
+			if (tasks[i] != null) {
+				taskList.addToList(tasks[i]);
+			} else {
+				logger.warning(String.format(UNREADABLE_LINE_MSG, i + 1, readFileString(i)));
+			}
+		}
+		return taskList;
+	}
+
+	/**
+	 * @return generation of the file, or 0 if it was written without one
+	 */
+	public long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return CRC32 of the whole file, to tell whether it has changed
+	 */
+	public long getChecksum() {
+		CRC32 checksum = new CRC32();
+		checksum.update(content, 0, content.length);
+		return checksum.getValue();
+	}
+
+	/**
+	 * @return true if the file was written completely
+	 */
+	public boolean isIntact() {
+		return isIntact;
+	}
+
+	@Override
+	public Task readTask(int index) {
+		String line = getLine(index + NO_OF_HEADER_LINES);
+		if (!isEscaped) {
+			return TaskFileTokenizer.parseUnescaped(line);
+		}
+		return Task.createTaskFromFileString(line);
+	}
+
+	/**
+	 * @return the line of the Task at index, escaped if the file is not, or
+	 *         as it is if it cannot be read
+	 */
+	@Override
+	public String readFileString(int index) {
+		String line = getLine(index + NO_OF_HEADER_LINES);
+		if (isEscaped || line.indexOf(ESCAPE) < 0) {
+			return line;
+		}
+		try {
+			return TaskFileTokenizer.parseUnescaped(line).toFileString();
+		} catch (RuntimeException e) {
+			return line;
+		}
+	}
+
+	/**
+	 * @return true if the text fields of the file are escaped
+	 */
+	public boolean isEscaped() {
+		return isEscaped;
+	}
+
+	private TaskList readHeader() {
+		TaskList taskList = new TaskList();
+		taskList.setNextId(nextId);
+		if (lineCount > firstLine) {
+			taskList.setLastSyncTime(new DateTime(getLine(0)));
+		}
+		if (lineCount > firstLine + 1) {
+			taskList.setUserName(getLine(1));
+		}
+		if (lineCount > firstLine + 2) {
+			taskList.setPassword(getLine(2));
+		}
+		return taskList;
+	}
+
+	int getTaskCount() {
+		return Math.max(0, lineCount - firstLine - NO_OF_HEADER_LINES);
+	}
+
+	/**
+	 * Reads the generation line at the start of the file and checks the
+	 * checksum line at its end, leaving both out of the lines of the file
+	 */
+	private void readGeneration() {
+		if (lineCount == 0 || !rawLine(0).startsWith(GENERATION_PREFIX)) {
+			return;
+		}
+		firstLine = 1;
+		isIntact = false;
+		try {
+			generation = Long.parseLong(rawLine(0).substring(GENERATION_PREFIX.length()));
+		} catch (NumberFormatException e) {
+			return;
+		}
+		int last = lineCount - 1;
+		if (last == 0 || !rawLine(last).startsWith(CHECKSUM_PREFIX)) {
+			if (content[content.length - 1] != LINE_FEED) {
+				// the last line was cut off while it was being written
+				lineCount--;
+			}
+			return;
+		}
+		lineCount = last;
+		String[] parts = rawLine(last).substring(CHECKSUM_PREFIX.length()).split(CHECKSUM_SEPERATOR);
+		CRC32 checksum = new CRC32();
+		checksum.update(content, 0, lineStarts[last]);
+		try {
+			isIntact = parts.length == 2 && Long.parseLong(parts[0]) == generation
+					&& Long.parseLong(parts[1]) == checksum.getValue();
+		} catch (NumberFormatException e) {
+			isIntact = false;
+		}
+	}
+
+	/**
+	 * Reads the next id line after the generation line, leaving it out of
+	 * the lines of the file
+	 */
+	private void readNextId() {
+		if (firstLine == 0 || lineCount <= firstLine || !rawLine(firstLine).startsWith(NEXT_ID_PREFIX)) {
+			return;
+		}
+		try {
+			nextId = Long.parseLong(rawLine(firstLine).substring(NEXT_ID_PREFIX.length()));
+		} catch (NumberFormatException e) {
+			return;
+		}
+		firstLine++;
+	}
+
+	/**
+	 * Reads the escaped line after the next id line, leaving it out of the
+	 * lines of the file
+	 */
+	private void readEscaped() {
+		if (firstLine == 0 || lineCount <= firstLine || !rawLine(firstLine).equals(ESCAPED_LINE)) {
+			return;
+		}
+		isEscaped = true;
+		firstLine++;
+	}
+
+	/**
+	 * @return line of the file in the same format as the checksum line
+	 */
+	static String getChecksumLine(long generation, long checksum) {
+		return CHECKSUM_PREFIX + generation + CHECKSUM_SEPERATOR + checksum;
+	}
+
+	/**
+	 * Parses the tasks from index from (inclusive) to index to (exclusive)
+	 * into the same positions of tasks, leaving null for a line that cannot
+	 * be parsed
+	 */
+	private void parse(Task[] tasks, int from, int to) {
+		for (int i = from; i < to; i++) {
+			try {
+				tasks[i] = readTask(i);
+			} catch (RuntimeException e) {
+				tasks[i] = null;
+			}
+		}
+	}
+
+	/**
+	 * @param line index of a line after the generation line
+	 */
+	private String getLine(int line) {
+		return rawLine(line + firstLine);
+	}
+
+	private String rawLine(int line) {
+		return new String(content, lineStarts[line], lineEnds[line] - lineStarts[line], charset);
+	}
+
+	/**
+	 * Finds every line in the same way as BufferedReader.readLine, which
+	 * ends a line at "\r\n", "\n" or "\r"
+	 */
+	private void indexLines() {
+		int start = 0;
+		int i = 0;
+		while (i < content.length) {
+			byte current = content[i];
+			if (current == LINE_FEED || current == CARRIAGE_RETURN) {
+				addLine(start, i);
+				i++;
+				if (current == CARRIAGE_RETURN && i < content.length && content[i] == LINE_FEED) {
+					i++;
+				}
+				start = i;
+			} else {
+				i++;
+			}
+		}
+		if (start < content.length) {
+			addLine(start, content.length);
+		}
+	}
+
+	private void addLine(int start, int end) {
+		if (lineCount == lineStarts.length) {
+			int[] grownStarts = new int[lineCount * 2];
+			int[] grownEnds = new int[lineCount * 2];
+			System.arraycopy(lineStarts, 0, grownStarts, 0, lineCount);
+			System.arraycopy(lineEnds, 0, grownEnds, 0, lineCount);
+			lineStarts = grownStarts;
+			lineEnds = grownEnds;
+		}
+		lineStarts[lineCount] = start;
+		lineEnds[lineCount] = end;
+		lineCount++;
+	}
+
+	/**
+	 * Parses a range of lines, splitting it in half until it is small enough
+	 * to be parsed by one worker
+	 */
+	private class ParseRange extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private Task[] tasks;
+		private int from;
+		private int to;
+
+		ParseRange(Task[] tasks, int from, int to) {
+			this.tasks = tasks;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= LINES_PER_PARSE) {
+				parse(tasks, from, to);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ParseRange(tasks, from, middle), new ParseRange(tasks, middle, to));
+		}
+	}
+}
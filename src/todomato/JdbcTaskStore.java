@@ -0,0 +1,455 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+
+//@author A0099332Y
+/**
+ * This class keeps a TaskList in an embedded database reached through JDBC,
+ * e.g. "jdbc:h2:./tasks" or "jdbc:sqlite:tasks.db" (see Settings). The
+ * driver of the database must be on the class path.
+ *
+ * <p>
+ * Each task is one row keyed by its order key, which is spaced apart from its
+ * neighbours so that a task can be inserted without renumbering the rest. The
+ * whole task is kept in the data file format, next to columns for the id,
+ * end date, priority and completion that are indexed for queries. Changes to
+ * the list are recorded as they happen (see TaskListListener) and saving only
+ * inserts, updates or deletes the rows of the tasks that changed, in one
+ * transaction. Sorting the list or changing the login rewrites every row.
+ * Tables written when task ids were ints are recreated with 64 bit ids when
+ * the store is opened.
+ *
+ */
+public class JdbcTaskStore implements TaskStore, TaskListListener {
+
+	private static final String CREATE_TASK_TABLE = "CREATE TABLE IF NOT EXISTS %1$s_task ("
+			+ "order_key BIGINT PRIMARY KEY, id BIGINT, end_date VARCHAR(10), "
+			+ "priority VARCHAR(16), completed INTEGER, task VARCHAR(8192))";
+	private static final String CREATE_HEADER_TABLE = "CREATE TABLE IF NOT EXISTS %1$s_header ("
+			+ "name VARCHAR(16) PRIMARY KEY, header_value VARCHAR(1024))";
+	private static final String[] CREATE_INDEXES = {
+			"CREATE INDEX IF NOT EXISTS %1$s_task_id ON %1$s_task (id)",
+			"CREATE INDEX IF NOT EXISTS %1$s_task_end_date ON %1$s_task (end_date)",
+			"CREATE INDEX IF NOT EXISTS %1$s_task_priority ON %1$s_task (priority)",
+			"CREATE INDEX IF NOT EXISTS %1$s_task_completed ON %1$s_task (completed)" };
+	private static final String SELECT_TASKS = "SELECT order_key, task FROM %1$s_task ORDER BY order_key";
+	private static final String SELECT_HEADER = "SELECT name, header_value FROM %1$s_header";
+	private static final String INSERT_TASK = "INSERT INTO %1$s_task "
+			+ "(order_key, id, end_date, priority, completed, task) VALUES (?, ?, ?, ?, ?, ?)";
+	private static final String UPDATE_TASK = "UPDATE %1$s_task "
+			+ "SET id = ?, end_date = ?, priority = ?, completed = ?, task = ? WHERE order_key = ?";
+	private static final String DELETE_TASK = "DELETE FROM %1$s_task WHERE order_key = ?";
+	private static final String DELETE_ALL_TASKS = "DELETE FROM %1$s_task";
+	private static final String DELETE_HEADER = "DELETE FROM %1$s_header";
+	private static final String DROP_TASK_TABLE = "DROP TABLE %1$s_task";
+	private static final String UPDATE_HEADER = "UPDATE %1$s_header SET header_value = ? WHERE name = ?";
+	private static final String INSERT_HEADER = "INSERT INTO %1$s_header (name, header_value) VALUES (?, ?)";
+	private static final String HEADER_SYNC_TIME = "syncTime";
+	private static final String HEADER_USER_NAME = "userName";
+	private static final String HEADER_PASSWORD = "password";
+	private static final String HEADER_NEXT_ID = "nextId";
+	private static final String SAVE_FAILED_MSG = "Could not save tasks to %1$s: %2$s";
+	private static final String CLOSE_FAILED_MSG = "Could not close %1$s: %2$s";
+	private static final Logger logger = Logger.getLogger(JdbcTaskStore.class.getName());
+	private static final long KEY_GAP = 1L << 20;
+	private static final String DEFAULT_TABLE_PREFIX = "todomato";
+
+	private String url;
+	private String tablePrefix;
+	private Connection connection;
+	private TaskList trackedList;
+	private ArrayList<Long> keys = new ArrayList<Long>();
+	private ArrayList<Change> pendingChanges = new ArrayList<Change>();
+	private boolean isRewriteNeeded;
+	private long savedNextId;
+
+	/**
+	 * Connects to the database and creates the tables if they do not exist
+	 *
+	 * @param url JDBC url of the database
+	 * @throws SQLException if the database cannot be opened
+	 */
+	public JdbcTaskStore(String url) throws SQLException {
+		this(url, DEFAULT_TABLE_PREFIX);
+	}
+
+	/**
+	 * Connects to the database and creates the tables if they do not exist
+	 *
+	 * @param url JDBC url of the database
+	 * @param tablePrefix start of the names of the tables, so that several
+	 *            lists can be kept in one database
+	 * @throws SQLException if the database cannot be opened
+	 */
+	public JdbcTaskStore(String url, String tablePrefix) throws SQLException {
+		this.url = url;
+		this.tablePrefix = tablePrefix;
+		this.connection = DriverManager.getConnection(url);
+		Statement statement = connection.createStatement();
+		try {
+			statement.executeUpdate(sql(CREATE_TASK_TABLE));
+			statement.executeUpdate(sql(CREATE_HEADER_TABLE));
+			for (String createIndex : CREATE_INDEXES) {
+				statement.executeUpdate(sql(createIndex));
+			}
+		} finally {
+			statement.close();
+		}
+		if (exists() && !hasHeader(HEADER_NEXT_ID)) {
+			widenIds();
+		}
+	}
+
+	/**
+	 * Recreates the task table of a database that was written when task ids
+	 * were ints, so that its id column holds the 64 bit ids of TaskList
+	 *
+	 * @throws SQLException
+	 */
+	private void widenIds() throws SQLException {
+		TaskList taskList = readFile();
+		if (taskList == null) {
+			throw new SQLException(url + " could not be read");
+		}
+		taskList.getList();
+		Statement statement = connection.createStatement();
+		try {
+			statement.executeUpdate(sql(DROP_TASK_TABLE));
+			statement.executeUpdate(sql(CREATE_TASK_TABLE));
+			for (String createIndex : CREATE_INDEXES) {
+				statement.executeUpdate(sql(createIndex));
+			}
+		} finally {
+			statement.close();
+		}
+		writeAll(taskList);
+	}
+
+	private boolean hasHeader(String name) throws SQLException {
+		Statement statement = connection.createStatement();
+		try {
+			ResultSet header = statement.executeQuery(sql(SELECT_HEADER));
+			while (header.next()) {
+				if (header.getString(1).equals(name)) {
+					return true;
+				}
+			}
+			return false;
+		} finally {
+			statement.close();
+		}
+	}
+
+	/**
+	 * @return true if a list has been saved to the database
+	 * @throws SQLException
+	 */
+	public boolean exists() throws SQLException {
+		Statement statement = connection.createStatement();
+		try {
+			return statement.executeQuery(sql(SELECT_HEADER)).next();
+		} finally {
+			statement.close();
+		}
+	}
+
+	@Override
+	public void close() {
+		if (trackedList != null) {
+			trackedList.removeListener(this);
+			trackedList = null;
+		}
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			logger.warning(String.format(CLOSE_FAILED_MSG, url, e.getMessage()));
+		}
+	}
+
+	/**
+	 * Reads every row and starts recording the changes made to the returned
+	 * list. Tasks are only parsed when they are first accessed.
+	 */
+	@Override
+	public TaskList readFile() {
+		TaskList taskList = new TaskList();
+		final ArrayList<String> rows = new ArrayList<String>();
+		ArrayList<Long> rowKeys = new ArrayList<Long>();
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				ResultSet header = statement.executeQuery(sql(SELECT_HEADER));
+				while (header.next()) {
+					setHeader(taskList, header.getString(1), header.getString(2));
+				}
+				ResultSet tasks = statement.executeQuery(sql(SELECT_TASKS));
+				while (tasks.next()) {
+					rowKeys.add(tasks.getLong(1));
+					rows.add(tasks.getString(2));
+				}
+			} finally {
+				statement.close();
+			}
+		} catch (SQLException e) {
+			return null;
+		}
+		taskList.setSource(new TaskSource() {
+			@Override
+			public Task readTask(int index) {
+				return Task.createTaskFromFileString(rows.get(index));
+			}
+
+			@Override
+			public String readFileString(int index) {
+				return rows.get(index);
+			}
+		}, rows.size());
+		track(taskList, rowKeys);
+		return taskList;
+	}
+
+	@Override
+	public TaskList updateFile(TaskList taskList) {
+		return updateFile(taskList, false);
+	}
+
+	/**
+	 * Writes the rows that changed since the last save, or every row if the
+	 * list cannot be saved that way. The database decides when a committed
+	 * transaction is on disk.
+	 */
+	@Override
+	public TaskList updateFile(TaskList taskList, boolean isForced) {
+		try {
+			if (taskList != trackedList || isRewriteNeeded) {
+				writeAll(taskList);
+			} else {
+				writeChanges();
+			}
+			return taskList;
+		} catch (SQLException e) {
+			logger.warning(String.format(SAVE_FAILED_MSG, url, e.getMessage()));
+			return null;
+		}
+	}
+
+	/**
+	 * Replaces the contents of the database with taskList and starts
+	 * recording the changes made to it
+	 *
+	 * @param taskList
+	 * @throws SQLException
+	 */
+	public void writeAll(TaskList taskList) throws SQLException {
+		ArrayList<Long> newKeys = new ArrayList<Long>(taskList.getSize());
+		for (int i = 0; i < taskList.getSize(); i++) {
+			newKeys.add((i + 1) * KEY_GAP);
+		}
+		boolean isAutoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try {
+			Statement statement = connection.createStatement();
+			try {
+				statement.executeUpdate(sql(DELETE_ALL_TASKS));
+				statement.executeUpdate(sql(DELETE_HEADER));
+			} finally {
+				statement.close();
+			}
+			PreparedStatement insertHeader = connection.prepareStatement(sql(INSERT_HEADER));
+			try {
+				addHeader(insertHeader, HEADER_SYNC_TIME, String.valueOf(taskList.getLastSyncTime()));
+				addHeader(insertHeader, HEADER_USER_NAME, String.valueOf(taskList.getUserName()));
+				addHeader(insertHeader, HEADER_PASSWORD, String.valueOf(taskList.getPassword()));
+				addHeader(insertHeader, HEADER_NEXT_ID, String.valueOf(taskList.getNextId()));
+				insertHeader.executeBatch();
+			} finally {
+				insertHeader.close();
+			}
+			PreparedStatement insertTask = connection.prepareStatement(sql(INSERT_TASK));
+			try {
+				for (int i = 0; i < taskList.getSize(); i++) {
+					Change insert = new Change(INSERT_TASK, newKeys.get(i), taskList.getListItem(i),
+							taskList.getFileString(i));
+					insertTask.setLong(1, insert.key);
+					insert.setColumns(insertTask, 2);
+					insertTask.addBatch();
+				}
+				insertTask.executeBatch();
+			} finally {
+				insertTask.close();
+			}
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(isAutoCommit);
+		}
+		track(taskList, newKeys);
+	}
+
+	@Override
+	public void taskAdded(int index, Task task) {
+		long previous = index > 0 ? keys.get(index - 1) : 0;
+		long next = index < keys.size() ? keys.get(index) : previous + 2 * KEY_GAP;
+		if (next - previous < 2) {
+			isRewriteNeeded = true;
+			next = previous + 2;
+		}
+		long key = previous + (next - previous) / 2;
+		keys.add(index, key);
+		pendingChanges.add(new Change(INSERT_TASK, key, task, task.toFileString()));
+	}
+
+	@Override
+	public void taskRemoved(int index, Task task) {
+		pendingChanges.add(new Change(DELETE_TASK, keys.remove(index), null, null));
+	}
+
+	@Override
+	public void taskUpdated(int index, Task task) {
+		pendingChanges.add(new Change(UPDATE_TASK, keys.get(index), task, task.toFileString()));
+	}
+
+	@Override
+	public void listRestructured() {
+		pendingChanges.clear();
+		isRewriteNeeded = true;
+	}
+
+	/**
+	 * @param statement
+	 * @return statement with the names of the tables of this store
+	 */
+	private String sql(String statement) {
+		return String.format(statement, tablePrefix);
+	}
+
+	private void track(TaskList taskList, ArrayList<Long> listKeys) {
+		if (trackedList != null) {
+			trackedList.removeListener(this);
+		}
+		trackedList = taskList;
+		trackedList.addListener(this);
+		keys = listKeys;
+		pendingChanges.clear();
+		isRewriteNeeded = false;
+		savedNextId = taskList.getNextId();
+	}
+
+	/**
+	 * Applies the changes recorded since the last save in one transaction
+	 *
+	 * @throws SQLException
+	 */
+	private void writeChanges() throws SQLException {
+		long nextId = trackedList.getNextId();
+		if (pendingChanges.isEmpty() && nextId == savedNextId) {
+			return;
+		}
+		boolean isAutoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try {
+			for (Change change : pendingChanges) {
+				PreparedStatement statement = connection.prepareStatement(sql(change.sql));
+				try {
+					if (change.sql.equals(DELETE_TASK)) {
+						statement.setLong(1, change.key);
+					} else if (change.sql.equals(INSERT_TASK)) {
+						statement.setLong(1, change.key);
+						change.setColumns(statement, 2);
+					} else {
+						change.setColumns(statement, 1);
+						statement.setLong(6, change.key);
+					}
+					statement.executeUpdate();
+				} finally {
+					statement.close();
+				}
+			}
+			if (nextId != savedNextId) {
+				PreparedStatement updateHeader = connection.prepareStatement(sql(UPDATE_HEADER));
+				try {
+					updateHeader.setString(1, String.valueOf(nextId));
+					updateHeader.setString(2, HEADER_NEXT_ID);
+					updateHeader.executeUpdate();
+				} finally {
+					updateHeader.close();
+				}
+			}
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		} finally {
+			connection.setAutoCommit(isAutoCommit);
+		}
+		pendingChanges.clear();
+		savedNextId = nextId;
+	}
+
+	private static void addHeader(PreparedStatement statement, String name, String value) throws SQLException {
+		statement.setString(1, name);
+		statement.setString(2, value);
+		statement.addBatch();
+	}
+
+	private static void setHeader(TaskList taskList, String name, String value) {
+		if (name.equals(HEADER_SYNC_TIME)) {
+			taskList.setLastSyncTime(new DateTime(value));
+		} else if (name.equals(HEADER_USER_NAME)) {
+			taskList.setUserName(value);
+		} else if (name.equals(HEADER_PASSWORD)) {
+			taskList.setPassword(value);
+		} else if (name.equals(HEADER_NEXT_ID)) {
+			taskList.setNextId(Long.parseLong(value));
+		}
+	}
+
+	/**
+	 * A change to one row, with the columns of the task as they were when the
+	 * change was made
+	 */
+	private static class Change {
+		private String sql;
+		private long key;
+		private long id;
+		private String endDate;
+		private String priority;
+		private boolean isCompleted;
+		private String fileString;
+
+		Change(String sql, long key, Task task, String fileString) {
+			this.sql = sql;
+			this.key = key;
+			if (task != null) {
+				this.id = task.getId();
+				this.endDate = FileHandler.formatDate(task.getEndDate());
+				this.priority = task.getPriorityLevel();
+				this.isCompleted = task.getCompleted();
+				this.fileString = fileString;
+			}
+		}
+
+		/**
+		 * Sets the id, end date, priority, completion and task columns
+		 * starting from parameter first
+		 */
+		void setColumns(PreparedStatement statement, int first) throws SQLException {
+			statement.setLong(first, id);
+			statement.setString(first + 1, endDate);
+			statement.setString(first + 2, priority);
+			statement.setInt(first + 3, isCompleted ? 1 : 0);
+			statement.setString(first + 4, fileString);
+		}
+	}
+}
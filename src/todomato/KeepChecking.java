@@ -1,7 +1,8 @@
 package todomato;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import hirondelle.date4j.DateTime;
+
+import java.util.TimeZone;
 
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
@@ -12,26 +13,21 @@ import org.quartz.JobExecutionContext;
  * if the current time matches the notify time for that task
  */
 public class KeepChecking implements Job {
-	private static String timeFormat = "HH:mm";
 	TaskList today_pop = new TaskList();
 
 	@Override
 	public void execute(JobExecutionContext context) {
 		today_pop.clearList();
 		// getting current time
-		String timeStamp = new SimpleDateFormat(timeFormat).format(Calendar
-				.getInstance().getTime());
+		DateTime now = DateTime.now(TimeZone.getDefault());
 
-		for (int i = 0; i < Processor.getList().getSize(); i++) {
-			// if there is notify time for that task
-			if (Processor.getList().getListItem(i).getNoticeTime() != null) {
-				// if the current time matches the notify time
-				if (Processor.getList().getListItem(i).getNoticeTime()
-						.toString().contains(timeStamp)) {
-					// pop up the relevant task at that time
-					today_pop.addToList(Processor.getList().getListItem(i));
-				}
-			}
+		// tasks with a notify time that matches the current time, found
+		// through the notice time index of a snapshot of the list, so that
+		// the scan does not wait for a command
+		TaskList list = Processor.getSnapshot();
+		for (int i : list.findNoticedAt(now.getHour(), now.getMinute())) {
+			// pop up the relevant task at that time
+			today_pop.addToList(list.getListItem(i));
 		}
 		if (today_pop.getSize() != 0) {
 			// inform the notification to pop up the relevant tasks for today
@@ -0,0 +1,316 @@
+package todomato;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+//@author A0120766H
+/**
+ * This class holds one change made to a TaskList that can be undone, as the
+ * operations that take the list back to how it was before the change, in
+ * the order they were recorded.
+ *
+ * <p>
+ * An operation holds at most one Task, or a copy of the whole list for
+ * changes that move many Tasks at once, which shares its Tasks with the
+ * list (see TaskList.deepCopy).
+ *
+ * <p>
+ * A change can be written out and read back (see UndoSpillFile), with its
+ * Tasks in the format of the data file. The Tasks read back are equal to
+ * the ones written, but are not the same objects.
+ *
+ * <p>
+ * A change written to an UndoLog keeps its place in the log, so that its
+ * operations can be dropped from memory (see unload) and read back from the
+ * log when they are needed. A change read from a log starts out that way.
+ *
+ */
+class ListChange {
+
+	private static final int ADD = 0;
+	private static final int REMOVE = 1;
+	private static final int REPLACE = 2;
+	private static final int RESTORE = 3;
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	// rough number of bytes taken by an operation, a Task without its
+	// Strings, a String without its characters, and the part of a copy of
+	// the list that is not shared with the list
+	private static final long OPERATION_SIZE = 32;
+	private static final long TASK_SIZE = 120;
+	private static final long STRING_SIZE = 40;
+	private static final long BYTES_PER_CHAR = 2;
+	private static final long LIST_NODE_SIZE = 40;
+
+	// null while the change is only kept in the log
+	private ArrayList<Operation> operations = new ArrayList<Operation>();
+	private long estimatedSize = 0;
+	private UndoLog log = null;
+	private long offset;
+	private int length;
+	// number of operations when the change was written to the log
+	private int loggedOperations;
+
+	/**
+	 * @param log
+	 * @param offset start of the change in the log
+	 * @param length number of bytes taken by the change in the log
+	 * @return change that is read from log when it is needed
+	 */
+	static ListChange unloaded(UndoLog log, long offset, int length) {
+		ListChange change = new ListChange();
+		change.operations = null;
+		change.setLocation(log, offset, length);
+		return change;
+	}
+
+	/**
+	 * Records that the Task added at index must be removed
+	 * @param index
+	 */
+	void recordAdded(int index) {
+		add(new Operation(REMOVE, index, null, null));
+	}
+
+	/**
+	 * Records that task, removed from index, must be added back there
+	 * @param index
+	 * @param task
+	 */
+	void recordRemoved(int index, Task task) {
+		add(new Operation(ADD, index, task, null));
+	}
+
+	/**
+	 * Records that the Task at index must be replaced with task, the Task
+	 * that was there before
+	 * @param index
+	 * @param task
+	 */
+	void recordReplaced(int index, Task task) {
+		add(new Operation(REPLACE, index, task, null));
+	}
+
+	/**
+	 * Records that the list must be made a copy of lastList again
+	 * @param lastList the list before it was changed, which must not be
+	 *            changed afterwards
+	 */
+	void recordRestructured(TaskList lastList) {
+		add(new Operation(RESTORE, 0, null, lastList));
+	}
+
+	/**
+	 * Takes list back to how it was before this change, undoing the
+	 * operations from the last one recorded
+	 * @param list the list this change was recorded for
+	 * @throws IOException if the change could not be read from its log
+	 */
+	void undo(TaskList list) throws IOException {
+		load();
+		for (int i = operations.size() - 1; i >= 0; i--) {
+			Operation operation = operations.get(i);
+			switch (operation.type) {
+			case ADD:
+				list.addToList(operation.index, operation.task);
+				break;
+			case REMOVE:
+				list.deleteListItem(operation.index);
+				break;
+			case REPLACE:
+				list.setListItem(operation.index, operation.task);
+				break;
+			default:
+				list.deepCopy(operation.lastList);
+			}
+		}
+	}
+
+	/**
+	 * @return number of Tasks held by this change, counting a copy of the
+	 *         list as all of its Tasks
+	 */
+	long getTaskCount() {
+		long tasks = 0;
+		if (operations == null) {
+			return tasks;
+		}
+		for (Operation operation : operations) {
+			if (operation.task != null) {
+				tasks++;
+			} else if (operation.lastList != null) {
+				tasks += operation.lastList.getSize();
+			}
+		}
+		return tasks;
+	}
+
+	/**
+	 * @return rough number of bytes taken by this change
+	 */
+	long getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	/**
+	 * Records that the change was written to log, with the operations it
+	 * holds now
+	 * @param log
+	 * @param offset start of the change in the log
+	 * @param length number of bytes taken by the change in the log
+	 */
+	void setLocation(UndoLog log, long offset, int length) {
+		this.log = log;
+		this.offset = offset;
+		this.length = length;
+		loggedOperations = operations == null ? 0 : operations.size();
+	}
+
+	long getOffset() {
+		return offset;
+	}
+
+	int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return true if the operations of the change are in memory
+	 */
+	boolean isLoaded() {
+		return operations != null;
+	}
+
+	/**
+	 * @return true if the change is in its log as it is now
+	 */
+	boolean isLogged() {
+		return log != null && (operations == null || operations.size() == loggedOperations);
+	}
+
+	/**
+	 * Drops the operations from memory if they can be read back from the log
+	 */
+	void unload() {
+		if (isLogged()) {
+			operations = null;
+			estimatedSize = 0;
+		}
+	}
+
+	/**
+	 * Reads the operations back from the log if they were dropped
+	 * @throws IOException
+	 */
+	void load() throws IOException {
+		if (operations != null) {
+			return;
+		}
+		ListChange read = log.read(offset, length);
+		operations = read.operations;
+		estimatedSize = read.estimatedSize;
+		loggedOperations = operations.size();
+	}
+
+	/**
+	 * Writes the operations of this change to out, to be read back by read
+	 * @param out
+	 * @throws IOException
+	 */
+	void write(DataOutput out) throws IOException {
+		load();
+		out.writeInt(operations.size());
+		for (Operation operation : operations) {
+			out.writeByte(operation.type);
+			out.writeInt(operation.index);
+			if (operation.task != null) {
+				writeString(out, operation.task.toFileString());
+			} else if (operation.lastList != null) {
+				out.writeLong(operation.lastList.getNextId());
+				out.writeInt(operation.lastList.getSize());
+				for (int i = 0; i < operation.lastList.getSize(); i++) {
+					writeString(out, operation.lastList.getFileString(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param in
+	 * @return change written by write
+	 * @throws IOException
+	 */
+	static ListChange read(DataInput in) throws IOException {
+		ListChange change = new ListChange();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			int type = in.readByte();
+			int index = in.readInt();
+			if (type == ADD || type == REPLACE) {
+				change.add(new Operation(type, index, Task.createTaskFromFileString(readString(in)), null));
+			} else if (type == RESTORE) {
+				TaskList lastList = new TaskList();
+				long nextId = in.readLong();
+				int tasks = in.readInt();
+				for (int j = 0; j < tasks; j++) {
+					lastList.addToList(Task.createTaskFromFileString(readString(in)));
+				}
+				lastList.setNextId(nextId);
+				change.add(new Operation(type, index, null, lastList));
+			} else {
+				change.add(new Operation(type, index, null, null));
+			}
+		}
+		return change;
+	}
+
+	private void add(Operation operation) {
+		operations.add(operation);
+		estimatedSize += OPERATION_SIZE;
+		if (operation.task != null) {
+			estimatedSize += estimateSize(operation.task);
+		} else if (operation.lastList != null) {
+			estimatedSize += operation.lastList.getSize() * LIST_NODE_SIZE;
+		}
+	}
+
+	private static long estimateSize(Task task) {
+		return TASK_SIZE + estimateSize(task.getDescription()) + estimateSize(task.getLocation())
+				+ estimateSize(task.getEventId());
+	}
+
+	private static long estimateSize(String string) {
+		if (string == null) {
+			return 0;
+		}
+		return STRING_SIZE + string.length() * BYTES_PER_CHAR;
+	}
+
+	private static void writeString(DataOutput out, String string) throws IOException {
+		byte[] bytes = string.getBytes(CHARSET);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, CHARSET);
+	}
+
+	private static class Operation {
+		private final int type;
+		private final int index;
+		private final Task task;
+		private final TaskList lastList;
+
+		private Operation(int type, int index, Task task, TaskList lastList) {
+			this.type = type;
+			this.index = index;
+			this.task = task;
+			this.lastList = lastList;
+		}
+	}
+}
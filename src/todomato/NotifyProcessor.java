@@ -54,7 +54,12 @@ public class NotifyProcessor extends Processor {
 			throws InvalidInputException {
 		storeCurrentList();
 		checkingInputErrors(argument);
-		int index = getTaskIndex(argument) - 1;
+		int number = getTaskIndex(argument);
+		// the number is the one shown by the display list
+		int index = getListIndex(number - 1);
+		if (index == NOT_FOUND) {
+			throw new InvalidInputException(String.format(INVALID_INDEX, number));
+		}
 		notifyTime(index, findDetailToEdit(argument), argument);
 		return NOTIFIED;
 	}
@@ -71,8 +76,9 @@ public class NotifyProcessor extends Processor {
 			}
 			DateTime time = convertStringToDateTime(parseTimeString(argument
 					.substring(which + NO_OF_CHAR_IN_NTIME)));
-			list.getListItem(index).setNoticeTime(time);
-			fileHandler.updateFile(list);
+			list.editListItem(index).setNoticeTime(time);
+			list.markUpdated(index);
+			saveList();
 		} else {
 			throw new InvalidInputException(NO_DATE);
 		}
@@ -0,0 +1,332 @@
+package todomato;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+//@author A0099332Y
+/**
+ * This class keeps an append-only journal of the changes made to a TaskList
+ * since the data file was last written, so that a save only costs as much as
+ * the change itself.
+ *
+ * <p>
+ * Each line in the journal is one record of the following format:
+ * <ul>
+ * <li>"A#<index>#<task file string>" for a task added at index
+ * <li>"U#<index>#<task file string>" for a task modified at index
+ * <li>"D#<index>" for a task deleted from index
+ * </ul>
+ *
+ * <p>
+ * Each record is written after the CRC32 of its bytes, as eight hex digits
+ * and a "#", so that a record that was only partly written when the program
+ * was stopped can be told apart from a complete one. Replaying a journal
+ * cuts it back to the end of the last record that was replayed, so that the
+ * records appended after it are not lost behind a broken one.
+ *
+ * <p>
+ * Records refer to positions in the list rather than task ids, as the order
+ * of the list is seen by the user and ids are not guaranteed to be unique.
+ * Changes that cannot be expressed as records (sorting, changes to the
+ * sync time or login) mark the journal as needing a full snapshot instead.
+ *
+ */
+public class OperationJournal implements TaskListListener {
+
+	private static final String JOURNAL_EXTENSION = ".journal";
+	private static final String COMPACTING_EXTENSION = ".compacting";
+	private static final String ADD_RECORD = "A";
+	private static final String UPDATE_RECORD = "U";
+	private static final String DELETE_RECORD = "D";
+	private static final String SEPERATOR = "#";
+	private static final String LINE_BREAK = "\r\n";
+	private static final String CHECKSUM_FORMAT = "%08x";
+	private static final int CHECKSUM_LENGTH = 8;
+	private static final String READ_WRITE_MODE = "rw";
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	private static final String TRUNCATED_MSG = "Cut the journal %1$s back from %2$d to %3$d bytes";
+	private static final int NO_OF_PARTS_IN_RECORD = 3;
+	private static final int INDEX_OF_TYPE = 0;
+	private static final int INDEX_OF_POSITION = 1;
+	private static final int INDEX_OF_TASK = 2;
+	private static final Logger logger = Logger.getLogger(OperationJournal.class.getName());
+
+	private File journalFile;
+	private File compactingFile;
+	private TaskList trackedList;
+	private ArrayList<String> pendingRecords = new ArrayList<String>();
+	private boolean isSnapshotNeeded;
+
+	/**
+	 * @param dataFile the data file that this journal records changes for
+	 */
+	public OperationJournal(File dataFile) {
+		String path = dataFile.getAbsolutePath();
+		this.journalFile = new File(path + JOURNAL_EXTENSION);
+		this.compactingFile = new File(path + JOURNAL_EXTENSION + COMPACTING_EXTENSION);
+	}
+
+	/**
+	 * Starts recording changes made to taskList, which must be in the same
+	 * state as the data file plus journal, i.e. the journal must have been
+	 * replayed on it or cleared. Stops recording the previous list.
+	 *
+	 * @param taskList list to record changes of
+	 */
+	public void track(TaskList taskList) {
+		if (trackedList != null) {
+			trackedList.removeListener(this);
+		}
+		trackedList = taskList;
+		trackedList.addListener(this);
+		pendingRecords.clear();
+		isSnapshotNeeded = false;
+	}
+
+	/**
+	 * @param taskList
+	 * @return true if the changes to taskList can be saved by appending to the
+	 *         journal
+	 */
+	public boolean canAppend(TaskList taskList) {
+		return taskList == trackedList && !isSnapshotNeeded;
+	}
+
+	/**
+	 * Appends the changes recorded since the last call to the journal file.
+	 * If that fails, some of the records may be in the file already, so the
+	 * changes can no longer be appended and a full snapshot is needed.
+	 *
+	 * @param isForced true if the records must be on disk before returning
+	 * @throws IOException
+	 */
+	public void append(boolean isForced) throws IOException {
+		if (pendingRecords.isEmpty()) {
+			return;
+		}
+		try {
+			FileOutputStream fileOutputStream = new FileOutputStream(journalFile, true);
+			BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(fileOutputStream, CHARSET));
+			try {
+				for (String record : pendingRecords) {
+					bufferedWriter.write(checksum(record) + SEPERATOR + record + LINE_BREAK);
+				}
+				bufferedWriter.flush();
+				if (isForced) {
+					fileOutputStream.getFD().sync();
+				}
+			} finally {
+				bufferedWriter.close();
+			}
+		} catch (IOException e) {
+			pendingRecords.clear();
+			isSnapshotNeeded = true;
+			throw e;
+		}
+		pendingRecords.clear();
+	}
+
+	public File getFile() {
+		return journalFile;
+	}
+
+	/**
+	 * @return size of the journal file in bytes
+	 */
+	public long getLength() {
+		return journalFile.length();
+	}
+
+	/**
+	 * Moves the journal aside so that it can be folded into the data file while
+	 * new records go to a fresh journal.
+	 *
+	 * @return true if the journal was moved, false if a previous journal is
+	 *         still being folded
+	 */
+	public boolean startCompaction() {
+		if (compactingFile.exists()) {
+			return false;
+		}
+		return journalFile.renameTo(compactingFile);
+	}
+
+	/**
+	 * @return true if a journal that was moved aside has not been folded yet
+	 */
+	public boolean isCompacting() {
+		return compactingFile.exists();
+	}
+
+	/**
+	 * Applies the journal that was moved aside for compaction to taskList
+	 *
+	 * @param taskList
+	 */
+	public void replayCompacting(TaskList taskList) {
+		replayFile(compactingFile, taskList);
+	}
+
+	/**
+	 * Deletes the journal that was moved aside, after it has been folded
+	 */
+	public void finishCompaction() {
+		compactingFile.delete();
+	}
+
+	/**
+	 * Applies all journalled changes to taskList, which must be read from
+	 * the data file.
+	 *
+	 * @param taskList
+	 */
+	public void replay(TaskList taskList) {
+		replayFile(compactingFile, taskList);
+		replayFile(journalFile, taskList);
+	}
+
+	/**
+	 * Deletes all journalled changes, after a full snapshot has been written.
+	 * The journal file goes first, as its absence marks the snapshot complete.
+	 */
+	public void clear() {
+		journalFile.delete();
+		compactingFile.delete();
+		pendingRecords.clear();
+		isSnapshotNeeded = false;
+	}
+
+	@Override
+	public void taskAdded(int index, Task task) {
+		pendingRecords.add(ADD_RECORD + SEPERATOR + index + SEPERATOR + task.toFileString());
+	}
+
+	@Override
+	public void taskRemoved(int index, Task task) {
+		pendingRecords.add(DELETE_RECORD + SEPERATOR + index);
+	}
+
+	@Override
+	public void taskUpdated(int index, Task task) {
+		pendingRecords.add(UPDATE_RECORD + SEPERATOR + index + SEPERATOR + task.toFileString());
+	}
+
+	@Override
+	public void listRestructured() {
+		pendingRecords.clear();
+		isSnapshotNeeded = true;
+	}
+
+	/**
+	 * Applies every record in journal to taskList. A record that was not
+	 * written in full or does not match its checksum, e.g. the last one if the
+	 * program was stopped while appending, or one that cannot be applied, ends
+	 * the replay, and the journal is cut back to the end of the record before
+	 * it.
+	 *
+	 * @param journal
+	 * @param taskList
+	 */
+	private static void replayFile(File journal, TaskList taskList) {
+		if (!journal.exists()) {
+			return;
+		}
+		try {
+			RandomAccessFile file = new RandomAccessFile(journal, READ_WRITE_MODE);
+			try {
+				byte[] contents = new byte[(int) file.length()];
+				file.readFully(contents);
+				int replayedLength = 0;
+				int lineEnd;
+				while ((lineEnd = findLineBreak(contents, replayedLength)) >= 0) {
+					String line = new String(contents, replayedLength, lineEnd - replayedLength, CHARSET);
+					String record = verifyRecord(line);
+					if (record == null || !applyRecord(record, taskList)) {
+						break;
+					}
+					replayedLength = lineEnd + LINE_BREAK.length();
+				}
+				if (replayedLength < contents.length) {
+					file.setLength(replayedLength);
+					logger.warning(String.format(TRUNCATED_MSG, journal, contents.length, replayedLength));
+				}
+			} finally {
+				file.close();
+			}
+		} catch (IOException e) {
+			return;
+		}
+	}
+
+	/**
+	 * @param contents
+	 * @param start
+	 * @return index of the first line break in contents from start, or -1 if
+	 *         there is none
+	 */
+	private static int findLineBreak(byte[] contents, int start) {
+		for (int i = start; i < contents.length - 1; i++) {
+			if (contents[i] == LINE_BREAK.charAt(0) && contents[i + 1] == LINE_BREAK.charAt(1)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param record
+	 * @return CRC32 of the bytes of record, as written before it
+	 */
+	private static String checksum(String record) {
+		CRC32 crc = new CRC32();
+		crc.update(record.getBytes(CHARSET));
+		return String.format(CHECKSUM_FORMAT, crc.getValue());
+	}
+
+	/**
+	 * @param line a line of the journal
+	 * @return the record in line, or null if it does not match its checksum
+	 */
+	private static String verifyRecord(String line) {
+		if (line.length() <= CHECKSUM_LENGTH || !line.startsWith(SEPERATOR, CHECKSUM_LENGTH)) {
+			return null;
+		}
+		String record = line.substring(CHECKSUM_LENGTH + SEPERATOR.length());
+		if (!line.startsWith(checksum(record))) {
+			return null;
+		}
+		return record;
+	}
+
+	/**
+	 * @param record
+	 * @param taskList
+	 * @return true if record could be applied
+	 */
+	private static boolean applyRecord(String record, TaskList taskList) {
+		String[] parts = record.split(SEPERATOR, NO_OF_PARTS_IN_RECORD);
+		try {
+			int index = Integer.parseInt(parts[INDEX_OF_POSITION]);
+			if (parts[INDEX_OF_TYPE].equals(ADD_RECORD)) {
+				taskList.addToList(index, Task.createTaskFromFileString(parts[INDEX_OF_TASK]));
+			} else if (parts[INDEX_OF_TYPE].equals(UPDATE_RECORD)) {
+				taskList.setListItem(index, Task.createTaskFromFileString(parts[INDEX_OF_TASK]));
+			} else if (parts[INDEX_OF_TYPE].equals(DELETE_RECORD)) {
+				taskList.deleteListItem(index);
+			} else {
+				return false;
+			}
+		} catch (RuntimeException e) {
+			return false;
+		}
+		return true;
+	}
+}
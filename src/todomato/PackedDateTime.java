@@ -0,0 +1,255 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+//@author A0096620E
+/**
+ * This class packs the DateTimes kept by a Task into a long, so that a Task
+ * does not hold a DateTime object with its own boxed fields for each of its
+ * dates and times.
+ *
+ * <p>
+ * Each DateTime has a shape, which tells which of its fields are set, and a
+ * value in the unit of its last field: days since 1970-01-01 for a date,
+ * minutes of the day for a time, minutes since 1970-01-01 for a date with a
+ * time, and so on. Unpacking a value gives a DateTime equal to the one that
+ * was packed, with the same fields set and the same text. DateTimes of
+ * other shapes, created from text in another format such as "2014-04-10T13:00"
+ * or out of the range of a long, have the shape UNPACKED and have to be kept
+ * as they are.
+ *
+ */
+class PackedDateTime {
+
+	static final int NONE = 0;
+	static final int DATE = 1;
+	static final int TIME = 2;
+	static final int TIME_WITH_SECONDS = 3;
+	static final int DATE_AND_TIME = 4;
+	static final int DATE_AND_TIME_WITH_SECONDS = 5;
+	static final int DATE_AND_TIME_WITH_NANOSECONDS = 6;
+	static final int UNPACKED = 7;
+
+	private static final long MINUTES_IN_A_DAY = 24 * 60;
+	private static final long SECONDS_IN_A_DAY = MINUTES_IN_A_DAY * 60;
+	private static final long NANOSECONDS_IN_A_SECOND = 1000000000L;
+	private static final long NANOSECONDS_IN_A_DAY = SECONDS_IN_A_DAY * NANOSECONDS_IN_A_SECOND;
+	// days from 1970-01-01 that a date with nanoseconds can be packed for
+	private static final long MAX_DAYS_WITH_NANOSECONDS = Long.MAX_VALUE / NANOSECONDS_IN_A_DAY - 1;
+	// days from 0000-03-01, the start of a 400 year cycle, to 1970-01-01
+	private static final long DAYS_TO_EPOCH = 719468;
+	private static final long DAYS_IN_400_YEARS = 146097;
+	// length of the text of a DateTime of each shape, as written by toString
+	private static final int[] LENGTHS_OF_TEXT = { 0, 10, 5, 8, 16, 19, 29 };
+	private static final int POSITION_OF_TIME_SYMBOL = 10;
+	private static final char DATE_TIME_SYMBOL = ' ';
+	private static final int[] DAYS_IN_MONTH = { 31, 29, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+	/**
+	 * @param dateTime
+	 * @return shape of dateTime, NONE if it is null or UNPACKED if it cannot
+	 *         be packed
+	 */
+	static int shapeOf(DateTime dateTime) {
+		if (dateTime == null) {
+			return NONE;
+		}
+		int shape = shapeOfFields(dateTime);
+		if (shape == UNPACKED) {
+			return UNPACKED;
+		}
+		// a DateTime created from text keeps that text as its String
+		String text = dateTime.toString();
+		if (text.length() != LENGTHS_OF_TEXT[shape]
+				|| (shape >= DATE_AND_TIME && text.charAt(POSITION_OF_TIME_SYMBOL) != DATE_TIME_SYMBOL)) {
+			return UNPACKED;
+		}
+		return shape;
+	}
+
+	private static int shapeOfFields(DateTime dateTime) {
+		try {
+			boolean hasDate = dateTime.getYear() != null && dateTime.getMonth() != null
+					&& dateTime.getDay() != null;
+			boolean hasNoDate = dateTime.getYear() == null && dateTime.getMonth() == null
+					&& dateTime.getDay() == null;
+			boolean hasTime = dateTime.getHour() != null && dateTime.getMinute() != null;
+			boolean hasNoTime = dateTime.getHour() == null && dateTime.getMinute() == null;
+			boolean hasSeconds = dateTime.getSecond() != null;
+			boolean hasNanoseconds = dateTime.getNanoseconds() != null;
+			if (hasDate && hasNoTime && !hasSeconds && !hasNanoseconds) {
+				return DATE;
+			}
+			if (hasNoDate && hasTime && !hasNanoseconds) {
+				return hasSeconds ? TIME_WITH_SECONDS : TIME;
+			}
+			if (!hasDate || !hasTime) {
+				return UNPACKED;
+			}
+			if (!hasSeconds) {
+				return hasNanoseconds ? UNPACKED : DATE_AND_TIME;
+			}
+			if (!hasNanoseconds) {
+				return DATE_AND_TIME_WITH_SECONDS;
+			}
+			long days = toDays(dateTime.getYear(), dateTime.getMonth(), dateTime.getDay());
+			if (Math.abs(days) > MAX_DAYS_WITH_NANOSECONDS) {
+				return UNPACKED;
+			}
+			return DATE_AND_TIME_WITH_NANOSECONDS;
+		} catch (RuntimeException e) {
+			// text that cannot be parsed as a DateTime
+			return UNPACKED;
+		}
+	}
+
+	/**
+	 * @param dateTime
+	 * @param shape shape of dateTime (see shapeOf)
+	 * @return value of dateTime in the unit of its shape, or 0 if it has no
+	 *         value
+	 */
+	static long pack(DateTime dateTime, int shape) {
+		if (shape == NONE || shape == UNPACKED) {
+			return 0;
+		}
+		return pack(shape, valueOf(dateTime.getYear()), valueOf(dateTime.getMonth()),
+				valueOf(dateTime.getDay()), valueOf(dateTime.getHour()), valueOf(dateTime.getMinute()),
+				valueOf(dateTime.getSecond()), valueOf(dateTime.getNanoseconds()));
+	}
+
+	/**
+	 * Packs the fields of a DateTime without creating it, ignoring the
+	 * fields that shape does not have
+	 *
+	 * @param shape
+	 * @return value of the fields in the unit of shape
+	 */
+	static long pack(int shape, int year, int month, int day, int hour, int minute, int second,
+			int nanoseconds) {
+		long minuteOfDay = hour * 60 + minute;
+		switch (shape) {
+		case DATE:
+			return toDays(year, month, day);
+		case TIME:
+			return minuteOfDay;
+		case TIME_WITH_SECONDS:
+			return minuteOfDay * 60 + second;
+		case DATE_AND_TIME:
+			return toDays(year, month, day) * MINUTES_IN_A_DAY + minuteOfDay;
+		case DATE_AND_TIME_WITH_SECONDS:
+			return toDays(year, month, day) * SECONDS_IN_A_DAY + minuteOfDay * 60 + second;
+		case DATE_AND_TIME_WITH_NANOSECONDS:
+			return toDays(year, month, day) * NANOSECONDS_IN_A_DAY
+					+ (minuteOfDay * 60 + second) * NANOSECONDS_IN_A_SECOND + nanoseconds;
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * @return true if year-month-day is a date that a DateTime accepts and
+	 *         that can be packed with nanoseconds
+	 */
+	static boolean isValidDate(int year, int month, int day) {
+		if (year < 1 || month < 1 || month > 12 || day < 1 || day > DAYS_IN_MONTH[month - 1]) {
+			return false;
+		}
+		boolean isLeapYear = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+		if (month == 2 && day == 29 && !isLeapYear) {
+			return false;
+		}
+		return Math.abs(toDays(year, month, day)) <= MAX_DAYS_WITH_NANOSECONDS;
+	}
+
+	/**
+	 * @return true if hour:minute:second is a time that a DateTime accepts
+	 */
+	static boolean isValidTime(int hour, int minute, int second) {
+		return hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59;
+	}
+
+	/**
+	 * @param value
+	 * @param shape shape the value was packed with
+	 * @return DateTime with the fields of shape set, or null for NONE and
+	 *         UNPACKED
+	 */
+	static DateTime unpack(long value, int shape) {
+		switch (shape) {
+		case DATE:
+			int[] date = toYearMonthDay(value);
+			return DateTime.forDateOnly(date[0], date[1], date[2]);
+		case TIME:
+			return new DateTime(null, null, null, (int) (value / 60), (int) (value % 60), null, null);
+		case TIME_WITH_SECONDS:
+			return new DateTime(null, null, null, (int) (value / 3600), (int) (value / 60 % 60),
+					(int) (value % 60), null);
+		case DATE_AND_TIME:
+			return toDateTime(floorDiv(value, MINUTES_IN_A_DAY), floorMod(value, MINUTES_IN_A_DAY) * 60, false,
+					null);
+		case DATE_AND_TIME_WITH_SECONDS:
+			return toDateTime(floorDiv(value, SECONDS_IN_A_DAY), floorMod(value, SECONDS_IN_A_DAY), true, null);
+		case DATE_AND_TIME_WITH_NANOSECONDS:
+			long nanosecondOfDay = floorMod(value, NANOSECONDS_IN_A_DAY);
+			return toDateTime(floorDiv(value, NANOSECONDS_IN_A_DAY), nanosecondOfDay / NANOSECONDS_IN_A_SECOND,
+					true, (int) (nanosecondOfDay % NANOSECONDS_IN_A_SECOND));
+		default:
+			return null;
+		}
+	}
+
+	private static int valueOf(Integer field) {
+		return field == null ? 0 : field;
+	}
+
+	/**
+	 * @return days from 1970-01-01 to year-month-day, counted on the
+	 *         proleptic Gregorian calendar by whole 400 year cycles
+	 */
+	private static long toDays(long year, int month, int day) {
+		// years are counted from March, so that February is the last month
+		if (month <= 2) {
+			year--;
+		}
+		long cycle = floorDiv(year, 400);
+		long yearOfCycle = year - cycle * 400;
+		int monthFromMarch = month > 2 ? month - 3 : month + 9;
+		long dayOfYear = (153 * monthFromMarch + 2) / 5 + day - 1;
+		long dayOfCycle = yearOfCycle * 365 + yearOfCycle / 4 - yearOfCycle / 100 + dayOfYear;
+		return cycle * DAYS_IN_400_YEARS + dayOfCycle - DAYS_TO_EPOCH;
+	}
+
+	/**
+	 * @param days days from 1970-01-01
+	 * @return year, month and day of the date days from 1970-01-01
+	 */
+	private static int[] toYearMonthDay(long days) {
+		days += DAYS_TO_EPOCH;
+		long cycle = floorDiv(days, DAYS_IN_400_YEARS);
+		long dayOfCycle = days - cycle * DAYS_IN_400_YEARS;
+		long yearOfCycle = (dayOfCycle - dayOfCycle / 1460 + dayOfCycle / 36524 - dayOfCycle / 146096) / 365;
+		long dayOfYear = dayOfCycle - (365 * yearOfCycle + yearOfCycle / 4 - yearOfCycle / 100);
+		int monthFromMarch = (int) ((5 * dayOfYear + 2) / 153);
+		int day = (int) (dayOfYear - (153 * monthFromMarch + 2) / 5 + 1);
+		int month = monthFromMarch < 10 ? monthFromMarch + 3 : monthFromMarch - 9;
+		int year = (int) (yearOfCycle + cycle * 400 + (month <= 2 ? 1 : 0));
+		return new int[] { year, month, day };
+	}
+
+	private static DateTime toDateTime(long days, long secondOfDay, boolean hasSeconds, Integer nanoseconds) {
+		int[] date = toYearMonthDay(days);
+		Integer second = hasSeconds ? (int) (secondOfDay % 60) : null;
+		return new DateTime(date[0], date[1], date[2], (int) (secondOfDay / 3600), (int) (secondOfDay / 60 % 60),
+				second, nanoseconds);
+	}
+
+	private static long floorDiv(long value, long divisor) {
+		long quotient = value / divisor;
+		return value % divisor < 0 ? quotient - 1 : quotient;
+	}
+
+	private static long floorMod(long value, long divisor) {
+		return value - floorDiv(value, divisor) * divisor;
+	}
+}
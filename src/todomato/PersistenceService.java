@@ -0,0 +1,262 @@
+package todomato;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+//@author A0099332Y
+/**
+ * This class saves the TaskList on behalf of the processors, which only
+ * mark the list as dirty. Depending on the durability policy (see Settings),
+ * the list is either saved and forced to disk before markDirty returns, or
+ * saved by a single background writer that coalesces every change made in
+ * the meantime into one write:
+ * <ul>
+ * <li>IMMEDIATE: every change is on disk before the command returns
+ * <li>INTERVAL: changes are saved at most one interval after the first one
+ * <li>IDLE (default): changes are saved once no command has been made for
+ * the idle delay, and at most one interval after the first one
+ * </ul>
+ *
+ * <p>
+ * IDLE is the default as a burst of commands, e.g. undoing several changes,
+ * is then saved with one forced write instead of one per command, and the
+ * commands do not wait for the disk. A crash can lose the changes of at most
+ * the last interval; IMMEDIATE is there for users who cannot afford that.
+ *
+ * <p>
+ * A list that could not be saved stays dirty, and the writer tries again one
+ * interval later, under every policy.
+ *
+ * <p>
+ * The writer holds the lock returned by getLock while saving, which must also
+ * be held while commands change the list. flush() saves any pending changes
+ * and is called on exit and before syncing.
+ *
+ */
+public class PersistenceService {
+
+	public enum Policy {
+		IMMEDIATE, INTERVAL, IDLE
+	}
+
+	private static final String WRITER_THREAD_NAME = "persistence-writer";
+	private static final String SAVE_FAILED_MSG = "Could not save tasks, retrying in %1$d ms";
+	private static final Logger logger = Logger.getLogger(PersistenceService.class.getName());
+
+	private final Object lock;
+	private TaskStore store;
+	private Policy policy;
+	private long interval;
+	private long idleDelay;
+	private ScheduledExecutorService writer;
+	private ScheduledFuture<?> scheduledWrite;
+	private TaskList dirtyList;
+	private long firstDirtyTime;
+	private Thread shutdownHook;
+
+	/**
+	 * @param store TaskStore to save the list with
+	 */
+	public PersistenceService(TaskStore store) {
+		this(store, new Object());
+	}
+
+	/**
+	 * @param store TaskStore to save the list with
+	 * @param lock lock to hold while saving, which may be shared with the
+	 *            services of other lists that are changed by the same commands
+	 */
+	public PersistenceService(TaskStore store, Object lock) {
+		this(store, lock, Settings.getPersistencePolicy(), Settings.getPersistenceInterval(),
+				Settings.getPersistenceIdleDelay());
+	}
+
+	/**
+	 * @param store TaskStore to save the list with
+	 * @param policy when to save
+	 * @param interval longest time in ms that a change may stay unsaved
+	 * @param idleDelay time in ms without changes after which the list is
+	 *            saved under the IDLE policy
+	 */
+	public PersistenceService(TaskStore store, Policy policy, long interval, long idleDelay) {
+		this(store, new Object(), policy, interval, idleDelay);
+	}
+
+	private PersistenceService(TaskStore store, Object lock, Policy policy, long interval, long idleDelay) {
+		this.store = store;
+		this.lock = lock;
+		this.policy = policy;
+		this.interval = interval;
+		this.idleDelay = idleDelay;
+		if (policy != Policy.IMMEDIATE) {
+			startWriter();
+		}
+		shutdownHook = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(shutdownHook);
+	}
+
+	/**
+	 * @return lock that must be held while the list is being changed
+	 */
+	public Object getLock() {
+		return lock;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Records that taskList has changed and needs to be saved
+	 *
+	 * @param taskList the current list, which replaces any list that was
+	 *            marked dirty before
+	 */
+	public void markDirty(TaskList taskList) {
+		synchronized (lock) {
+			if (policy == Policy.IMMEDIATE) {
+				dirtyList = taskList;
+				writeOrRetry();
+				return;
+			}
+
+			long now = System.currentTimeMillis();
+			if (dirtyList == null) {
+				firstDirtyTime = now;
+			}
+			dirtyList = taskList;
+			if (policy == Policy.INTERVAL) {
+				if (scheduledWrite == null) {
+					schedule(interval);
+				}
+			} else {
+				long latestWrite = firstDirtyTime + interval;
+				if (scheduledWrite != null) {
+					scheduledWrite.cancel(false);
+				}
+				schedule(Math.max(0, Math.min(idleDelay, latestWrite - now)));
+			}
+		}
+	}
+
+	/**
+	 * Saves the changes that are waiting to be written, if any, and returns
+	 * once they are on disk
+	 *
+	 * @return true if nothing is left unsaved
+	 */
+	public boolean flush() {
+		synchronized (lock) {
+			if (scheduledWrite != null) {
+				scheduledWrite.cancel(false);
+				scheduledWrite = null;
+			}
+			return writeOrRetry();
+		}
+	}
+
+	/**
+	 * Saves any pending changes and stops the writer, once the list is no
+	 * longer used
+	 *
+	 * @return true if nothing was left unsaved
+	 */
+	public boolean close() {
+		boolean isFlushed;
+		synchronized (lock) {
+			isFlushed = flush();
+			if (scheduledWrite != null) {
+				// the store is closed along with this service
+				scheduledWrite.cancel(false);
+				scheduledWrite = null;
+			}
+			if (writer != null) {
+				writer.shutdown();
+			}
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IllegalStateException e) {
+			// already shutting down, the hook flushes again
+		}
+		return isFlushed;
+	}
+
+	/**
+	 * @return true if some changes have not been saved yet
+	 */
+	public boolean isDirty() {
+		synchronized (lock) {
+			return dirtyList != null;
+		}
+	}
+
+	private void startWriter() {
+		writer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, WRITER_THREAD_NAME);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	private void schedule(long delay) {
+		scheduledWrite = writer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (lock) {
+					scheduledWrite = null;
+					writeOrRetry();
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Saves the dirty list, and schedules another try one interval later if
+	 * it could not be saved, in which case the list stays dirty. Must hold
+	 * lock.
+	 *
+	 * @return true if the list was saved or nothing needed saving
+	 */
+	private boolean writeOrRetry() {
+		if (write()) {
+			return true;
+		}
+		if (writer == null) {
+			startWriter();
+		}
+		if (scheduledWrite == null && !writer.isShutdown()) {
+			logger.warning(String.format(SAVE_FAILED_MSG, interval));
+			schedule(interval);
+		}
+		return false;
+	}
+
+	/**
+	 * Saves the dirty list and forces it to disk. Must hold lock.
+	 *
+	 * @return true if the list was saved or nothing needed saving
+	 */
+	private boolean write() {
+		if (dirtyList == null) {
+			return true;
+		}
+		if (store.updateFile(dirtyList, true) == null) {
+			return false;
+		}
+		dirtyList = null;
+		return true;
+	}
+}
@@ -0,0 +1,213 @@
+package todomato;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//@author A0120766H
+/**
+ * Immutable sequence of items that is changed by creating a new version,
+ * which shares every part of the old version that did not change.
+ *
+ * <p>
+ * The items are kept in an AVL tree ordered by position, in which each node
+ * knows the size of its subtree. Getting, replacing, inserting and removing
+ * the item at a position take O(log n) time, and each change creates only
+ * the O(log n) nodes on the path to that position, so keeping an old version
+ * costs nothing but the nodes changed since.
+ *
+ */
+class PersistentVector<E> {
+
+	private static final PersistentVector<Object> EMPTY = new PersistentVector<Object>(null);
+
+	private final Node root;
+
+	private PersistentVector(Node root) {
+		this.root = root;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <E> PersistentVector<E> empty() {
+		return (PersistentVector<E>) EMPTY;
+	}
+
+	/**
+	 * @param items
+	 * @return vector of items, built as a balanced tree in O(n) time
+	 */
+	static <E> PersistentVector<E> of(List<? extends E> items) {
+		return new PersistentVector<E>(build(items, 0, items.size()));
+	}
+
+	int size() {
+		return size(root);
+	}
+
+	@SuppressWarnings("unchecked")
+	E get(int i) {
+		checkIndex(i, size());
+		Node node = root;
+		while (true) {
+			int leftSize = size(node.left);
+			if (i < leftSize) {
+				node = node.left;
+			} else if (i > leftSize) {
+				i -= leftSize + 1;
+				node = node.right;
+			} else {
+				return (E) node.item;
+			}
+		}
+	}
+
+	/**
+	 * @return vector with item at position i instead of the item there
+	 */
+	PersistentVector<E> set(int i, E item) {
+		checkIndex(i, size());
+		return new PersistentVector<E>(set(root, i, item));
+	}
+
+	/**
+	 * @return vector with item inserted at position i, shifting the items
+	 *         from i on back
+	 */
+	PersistentVector<E> insert(int i, E item) {
+		checkIndex(i, size() + 1);
+		return new PersistentVector<E>(insert(root, i, item));
+	}
+
+	PersistentVector<E> add(E item) {
+		return insert(size(), item);
+	}
+
+	/**
+	 * @return vector without the item at position i
+	 */
+	PersistentVector<E> remove(int i) {
+		checkIndex(i, size());
+		return new PersistentVector<E>(remove(root, i));
+	}
+
+	/**
+	 * @return the items in order, in a new list
+	 */
+	@SuppressWarnings("unchecked")
+	ArrayList<E> toList() {
+		ArrayList<Object> items = new ArrayList<Object>(size());
+		addAll(root, items);
+		return (ArrayList<E>) items;
+	}
+
+	private static void checkIndex(int i, int size) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+		}
+	}
+
+	private static int size(Node node) {
+		return node == null ? 0 : node.size;
+	}
+
+	private static int height(Node node) {
+		return node == null ? 0 : node.height;
+	}
+
+	private static Node build(List<?> items, int from, int to) {
+		if (from == to) {
+			return null;
+		}
+		int middle = (from + to) >>> 1;
+		return new Node(items.get(middle), build(items, from, middle), build(items, middle + 1, to));
+	}
+
+	private static void addAll(Node node, ArrayList<Object> items) {
+		while (node != null) {
+			addAll(node.left, items);
+			items.add(node.item);
+			node = node.right;
+		}
+	}
+
+	private static Node set(Node node, int i, Object item) {
+		int leftSize = size(node.left);
+		if (i < leftSize) {
+			return new Node(node.item, set(node.left, i, item), node.right);
+		}
+		if (i > leftSize) {
+			return new Node(node.item, node.left, set(node.right, i - leftSize - 1, item));
+		}
+		return new Node(item, node.left, node.right);
+	}
+
+	private static Node insert(Node node, int i, Object item) {
+		if (node == null) {
+			return new Node(item, null, null);
+		}
+		int leftSize = size(node.left);
+		if (i <= leftSize) {
+			return balance(node.item, insert(node.left, i, item), node.right);
+		}
+		return balance(node.item, node.left, insert(node.right, i - leftSize - 1, item));
+	}
+
+	private static Node remove(Node node, int i) {
+		int leftSize = size(node.left);
+		if (i < leftSize) {
+			return balance(node.item, remove(node.left, i), node.right);
+		}
+		if (i > leftSize) {
+			return balance(node.item, node.left, remove(node.right, i - leftSize - 1));
+		}
+		if (node.left == null) {
+			return node.right;
+		}
+		if (node.right == null) {
+			return node.left;
+		}
+		Node first = node.right;
+		while (first.left != null) {
+			first = first.left;
+		}
+		return balance(first.item, node.left, remove(node.right, 0));
+	}
+
+	/**
+	 * @return node holding item between left and right, rotated so that the
+	 *         heights of its subtrees differ by at most one, given that they
+	 *         differ by at most two
+	 */
+	private static Node balance(Object item, Node left, Node right) {
+		if (height(left) > height(right) + 1) {
+			if (height(left.left) >= height(left.right)) {
+				return new Node(left.item, left.left, new Node(item, left.right, right));
+			}
+			return new Node(left.right.item, new Node(left.item, left.left, left.right.left),
+					new Node(item, left.right.right, right));
+		}
+		if (height(right) > height(left) + 1) {
+			if (height(right.right) >= height(right.left)) {
+				return new Node(right.item, new Node(item, left, right.left), right.right);
+			}
+			return new Node(right.left.item, new Node(item, left, right.left.left),
+					new Node(right.item, right.left.right, right.right));
+		}
+		return new Node(item, left, right);
+	}
+
+	private static final class Node {
+		private final Object item;
+		private final Node left;
+		private final Node right;
+		private final int size;
+		private final int height;
+
+		private Node(Object item, Node left, Node right) {
+			this.item = item;
+			this.left = left;
+			this.right = right;
+			this.size = size(left) + size(right) + 1;
+			this.height = Math.max(height(left), height(right)) + 1;
+		}
+	}
+}
@@ -3,9 +3,10 @@ package todomato;
 import hirondelle.date4j.DateTime;
 
 import java.io.IOException;
-import java.util.Stack;
 import java.util.TimeZone;
 
+import javax.swing.SwingUtilities;
+
 //@author A0096620E
 /**
  * This class stores information needed to process a user's command, and
@@ -14,12 +15,18 @@ import java.util.TimeZone;
  */
 public class Processor {
 
-	protected static String fileLoc = "tasks.txt";
-	protected static FileHandler fileHandler = new FileHandler(fileLoc);
-	protected static TaskList list = fileHandler.readFile();
-	protected static TaskList displayList = list;
-	protected static Stack<TaskList> undoList = new Stack<TaskList>();
-	protected static Stack<TaskList> redoList = new Stack<TaskList>();
+	private static final Object lock = new Object();
+	protected static Workspace workspace = Workspace.open(Workspace.DEFAULT_NAME, lock);
+	protected static TaskStore store = workspace.getStore();
+	protected static TaskList list = workspace.getList();
+	protected static PersistenceService persistence = workspace.getPersistence();
+	protected static TaskArchive archive = workspace.getArchive();
+	protected static TaskView displayList = workspace.getDisplayList();
+	protected static UndoHistory history = workspace.getHistory();
+	// copies of the lists after the last change, for threads that only read
+	private static volatile TaskList snapshot = copyOf(list);
+	private static volatile TaskView displaySnapshot = displayList.showing(copyOf(list));
+	private static DisplayRefresher displayRefresher;
 	
 	protected static final int AM = 0;
 	protected static final int PM = 1;
@@ -55,6 +62,7 @@ public class Processor {
 	protected static final String SPACE = " ";
 	protected static final String INVALID_DATE = "Invalid Date";
 	protected static final String INVALID_TIME = "Invalid Time";
+	protected static final String LIST_NOT_SHOWN = "Archived tasks are shown: enter display to use the numbers of your list";
 	
 	protected static final int NOT_FOUND = -1;
 	
@@ -71,13 +79,125 @@ public class Processor {
 	protected static final String meridiems[] = new String[] { "am", "pm" };
 
 	/**
-	 * This stores a copy of the current list before modifications are made for
-	 * possible undo operations in the future.
+	 * Keeps the lists of the active workspace in it and makes ws the active
+	 * workspace. Must hold the lock of the PersistenceService.
+	 * 
+	 * @param ws
+	 * @return the workspace that was active
+	 */
+	protected static Workspace activateWorkspace(Workspace ws) {
+		Workspace lastWorkspace = getWorkspace();
+		workspace = ws;
+		store = ws.getStore();
+		list = ws.getList();
+		persistence = ws.getPersistence();
+		archive = ws.getArchive();
+		displayList = ws.getDisplayList();
+		history = ws.getHistory();
+		return lastWorkspace;
+	}
+
+	/**
+	 * Shows the display list again after it was changed outside of a command
+	 * entered by the user, e.g. by a background thread.
+	 */
+	protected static void refreshDisplay() {
+		final DisplayRefresher refresher = displayRefresher;
+		if (refresher != null) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					refresher.refresh();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Shows the rows of the display list that were changed by diff outside
+	 * of a command entered by the user.
+	 * 
+	 * @param diff
+	 */
+	protected static void refreshDisplay(final TaskListDiff diff) {
+		final DisplayRefresher refresher = displayRefresher;
+		if (refresher != null) {
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					refresher.refreshRows(diff);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Applies the changes made to the data file of ws by another program to
+	 * the list of ws, as a change that can be undone. Only the rows
+	 * that changed are shown again if ws is the active workspace.
+	 * 
+	 * @param ws
+	 */
+	static void reloadExternalChanges(Workspace ws) {
+		synchronized (lock) {
+			if (!(ws.getStore() instanceof FileHandler)) {
+				return;
+			}
+			boolean isActive = ws == workspace;
+			TaskList wsList = isActive ? list : ws.getList();
+			TaskListDiff diff = ((FileHandler) ws.getStore()).readExternalChanges(wsList);
+			if (diff == null || diff.isEmpty()) {
+				return;
+			}
+			ws.getHistory().startChange(wsList);
+			diff.applyTo(wsList);
+			if (isActive && displayList.getTaskList() == list && displayList.isWholeList()) {
+				refreshDisplay(diff);
+			}
+		}
+	}
+
+	/**
+	 * Shows every task of the list, in the order of the last sort
+	 */
+	protected static void showList() {
+		displayList = displayList.unfiltered(list);
+	}
+
+	/**
+	 * @param index index of a task as shown in the display list
+	 * @return index of the same task in the list, or -1 if no task is shown
+	 *         at index. index itself is returned if the display list does not
+	 *         show the list.
+	 * @throws InvalidInputException if the display list shows tasks found in
+	 *             the archive, which are not in the list
+	 */
+	protected static int getListIndex(int index) throws InvalidInputException {
+		if (ArchiveProcessor.isShowingArchive(displayList)) {
+			throw new InvalidInputException(LIST_NOT_SHOWN);
+		}
+		if (displayList.getTaskList() != list) {
+			return index;
+		}
+		return displayList.getListIndex(index);
+	}
+
+	/**
+	 * This starts a change to the current list that can be undone, before
+	 * modifications are made. Every modification until the next call is
+	 * recorded with the change (see UndoHistory), so that it is undone in
+	 * one step.
 	 */
 	protected static void storeCurrentList() {
-		TaskList lastList = new TaskList();
-		lastList.deepCopy(list);
-		undoList.push(lastList);
+		history.startChange(list);
+	}
+
+	/**
+	 * Marks the current list as changed, so that it is saved according to
+	 * the durability policy of the PersistenceService.
+	 */
+	protected static void saveList() {
+		persistence.markDirty(list);
 	}
 
 	
@@ -524,7 +644,76 @@ public class Processor {
 		return list;
 	}
 
-	public static TaskList getDisplayList() {
+	public static TaskView getDisplayList() {
 		return displayList;
 	}
+
+	/**
+	 * Gives a copy of the list as it was after the last change made through
+	 * the CommandExecutor. The copy is made in O(1) time (see
+	 * TaskList.deepCopy) and belongs to the caller, so it can be read on any
+	 * thread without a lock while the list is being changed.
+	 * 
+	 * @return copy of the list
+	 */
+	public static TaskList getSnapshot() {
+		return copyOf(snapshot);
+	}
+
+	/**
+	 * @return copy of the display list as it was after the last change, to
+	 *         be read only on the event dispatch thread
+	 */
+	public static TaskView getDisplaySnapshot() {
+		return displaySnapshot;
+	}
+
+	/**
+	 * Logs the changes kept for undo, if the history has a log, and publishes
+	 * snapshots for other threads. Called by the CommandExecutor after every
+	 * change.
+	 */
+	static void finishChange() {
+		history.flush();
+		publishSnapshot();
+	}
+
+	/**
+	 * Publishes copies of the list and the display list for other threads
+	 */
+	static void publishSnapshot() {
+		snapshot = copyOf(list);
+		displaySnapshot = displayList.showing(copyOf(displayList.getTaskList()));
+	}
+
+	private static TaskList copyOf(TaskList taskList) {
+		TaskList copy = new TaskList();
+		copy.deepCopy(taskList);
+		return copy;
+	}
+
+	public static PersistenceService getPersistence() {
+		return persistence;
+	}
+
+	public static TaskStore getStore() {
+		return store;
+	}
+
+	/**
+	 * @return the active workspace, holding the current lists
+	 */
+	public static Workspace getWorkspace() {
+		workspace.setList(list);
+		workspace.setDisplayList(displayList);
+		return workspace;
+	}
+
+	/**
+	 * @param refresher called on the event dispatch thread to show the
+	 *            display list after it was changed by a background thread
+	 */
+	public static void setDisplayRefresher(DisplayRefresher refresher) {
+		displayRefresher = refresher;
+	}
 }
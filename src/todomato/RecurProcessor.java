@@ -16,7 +16,7 @@ public class RecurProcessor extends Processor {
 		for (int i = 0; i < list.getSize(); i++){
 			addsRecurringTask(list.getListItem(i));
 		}
-		fileHandler.updateFile(list);
+		saveList();
 		return RECURRING_TASKS_ADDED;
 	}
 	
@@ -15,13 +15,10 @@ public class RedoProcessor extends Processor {
 		 * @return Status message telling user if there were changes to redo
 		 */
 		public static String processRedo() {
-			if (!redoList.isEmpty()) {
-				undoList.push(list);
-				
-				list = redoList.pop();	
-				fileHandler.updateFile(list);
+			if (history.redo(list)) {
+				saveList();
 
-				displayList = list;
+				showList();
 				return SUCCESS_MSG;
 			} else {
 				return NO_CHANGES_TO_REDO_MSG;
@@ -16,7 +16,7 @@ public class SetSyncProcessor extends Processor {
 		String username = parts[FIRST_WORD];
 		String password = parts[SECOND_WORD];
 		list.setUserNameAndPassword(username, password);
-		fileHandler.updateFile(list);
+		saveList();
 		return SET_SUCCESSFUL;
 	}
 
@@ -0,0 +1,200 @@
+package todomato;
+
+//@author A0099332Y
+/**
+ * This class holds the tunable settings of the application. Every setting
+ * has a default value that can be overridden with a system property when
+ * starting Todomato, e.g. "-Dtodomato.journal=true".
+ *
+ */
+public class Settings {
+
+	private static final String JOURNAL_PROPERTY = "todomato.journal";
+	private static final String JOURNAL_THRESHOLD_PROPERTY = "todomato.journal.threshold";
+	private static final String STORAGE_PROPERTY = "todomato.storage";
+	private static final String STORAGE_BINARY = "binary";
+	private static final String STORAGE_SHARDED = "sharded";
+	private static final String LAZY_LOAD_PROPERTY = "todomato.lazyLoad";
+	private static final String PARALLEL_LOAD_THRESHOLD_PROPERTY = "todomato.parallelLoad.threshold";
+	private static final String PERSISTENCE_PROPERTY = "todomato.persistence";
+	private static final String PERSISTENCE_INTERVAL_PROPERTY = "todomato.persistence.interval";
+	private static final String PERSISTENCE_IDLE_DELAY_PROPERTY = "todomato.persistence.idleDelay";
+	private static final String ARCHIVE_AGE_PROPERTY = "todomato.archive.age";
+	private static final String STORE_URL_PROPERTY = "todomato.store.url";
+	private static final String WORKSPACE_BUDGET_PROPERTY = "todomato.workspace.budget";
+	private static final String WATCH_PROPERTY = "todomato.watch";
+	private static final String UNDO_DEPTH_PROPERTY = "todomato.undo.depth";
+	private static final String UNDO_BUDGET_PROPERTY = "todomato.undo.budget";
+	private static final String UNDO_SPILL_PROPERTY = "todomato.undo.spill";
+	private static final String UNDO_LOG_PROPERTY = "todomato.undo.log";
+	private static final String UNDO_LOG_THRESHOLD_PROPERTY = "todomato.undo.log.threshold";
+
+	private static final long DEFAULT_JOURNAL_THRESHOLD = 256 * 1024;
+	private static final int DEFAULT_PARALLEL_LOAD_THRESHOLD = 20000;
+	private static final PersistenceService.Policy DEFAULT_PERSISTENCE_POLICY = PersistenceService.Policy.IDLE;
+	private static final long DEFAULT_PERSISTENCE_INTERVAL = 1000;
+	private static final long DEFAULT_PERSISTENCE_IDLE_DELAY = 200;
+	private static final int DEFAULT_ARCHIVE_AGE = -1;
+	private static final long DEFAULT_WORKSPACE_BUDGET = 64 * 1024 * 1024;
+	private static final int DEFAULT_UNDO_DEPTH = 100;
+	private static final long DEFAULT_UNDO_BUDGET = 4 * 1024 * 1024;
+	private static final long DEFAULT_UNDO_LOG_THRESHOLD = 1024 * 1024;
+
+	/**
+	 * @return true if every save should be appended to an operation journal
+	 *         instead of rewriting the whole data file
+	 */
+	public static boolean isJournalEnabled() {
+		return Boolean.getBoolean(JOURNAL_PROPERTY);
+	}
+
+	/**
+	 * @return size of the journal in bytes after which it is folded back into
+	 *         the data file
+	 */
+	public static long getJournalThreshold() {
+		return Long.getLong(JOURNAL_THRESHOLD_PROPERTY, DEFAULT_JOURNAL_THRESHOLD);
+	}
+
+	/**
+	 * @return true if tasks should be stored in the memory-mapped binary
+	 *         format ("-Dtodomato.storage=binary") instead of the text file
+	 */
+	public static boolean isBinaryStorageEnabled() {
+		return STORAGE_BINARY.equalsIgnoreCase(System.getProperty(STORAGE_PROPERTY));
+	}
+
+	/**
+	 * @return true if tasks should be stored in one file per end date month
+	 *         ("-Dtodomato.storage=sharded") instead of a single text file
+	 */
+	public static boolean isShardedStorageEnabled() {
+		return STORAGE_SHARDED.equalsIgnoreCase(System.getProperty(STORAGE_PROPERTY));
+	}
+
+	/**
+	 * @return JDBC url of the embedded database that tasks should be stored
+	 *         in, e.g. "-Dtodomato.store.url=jdbc:h2:./tasks", or null to use
+	 *         the text data file
+	 */
+	public static String getStoreUrl() {
+		return System.getProperty(STORE_URL_PROPERTY);
+	}
+
+	/**
+	 * @return true if changes made to the data file by other programs should
+	 *         be picked up while running
+	 */
+	public static boolean isWatchEnabled() {
+		return Boolean.getBoolean(WATCH_PROPERTY);
+	}
+
+	/**
+	 * @return true if tasks in the data file should only be parsed when they
+	 *         are first accessed
+	 */
+	public static boolean isLazyLoadEnabled() {
+		return Boolean.getBoolean(LAZY_LOAD_PROPERTY);
+	}
+
+	/**
+	 * @return number of lines in the data file above which it is parsed on
+	 *         multiple threads
+	 */
+	public static int getParallelLoadThreshold() {
+		return Integer.getInteger(PARALLEL_LOAD_THRESHOLD_PROPERTY, DEFAULT_PARALLEL_LOAD_THRESHOLD);
+	}
+
+	/**
+	 * @return when changes are saved, "immediate", "interval" or "idle"
+	 *         (default, see PersistenceService)
+	 */
+	public static PersistenceService.Policy getPersistencePolicy() {
+		String policy = System.getProperty(PERSISTENCE_PROPERTY);
+		if (policy == null) {
+			return DEFAULT_PERSISTENCE_POLICY;
+		}
+		try {
+			return PersistenceService.Policy.valueOf(policy.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return DEFAULT_PERSISTENCE_POLICY;
+		}
+	}
+
+	/**
+	 * @return longest time in ms that a change may stay unsaved under the
+	 *         interval and idle policies
+	 */
+	public static long getPersistenceInterval() {
+		return Long.getLong(PERSISTENCE_INTERVAL_PROPERTY, DEFAULT_PERSISTENCE_INTERVAL);
+	}
+
+	/**
+	 * @return time in ms without changes after which they are saved under
+	 *         the idle policy
+	 */
+	public static long getPersistenceIdleDelay() {
+		return Long.getLong(PERSISTENCE_IDLE_DELAY_PROPERTY, DEFAULT_PERSISTENCE_IDLE_DELAY);
+	}
+
+	/**
+	 * @return number of days after its last change that a completed task is
+	 *         moved to the archive at start up, or a negative number, the
+	 *         default, if tasks are only archived with the archive command
+	 */
+	public static int getArchiveAge() {
+		return Integer.getInteger(ARCHIVE_AGE_PROPERTY, DEFAULT_ARCHIVE_AGE);
+	}
+
+	/**
+	 * @return rough number of bytes that the workspaces kept in memory may
+	 *         take before the least recently used ones are closed
+	 */
+	public static long getWorkspaceBudget() {
+		return Long.getLong(WORKSPACE_BUDGET_PROPERTY, DEFAULT_WORKSPACE_BUDGET);
+	}
+
+	/**
+	 * @return number of changes to each list that can be undone, after
+	 *         which the oldest ones are forgotten
+	 */
+	public static int getUndoDepth() {
+		return Integer.getInteger(UNDO_DEPTH_PROPERTY, DEFAULT_UNDO_DEPTH);
+	}
+
+	/**
+	 * @return rough number of bytes that the changes kept for undo and redo
+	 *         of each list may take in memory before the oldest ones are
+	 *         forgotten, or written to disk if spilling is enabled
+	 */
+	public static long getUndoBudget() {
+		return Long.getLong(UNDO_BUDGET_PROPERTY, DEFAULT_UNDO_BUDGET);
+	}
+
+	/**
+	 * @return true if the oldest changes kept for undo should be written to
+	 *         "<data file>.undo" instead of being forgotten once they no
+	 *         longer fit in memory
+	 */
+	public static boolean isUndoSpillEnabled() {
+		return Boolean.getBoolean(UNDO_SPILL_PROPERTY);
+	}
+
+	/**
+	 * @return true if the changes kept for undo and redo should be logged to
+	 *         "<data file>.undolog", so that they can still be undone after a
+	 *         restart
+	 */
+	public static boolean isUndoLogEnabled() {
+		return Boolean.getBoolean(UNDO_LOG_PROPERTY);
+	}
+
+	/**
+	 * @return number of bytes the undo log may grow to before it is
+	 *         compacted, if it is at least twice the size of the changes
+	 *         still in it
+	 */
+	public static long getUndoLogThreshold() {
+		return Long.getLong(UNDO_LOG_THRESHOLD_PROPERTY, DEFAULT_UNDO_LOG_THRESHOLD);
+	}
+}
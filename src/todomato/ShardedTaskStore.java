@@ -0,0 +1,375 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+
+//@author A0099332Y
+/**
+ * This class stores a TaskList as a directory of shard files, one for the
+ * tasks ending in each month and one for tasks without an end date, so that
+ * saving a change only rewrites the shards it touched.
+ *
+ * <p>
+ * The sync time, username, password and next id are kept in a separate
+ * header file.
+ * Each line of a shard holds the order key of a task followed by the task in
+ * the data file format. Order keys are spaced apart so that a task can be
+ * inserted between two others without renumbering, and the list is put back
+ * together by sorting every task on its key. Tasks are only parsed when they
+ * are first accessed (see TaskSource).
+ *
+ */
+public class ShardedTaskStore implements TaskListListener, TaskSource {
+
+	private static final String SHARDS_EXTENSION = ".shards";
+	private static final String HEADER_FILE = "header.txt";
+	private static final String UNDATED_SHARD = "undated";
+	private static final String SHARD_EXTENSION = ".txt";
+	private static final String TEMP_EXTENSION = ".tmp";
+	private static final String SHARD_NAME_FORMAT = "%1$04d-%2$02d";
+	private static final String SEPERATOR = "#";
+	private static final String LINE_BREAK = "\r\n";
+	private static final long KEY_GAP = 1L << 20;
+
+	private File directory;
+	private TaskList trackedList;
+	private ArrayList<Long> keys = new ArrayList<Long>();
+	private ArrayList<String> shards = new ArrayList<String>();
+	private ArrayList<String> sourceLines = new ArrayList<String>();
+	private Set<String> dirtyShards = new HashSet<String>();
+	private boolean isRewriteNeeded;
+	private long savedNextId;
+
+	/**
+	 * @param dataFile the text data file that this store replaces
+	 */
+	public ShardedTaskStore(File dataFile) {
+		this.directory = new File(dataFile.getAbsolutePath() + SHARDS_EXTENSION);
+	}
+
+	/**
+	 * @return true if the shards have been written for the data file
+	 */
+	public boolean exists() {
+		return new File(directory, HEADER_FILE).exists();
+	}
+
+	/**
+	 * @return time at which the header was last written
+	 */
+	public long lastModified() {
+		return new File(directory, HEADER_FILE).lastModified();
+	}
+
+	/**
+	 * Reads every shard and starts recording the changes made to the returned
+	 * list
+	 *
+	 * @return the stored task list
+	 * @throws IOException
+	 */
+	public TaskList load() throws IOException {
+		TaskList taskList = new TaskList();
+		ArrayList<String> header = readLines(new File(directory, HEADER_FILE));
+		if (header.size() > 0) {
+			taskList.setLastSyncTime(new DateTime(header.get(0)));
+		}
+		if (header.size() > 1) {
+			taskList.setUserName(header.get(1));
+		}
+		if (header.size() > 2) {
+			taskList.setPassword(header.get(2));
+		}
+		if (header.size() > 3) {
+			try {
+				taskList.setNextId(Long.parseLong(header.get(3)));
+			} catch (NumberFormatException e) {
+				// tasks given an id that is already taken get a new one when the list is indexed
+			}
+		}
+		savedNextId = taskList.getNextId();
+
+		final ArrayList<ShardLine> lines = new ArrayList<ShardLine>();
+		for (File shardFile : directory.listFiles()) {
+			String name = shardFile.getName();
+			if (name.equals(HEADER_FILE) || !name.endsWith(SHARD_EXTENSION)) {
+				continue;
+			}
+			String shard = name.substring(0, name.length() - SHARD_EXTENSION.length());
+			for (String line : readLines(shardFile)) {
+				int split = line.indexOf(SEPERATOR);
+				lines.add(new ShardLine(Long.parseLong(line.substring(0, split)), shard,
+						line.substring(split + 1)));
+			}
+		}
+		Collections.sort(lines, new Comparator<ShardLine>() {
+			@Override
+			public int compare(ShardLine line1, ShardLine line2) {
+				return Long.compare(line1.key, line2.key);
+			}
+		});
+
+		ArrayList<Long> loadedKeys = new ArrayList<Long>(lines.size());
+		ArrayList<String> loadedShards = new ArrayList<String>(lines.size());
+		sourceLines = new ArrayList<String>(lines.size());
+		for (ShardLine line : lines) {
+			loadedKeys.add(line.key);
+			loadedShards.add(line.shard);
+			sourceLines.add(line.task);
+		}
+		taskList.setSource(this, lines.size());
+		track(taskList, loadedKeys, loadedShards);
+		return taskList;
+	}
+
+	/**
+	 * Rewrites the shards that changed since the last save, or every shard
+	 * if the list cannot be saved that way
+	 *
+	 * @param taskList
+	 * @throws IOException
+	 */
+	public void save(TaskList taskList) throws IOException {
+		if (taskList != trackedList || isRewriteNeeded) {
+			writeAll(taskList);
+			return;
+		}
+		for (String shard : dirtyShards) {
+			writeShard(shard);
+		}
+		dirtyShards.clear();
+		if (taskList.getNextId() != savedNextId) {
+			writeHeader(taskList);
+		}
+	}
+
+	/**
+	 * Replaces the contents of the store with taskList and starts recording
+	 * the changes made to it
+	 *
+	 * @param taskList
+	 * @throws IOException
+	 */
+	public void writeAll(TaskList taskList) throws IOException {
+		if (!directory.exists() && !directory.mkdirs()) {
+			throw new IOException(directory + " could not be created");
+		}
+		ArrayList<Long> newKeys = new ArrayList<Long>(taskList.getSize());
+		ArrayList<String> newShards = new ArrayList<String>(taskList.getSize());
+		for (int i = 0; i < taskList.getSize(); i++) {
+			newKeys.add((i + 1) * KEY_GAP);
+			newShards.add(getShard(taskList, i));
+		}
+		trackedList = null;
+		track(taskList, newKeys, newShards);
+
+		Set<String> written = new HashSet<String>(shards);
+		try {
+			for (String shard : written) {
+				writeShard(shard);
+			}
+			for (File shardFile : directory.listFiles()) {
+				String name = shardFile.getName();
+				if (name.endsWith(SHARD_EXTENSION) && !name.equals(HEADER_FILE)
+						&& !written.contains(name.substring(0, name.length() - SHARD_EXTENSION.length()))) {
+					shardFile.delete();
+				}
+			}
+			writeHeader(taskList);
+		} catch (IOException e) {
+			// the next save writes everything again
+			isRewriteNeeded = true;
+			throw e;
+		}
+		dirtyShards.clear();
+	}
+
+	private void writeHeader(TaskList taskList) throws IOException {
+		writeLines(new File(directory, HEADER_FILE), taskList.getLastSyncTime() + LINE_BREAK
+				+ taskList.getUserName() + LINE_BREAK + taskList.getPassword() + LINE_BREAK
+				+ taskList.getNextId() + LINE_BREAK);
+		savedNextId = taskList.getNextId();
+	}
+
+	/**
+	 * Deletes the shards, after they have been converted back to the text
+	 * format
+	 */
+	public void delete() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File shardFile : files) {
+				shardFile.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Stops recording the changes made to the list, once it is no longer
+	 * saved to this store
+	 */
+	public void close() {
+		if (trackedList != null) {
+			trackedList.removeListener(this);
+			trackedList = null;
+		}
+	}
+
+	@Override
+	public Task readTask(int index) {
+		return Task.createTaskFromFileString(sourceLines.get(index));
+	}
+
+	@Override
+	public String readFileString(int index) {
+		return sourceLines.get(index);
+	}
+
+	@Override
+	public void taskAdded(int index, Task task) {
+		long previous = index > 0 ? keys.get(index - 1) : 0;
+		long next = index < keys.size() ? keys.get(index) : previous + 2 * KEY_GAP;
+		if (next - previous < 2) {
+			isRewriteNeeded = true;
+			next = previous + 2;
+		}
+		String shard = getShard(task);
+		keys.add(index, previous + (next - previous) / 2);
+		shards.add(index, shard);
+		dirtyShards.add(shard);
+	}
+
+	@Override
+	public void taskRemoved(int index, Task task) {
+		keys.remove(index);
+		dirtyShards.add(shards.remove(index));
+	}
+
+	@Override
+	public void taskUpdated(int index, Task task) {
+		String shard = getShard(task);
+		dirtyShards.add(shards.set(index, shard));
+		dirtyShards.add(shard);
+	}
+
+	@Override
+	public void listRestructured() {
+		isRewriteNeeded = true;
+	}
+
+	private void track(TaskList taskList, ArrayList<Long> listKeys, ArrayList<String> listShards) {
+		if (trackedList != null) {
+			trackedList.removeListener(this);
+		}
+		trackedList = taskList;
+		trackedList.addListener(this);
+		keys = listKeys;
+		shards = listShards;
+		dirtyShards.clear();
+		isRewriteNeeded = false;
+	}
+
+	/**
+	 * Writes every task in shard, or deletes the shard if it has no tasks left
+	 *
+	 * @param shard
+	 * @throws IOException
+	 */
+	private void writeShard(String shard) throws IOException {
+		File shardFile = new File(directory, shard + SHARD_EXTENSION);
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < shards.size(); i++) {
+			if (shards.get(i).equals(shard)) {
+				content.append(keys.get(i)).append(SEPERATOR).append(trackedList.getFileString(i))
+						.append(LINE_BREAK);
+			}
+		}
+		if (content.length() == 0) {
+			shardFile.delete();
+		} else {
+			writeLines(shardFile, content.toString());
+		}
+	}
+
+	/**
+	 * Writes content to a temporary file that is forced to disk and renamed
+	 * over target
+	 */
+	private static void writeLines(File target, String content) throws IOException {
+		File tempFile = new File(target.getAbsolutePath() + TEMP_EXTENSION);
+		FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+		BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(fileOutputStream));
+		try {
+			bufferedWriter.write(content);
+			bufferedWriter.flush();
+			fileOutputStream.getFD().sync();
+		} finally {
+			bufferedWriter.close();
+		}
+		FileHandler.replaceFile(tempFile, target);
+	}
+
+	private static ArrayList<String> readLines(File source) throws IOException {
+		ArrayList<String> lines = new ArrayList<String>();
+		BufferedReader bufferedReader = new BufferedReader(new FileReader(source));
+		try {
+			String currentLine;
+			while ((currentLine = bufferedReader.readLine()) != null) {
+				lines.add(currentLine);
+			}
+		} finally {
+			bufferedReader.close();
+		}
+		return lines;
+	}
+
+	/**
+	 * Gets the shard of the task at index without parsing it if it has not
+	 * been accessed yet, unless the tracked list was restructured since the
+	 * shards were recorded, which leaves them at positions that no longer
+	 * hold the same tasks
+	 */
+	private String getShard(TaskList taskList, int index) {
+		if (taskList == trackedList && !isRewriteNeeded && index < shards.size()) {
+			return shards.get(index);
+		}
+		return getShard(taskList.getListItem(index));
+	}
+
+	/**
+	 * @param task
+	 * @return name of the shard for the month of the end date of task
+	 */
+	private static String getShard(Task task) {
+		DateTime endDate = task.getEndDate();
+		if (endDate == null || endDate.getYear() == null || endDate.getMonth() == null) {
+			return UNDATED_SHARD;
+		}
+		return String.format(SHARD_NAME_FORMAT, endDate.getYear(), endDate.getMonth());
+	}
+
+	private static class ShardLine {
+		private long key;
+		private String shard;
+		private String task;
+
+		ShardLine(long key, String shard, String task) {
+			this.key = key;
+			this.shard = shard;
+			this.task = task;
+		}
+	}
+}
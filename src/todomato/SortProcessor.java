@@ -2,10 +2,13 @@ package todomato;
 
 import hirondelle.date4j.DateTime;
 
+import java.util.Comparator;
+
 //@author A0101578H
 /**
  * This class contains methods to process sort commands by the user. 
- * It updates the user's list of tasks, and saves it to disk.
+ * It sorts the tasks on display, leaving the order of the user's list
+ * of tasks, and the file it is saved in, as it is.
  * 
  * <p>
  * The following ways to sort are supported: 
@@ -56,7 +59,6 @@ public class SortProcessor extends Processor{
 	
 	private static final String descending[] = {"descending", "d", "desc"};
 	private static final String ascending[] = {"ascending", "a", "asc"};
-	private static final int INDC_INVALID_PARAMETERS = -1;
 	private static final int INDEX_OF_TYPE = 0;
 	private static final int INDEX_OF_ORDER = 1;
 	private static final int NO_OF_ARG_WITH_ORDER = 2;
@@ -108,11 +110,7 @@ public class SortProcessor extends Processor{
 		if (!isValidOrder(order)) {
 			throw new InvalidInputException(INVALID_INPUT_ORDER);
 		}
-		bubbleSort(ARGUMENT_COMPLETION);
-		if (isDescending(order)) {
-			list.reverse();
-		}
-		fileHandler.updateFile(list);
+		sort(ARGUMENT_COMPLETION, isDescending(order));
 		return SUCCESS_SORT_BY_COMPLETION;
 	}
 
@@ -129,11 +127,7 @@ public class SortProcessor extends Processor{
 		if (!isValidOrder(order)) {
 			throw new InvalidInputException(INVALID_INPUT_ORDER);
 		}
-		bubbleSort(ARGUMENT_PRIORITY);
-		if (isAscending(order)) {
-			list.reverse();
-		}
-		fileHandler.updateFile(list);
+		sort(ARGUMENT_PRIORITY, isAscending(order));
 		return SUCCESS_SORT_BY_PRIORITY;
 	}
 	
@@ -150,11 +144,7 @@ public class SortProcessor extends Processor{
 		if (!isValidOrder(order)) {
 			throw new InvalidInputException(INVALID_INPUT_ORDER);
 		}		
-		bubbleSort(ARGUMENT_START_DATE);
-		if (isDescending(order)) {
-			list.reverse();
-		}
-		fileHandler.updateFile(list);
+		sort(ARGUMENT_START_DATE, isDescending(order));
 		return SUCCESS_SORT_BY_DATE;
 	}
 	
@@ -172,24 +162,20 @@ public class SortProcessor extends Processor{
 			throw new InvalidInputException(INVALID_INPUT_ORDER);
 		}
 		
-		bubbleSort(ARGUMENT_END_DATE);
-		if (isDescending(order)) {
-			list.reverse();
-		}
-		fileHandler.updateFile(list);
+		sort(ARGUMENT_END_DATE, isDescending(order));
 		return SUCCESS_SORT_BY_DATE;
 	}
 	
 	/**
 	 * Compares completion status of two tasks
 	 * 
-	 * @param i: index of first task
-	 * @param j: index of second task
+	 * @param i: first task
+	 * @param j: second task
 	 * @return true if task i is completed but task j is not
 	 */
-	private static boolean compareCompletion(int i, int j) {
-		if (list.getListItem(i).getCompleted()) {
-			if (!list.getListItem(j).getCompleted()) {
+	private static boolean compareCompletion(Task i, Task j) {
+		if (i.getCompleted()) {
+			if (!j.getCompleted()) {
 				return true;
 			}
 		}
@@ -199,22 +185,23 @@ public class SortProcessor extends Processor{
 	/**
 	 * Compares priority levels of two tasks
 	 * 
-	 * @param i: index of first task
-	 * @param j: index of second task
-	 * @return true if task i has lower priority than task j or has been completed
+	 * @param i: first task
+	 * @param j: second task
+	 * @return true if task i has lower priority than task j, or has been
+	 *         completed while task j has not
 	 */
-	private static boolean comparePriority(int i, int j) {
-		if (list.getListItem(i).getCompleted()) {
-			return true;
+	private static boolean comparePriority(Task i, Task j) {
+		if (i.getCompleted()) {
+			return !j.getCompleted();
 		}
-		if (list.getListItem(j).getCompleted()) {
+		if (j.getCompleted()) {
 			return false;
 		}
 		if (isSamePriority(i, j)) {
 			return false;
 		}
-		String iPriority = list.getListItem(i).getPriorityLevel();
-		String jPriority = list.getListItem(j).getPriorityLevel();
+		String iPriority = i.getPriorityLevel();
+		String jPriority = j.getPriorityLevel();
 		if ((iPriority.equals(PRIORITY_HIGH)) || (jPriority.equals(PRIORITY_LOW))) {
 			return false;
 		}
@@ -227,13 +214,13 @@ public class SortProcessor extends Processor{
 	/**
 	 * Check if priority levels of two tasks are the same
 	 * 
-	 * @param i: index of first task
-	 * @param j: index of second task
+	 * @param i: first task
+	 * @param j: second task
 	 * @return true if priority levels are same
 	 */
-	private static boolean isSamePriority(int i, int j) {
-		String iPriority = list.getListItem(i).getPriorityLevel();
-		String jPriority = list.getListItem(j).getPriorityLevel();
+	private static boolean isSamePriority(Task i, Task j) {
+		String iPriority = i.getPriorityLevel();
+		String jPriority = j.getPriorityLevel();
 		if(iPriority.equals(jPriority)) {
 			return true;
 		}
@@ -243,17 +230,17 @@ public class SortProcessor extends Processor{
 	/**
 	 * Compares start dates of two tasks
 	 * 
-	 * @param i: index of first task
-	 * @param j: index of second task
+	 * @param i: first task
+	 * @param j: second task
 	 * @return true if task i starts later than task j
 	 */
-	private static boolean compareStartDate(int i, int j) {
-		if (list.getListItem(i).getCompleted()) {
-			if (!list.getListItem(j).getCompleted()) {
+	private static boolean compareStartDate(Task i, Task j) {
+		if (i.getCompleted()) {
+			if (!j.getCompleted()) {
 				return true;
 			}
 		}
-		if (list.getListItem(j).getCompleted()) {
+		if (j.getCompleted()) {
 			return false;
 		}
 		if (hasSameDate(ARGUMENT_START_DATE, i, j)) {
@@ -271,17 +258,17 @@ public class SortProcessor extends Processor{
 	/**
 	 * Compares end dates of two tasks
 	 * 
-	 * @param i: index of first task
-	 * @param j: index of second task
+	 * @param i: first task
+	 * @param j: second task
 	 * @return true if task i ends later than task j
 	 */
-	private static boolean compareEndDate(int i, int j) {
-		if (list.getListItem(i).getCompleted()) {
-			if (!list.getListItem(j).getCompleted()) {
+	private static boolean compareEndDate(Task i, Task j) {
+		if (i.getCompleted()) {
+			if (!j.getCompleted()) {
 				return true;
 			}
 		}
-		if (list.getListItem(j).getCompleted()) {
+		if (j.getCompleted()) {
 			return false;
 		}
 		if (hasSameDate(ARGUMENT_END_DATE, i, j)) {
@@ -299,14 +286,14 @@ public class SortProcessor extends Processor{
 	/**
 	 * Checks if start/end date of two tasks are the same 
 	 * @param type: type of date to be checked
-	 * @param i: index of first task
-	 * @param j: index of second task
+	 * @param i: first task
+	 * @param j: second task
 	 * @return true if tasks lie on the same start/end date
 	 */
-	private static boolean hasSameDate(String type, int i, int j) {
+	private static boolean hasSameDate(String type, Task i, Task j) {
 		if (type.equals(ARGUMENT_START_DATE)) {
-			DateTime iStartDate = list.getListItem(i).getStartDate();
-			DateTime jStartDate = list.getListItem(j).getStartDate();
+			DateTime iStartDate = i.getStartDate();
+			DateTime jStartDate = j.getStartDate();
 			if (iStartDate == null && jStartDate == null) {
 				return true;
 			}
@@ -318,8 +305,8 @@ public class SortProcessor extends Processor{
 			}
 		}
 		if (type.equals(ARGUMENT_END_DATE)) {
-			DateTime iEndDate = list.getListItem(i).getEndDate();
-			DateTime jEndDate = list.getListItem(j).getEndDate();
+			DateTime iEndDate = i.getEndDate();
+			DateTime jEndDate = j.getEndDate();
 			if (iEndDate == null && jEndDate == null) {
 				return true;
 			}
@@ -338,14 +325,14 @@ public class SortProcessor extends Processor{
 	 * If the times are the same, j will be returned
 	 * 
 	 * @param type: type of time to be compared
-	 * @param i: index of first task
-	 * @param j: index of second task
+	 * @param i: first task
+	 * @param j: second task
 	 * @return later task of the i'th and j'th tasks
 	 */
-	private static int getLaterTimeTask(String type, int i, int j) {
+	private static Task getLaterTimeTask(String type, Task i, Task j) {
 		if (type.equals(ARGUMENT_START_DATE)) {
-			DateTime iStartTime = list.getListItem(i).getStartTime();
-			DateTime jStartTime = list.getListItem(j).getStartTime();
+			DateTime iStartTime = i.getStartTime();
+			DateTime jStartTime = j.getStartTime();
 			
 			if (iStartTime == null) {
 				if (jStartTime == null) {
@@ -362,8 +349,8 @@ public class SortProcessor extends Processor{
 			return i;
 		}
 		if (type.equals(ARGUMENT_END_DATE)) {
-			DateTime iEndTime = list.getListItem(i).getEndTime();
-			DateTime jEndTime = list.getListItem(j).getEndTime();
+			DateTime iEndTime = i.getEndTime();
+			DateTime jEndTime = j.getEndTime();
 			
 			if (iEndTime == null) {
 				if (jEndTime == null) {
@@ -379,7 +366,7 @@ public class SortProcessor extends Processor{
 			}
 			return i;
 		}
-		return INDC_INVALID_PARAMETERS;
+		return null;
 	}
 	
 	/**
@@ -387,14 +374,14 @@ public class SortProcessor extends Processor{
 	 * If the dates are the same, j will be returned
 	 * 
 	 * @param type: type of date to be compared
-	 * @param i: index of first task
-	 * @param j: index of second task
+	 * @param i: first task
+	 * @param j: second task
 	 * @return later task of the i'th and j'th tasks
 	 */
-	private static int getLaterDateTask(String type, int i, int j) {
+	private static Task getLaterDateTask(String type, Task i, Task j) {
 		if (type.equals(ARGUMENT_START_DATE)) {
-			DateTime iStartDate = list.getListItem(i).getStartDate();
-			DateTime jStartDate = list.getListItem(j).getStartDate();
+			DateTime iStartDate = i.getStartDate();
+			DateTime jStartDate = j.getStartDate();
 			
 			if (iStartDate == null) {
 				if (jStartDate == null) {
@@ -411,8 +398,8 @@ public class SortProcessor extends Processor{
 			return i;
 		}
 		if (type.equals(ARGUMENT_END_DATE)) {
-			DateTime iEndDate = list.getListItem(i).getEndDate();
-			DateTime jEndDate = list.getListItem(j).getEndDate();
+			DateTime iEndDate = i.getEndDate();
+			DateTime jEndDate = j.getEndDate();
 			
 			if (iEndDate == null) {
 				if (jEndDate == null) {
@@ -428,50 +415,60 @@ public class SortProcessor extends Processor{
 			}
 			return i;
 		}
-		return INDC_INVALID_PARAMETERS;
+		return null;
 	}
 	
 	/**
-	 * Bubble sort algorithm
+	 * Shows the tasks on display sorted by type
 	 * 
 	 * @param type: type to sort by
+	 * @param isReversed: true to show them in the reverse order
 	 */
-	private static void bubbleSort(String type) {
-		for (int i = 0; i < (list.getSize() - 1); i++) {
-			for (int j = 0; j < (list.getSize() - i - 1); j++) {
-				if (needSwap(type, j)) {
-					list.swap(j, j + 1);
+	private static void sort(final String type, boolean isReversed) {
+		Comparator<Task> order = new Comparator<Task>() {
+			@Override
+			public int compare(Task i, Task j) {
+				if (needSwap(type, i, j)) {
+					return 1;
+				}
+				if (needSwap(type, j, i)) {
+					return -1;
 				}
+				return 0;
 			}
+		};
+		if (displayList.getTaskList() != list) {
+			showList();
 		}
+		displayList = displayList.sort(order, isReversed);
 	}
 
 	/**
-	 * Determine if there is a need to swap a task with the next 
-	 * for bubble sort
+	 * Determine if task i needs to be shown after task j
 	 * 
 	 * @param type: type to sort by
-	 * @param j: index of task
-	 * @return true if swap is needed
+	 * @param i: first task
+	 * @param j: second task
+	 * @return true if task i goes after task j
 	 */
-	private static boolean needSwap(String type, int j) {
+	private static boolean needSwap(String type, Task i, Task j) {
 		if (type.equals(ARGUMENT_START_DATE)) {
-			if (compareStartDate(j, j + 1)) {
+			if (compareStartDate(i, j)) {
 				return true;
 			}
 		}
 		if (type.equals(ARGUMENT_END_DATE)) {
-			if (compareEndDate(j, j + 1)) {
+			if (compareEndDate(i, j)) {
 				return true;
 			}
 		}
 		if (type.equals(ARGUMENT_PRIORITY)) {
-			if (comparePriority(j, j + 1)) {
+			if (comparePriority(i, j)) {
 				return true;
 			}
 		} 
 		if (type.equals(ARGUMENT_COMPLETION)) {
-			if (compareCompletion(j, j + 1)) {
+			if (compareCompletion(i, j)) {
 				return true;
 			}
 		} 
@@ -1,5 +1,8 @@
 package todomato;
 
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
 //@author A0120766H
 /**
  * This class handles user commands by calling the processing method depending
@@ -16,17 +19,25 @@ public class SplitProcessorsHandler {
 	private static final String UNDO_COMMAND = "undo";
 	private static final String EXIT_COMMAND = "exit";
 	private static final String REDO_COMMAND = "redo";
+	private static final String HISTORY_COMMAND = "history";
 	private static final String FIND_COMMAND = "find";
 	private static final String RECUR_COMMAND = "recur";
 	private static final String NOTIFY_COMMAND = "notify";
 	private static final String SYNC_COMMAND = "sync";
 	private static final String SET_SYNC_INFO_COMMAND = "setsync";
 	private static final String HELP_COMMAND = "help";
+	private static final String ARCHIVE_COMMAND = "archive";
+	private static final String USE_COMMAND = "use";
 	private static final String FILLER_STRING = " ";
 
 	private static Command command;
 
 	/**
+	 * Processes userInput on the writer thread of the CommandExecutor, after
+	 * any command entered before it in the console or the window, while
+	 * holding the lock of the PersistenceService, so that the list is not
+	 * saved while it is being changed. Pending changes are saved before
+	 * exiting.
 	 * 
 	 * @param userInput
 	 * @return A status message describing the last action completed
@@ -34,12 +45,59 @@ public class SplitProcessorsHandler {
 	 */
 	public static String processCommand(String userInput)
 			throws InvalidInputException {
-		command = new Command(userInput.split(" ", 2));
-		if (command.getAction().equalsIgnoreCase(EXIT_COMMAND)) {
+		try {
+			return processCommand(userInput, null);
+		} catch (IOException e) {
+			// nothing is written without an output
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Processes userInput in the same way as processCommand(String), but
+	 * writes the tasks listed by a display command to out as they are
+	 * rendered instead of returning them in the status message.
+	 * 
+	 * @param userInput
+	 * @param out Writer or PrintStream to write listed tasks to, or null to
+	 *            return them in the status message
+	 * @return A status message describing the last action completed
+	 * @throws InvalidInputException
+	 * @throws IOException if out cannot be written to
+	 */
+	public static String processCommand(final String userInput, final Appendable out)
+			throws InvalidInputException, IOException {
+		final Command userCommand = new Command(userInput.split(" ", 2));
+		if (userCommand.getAction().equalsIgnoreCase(EXIT_COMMAND)) {
+			Processor.getPersistence().flush();
 			System.exit(0);
 		}
+		return CommandExecutor.call(new Callable<String>() {
+			@Override
+			public String call() throws InvalidInputException, IOException {
+				synchronized (Processor.getPersistence().getLock()) {
+					command = userCommand;
+					return processAction(userInput, out);
+				}
+			}
+		});
+	}
+
+	/**
+	 * 
+	 * @param userInput
+	 * @param out
+	 * @return A status message describing the last action completed
+	 * @throws InvalidInputException
+	 * @throws IOException
+	 */
+	private static String processAction(String userInput, Appendable out)
+			throws InvalidInputException, IOException {
 		if (command.getAction().equalsIgnoreCase(DISPLAY_COMMAND)) {
-			return DisplayProcessor.processDisplay(command.getArgument());
+			if (out == null) {
+				return DisplayProcessor.processDisplay(command.getArgument());
+			}
+			return DisplayProcessor.processDisplay(command.getArgument(), out);
 		}
 		if (command.getAction().equalsIgnoreCase(UPDATE_COMMAND)) {
 			return UpdateProcessor.processUpdate(command.getArgument());
@@ -53,6 +111,9 @@ public class SplitProcessorsHandler {
 		if (command.getAction().equalsIgnoreCase(REDO_COMMAND)) {
 			return RedoProcessor.processRedo();
 		}
+		if (command.getAction().equalsIgnoreCase(HISTORY_COMMAND)) {
+			return HistoryProcessor.processHistory();
+		}
 		if (command.getAction().equalsIgnoreCase(FIND_COMMAND)) {
 			return FindProcessor.processFind(command.getArgument());
 		}
@@ -74,6 +135,12 @@ public class SplitProcessorsHandler {
 		if (command.getAction().equals(SET_SYNC_INFO_COMMAND)) {
 			return SetSyncProcessor.processSetSync(command.getArgument());
 		}
+		if (command.getAction().equalsIgnoreCase(ARCHIVE_COMMAND)) {
+			return ArchiveProcessor.processArchive(command.getArgument());
+		}
+		if (command.getAction().equalsIgnoreCase(USE_COMMAND)) {
+			return UseProcessor.processUse(command.getArgument());
+		}
 		if (command.getAction().equals(HELP_COMMAND)) {
 			HelpProcessor.processHelp();
 			return FILLER_STRING;
@@ -26,6 +26,9 @@ public class SyncProcessor extends Processor {
 		String username = list.getUserName();
 		String password = list.getPassword();
 		
+		// Make sure the local Tasklist is on disk before it is replaced
+		persistence.flush();
+
 		// Sync and replace the local Tasklist
 		DataSyncer Syncer = new DataSyncer(list);
 		TaskList newList;
@@ -39,8 +42,8 @@ public class SyncProcessor extends Processor {
 			return CONNECTION_ERROR;
 		}
 		list = newList;
-		fileHandler.updateFile(list);
-		displayList.deepCopy(list);
+		saveList();
+		showList();
 		
 		return SYNC_COMPLETE;
 
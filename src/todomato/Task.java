@@ -6,6 +6,21 @@ import java.util.Locale;
 import java.util.TimeZone;
 
 //@author A0096620E
+/**
+ * A task of the user, with its description, dates and times, location,
+ * priority level and completion.
+ *
+ * <p>
+ * Dates and times are kept packed in longs (see PackedDateTime), the
+ * priority level as a byte code and the completion as a boolean, so that a
+ * Task holds no objects apart from its text. The getters create the
+ * DateTime of a field each time they are called.
+ *
+ * <p>
+ * The String shown for a Task, and its upper case form used by searches,
+ * are kept once they have been made, until a field they show is set.
+ *
+ */
 public class Task {
 
 	private static final String START_TIME_PREP = " at ";
@@ -14,86 +29,143 @@ public class Task {
 	private static final String DATE_PREP = " on ";
 	private static final String SEPERATOR = "#";
 	private static final String PRIORITY_LOW = "LOW";
-	private static final String IS_TRUE = "true";
-	private static int INDEX_OF_DESC = 0;
-	private static int INDEX_OF_START_TIME = 1;
-	private static int INDEX_OF_END_TIME = 2;
-	private static int INDEX_OF_START_DATE = 3;
-	private static int INDEX_OF_END_DATE = 4;
-	private static int INDEX_OF_LOCATION = 5;
-	private static int INDEX_OF_RECUR = 6;
-	private static int INDEX_OF_ID = 7;
-	private static int INDEX_OF_TIME_CREATED = 8;
-	private static int INDEX_OF_PRIORITY = 9;
-	private static int INDEX_OF_IS_COMPLETED = 10;
-	private static int INDEX_OF_EVENT_ID = 11;
-	private static int INDEX_OF_UPDATE_TIME = 12;
-	private static int INDEX_OF_NOTICE_TIME = 13;
+	private static final String DATE_FORMAT = "MMM DD YYYY";
+	private static final Locale DATE_LOCALE = Locale.US;
+	private static final String RECURRENCE_PREP = " recurring every ";
+	private static final String RECURRENCE_UNIT = " days";
+	// id of a Task that has not been added to a TaskList yet
+	public static final long NO_ID = 0;
+
+	// Task fields that hold a DateTime, by the position of their shape
+	static final int START_TIME = 0;
+	static final int END_TIME = 1;
+	static final int START_DATE = 2;
+	static final int END_DATE = 3;
+	static final int NOTICE_TIME = 4;
+	static final int UPDATE_TIME = 5;
+	static final int TIME_CREATED = 6;
+	private static final int DATE_TIME_FIELDS = 7;
+	private static final int BITS_PER_SHAPE = 4;
+	private static final int SHAPE_MASK = (1 << BITS_PER_SHAPE) - 1;
+	// priority levels by their code, with code 0 standing for null
+	private static final String[] PRIORITY_LEVELS = { null, "LOW", "MEDIUM", "HIGH" };
+	private static final byte OTHER_PRIORITY = (byte) PRIORITY_LEVELS.length;
 
 	private String description;
-	private DateTime startTime;
-	private DateTime endTime;
-	private DateTime noticeTime;
-	private DateTime startDate;
-	private DateTime endDate;
 	private String location;
 	private String eventId;
-	private DateTime updateTime;
 	private int recurrencePeriod;
-	private int id;
-	private String priorityLevel;
-	private DateTime timeCreated;
-	private Boolean isCompleted;
+	private long id;
+	private boolean isCompleted;
+	private byte priority;
+	// dates and times packed by PackedDateTime, with their shapes in shapes
+	private long startTime;
+	private long endTime;
+	private long noticeTime;
+	private long startDate;
+	private long endDate;
+	private long updateTime;
+	private long timeCreated;
+	private int shapes;
+	// fields that cannot be packed, which few Tasks have
+	private Uncommon uncommon = null;
+	// made by toString and toSearchString, and cleared by the setters of the
+	// fields they show. Tasks are not changed once they are in a published
+	// snapshot, so readers that make them at the same time make equal Strings.
+	private String shownString = null;
+	private String searchString = null;
+
+	/**
+	 * Creates a Task without any fields set, for readers of the data file
+	 * that set every field themselves
+	 */
+	Task() {
+	}
 
 	public Task(String userDes) {
 		description = userDes;
-		timeCreated = DateTime.now(TimeZone.getDefault());
-		id = timeCreated.toString().hashCode();
-		priorityLevel = PRIORITY_LOW;
+		setTimeCreated(DateTime.now(TimeZone.getDefault()));
+		id = NO_ID;
+		setPriorityLevel(PRIORITY_LOW);
 		isCompleted = false;
 	}
 
 	public Task(String userDes, DateTime userStart, DateTime userEnd,
 			DateTime userEndDate, String userLocation) {
 		description = userDes;
-		startTime = userStart;
-		endDate = userEndDate;
-		endTime = userEnd;
+		setStartTime(userStart);
+		setEndDate(userEndDate);
+		setEndTime(userEnd);
 		location = userLocation;
 		recurrencePeriod = 0;
-		timeCreated = DateTime.now(TimeZone.getDefault());
-		id = timeCreated.toString().hashCode();
-		priorityLevel = PRIORITY_LOW;
+		setTimeCreated(DateTime.now(TimeZone.getDefault()));
+		id = NO_ID;
+		setPriorityLevel(PRIORITY_LOW);
 		isCompleted = false;
 	}
 
 	public Task(String userDes, DateTime userStart, DateTime userEnd, DateTime userStartDate,
 			DateTime userEndDate, String userLocation, int userRecurrencePeriod) {
 		description = userDes;
-		startTime = userStart;
-		startDate = userStartDate;
-		endDate = userEndDate;
-		endTime = userEnd;
+		setStartTime(userStart);
+		setStartDate(userStartDate);
+		setEndDate(userEndDate);
+		setEndTime(userEnd);
 		location = userLocation;
 		recurrencePeriod = userRecurrencePeriod;
-		timeCreated = DateTime.now(TimeZone.getDefault());
-		id = timeCreated.toString().hashCode();
-		priorityLevel = PRIORITY_LOW;
+		setTimeCreated(DateTime.now(TimeZone.getDefault()));
+		id = NO_ID;
+		setPriorityLevel(PRIORITY_LOW);
 		isCompleted = false;
 	}
 
+	/**
+	 * Copies the fields of copy, except its event id, update time and notice
+	 * time. The packed fields are copied as they are, without creating a
+	 * DateTime for each.
+	 */
 	public Task(Task copy) {
-		description = copy.getDescription();
-		startTime = copy.getStartTime();
-		endTime = copy.getEndTime();
-		startDate = copy.getStartDate();
-		endDate = copy.getEndDate();
-		location = copy.getLocation();
-		recurrencePeriod = copy.getRecurrencePeriod();
-		timeCreated = copy.getTimeCreated();
-		id = copy.getId();
-		priorityLevel = copy.getPriorityLevel();
-		isCompleted = copy.getCompleted();
+		description = copy.description;
+		startTime = copy.startTime;
+		endTime = copy.endTime;
+		startDate = copy.startDate;
+		endDate = copy.endDate;
+		timeCreated = copy.timeCreated;
+		int copiedFields = shapeBits(START_TIME) | shapeBits(END_TIME) | shapeBits(START_DATE)
+				| shapeBits(END_DATE) | shapeBits(TIME_CREATED);
+		shapes = copy.shapes & copiedFields;
+		location = copy.location;
+		recurrencePeriod = copy.recurrencePeriod;
+		id = copy.id;
+		priority = copy.priority;
+		isCompleted = copy.isCompleted;
+		shownString = copy.shownString;
+		searchString = copy.searchString;
+		if (copy.uncommon != null) {
+			uncommon = new Uncommon();
+			uncommon.priorityLevel = copy.uncommon.priorityLevel;
+			for (int field : new int[] { START_TIME, END_TIME, START_DATE, END_DATE, TIME_CREATED }) {
+				uncommon.dateTimes[field] = copy.uncommon.dateTimes[field];
+			}
+		}
+	}
+
+	/**
+	 * @return a copy of every field of this Task, including the ones that
+	 *         the copy constructor leaves out
+	 */
+	Task copy() {
+		Task copy = new Task(this);
+		copy.eventId = eventId;
+		copy.noticeTime = noticeTime;
+		copy.updateTime = updateTime;
+		copy.shapes = shapes;
+		if (uncommon != null) {
+			copy.uncommon = new Uncommon();
+			copy.uncommon.priorityLevel = uncommon.priorityLevel;
+			copy.uncommon.dateTimes = uncommon.dateTimes.clone();
+		}
+		return copy;
 	}
 
 	public static boolean isEqual(String string1, String string2) {
@@ -111,35 +183,67 @@ public class Task {
 
 	@Override
 	public String toString() {
-		String task = description;
+		if (shownString == null) {
+			shownString = createShownString();
+		}
+		return shownString;
+	}
+
+	/**
+	 * @return toString() in upper case, for searches that ignore case
+	 */
+	public String toSearchString() {
+		if (searchString == null) {
+			searchString = toString().toUpperCase();
+		}
+		return searchString;
+	}
+
+	private String createShownString() {
+		DateTime startTime = getStartTime();
+		DateTime endTime = getEndTime();
+		DateTime startDate = getStartDate();
+		DateTime endDate = getEndDate();
+		StringBuilder task = new StringBuilder();
+		task.append(description);
 		if (startTime != null) {
-			task += START_TIME_PREP + startTime;
+			task.append(START_TIME_PREP).append(startTime);
 		}
 		if (startDate != null) {
-			task += DATE_PREP + startDate.format("MMM DD YYYY", new Locale("US"));
+			task.append(DATE_PREP).append(formatDate(startDate));
 		}
 		if (endTime != null) {
-			task += END_TIME_PREP + endTime;
+			task.append(END_TIME_PREP).append(endTime);
 		}
 		if (startDate == null && endDate != null) {
-			task += DATE_PREP + endDate.format("MMM DD YYYY", new Locale("US"));
-		} else if (endDate != null) {
-			if (!endDate.equals(startDate)) {
-				if (endTime != null) {
-					task += DATE_PREP + endDate.format("MMM DD YYYY", new Locale("US"));
-				} else if (!endDate.equals(startDate)) {
-				task += END_TIME_PREP + endDate.format("MMM DD YYYY", new Locale("US"));
-				}
+			task.append(DATE_PREP).append(formatDate(endDate));
+		} else if (endDate != null && !endDate.equals(startDate)) {
+			if (endTime != null) {
+				task.append(DATE_PREP).append(formatDate(endDate));
+			} else {
+				task.append(END_TIME_PREP).append(formatDate(endDate));
 			}
 		}
 		if (location != null) {
-			task += LOCATION_PREP + location;
+			task.append(LOCATION_PREP).append(location);
 		}
 		if (recurrencePeriod != 0) {
-			task += " recurring every " + recurrencePeriod + " days";
+			task.append(RECURRENCE_PREP).append(recurrencePeriod).append(RECURRENCE_UNIT);
 		}
+		return task.toString();
+	}
 
-		return task;
+	private static String formatDate(DateTime date) {
+		return date.format(DATE_FORMAT, DATE_LOCALE);
+	}
+
+	/**
+	 * Forgets the Strings made by toString and toSearchString, after a field
+	 * they show has been set
+	 */
+	private void clearShownStrings() {
+		shownString = null;
+		searchString = null;
 	}
 
 	/**
@@ -147,16 +251,17 @@ public class Task {
 	 * <desc>#<startTime>#<endTime>#<startDate>
 	 * >#<endDate>#<location>#<recurrencePeriod>#<id>#<timeCreated
 	 * >#<priorityLevel>#<isCompleted>#<eventId>#<updateTime>#<noticeTime>
+	 * where '#' and line breaks in text fields are escaped
 	 * 
 	 * @return
 	 */
 	public String toFileString() {
-		String task = description;
-		task += SEPERATOR + startTime + SEPERATOR + endTime + SEPERATOR + startDate 
-				+ SEPERATOR + endDate + SEPERATOR + location + SEPERATOR + recurrencePeriod
-				+ SEPERATOR + id + SEPERATOR + timeCreated + SEPERATOR
-				+ priorityLevel + SEPERATOR + isCompleted + SEPERATOR + eventId
-				+ SEPERATOR + updateTime + SEPERATOR + noticeTime;
+		String task = TaskFileTokenizer.escape(description);
+		task += SEPERATOR + getStartTime() + SEPERATOR + getEndTime() + SEPERATOR + getStartDate()
+				+ SEPERATOR + getEndDate() + SEPERATOR + TaskFileTokenizer.escape(location)
+				+ SEPERATOR + recurrencePeriod + SEPERATOR + id + SEPERATOR + getTimeCreated() + SEPERATOR
+				+ TaskFileTokenizer.escape(getPriorityLevel()) + SEPERATOR + isCompleted + SEPERATOR
+				+ TaskFileTokenizer.escape(eventId) + SEPERATOR + getUpdateTime() + SEPERATOR + getNoticeTime();
 		return task;
 	}
 
@@ -168,61 +273,7 @@ public class Task {
 	 * @throws InvalidInputException
 	 */
 	public static Task createTaskFromFileString(String fileInput) {
-		String[] parts = fileInput.split(SEPERATOR);
-		String description = parts[INDEX_OF_DESC];
-		DateTime startTime = null;
-		DateTime endTime = null;
-		DateTime startDate = null;
-		DateTime endDate = null;
-		String location = null;
-		String eventId = null;
-		DateTime updateTime = null;
-		DateTime noticeTime = null;
-		if (DateTime.isParseable(parts[INDEX_OF_START_TIME])) {
-			startTime = new DateTime(parts[INDEX_OF_START_TIME]);
-		}
-		if (DateTime.isParseable(parts[INDEX_OF_END_TIME])) {
-			endTime = new DateTime(parts[INDEX_OF_END_TIME]);
-		}
-		if (DateTime.isParseable(parts[INDEX_OF_START_DATE])) {
-			startDate = new DateTime(parts[INDEX_OF_START_DATE]);
-		}
-		if (DateTime.isParseable(parts[INDEX_OF_END_DATE])) {
-			endDate = new DateTime(parts[INDEX_OF_END_DATE]);
-		}
-		if (!parts[INDEX_OF_LOCATION].equals("null")) {
-			location = parts[INDEX_OF_LOCATION];
-		}
-		int recurrencePeriod = Integer.parseInt(parts[INDEX_OF_RECUR]);
-		int id = Integer.parseInt(parts[INDEX_OF_ID]);
-		DateTime timeCreated = new DateTime(parts[INDEX_OF_TIME_CREATED]);
-		String prioritylevel = parts[INDEX_OF_PRIORITY];
-		Boolean isCompleted = false;
-		if (parts[INDEX_OF_IS_COMPLETED].equals(IS_TRUE)) {
-			isCompleted = true;
-		}
-		eventId = parts[INDEX_OF_EVENT_ID];
-		if (DateTime.isParseable(parts[INDEX_OF_UPDATE_TIME])) {
-			updateTime = new DateTime(parts[INDEX_OF_UPDATE_TIME]);
-		}
-		if (DateTime.isParseable(parts[INDEX_OF_NOTICE_TIME])) {
-			noticeTime = new DateTime(parts[INDEX_OF_NOTICE_TIME]);
-		}
-		Task userTask = new Task(description);
-		userTask.setStartTime(startTime);
-		userTask.setEndTime(endTime);
-		userTask.setStartDate(startDate);
-		userTask.setEndDate(endDate);		
-		userTask.setLocation(location);
-		userTask.setRecurrencePeriod(recurrencePeriod);
-		userTask.setId(id);
-		userTask.setTimeCreated(timeCreated);
-		userTask.setPriorityLevel(prioritylevel);
-		userTask.setCompleted(isCompleted);
-		userTask.setEventId(eventId);
-		userTask.setUpdateTime(updateTime);
-		userTask.setNoticeTime(noticeTime);
-		return userTask;
+		return TaskFileTokenizer.parse(fileInput);
 	}
 
 	public String getDescription() {
@@ -231,22 +282,23 @@ public class Task {
 
 	public void setDescription(String description) {
 		this.description = description;
+		clearShownStrings();
 	}
 
 	public DateTime getStartTime() {
-		return startTime;
+		return getDateTime(START_TIME, startTime);
 	}
 
 	public void setStartTime(DateTime startTime) {
-		this.startTime = startTime;
+		setDateTime(START_TIME, startTime);
 	}
 
 	public DateTime getEndTime() {
-		return endTime;
+		return getDateTime(END_TIME, endTime);
 	}
 
 	public void setEndTime(DateTime endTime) {
-		this.endTime = endTime;
+		setDateTime(END_TIME, endTime);
 	}
 
 	public String getLocation() {
@@ -255,22 +307,23 @@ public class Task {
 
 	public void setLocation(String location) {
 		this.location = location;
+		clearShownStrings();
 	}
 
 	public void setStartDate(DateTime date) {
-		this.startDate = date;
+		setDateTime(START_DATE, date);
 	}
 
 	public DateTime getStartDate() {
-		return startDate;
+		return getDateTime(START_DATE, startDate);
 	}
 
 	public void setEndDate(DateTime date) {
-		this.endDate = date;
+		setDateTime(END_DATE, date);
 	}
 
 	public DateTime getEndDate() {
-		return endDate;
+		return getDateTime(END_DATE, endDate);
 	}
 
 	public int getRecurrencePeriod() {
@@ -279,30 +332,44 @@ public class Task {
 
 	public void setRecurrencePeriod(int recurrencePeriod) {
 		this.recurrencePeriod = recurrencePeriod;
+		clearShownStrings();
 	}
 
 	public String getPriorityLevel() {
-		return priorityLevel;
+		if (priority == OTHER_PRIORITY) {
+			return uncommon.priorityLevel;
+		}
+		return PRIORITY_LEVELS[priority];
 	}
 
 	public void setPriorityLevel(String priorityLevel) {
-		this.priorityLevel = priorityLevel;
+		for (byte i = 0; i < PRIORITY_LEVELS.length; i++) {
+			if (isEqual(PRIORITY_LEVELS[i], priorityLevel)) {
+				priority = i;
+				if (uncommon != null) {
+					uncommon.priorityLevel = null;
+				}
+				return;
+			}
+		}
+		priority = OTHER_PRIORITY;
+		getUncommon().priorityLevel = priorityLevel;
 	}
 
-	public int getId() {
+	public long getId() {
 		return id;
 	}
 
-	public void setId(int id) {
+	public void setId(long id) {
 		this.id = id;
 	}
 
 	public DateTime getTimeCreated() {
-		return timeCreated;
+		return getDateTime(TIME_CREATED, timeCreated);
 	}
 
 	public void setTimeCreated(DateTime timeCreated) {
-		this.timeCreated = timeCreated;
+		setDateTime(TIME_CREATED, timeCreated);
 	}
 
 	public Boolean getCompleted() {
@@ -310,7 +377,7 @@ public class Task {
 	}
 
 	public void setCompleted(Boolean isCompleted) {
-		this.isCompleted = isCompleted;
+		this.isCompleted = Boolean.TRUE.equals(isCompleted);
 	}
 
 	public void setEventId(String eventId) {
@@ -318,7 +385,7 @@ public class Task {
 	}
 
 	public void setUpdateTime(DateTime updateTime) {
-		this.updateTime = updateTime;
+		setDateTime(UPDATE_TIME, updateTime);
 	}
 
 	public String getEventId() {
@@ -326,15 +393,107 @@ public class Task {
 	}
 
 	public DateTime getUpdateTime() {
-		return updateTime;
+		return getDateTime(UPDATE_TIME, updateTime);
 	}
 
 	public DateTime getNoticeTime() {
-		return noticeTime;
+		return getDateTime(NOTICE_TIME, noticeTime);
 	}
 
 	public void setNoticeTime(DateTime time) {
-		this.noticeTime = time;
+		setDateTime(NOTICE_TIME, time);
+
+	}
 
+	private static int shapeBits(int field) {
+		return SHAPE_MASK << (field * BITS_PER_SHAPE);
+	}
+
+	/**
+	 * @param field
+	 * @param value packed value of field
+	 * @return DateTime of field, created from its packed value
+	 */
+	private DateTime getDateTime(int field, long value) {
+		int shape = (shapes >>> (field * BITS_PER_SHAPE)) & SHAPE_MASK;
+		if (shape == PackedDateTime.UNPACKED) {
+			return uncommon.dateTimes[field];
+		}
+		return PackedDateTime.unpack(value, shape);
+	}
+
+	/**
+	 * Sets a date or time field to a value already packed, as read from the
+	 * data file by TaskFileTokenizer
+	 *
+	 * @param field one of START_TIME, END_TIME, START_DATE, END_DATE,
+	 *            NOTICE_TIME, UPDATE_TIME and TIME_CREATED
+	 * @param shape shape of value
+	 * @param value
+	 */
+	void setPackedDateTime(int field, int shape, long value) {
+		setShape(field, shape);
+		clearShownStrings();
+		if (uncommon != null) {
+			uncommon.dateTimes[field] = null;
+		}
+		switch (field) {
+		case START_TIME:
+			startTime = value;
+			break;
+		case END_TIME:
+			endTime = value;
+			break;
+		case START_DATE:
+			startDate = value;
+			break;
+		case END_DATE:
+			endDate = value;
+			break;
+		case NOTICE_TIME:
+			noticeTime = value;
+			break;
+		case UPDATE_TIME:
+			updateTime = value;
+			break;
+		default:
+			timeCreated = value;
+		}
+	}
+
+	/**
+	 * Sets a date or time field to dateTime, which is packed if it can be
+	 * and kept as it is otherwise
+	 *
+	 * @param field one of START_TIME, END_TIME, START_DATE, END_DATE,
+	 *            NOTICE_TIME, UPDATE_TIME and TIME_CREATED
+	 * @param dateTime
+	 */
+	void setDateTime(int field, DateTime dateTime) {
+		int shape = PackedDateTime.shapeOf(dateTime);
+		setPackedDateTime(field, shape, PackedDateTime.pack(dateTime, shape));
+		if (shape == PackedDateTime.UNPACKED) {
+			getUncommon().dateTimes[field] = dateTime;
+		}
+	}
+
+	private void setShape(int field, int shape) {
+		shapes = (shapes & ~shapeBits(field)) | (shape << (field * BITS_PER_SHAPE));
+	}
+
+	private Uncommon getUncommon() {
+		if (uncommon == null) {
+			uncommon = new Uncommon();
+		}
+		return uncommon;
+	}
+
+	/**
+	 * Fields of a Task that are not in one of the forms written by this
+	 * application, such as DateTimes read from text in another format
+	 */
+	private static class Uncommon {
+		private DateTime[] dateTimes = new DateTime[DATE_TIME_FIELDS];
+		private String priorityLevel;
 	}
 }
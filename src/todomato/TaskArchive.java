@@ -0,0 +1,242 @@
+package todomato;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+//@author A0099332Y
+/**
+ * This class keeps completed tasks that are no longer part of the TaskList
+ * in a compressed archive next to the data file. The archive is only read
+ * when it is searched or a task is restored from it, never at start up.
+ *
+ * <p>
+ * The archive is append-only. Every call to archive or markRestored appends
+ * one gzip member, which are read back one at a time. A member that was not
+ * written completely, e.g. because the program was stopped while appending,
+ * fails its CRC32 and is skipped, together with its records, and reading goes
+ * on with the next member appended after it. Each line is one record of the
+ * following format:
+ * <ul>
+ * <li>"A#<task file string>" for an archived task, which is numbered by the
+ * order in which it was archived
+ * <li>"R#<number>" for an archived task that has been restored
+ * </ul>
+ *
+ */
+public class TaskArchive {
+
+	private static final String ARCHIVE_EXTENSION = ".archive.gz";
+	private static final String ARCHIVE_RECORD = "A";
+	private static final String RESTORE_RECORD = "R";
+	private static final String SEPERATOR = "#";
+	private static final String LINE_BREAK = "\r\n";
+	private static final int NO_OF_PARTS_IN_RECORD = 2;
+	private static final int INDEX_OF_TYPE = 0;
+	private static final int INDEX_OF_VALUE = 1;
+	// as written by GZIPOutputStream, which sets no flags
+	private static final byte[] MEMBER_HEADER = { 0x1f, (byte) 0x8b, 8, 0 };
+	private static final int HEADER_SIZE = 10;
+	private static final int TRAILER_SIZE = 8;
+	private static final int BUFFER_SIZE = 8192;
+
+	private File archiveFile;
+
+	/**
+	 * @param dataFile the data file that tasks are archived from
+	 */
+	public TaskArchive(File dataFile) {
+		this.archiveFile = new File(dataFile.getAbsolutePath() + ARCHIVE_EXTENSION);
+	}
+
+	public File getFile() {
+		return archiveFile;
+	}
+
+	/**
+	 * Appends tasks to the archive and forces them to disk
+	 *
+	 * @param tasks
+	 * @throws IOException
+	 */
+	public void archive(List<Task> tasks) throws IOException {
+		ArrayList<String> records = new ArrayList<String>();
+		for (Task task : tasks) {
+			records.add(ARCHIVE_RECORD + SEPERATOR + task.toFileString());
+		}
+		append(records);
+	}
+
+	/**
+	 * Records that the archived tasks with the given numbers are back in the
+	 * TaskList, so they are no longer returned by readTasks
+	 *
+	 * @param numbers
+	 * @throws IOException
+	 */
+	public void markRestored(List<Integer> numbers) throws IOException {
+		ArrayList<String> records = new ArrayList<String>();
+		for (int number : numbers) {
+			records.add(RESTORE_RECORD + SEPERATOR + number);
+		}
+		append(records);
+	}
+
+	/**
+	 * Reads every archived task, skipping the members that were not written
+	 * completely
+	 *
+	 * @return archived tasks in file string format, indexed by their number,
+	 *         with null for tasks that have been restored
+	 * @throws IOException
+	 */
+	public ArrayList<String> readTasks() throws IOException {
+		ArrayList<String> tasks = new ArrayList<String>();
+		if (!archiveFile.exists()) {
+			return tasks;
+		}
+		byte[] contents = Files.readAllBytes(archiveFile.toPath());
+		int offset = 0;
+		while (offset < contents.length) {
+			int end = readMember(contents, offset, tasks);
+			if (end < 0) {
+				end = findMemberStart(contents, offset + 1);
+			}
+			offset = end;
+		}
+		return tasks;
+	}
+
+	private void append(ArrayList<String> records) throws IOException {
+		if (records.isEmpty()) {
+			return;
+		}
+		FileOutputStream fileOutputStream = new FileOutputStream(archiveFile, true);
+		GZIPOutputStream gzipOutputStream = new GZIPOutputStream(fileOutputStream);
+		BufferedWriter bufferedWriter = new BufferedWriter(new OutputStreamWriter(gzipOutputStream));
+		try {
+			for (String record : records) {
+				bufferedWriter.write(record + LINE_BREAK);
+			}
+			bufferedWriter.flush();
+			gzipOutputStream.finish();
+			fileOutputStream.getFD().sync();
+		} finally {
+			bufferedWriter.close();
+		}
+	}
+
+	/**
+	 * Applies the records of the gzip member at offset to tasks, if the whole
+	 * member is there and matches its CRC32. Records that cannot be read are
+	 * skipped.
+	 *
+	 * @param contents
+	 * @param offset
+	 * @param tasks
+	 * @return offset after the member, or -1 if it is not complete
+	 */
+	private static int readMember(byte[] contents, int offset, ArrayList<String> tasks) {
+		if (!isMemberStart(contents, offset) || contents.length - offset < HEADER_SIZE + TRAILER_SIZE) {
+			return -1;
+		}
+		Inflater inflater = new Inflater(true);
+		ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+		int trailer;
+		try {
+			inflater.setInput(contents, offset + HEADER_SIZE, contents.length - offset - HEADER_SIZE);
+			byte[] buffer = new byte[BUFFER_SIZE];
+			while (!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					return -1;
+				}
+				inflated.write(buffer, 0, count);
+			}
+			trailer = contents.length - inflater.getRemaining();
+		} catch (DataFormatException e) {
+			return -1;
+		} finally {
+			inflater.end();
+		}
+		if (contents.length - trailer < TRAILER_SIZE) {
+			return -1;
+		}
+		byte[] text = inflated.toByteArray();
+		CRC32 checksum = new CRC32();
+		checksum.update(text);
+		if (readLittleEndianInt(contents, trailer) != (int) checksum.getValue()
+				|| readLittleEndianInt(contents, trailer + 4) != text.length) {
+			return -1;
+		}
+		for (String record : new String(text).split(LINE_BREAK)) {
+			applyRecord(record, tasks);
+		}
+		return trailer + TRAILER_SIZE;
+	}
+
+	private static boolean isMemberStart(byte[] contents, int offset) {
+		if (contents.length - offset < MEMBER_HEADER.length) {
+			return false;
+		}
+		for (int i = 0; i < MEMBER_HEADER.length; i++) {
+			if (contents[offset + i] != MEMBER_HEADER[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return offset of the next gzip member header from offset, or the end of
+	 *         contents if there is none
+	 */
+	private static int findMemberStart(byte[] contents, int offset) {
+		for (int i = offset; i < contents.length; i++) {
+			if (isMemberStart(contents, i)) {
+				return i;
+			}
+		}
+		return contents.length;
+	}
+
+	private static int readLittleEndianInt(byte[] contents, int offset) {
+		return (contents[offset] & 0xFF) | (contents[offset + 1] & 0xFF) << 8
+				| (contents[offset + 2] & 0xFF) << 16 | (contents[offset + 3] & 0xFF) << 24;
+	}
+
+	/**
+	 * @param record
+	 * @param tasks
+	 * @return true if record could be applied
+	 */
+	private static boolean applyRecord(String record, ArrayList<String> tasks) {
+		String[] parts = record.split(SEPERATOR, NO_OF_PARTS_IN_RECORD);
+		if (parts.length != NO_OF_PARTS_IN_RECORD) {
+			return false;
+		}
+		if (parts[INDEX_OF_TYPE].equals(ARCHIVE_RECORD)) {
+			tasks.add(parts[INDEX_OF_VALUE]);
+			return true;
+		}
+		if (parts[INDEX_OF_TYPE].equals(RESTORE_RECORD)) {
+			try {
+				tasks.set(Integer.parseInt(parts[INDEX_OF_VALUE]), null);
+				return true;
+			} catch (RuntimeException e) {
+				return false;
+			}
+		}
+		return false;
+	}
+}
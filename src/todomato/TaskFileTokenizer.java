@@ -0,0 +1,363 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+//@author A0096620E
+/**
+ * This class reads the fields of a task in the data file format in a single
+ * pass over the characters of the line, without splitting it into Strings
+ * first. Numbers and the usual date and time formats are read straight from
+ * their position in the line, and dates and times are packed into the Task
+ * without creating a DateTime (see PackedDateTime).
+ *
+ * <p>
+ * Text fields may contain '#' and line breaks, which are written as "\#",
+ * "\r" and "\n", with "\\" standing for a backslash. A backslash followed by
+ * any other character is read as is. Data files written before escaping was
+ * added are not marked as escaped (see IndexedDataFile), and their lines are
+ * read with parseUnescaped, which takes every backslash as is.
+ *
+ */
+public class TaskFileTokenizer {
+
+	private static final char SEPERATOR = '#';
+	private static final char ESCAPE = '\\';
+	private static final char DATE_SYMBOL = '-';
+	private static final char TIME_SYMBOL = ':';
+	private static final char DATE_TIME_SYMBOL = ' ';
+	private static final char FRACTION_SYMBOL = '.';
+	private static final String NULL = "null";
+	private static final String IS_TRUE = "true";
+	private static final String ESCAPED_SEPERATOR = "\\#";
+	private static final String ESCAPED_CARRIAGE_RETURN = "\\r";
+	private static final String ESCAPED_LINE_FEED = "\\n";
+	private static final String ESCAPED_ESCAPE = "\\\\";
+	private static final int LENGTH_OF_DATE = 10;
+	private static final int LENGTH_OF_TIME = 5;
+	private static final int LENGTH_OF_TIME_WITH_SECONDS = 8;
+	private static final int LENGTH_OF_NANOSECONDS = 9;
+
+	private CharSequence line;
+	private int position;
+	private int end;
+	private int fieldStart;
+	private int fieldEnd;
+	private boolean hasEscape;
+	private boolean isEscaped = true;
+	// date or time read by readPackedDateTime
+	private int packedShape;
+	private long packedValue;
+
+	/**
+	 * @param line characters of a task in the data file format
+	 * @param start index of the first character of the task in line
+	 * @param end index after the last character of the task in line
+	 */
+	public TaskFileTokenizer(CharSequence line, int start, int end) {
+		this.line = line;
+		this.position = start;
+		this.end = end;
+	}
+
+	/**
+	 * Creates a Task from a line in the data file format
+	 *
+	 * @param line
+	 * @return Task read from line
+	 * @throws IllegalArgumentException if line has too few fields
+	 */
+	public static Task parse(CharSequence line) {
+		return new TaskFileTokenizer(line, 0, line.length()).readTask();
+	}
+
+	/**
+	 * Creates a Task from a line of a data file written before text fields
+	 * were escaped, where a backslash is an ordinary character
+	 *
+	 * @param line
+	 * @return Task read from line
+	 * @throws IllegalArgumentException if line has too few fields
+	 */
+	public static Task parseUnescaped(CharSequence line) {
+		TaskFileTokenizer tokenizer = new TaskFileTokenizer(line, 0, line.length());
+		tokenizer.isEscaped = false;
+		return tokenizer.readTask();
+	}
+
+	/**
+	 * @param text
+	 * @return text with '#', line breaks and backslashes escaped, or "null"
+	 *         if text is null
+	 */
+	public static String escape(String text) {
+		if (text == null) {
+			return NULL;
+		}
+		if (!needsEscape(text)) {
+			return text;
+		}
+		StringBuilder escaped = new StringBuilder(text.length() + 8);
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == SEPERATOR) {
+				escaped.append(ESCAPED_SEPERATOR);
+			} else if (c == '\r') {
+				escaped.append(ESCAPED_CARRIAGE_RETURN);
+			} else if (c == '\n') {
+				escaped.append(ESCAPED_LINE_FEED);
+			} else if (c == ESCAPE) {
+				escaped.append(ESCAPED_ESCAPE);
+			} else {
+				escaped.append(c);
+			}
+		}
+		return escaped.toString();
+	}
+
+	/**
+	 * Reads the 14 fields of a task, in the order written by
+	 * Task.toFileString
+	 *
+	 * @return Task read from the line
+	 */
+	public Task readTask() {
+		Task task = new Task();
+		task.setDescription(nextString());
+		nextDateTime(task, Task.START_TIME);
+		nextDateTime(task, Task.END_TIME);
+		nextDateTime(task, Task.START_DATE);
+		nextDateTime(task, Task.END_DATE);
+		String location = nextString();
+		task.setLocation(NULL.equals(location) ? null : location);
+		task.setRecurrencePeriod(nextInt());
+		task.setId(nextLong());
+		nextDateTimeOrText(task, Task.TIME_CREATED);
+		task.setPriorityLevel(nextString());
+		task.setCompleted(IS_TRUE.equals(nextString()));
+		task.setEventId(nextString());
+		nextDateTime(task, Task.UPDATE_TIME);
+		nextDateTime(task, Task.NOTICE_TIME);
+		return task;
+	}
+
+	private static boolean needsEscape(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == SEPERATOR || c == '\r' || c == '\n' || c == ESCAPE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Moves to the next field, which ends at the next '#' that is not
+	 * escaped or at the end of the line
+	 */
+	private void nextField() {
+		if (position > end) {
+			throw new IllegalArgumentException("Missing field in " + line);
+		}
+		fieldStart = position;
+		hasEscape = false;
+		int i = position;
+		while (i < end) {
+			char c = line.charAt(i);
+			if (c == SEPERATOR) {
+				break;
+			}
+			if (c == ESCAPE && isEscaped && i + 1 < end) {
+				hasEscape = true;
+				i++;
+			}
+			i++;
+		}
+		fieldEnd = i;
+		position = i + 1;
+	}
+
+	private boolean isNullField() {
+		return fieldEnd - fieldStart == NULL.length() && regionMatches(NULL);
+	}
+
+	private boolean regionMatches(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			if (line.charAt(fieldStart + i) != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String nextString() {
+		nextField();
+		if (!hasEscape) {
+			return line.subSequence(fieldStart, fieldEnd).toString();
+		}
+		StringBuilder text = new StringBuilder(fieldEnd - fieldStart);
+		for (int i = fieldStart; i < fieldEnd; i++) {
+			char c = line.charAt(i);
+			if (c == ESCAPE && i + 1 < fieldEnd) {
+				char escaped = line.charAt(i + 1);
+				if (escaped == SEPERATOR || escaped == ESCAPE) {
+					c = escaped;
+					i++;
+				} else if (escaped == 'r') {
+					c = '\r';
+					i++;
+				} else if (escaped == 'n') {
+					c = '\n';
+					i++;
+				}
+			}
+			text.append(c);
+		}
+		return text.toString();
+	}
+
+	private int nextInt() {
+		long value = nextLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new NumberFormatException("Number too large in " + line);
+		}
+		return (int) value;
+	}
+
+	private long nextLong() {
+		nextField();
+		if (fieldStart == fieldEnd) {
+			throw new NumberFormatException("Empty number in " + line);
+		}
+		boolean isNegative = line.charAt(fieldStart) == DATE_SYMBOL;
+		int i = isNegative ? fieldStart + 1 : fieldStart;
+		if (i == fieldEnd) {
+			throw new NumberFormatException("Empty number in " + line);
+		}
+		long value = 0;
+		for (; i < fieldEnd; i++) {
+			int digit = digit(i);
+			if (value > (Long.MAX_VALUE - digit) / 10) {
+				throw new NumberFormatException("Number too large in " + line);
+			}
+			value = value * 10 + digit;
+		}
+		return isNegative ? -value : value;
+	}
+
+	private int digit(int i) {
+		char c = line.charAt(i);
+		if (c < '0' || c > '9') {
+			throw new NumberFormatException("Not a digit in " + line);
+		}
+		return c - '0';
+	}
+
+	private int number(int start, int length) {
+		int value = 0;
+		for (int i = start; i < start + length; i++) {
+			value = value * 10 + digit(i);
+		}
+		return value;
+	}
+
+	/**
+	 * Sets field of task to the DateTime in the next field, or to null if it
+	 * is "null" or cannot be parsed
+	 */
+	private void nextDateTime(Task task, int field) {
+		nextField();
+		if (isNullField()) {
+			task.setDateTime(field, null);
+		} else if (readPackedDateTime()) {
+			task.setPackedDateTime(field, packedShape, packedValue);
+		} else {
+			String text = line.subSequence(fieldStart, fieldEnd).toString();
+			task.setDateTime(field, DateTime.isParseable(text) ? new DateTime(text) : null);
+		}
+	}
+
+	/**
+	 * Sets field of task to the DateTime in the next field, which is kept as
+	 * text if it cannot be read
+	 */
+	private void nextDateTimeOrText(Task task, int field) {
+		nextField();
+		if (readPackedDateTime()) {
+			task.setPackedDateTime(field, packedShape, packedValue);
+		} else {
+			task.setDateTime(field, new DateTime(line.subSequence(fieldStart, fieldEnd).toString()));
+		}
+	}
+
+	/**
+	 * Reads the formats written by this application: "YYYY-MM-DD", "hh:mm",
+	 * "hh:mm:ss" and a date followed by " hh:mm", " hh:mm:ss" or
+	 * " hh:mm:ss.fffffffff", into packedShape and packedValue.
+	 *
+	 * @return true if the current field is in one of the formats above and
+	 *         is a valid date or time
+	 */
+	private boolean readPackedDateTime() {
+		int length = fieldEnd - fieldStart;
+		try {
+			if (length == LENGTH_OF_TIME || length == LENGTH_OF_TIME_WITH_SECONDS) {
+				return readPackedTime(fieldStart, length, false, 0, 0, 0);
+			}
+			if (length < LENGTH_OF_DATE || line.charAt(fieldStart + 4) != DATE_SYMBOL
+					|| line.charAt(fieldStart + 7) != DATE_SYMBOL) {
+				return false;
+			}
+			int year = number(fieldStart, 4);
+			int month = number(fieldStart + 5, 2);
+			int day = number(fieldStart + 8, 2);
+			if (!PackedDateTime.isValidDate(year, month, day)) {
+				return false;
+			}
+			if (length == LENGTH_OF_DATE) {
+				packedShape = PackedDateTime.DATE;
+				packedValue = PackedDateTime.pack(packedShape, year, month, day, 0, 0, 0, 0);
+				return true;
+			}
+			if (line.charAt(fieldStart + LENGTH_OF_DATE) != DATE_TIME_SYMBOL) {
+				return false;
+			}
+			return readPackedTime(fieldStart + LENGTH_OF_DATE + 1, length - LENGTH_OF_DATE - 1, true, year,
+					month, day);
+		} catch (RuntimeException e) {
+			// not in one of the formats above
+			return false;
+		}
+	}
+
+	private boolean readPackedTime(int start, int length, boolean hasDate, int year, int month, int day) {
+		if (line.charAt(start + 2) != TIME_SYMBOL) {
+			return false;
+		}
+		int hour = number(start, 2);
+		int minute = number(start + 3, 2);
+		int second = 0;
+		int nanoseconds = 0;
+		packedShape = hasDate ? PackedDateTime.DATE_AND_TIME : PackedDateTime.TIME;
+		if (length == LENGTH_OF_TIME_WITH_SECONDS || length == LENGTH_OF_TIME_WITH_SECONDS + 1 + LENGTH_OF_NANOSECONDS) {
+			if (line.charAt(start + 5) != TIME_SYMBOL) {
+				return false;
+			}
+			second = number(start + 6, 2);
+			packedShape = hasDate ? PackedDateTime.DATE_AND_TIME_WITH_SECONDS : PackedDateTime.TIME_WITH_SECONDS;
+		} else if (length != LENGTH_OF_TIME) {
+			return false;
+		}
+		if (length > LENGTH_OF_TIME_WITH_SECONDS) {
+			if (line.charAt(start + LENGTH_OF_TIME_WITH_SECONDS) != FRACTION_SYMBOL) {
+				return false;
+			}
+			nanoseconds = number(start + LENGTH_OF_TIME_WITH_SECONDS + 1, LENGTH_OF_NANOSECONDS);
+			packedShape = PackedDateTime.DATE_AND_TIME_WITH_NANOSECONDS;
+		}
+		if (!PackedDateTime.isValidTime(hour, minute, second)) {
+			return false;
+		}
+		packedValue = PackedDateTime.pack(packedShape, year, month, day, hour, minute, second, nanoseconds);
+		return true;
+	}
+}
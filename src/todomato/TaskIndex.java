@@ -0,0 +1,175 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+//@author A0120766H
+/**
+ * Secondary indexes over the Tasks of a TaskList: its start dates, end
+ * dates, time spans (see TaskIntervalTree), notice times of day, priority
+ * levels and completion. The TaskList
+ * updates them on every change, so that finding Tasks by one of these
+ * fields takes time in proportion to the number of Tasks found.
+ *
+ * <p>
+ * The fields of each Task are remembered as they were when it was last
+ * indexed, as Tasks are changed through their setters before the TaskList
+ * is told about it (see TaskList.markUpdated).
+ *
+ */
+class TaskIndex {
+
+	private static final int MINUTES_IN_AN_HOUR = 60;
+
+	private IdentityHashMap<Task, Keys> indexedKeys = new IdentityHashMap<Task, Keys>();
+	private TreeMap<String, Set<Task>> startDates = new TreeMap<String, Set<Task>>();
+	private TreeMap<String, Set<Task>> endDates = new TreeMap<String, Set<Task>>();
+	private TaskIntervalTree spans = new TaskIntervalTree();
+	private TreeMap<Integer, Set<Task>> noticeTimes = new TreeMap<Integer, Set<Task>>();
+	private HashMap<String, Set<Task>> priorities = new HashMap<String, Set<Task>>();
+	private HashMap<Boolean, Set<Task>> completion = new HashMap<Boolean, Set<Task>>();
+
+	void add(Task task) {
+		Keys keys = new Keys(task);
+		indexedKeys.put(task, keys);
+		addTo(startDates, keys.startDate, task);
+		addTo(endDates, keys.endDate, task);
+		keys.span = spans.add(task);
+		addTo(noticeTimes, keys.noticeMinute, task);
+		addTo(priorities, keys.priorityLevel, task);
+		addTo(completion, keys.isCompleted, task);
+	}
+
+	void remove(Task task) {
+		Keys keys = indexedKeys.remove(task);
+		if (keys == null) {
+			return;
+		}
+		removeFrom(startDates, keys.startDate, task);
+		removeFrom(endDates, keys.endDate, task);
+		spans.remove(keys.span);
+		removeFrom(noticeTimes, keys.noticeMinute, task);
+		removeFrom(priorities, keys.priorityLevel, task);
+		removeFrom(completion, keys.isCompleted, task);
+	}
+
+	/**
+	 * Indexes task again after it was changed through its setters
+	 *
+	 * @param task
+	 */
+	void update(Task task) {
+		remove(task);
+		add(task);
+	}
+
+	Collection<Task> startingBetween(DateTime startDate, DateTime endDate) {
+		return between(startDates, startDate, endDate);
+	}
+
+	Collection<Task> endingBetween(DateTime startDate, DateTime endDate) {
+		return between(endDates, startDate, endDate);
+	}
+
+	/**
+	 * @param from
+	 * @param to
+	 * @return Tasks with a time span that overlaps the period from from to
+	 *         to, each taken as its whole day if it has no time
+	 */
+	Collection<Task> overlapping(DateTime from, DateTime to) {
+		return spans.overlapping(TaskIntervalTree.getMinute(from, false),
+				TaskIntervalTree.getMinute(to, true));
+	}
+
+	Collection<Task> noticedAt(int hour, int minute) {
+		return get(noticeTimes, hour * MINUTES_IN_AN_HOUR + minute);
+	}
+
+	Collection<Task> withPriority(String priorityLevel) {
+		return get(priorities, priorityLevel);
+	}
+
+	Collection<Task> withCompletion(boolean isCompleted) {
+		return get(completion, isCompleted);
+	}
+
+	private static Collection<Task> between(TreeMap<String, Set<Task>> dates, DateTime startDate,
+			DateTime endDate) {
+		ArrayList<Task> tasksFound = new ArrayList<Task>();
+		String start = FileHandler.formatDate(startDate);
+		String end = FileHandler.formatDate(endDate);
+		if (start == null || end == null || start.compareTo(end) > 0) {
+			return tasksFound;
+		}
+		for (Set<Task> tasks : dates.subMap(start, true, end, true).values()) {
+			tasksFound.addAll(tasks);
+		}
+		return tasksFound;
+	}
+
+	private static <K> Collection<Task> get(Map<K, Set<Task>> index, K key) {
+		ArrayList<Task> tasksFound = new ArrayList<Task>();
+		if (index.containsKey(key)) {
+			tasksFound.addAll(index.get(key));
+		}
+		return tasksFound;
+	}
+
+	private static <K> void addTo(Map<K, Set<Task>> index, K key, Task task) {
+		if (key == null) {
+			return;
+		}
+		Set<Task> tasks = index.get(key);
+		if (tasks == null) {
+			tasks = Collections.newSetFromMap(new IdentityHashMap<Task, Boolean>());
+			index.put(key, tasks);
+		}
+		tasks.add(task);
+	}
+
+	private static <K> void removeFrom(Map<K, Set<Task>> index, K key, Task task) {
+		if (key == null) {
+			return;
+		}
+		Set<Task> tasks = index.get(key);
+		if (tasks != null) {
+			tasks.remove(task);
+			if (tasks.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Fields of a Task as they were when it was indexed, or null for the
+	 * fields it does not have
+	 */
+	private static class Keys {
+		private String startDate;
+		private String endDate;
+		private TaskIntervalTree.Node span;
+		private Integer noticeMinute;
+		private String priorityLevel;
+		private Boolean isCompleted;
+
+		Keys(Task task) {
+			startDate = FileHandler.formatDate(task.getStartDate());
+			endDate = FileHandler.formatDate(task.getEndDate());
+			DateTime noticeTime = task.getNoticeTime();
+			if (noticeTime != null && noticeTime.getHour() != null && noticeTime.getMinute() != null) {
+				noticeMinute = noticeTime.getHour() * MINUTES_IN_AN_HOUR + noticeTime.getMinute();
+			}
+			priorityLevel = task.getPriorityLevel();
+			isCompleted = Boolean.TRUE.equals(task.getCompleted());
+		}
+	}
+}
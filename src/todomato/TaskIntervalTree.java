@@ -0,0 +1,244 @@
+package todomato;
+
+import hirondelle.date4j.DateTime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+//@author A0120766H
+/**
+ * Interval tree over the time spans of Tasks, answering which Tasks overlap
+ * a period of time in O(log n + k) expected time for k Tasks found.
+ *
+ * <p>
+ * The tree is a treap ordered by the start of each span, in which every node
+ * also keeps the latest end of the spans below it, so that a query skips the
+ * subtrees that end before the period. Times are counted in minutes, and a
+ * date without a time covers the whole day.
+ *
+ */
+class TaskIntervalTree {
+
+	static final long NO_TIME = Long.MIN_VALUE;
+	private static final int MINUTES_IN_AN_HOUR = 60;
+	private static final int MINUTES_IN_A_DAY = 24 * MINUTES_IN_AN_HOUR;
+	private static final int LAST_MINUTE_OF_DAY = MINUTES_IN_A_DAY - 1;
+
+	private Random random = new Random();
+	private Node root = null;
+	// spans with the same start are ordered by when they were added
+	private long addedCount = 0;
+
+	/**
+	 * Adds the span of task, unless it has no start or end date
+	 *
+	 * @param task
+	 * @return the node holding the span of task, to remove it by, or null
+	 */
+	Node add(Task task) {
+		long start = getStart(task);
+		long end = getEnd(task);
+		if (start == NO_TIME || end == NO_TIME) {
+			return null;
+		}
+		Node node = new Node(task, start, Math.max(start, end), addedCount++, random.nextInt());
+		root = insert(root, node);
+		return node;
+	}
+
+	void remove(Node node) {
+		if (node != null) {
+			root = delete(root, node);
+		}
+	}
+
+	/**
+	 * @param from first minute of the period (see getMinute)
+	 * @param to last minute of the period
+	 * @return Tasks with a span that has at least one minute in the period
+	 */
+	Collection<Task> overlapping(long from, long to) {
+		ArrayList<Task> tasksFound = new ArrayList<Task>();
+		if (from <= to) {
+			collect(root, from, to, tasksFound);
+		}
+		return tasksFound;
+	}
+
+	/**
+	 * @param date
+	 * @param isEndOfDay true to take the last minute of the day when date
+	 *            has no time
+	 * @return minutes from the Modified Julian Day epoch to date, or NO_TIME
+	 *         if date has no day
+	 */
+	static long getMinute(DateTime date, boolean isEndOfDay) {
+		if (date == null || !date.hasYearMonthDay()) {
+			return NO_TIME;
+		}
+		long minute = (long) date.getModifiedJulianDayNumber() * MINUTES_IN_A_DAY;
+		if (date.getHour() == null) {
+			return minute + (isEndOfDay ? LAST_MINUTE_OF_DAY : 0);
+		}
+		int minuteOfHour = date.getMinute() == null ? 0 : date.getMinute();
+		return minute + date.getHour() * MINUTES_IN_AN_HOUR + minuteOfHour;
+	}
+
+	/**
+	 * A Task starts on its start date, or on its end date if it has none,
+	 * at its start time if it has one
+	 */
+	private static long getStart(Task task) {
+		DateTime date = task.getStartDate() != null ? task.getStartDate() : task.getEndDate();
+		return atTime(date, task.getStartTime(), false);
+	}
+
+	/**
+	 * A Task ends on its end date, or on its start date if it has none, at
+	 * its end time if it has one
+	 */
+	private static long getEnd(Task task) {
+		DateTime date = task.getEndDate() != null ? task.getEndDate() : task.getStartDate();
+		return atTime(date, task.getEndTime(), true);
+	}
+
+	private static long atTime(DateTime date, DateTime time, boolean isEndOfDay) {
+		long minute = getMinute(date, isEndOfDay);
+		if (minute == NO_TIME || time == null || time.getHour() == null) {
+			return minute;
+		}
+		return getMinute(date, false) + getMinute(time);
+	}
+
+	private static int getMinute(DateTime time) {
+		int minuteOfHour = time.getMinute() == null ? 0 : time.getMinute();
+		return time.getHour() * MINUTES_IN_AN_HOUR + minuteOfHour;
+	}
+
+	private static void collect(Node node, long from, long to, ArrayList<Task> tasksFound) {
+		while (node != null && node.maxEnd >= from) {
+			collect(node.left, from, to, tasksFound);
+			if (node.start > to) {
+				return;
+			}
+			if (node.end >= from) {
+				tasksFound.add(node.task);
+			}
+			node = node.right;
+		}
+	}
+
+	private static Node insert(Node node, Node added) {
+		if (node == null) {
+			return added;
+		}
+		if (added.compareTo(node) < 0) {
+			node.left = insert(node.left, added);
+			if (node.left.priority > node.priority) {
+				node = rotateRight(node);
+			}
+		} else {
+			node.right = insert(node.right, added);
+			if (node.right.priority > node.priority) {
+				node = rotateLeft(node);
+			}
+		}
+		node.updateMaxEnd();
+		return node;
+	}
+
+	private static Node delete(Node node, Node removed) {
+		if (node == null) {
+			return null;
+		}
+		if (node == removed) {
+			return merge(node.left, node.right);
+		}
+		if (removed.compareTo(node) < 0) {
+			node.left = delete(node.left, removed);
+		} else {
+			node.right = delete(node.right, removed);
+		}
+		node.updateMaxEnd();
+		return node;
+	}
+
+	/**
+	 * @param left nodes that are all ordered before the nodes of right
+	 * @param right
+	 * @return root of a treap holding the nodes of both
+	 */
+	private static Node merge(Node left, Node right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+		if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			left.updateMaxEnd();
+			return left;
+		}
+		right.left = merge(left, right.left);
+		right.updateMaxEnd();
+		return right;
+	}
+
+	private static Node rotateRight(Node node) {
+		Node left = node.left;
+		node.left = left.right;
+		left.right = node;
+		node.updateMaxEnd();
+		left.updateMaxEnd();
+		return left;
+	}
+
+	private static Node rotateLeft(Node node) {
+		Node right = node.right;
+		node.right = right.left;
+		right.left = node;
+		node.updateMaxEnd();
+		right.updateMaxEnd();
+		return right;
+	}
+
+	static class Node {
+		private Task task;
+		private long start;
+		private long end;
+		private long order;
+		private int priority;
+		// latest end of the spans in this subtree
+		private long maxEnd;
+		private Node left = null;
+		private Node right = null;
+
+		private Node(Task task, long start, long end, long order, int priority) {
+			this.task = task;
+			this.start = start;
+			this.end = end;
+			this.order = order;
+			this.priority = priority;
+			this.maxEnd = end;
+		}
+
+		private int compareTo(Node other) {
+			if (start != other.start) {
+				return start < other.start ? -1 : 1;
+			}
+			return order < other.order ? -1 : order == other.order ? 0 : 1;
+		}
+
+		private void updateMaxEnd() {
+			maxEnd = end;
+			if (left != null && left.maxEnd > maxEnd) {
+				maxEnd = left.maxEnd;
+			}
+			if (right != null && right.maxEnd > maxEnd) {
+				maxEnd = right.maxEnd;
+			}
+		}
+	}
+}
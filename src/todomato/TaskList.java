@@ -1,29 +1,70 @@
 package todomato;
 import hirondelle.date4j.DateTime;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 //@author A0120766H
 /**
  * Class to store a list of all Tasks that the user wants to keep track of
  *
+ * <p>
+ * A TaskList can be loaded lazily from a TaskSource, in which case each Task
+ * is only read from the source the first time it is accessed through
+ * getListItem or iteration. getList reads every remaining Task.
+ *
+ * <p>
+ * Every Task in a TaskList has its own id. A Task added without an id, or
+ * with the id of a Task already in the list, is given the next id of the
+ * list, which only ever grows and is saved with the list. Ids are kept in an
+ * index by position, so getItem does not scan the list. Tasks from older
+ * data files that share an id are given new ids when the index is built.
+ *
+ * <p>
+ * The Tasks are kept in a PersistentVector, and a Task in the list is never
+ * changed in place: editListItem replaces it with a copy first. A copy of
+ * the list made by deepCopy therefore shares the vector and every Task with
+ * the original, taking O(1) time and memory, and each later change to either
+ * list costs only the nodes and Tasks it replaces.
+ *
+ * <p>
+ * Tasks can also be found by their start date, end date, time span, notice
+ * time, priority level and completion through secondary indexes (see TaskIndex),
+ * which are built by the first query and then kept up to date by every
+ * change to the list.
+ *
  */
-public class TaskList {
+public class TaskList implements Iterable<Task> {
 	private static final int TASK_NOT_FOUND_VALUE = -1;
 	private static final int OFFSET_INDEX = 1;
 	private static final String INDEX_SEPARATOR = ": ";
 	private static final String LINE_BREAK = "\r\n";
-	private ArrayList<Task> list;
+	// ids given out by the list start above every int id of older data files
+	public static final long FIRST_ID = (long) Integer.MAX_VALUE + 1;
+	// Tasks of the list, or the Integer index in source of a Task not read yet
+	private PersistentVector<Object> items = PersistentVector.empty();
 	private DateTime lastSyncTime = null;
 	private String userName = null;
 	private String password = null;
+	private ArrayList<TaskListListener> listeners = new ArrayList<TaskListListener>();
+	private TaskSource source = null;
+	private int unreadCount = 0;
+	private long nextId = FIRST_ID;
+	private IdIndex idIndex = new IdIndex();
+	// Tasks before this position are in idIndex at their current position
+	private int indexedCount = 0;
+	private TaskIndex taskIndex = null;
+	// counts the changes to the list, so that a TaskView can tell it changed
+	private int version = 0;
 	
 	/**
 	 * Create a new empty TaskList
 	 */
 	public TaskList() {
-		this.list = new ArrayList<Task>();
 	}
 	
 	/**
@@ -32,7 +73,38 @@ public class TaskList {
 	 * @return Task that was added
 	 */
 	public Task addToList(Task t) {
-		list.add(t);
+		prepareId(t);
+		items = items.add(t);
+		if (indexedCount == items.size() - 1) {
+			idIndex.put(t.getId(), indexedCount);
+			indexedCount++;
+		}
+		if (taskIndex != null) {
+			taskIndex.add(t);
+		}
+		fireTaskAdded(items.size() - 1, t);
+		return t;
+	}
+	
+	/**
+	 * Add t to the TaskList at index i, shifting later Tasks back
+	 * @param i index to add t at
+	 * @param t Task to be added
+	 * @return Task that was added
+	 */
+	public Task addToList(int i, Task t) {
+		prepareId(t);
+		items = items.insert(i, t);
+		if (indexedCount == items.size() - 1 && i == indexedCount) {
+			idIndex.put(t.getId(), indexedCount);
+			indexedCount++;
+		} else {
+			indexedCount = Math.min(indexedCount, i);
+		}
+		if (taskIndex != null) {
+			taskIndex.add(t);
+		}
+		fireTaskAdded(i, t);
 		return t;
 	}
 	
@@ -42,16 +114,83 @@ public class TaskList {
 	 * @return Task deleted
 	 */
 	public Task deleteListItem(int i){
-		Task TaskDeleted = list.get(i);
-		list.remove(i);
+		Task TaskDeleted = getListItem(i);
+		items = items.remove(i);
+		removeId(TaskDeleted.getId(), i);
+		indexedCount = Math.min(indexedCount, i);
+		if (taskIndex != null) {
+			taskIndex.remove(TaskDeleted);
+		}
+		fireTaskRemoved(i, TaskDeleted);
 		return TaskDeleted;
 	}
 	
+	/**
+	 * Replace the Task at index i with t
+	 * @param i index of Task to be replaced
+	 * @param t Task to put at index i
+	 * @return Task that was replaced
+	 */
+	public Task setListItem(int i, Task t) {
+		Task taskReplaced = getListItem(i);
+		if (t.getId() == Task.NO_ID) {
+			t.setId(taskReplaced.getId());
+		}
+		if (t.getId() != taskReplaced.getId()) {
+			removeId(taskReplaced.getId(), i);
+			prepareId(t);
+			if (i < indexedCount) {
+				idIndex.put(t.getId(), i);
+			}
+		}
+		items = items.set(i, t);
+		if (taskIndex != null) {
+			taskIndex.remove(taskReplaced);
+			taskIndex.add(t);
+		}
+		fireTaskUpdated(i, t);
+		return taskReplaced;
+	}
+
+	/**
+	 * Replaces the Task at index i with a copy of it, which can be changed
+	 * through its setters without changing the copies of this list that
+	 * share the Task. markUpdated must be called after changing it.
+	 * @param i index of Task to change
+	 * @return the copy now at index i
+	 */
+	public Task editListItem(int i) {
+		Task task = getListItem(i);
+		Task copy = task.copy();
+		items = items.set(i, copy);
+		if (taskIndex != null) {
+			taskIndex.remove(task);
+			taskIndex.add(copy);
+		}
+		return copy;
+	}
+	
+	/**
+	 * Tells listeners that the Task at index i has been modified through its
+	 * setters. Must be called after changing a Task got from editListItem.
+	 * @param i index of Task that was modified
+	 */
+	public void markUpdated(int i) {
+		if (taskIndex != null) {
+			taskIndex.update(getListItem(i));
+		}
+		fireTaskUpdated(i, getListItem(i));
+	}
+	
 	/**
 	 * Clears all the Tasks in the TaskList
 	 */
 	public void clearList() {
-		list = new ArrayList<Task>();
+		items = PersistentVector.empty();
+		detachSource();
+		clearIndex();
+		taskIndex = null;
+		fireListRestructured();
 	}
 	
 	/**
@@ -60,7 +199,85 @@ public class TaskList {
 	 * @return Task at index i
 	 */
 	public Task getListItem(int i) {
-		return list.get(i);
+		Object item = items.get(i);
+		if (item instanceof Task) {
+			return (Task) item;
+		}
+		Task task = source.readTask((Integer) item);
+		items = items.set(i, task);
+		unreadCount--;
+		if (unreadCount == 0) {
+			detachSource();
+		}
+		return task;
+	}
+	
+	/**
+	 * Get the Task at index i in the format of the data file, without reading
+	 * it from the source if it has not been accessed yet
+	 * @param i Index of Task to get
+	 * @return file string of Task at index i
+	 */
+	public String getFileString(int i) {
+		Object item = items.get(i);
+		if (item instanceof Task) {
+			return ((Task) item).toFileString();
+		}
+		return source.readFileString((Integer) item);
+	}
+	
+	/**
+	 * Replaces the Tasks in the TaskList with size Tasks that are read from
+	 * source when they are first accessed
+	 * @param source TaskSource to read Tasks from
+	 * @param size number of Tasks in source
+	 */
+	public void setSource(TaskSource source, int size) {
+		detachSource();
+		clearIndex();
+		taskIndex = null;
+		ArrayList<Integer> sourceIndexes = new ArrayList<Integer>(size);
+		for (int i = 0; i < size; i++) {
+			sourceIndexes.add(i);
+		}
+		items = PersistentVector.<Object> of(sourceIndexes);
+		if (size > 0) {
+			this.source = source;
+			unreadCount = size;
+		}
+		fireListRestructured();
+	}
+	
+	/**
+	 * @return number of Tasks that have not been read from the source yet
+	 */
+	public int getUnreadCount() {
+		return unreadCount;
+	}
+	
+	@Override
+	public Iterator<Task> iterator() {
+		return new Iterator<Task>() {
+			private int next = 0;
+			
+			@Override
+			public boolean hasNext() {
+				return next < getSize();
+			}
+			
+			@Override
+			public Task next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getListItem(next++);
+			}
+			
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 	
 	/**
@@ -68,38 +285,149 @@ public class TaskList {
 	 * @param id id of Task to get
 	 * @return index of Task with id id, or -1 if Task cannot be found
 	 */
-	public int getItem(int id) {
-		for (int i=0; i<list.size(); i++) {
-			if (list.get(i).getId() == id) {
-				return i;
-			}
+	public int getItem(long id) {
+		int i = idIndex.get(id);
+		if (i != IdIndex.NOT_FOUND && i < indexedCount) {
+			return i;
+		}
+		if (indexedCount == items.size()) {
+			return TASK_NOT_FOUND_VALUE;
 		}
-		return TASK_NOT_FOUND_VALUE;
+		updateIndex();
+		return idIndex.get(id);
+	}
+
+	/**
+	 * Finds the Tasks with a start date from startDate to endDate
+	 * @param startDate first start date to include
+	 * @param endDate last start date to include
+	 * @return indexes of the Tasks found, in the order of the list
+	 */
+	public ArrayList<Integer> findStartingBetween(DateTime startDate, DateTime endDate) {
+		return getIndexes(getTaskIndex().startingBetween(startDate, endDate));
+	}
+
+	/**
+	 * Finds the Tasks with an end date from startDate to endDate
+	 * @param startDate first end date to include
+	 * @param endDate last end date to include
+	 * @return indexes of the Tasks found, in the order of the list
+	 */
+	public ArrayList<Integer> findEndingBetween(DateTime startDate, DateTime endDate) {
+		return getIndexes(getTaskIndex().endingBetween(startDate, endDate));
+	}
+
+	/**
+	 * Finds the Tasks with a time span that overlaps the period from from to
+	 * to. A Task runs from its start date and time to its end date and time,
+	 * and a date without a time is taken as the whole day.
+	 * @param from start of the period
+	 * @param to end of the period
+	 * @return indexes of the Tasks found, in the order of the list
+	 */
+	public ArrayList<Integer> findOverlapping(DateTime from, DateTime to) {
+		return getIndexes(getTaskIndex().overlapping(from, to));
+	}
+
+	/**
+	 * Finds the Tasks happening at time
+	 * @param time
+	 * @return indexes of the Tasks found, in the order of the list
+	 */
+	public ArrayList<Integer> findHappeningAt(DateTime time) {
+		return findOverlapping(time, time);
+	}
+
+	/**
+	 * Finds the Tasks with a notice time at hour:minute of any day
+	 * @param hour
+	 * @param minute
+	 * @return indexes of the Tasks found, in the order of the list
+	 */
+	public ArrayList<Integer> findNoticedAt(int hour, int minute) {
+		return getIndexes(getTaskIndex().noticedAt(hour, minute));
+	}
+
+	/**
+	 * Finds the Tasks with the priority level priorityLevel
+	 * @param priorityLevel
+	 * @return indexes of the Tasks found, in the order of the list
+	 */
+	public ArrayList<Integer> findWithPriority(String priorityLevel) {
+		return getIndexes(getTaskIndex().withPriority(priorityLevel));
+	}
+
+	/**
+	 * Finds the Tasks that are completed, or the ones that are not
+	 * @param isCompleted
+	 * @return indexes of the Tasks found, in the order of the list
+	 */
+	public ArrayList<Integer> findCompleted(boolean isCompleted) {
+		return getIndexes(getTaskIndex().withCompletion(isCompleted));
+	}
+
+	/**
+	 * @return id that the next Task added without an id will be given
+	 */
+	public long getNextId() {
+		return nextId;
+	}
+
+	/**
+	 * Sets the next id to give out, as saved by a store. Ids that were
+	 * already given to a Task in the list are never given out again.
+	 * @param nextId
+	 */
+	public void setNextId(long nextId) {
+		this.nextId = Math.max(this.nextId, nextId);
 	}
 
 	@Override
 	public String toString() {
-		String s = "";
-		int i = 0;
-		for (Task t : list){
-			s += Integer.toString(i + OFFSET_INDEX) + INDEX_SEPARATOR
-					+ t.toString() + LINE_BREAK;
-			i++;
+		StringBuilder s = new StringBuilder();
+		try {
+			write(s, 0, getSize());
+		} catch (IOException e) {
+			// a StringBuilder does not throw
+			throw new AssertionError(e);
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes the Tasks from index from up to index to, one line each in the
+	 * format of toString, straight to out, so that a long list is written in
+	 * linear time without building it as a String first
+	 * @param out Writer, PrintStream or StringBuilder to write to
+	 * @param from index of first Task to write
+	 * @param to index after the last Task to write
+	 * @throws IOException if out cannot be written to
+	 */
+	public void write(Appendable out, int from, int to) throws IOException {
+		for (int i = from; i < to; i++) {
+			out.append(Integer.toString(i + OFFSET_INDEX));
+			out.append(INDEX_SEPARATOR);
+			out.append(getListItem(i).toString());
+			out.append(LINE_BREAK);
 		}
-		return s;
 	}
 	
 	/**
-	 * Modifies TaskList to be a deep copy of copyList
+	 * Modifies TaskList to be a copy of copyList, sharing its Tasks, which
+	 * are never changed in place
 	 * @param copyList TaskList to be copied
-	 * @return modified TaskList
 	 */
-	public ArrayList<Task> deepCopy(TaskList copyList) {
-		list = new ArrayList<Task>();
-		for (Task i : copyList.getList()) {
-			list.add(new Task(i));
+	public void deepCopy(TaskList copyList) {
+		items = copyList.items;
+		detachSource();
+		clearIndex();
+		taskIndex = null;
+		nextId = copyList.nextId;
+		if (copyList.source != null) {
+			source = copyList.source;
+			unreadCount = copyList.unreadCount;
 		}
-		return list;
+		fireListRestructured();
 	}
 	
 	/**
@@ -115,27 +443,53 @@ public class TaskList {
 	 * @return the size of the list
 	 */
 	public int getSize() {
-		return list.size();
+		return items.size();
 	}
 	
+	/**
+	 * Get every Task of the list, reading every Task that has not been
+	 * accessed yet from the source
+	 * @return new list of all Tasks
+	 */
+	@SuppressWarnings("unchecked")
 	public ArrayList<Task> getList() {
-		return list;
+		for (int i = 0; source != null && i < items.size(); i++) {
+			getListItem(i);
+		}
+		return (ArrayList<Task>) (ArrayList<?>) items.toList();
 	} 
 
 	public void setList(ArrayList<Task> list) {
-		this.list = list;
+		items = PersistentVector.<Object> of(list);
+		detachSource();
+		clearIndex();
+		taskIndex = null;
+		fireListRestructured();
 	}
 	
 	public void swap(int i, int j) {
-		Collections.swap(list, i, j);
+		Object item = items.get(i);
+		items = items.set(i, items.get(j)).set(j, item);
+		if (Math.max(i, j) < indexedCount) {
+			idIndex.put(getListItem(i).getId(), i);
+			idIndex.put(getListItem(j).getId(), j);
+		} else {
+			indexedCount = Math.min(indexedCount, Math.min(i, j));
+		}
+		fireListRestructured();
 	}
 	
 	public void reverse() {
-		Collections.reverse(list);
+		ArrayList<Object> reversed = items.toList();
+		Collections.reverse(reversed);
+		items = PersistentVector.of(reversed);
+		clearIndex();
+		fireListRestructured();
 	}
 	
 	public void setLastSyncTime (DateTime lastSyncTime) {
 		this.lastSyncTime = lastSyncTime;
+		fireListRestructured();
 	}
 	
 	public DateTime getLastSyncTime () {
@@ -148,6 +502,7 @@ public class TaskList {
 
 	public void setPassword(String password) {
 		this.password = password;
+		fireListRestructured();
 	}
 
 	public String getUserName() {
@@ -156,10 +511,141 @@ public class TaskList {
 
 	public void setUserName(String userName) {
 		this.userName = userName;
+		fireListRestructured();
 	}
 
 	public void setUserNameAndPassword(String username, String password) {
 		setUserName(username);
 		setPassword(password);
 	}
+
+	public void addListener(TaskListListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(TaskListListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @return number that changes whenever a Task is added, removed, updated
+	 *         or moved
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Gives t the next id of the list if it has none, or if the index shows
+	 * that a Task in the list already has its id
+	 */
+	private void prepareId(Task t) {
+		if (t.getId() == Task.NO_ID
+				|| (indexedCount == items.size() && idIndex.get(t.getId()) != IdIndex.NOT_FOUND)) {
+			t.setId(nextId++);
+		} else if (t.getId() >= nextId) {
+			nextId = t.getId() + 1;
+		}
+	}
+
+	/**
+	 * Removes id from the index unless it belongs to another Task that is
+	 * still indexed
+	 * @param id id of the Task that was at index i
+	 * @param i
+	 */
+	private void removeId(long id, int i) {
+		int indexed = idIndex.get(id);
+		if (indexed == i || indexed >= indexedCount) {
+			idIndex.remove(id);
+		}
+	}
+
+	/**
+	 * Indexes the ids of the Tasks from indexedCount on, giving a new id to
+	 * each Task without one or with the id of a Task before it
+	 */
+	private void updateIndex() {
+		for (int i = indexedCount; i < items.size(); i++) {
+			Task task = getListItem(i);
+			int indexed = idIndex.get(task.getId());
+			if (task.getId() == Task.NO_ID
+					|| (indexed != IdIndex.NOT_FOUND && indexed < i && getListItem(indexed).getId() == task.getId())) {
+				task = editListItem(i);
+				task.setId(nextId++);
+				fireTaskUpdated(i, task);
+			} else if (task.getId() >= nextId) {
+				nextId = task.getId() + 1;
+			}
+			idIndex.put(task.getId(), i);
+		}
+		indexedCount = items.size();
+	}
+
+	/**
+	 * @return the secondary indexes, built from every Task on first use
+	 */
+	private TaskIndex getTaskIndex() {
+		if (taskIndex == null) {
+			taskIndex = new TaskIndex();
+			for (Task task : this) {
+				taskIndex.add(task);
+			}
+		}
+		return taskIndex;
+	}
+
+	/**
+	 * @param tasks Tasks in the list
+	 * @return indexes of tasks in the list, in ascending order
+	 */
+	private ArrayList<Integer> getIndexes(Collection<Task> tasks) {
+		ArrayList<Integer> indexes = new ArrayList<Integer>(tasks.size());
+		for (Task task : tasks) {
+			int i = getItem(task.getId());
+			if (i != TASK_NOT_FOUND_VALUE && items.get(i) == task) {
+				indexes.add(i);
+			}
+		}
+		Collections.sort(indexes);
+		return indexes;
+	}
+
+	private void clearIndex() {
+		idIndex.clear();
+		indexedCount = 0;
+	}
+
+	private void detachSource() {
+		source = null;
+		unreadCount = 0;
+	}
+
+	private void fireTaskAdded(int i, Task t) {
+		version++;
+		for (TaskListListener listener : listeners) {
+			listener.taskAdded(i, t);
+		}
+	}
+
+	private void fireTaskRemoved(int i, Task t) {
+		version++;
+		for (TaskListListener listener : listeners) {
+			listener.taskRemoved(i, t);
+		}
+	}
+
+	private void fireTaskUpdated(int i, Task t) {
+		version++;
+		for (TaskListListener listener : listeners) {
+			listener.taskUpdated(i, t);
+		}
+	}
+
+	private void fireListRestructured() {
+		version++;
+		for (TaskListListener listener : listeners) {
+			listener.listRestructured();
+		}
+	}
 }
@@ -0,0 +1,175 @@
+package todomato;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+//@author A0099332Y
+/**
+ * This class holds the tasks that were added, removed and modified in a data
+ * file since it was last read or written, matched by task id against a
+ * TaskList in memory.
+ *
+ * <p>
+ * The lines of the file are compared with the lines it had before, so that
+ * only tasks changed in the file are applied. Tasks changed in memory that
+ * have not been saved yet are left alone. A removed line and an added line
+ * with the same id are taken as a modified task, and replace it in place.
+ *
+ */
+public class TaskListDiff {
+
+	// rows of the list in memory, in the order of the list
+	private TreeMap<Integer, Task> updatedTasks = new TreeMap<Integer, Task>();
+	private ArrayList<Integer> removedRows = new ArrayList<Integer>();
+	private ArrayList<Task> addedTasks = new ArrayList<Task>();
+
+	private TaskListDiff() {
+	}
+
+	/**
+	 * @param source tasks of the file
+	 * @param size number of tasks in source
+	 * @return number of times each line of the file appears, by the hash
+	 *         code of the line
+	 */
+	public static HashMap<Integer, Integer> countLines(TaskSource source, int size) {
+		HashMap<Integer, Integer> lineCounts = new HashMap<Integer, Integer>();
+		for (int i = 0; i < size; i++) {
+			addLine(lineCounts, source.readFileString(i).hashCode());
+		}
+		return lineCounts;
+	}
+
+	static void addLine(HashMap<Integer, Integer> lineCounts, int lineHash) {
+		Integer count = lineCounts.get(lineHash);
+		lineCounts.put(lineHash, count == null ? 1 : count + 1);
+	}
+
+	private static boolean removeLine(Map<Integer, Integer> lineCounts, int lineHash) {
+		Integer count = lineCounts.get(lineHash);
+		if (count == null) {
+			return false;
+		}
+		if (count == 1) {
+			lineCounts.remove(lineHash);
+		} else {
+			lineCounts.put(lineHash, count - 1);
+		}
+		return true;
+	}
+
+	/**
+	 * @param knownLines line counts of the file when it was last read or
+	 *            written (see countLines)
+	 * @param source tasks of the file now
+	 * @param size number of tasks in source
+	 * @param taskList list in memory to apply the changes to
+	 * @return the tasks changed in the file, by their rows in taskList
+	 */
+	public static TaskListDiff compare(Map<Integer, Integer> knownLines, TaskSource source, int size,
+			TaskList taskList) {
+		TaskListDiff diff = new TaskListDiff();
+		HashMap<Integer, Integer> removedLines = new HashMap<Integer, Integer>(knownLines);
+		ArrayList<String> addedLines = new ArrayList<String>();
+		for (int i = 0; i < size; i++) {
+			String line = source.readFileString(i);
+			if (!removeLine(removedLines, line.hashCode())) {
+				addedLines.add(line);
+			}
+		}
+		if (removedLines.isEmpty() && addedLines.isEmpty()) {
+			return diff;
+		}
+
+		// rows still holding a line that is no longer in the file, by task id
+		HashMap<Long, LinkedList<Integer>> removedRowsById = new HashMap<Long, LinkedList<Integer>>();
+		for (int i = 0; i < taskList.getSize() && !removedLines.isEmpty(); i++) {
+			if (removeLine(removedLines, taskList.getFileString(i).hashCode())) {
+				long id = taskList.getListItem(i).getId();
+				if (!removedRowsById.containsKey(id)) {
+					removedRowsById.put(id, new LinkedList<Integer>());
+				}
+				removedRowsById.get(id).add(i);
+			}
+		}
+
+		for (String line : addedLines) {
+			Task task;
+			try {
+				task = Task.createTaskFromFileString(line);
+			} catch (RuntimeException e) {
+				// left out, as it is when the file is loaded
+				continue;
+			}
+			LinkedList<Integer> rows = removedRowsById.get(task.getId());
+			if (rows != null && !rows.isEmpty()) {
+				diff.updatedTasks.put(rows.poll(), task);
+			} else {
+				diff.addedTasks.add(task);
+			}
+		}
+		for (LinkedList<Integer> rows : removedRowsById.values()) {
+			diff.removedRows.addAll(rows);
+		}
+		Collections.sort(diff.removedRows);
+		return diff;
+	}
+
+	/**
+	 * Replaces the modified tasks, deletes the removed ones and adds the new
+	 * ones at the end of taskList
+	 *
+	 * @param taskList the list the diff was compared with
+	 */
+	public void applyTo(TaskList taskList) {
+		for (Map.Entry<Integer, Task> entry : updatedTasks.entrySet()) {
+			taskList.setListItem(entry.getKey(), entry.getValue());
+		}
+		for (int i = removedRows.size() - 1; i >= 0; i--) {
+			taskList.deleteListItem(removedRows.get(i));
+		}
+		for (Task task : addedTasks) {
+			taskList.addToList(task);
+		}
+	}
+
+	/**
+	 * @return true if nothing was changed in the file
+	 */
+	public boolean isEmpty() {
+		return updatedTasks.isEmpty() && removedRows.isEmpty() && addedTasks.isEmpty();
+	}
+
+	/**
+	 * @return rows that were deleted, as they were numbered before applyTo
+	 */
+	public ArrayList<Integer> getRemovedRows() {
+		return removedRows;
+	}
+
+	/**
+	 * @return rows that were replaced, as they are numbered after applyTo
+	 */
+	public ArrayList<Integer> getUpdatedRows() {
+		ArrayList<Integer> rows = new ArrayList<Integer>();
+		int removedBefore = 0;
+		for (int row : updatedTasks.keySet()) {
+			while (removedBefore < removedRows.size() && removedRows.get(removedBefore) < row) {
+				removedBefore++;
+			}
+			rows.add(row - removedBefore);
+		}
+		return rows;
+	}
+
+	/**
+	 * @return number of tasks added at the end of the list
+	 */
+	public int getAddedCount() {
+		return addedTasks.size();
+	}
+}
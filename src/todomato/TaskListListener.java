@@ -0,0 +1,34 @@
+package todomato;
+
+//@author A0120766H
+/**
+ * Interface for objects that want to be told about every change made to a
+ * TaskList, e.g. to save only what has changed.
+ *
+ */
+public interface TaskListListener {
+
+	/**
+	 * @param index index at which task was added
+	 * @param task Task that was added
+	 */
+	public void taskAdded(int index, Task task);
+
+	/**
+	 * @param index index from which task was removed
+	 * @param task Task that was removed
+	 */
+	public void taskRemoved(int index, Task task);
+
+	/**
+	 * @param index index of the Task that was modified
+	 * @param task Task after modification
+	 */
+	public void taskUpdated(int index, Task task);
+
+	/**
+	 * Called when the order of the list or its header (sync time, username,
+	 * password) has changed, or when the whole list has been replaced.
+	 */
+	public void listRestructured();
+}
@@ -0,0 +1,22 @@
+package todomato;
+
+//@author A0120766H
+/**
+ * Interface for storage that a TaskList can read its Tasks from lazily, one
+ * at a time, as they are accessed.
+ *
+ */
+public interface TaskSource {
+
+	/**
+	 * @param index index of the Task in the source
+	 * @return the Task at index
+	 */
+	public Task readTask(int index);
+
+	/**
+	 * @param index index of the Task in the source
+	 * @return the Task at index in the format of the data file
+	 */
+	public String readFileString(int index);
+}
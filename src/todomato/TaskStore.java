@@ -0,0 +1,39 @@
+package todomato;
+
+//@author A0099332Y
+/**
+ * Interface for the places a TaskList can be kept between runs. FileHandler
+ * keeps it in the text data file and is used unless another store is set up
+ * in Settings.
+ *
+ */
+public interface TaskStore {
+
+	/**
+	 * Reads the whole list. This is only needed at start up or to recover
+	 * from a failed save.
+	 *
+	 * @return the stored task list, or null if it could not be read
+	 */
+	public TaskList readFile();
+
+	/**
+	 * @param taskList the updated task list stored in runtime
+	 * @return taskList if it was saved, or null if it could not be saved
+	 */
+	public TaskList updateFile(TaskList taskList);
+
+	/**
+	 * @param taskList the updated task list stored in runtime
+	 * @param isForced true if the changes must be on disk before returning
+	 * @return taskList if it was saved, or null if it could not be saved
+	 */
+	public TaskList updateFile(TaskList taskList, boolean isForced);
+
+	/**
+	 * Stops recording the changes made to the list and releases the files,
+	 * connections and threads held by the store, once the list has been
+	 * saved for the last time
+	 */
+	public void close();
+}
@@ -0,0 +1,242 @@
+package todomato;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+//@author A0120766H
+/**
+ * Class for the Tasks of a TaskList that are shown to the user, e.g. the
+ * ones found by a search, in the order of the last sort.
+ *
+ * <p>
+ * A TaskView does not change or copy the TaskList it shows. It keeps a
+ * filter, which selects the Tasks shown, and a sort order, and holds only
+ * the positions of the Tasks shown in the list. The positions are worked
+ * out again the first time the view is read after the list has changed.
+ * A view without a filter or a sort order holds nothing at all, and its
+ * rows are the rows of the list.
+ *
+ */
+public class TaskView implements Iterable<Task> {
+	private static final String INDEX_SEPARATOR = ": ";
+	private static final String LINE_BREAK = "\r\n";
+	private static final int OFFSET_INDEX = 1;
+	private static final int NOT_SHOWN = -1;
+
+	/**
+	 * Selects the Tasks of a TaskList that a view shows
+	 */
+	public interface Filter {
+		/**
+		 * @param list
+		 * @return indexes of the Tasks selected, in ascending order
+		 */
+		public ArrayList<Integer> select(TaskList list);
+	}
+
+	private final TaskList list;
+	private final Filter filter;
+	private final Comparator<Task> order;
+	private final boolean isDescending;
+	// positions in list of the Tasks shown, by row
+	private int[] positions = null;
+	private int builtVersion;
+
+	/**
+	 * Create a view of every Task in list, in the order of the list
+	 * @param list
+	 */
+	public TaskView(TaskList list) {
+		this(list, null, null, false);
+	}
+
+	private TaskView(TaskList list, Filter filter, Comparator<Task> order, boolean isDescending) {
+		this.list = list;
+		this.filter = filter;
+		this.order = order;
+		this.isDescending = isDescending;
+	}
+
+	/**
+	 * @param filter
+	 * @return view of the Tasks selected by filter, in the order of this view
+	 */
+	public TaskView filter(Filter filter) {
+		return new TaskView(list, filter, order, isDescending);
+	}
+
+	/**
+	 * Tasks that are equal by order keep the order of the list, or the
+	 * reverse of it when descending
+	 * @param order
+	 * @param isDescending true to show the Tasks in the reverse of order
+	 * @return view of the Tasks of this view, sorted by order
+	 */
+	public TaskView sort(Comparator<Task> order, boolean isDescending) {
+		return new TaskView(list, filter, order, isDescending);
+	}
+
+	/**
+	 * @param list
+	 * @return view of every Task in list, in the order of this view
+	 */
+	public TaskView unfiltered(TaskList list) {
+		return new TaskView(list, null, order, isDescending);
+	}
+
+	/**
+	 * @param list copy of the list of this view, e.g. a snapshot of it
+	 * @return view of list with the filter and order of this view
+	 */
+	public TaskView showing(TaskList list) {
+		return new TaskView(list, filter, order, isDescending);
+	}
+
+	public TaskList getTaskList() {
+		return list;
+	}
+
+	/**
+	 * @return true if the rows of the view are the rows of its list
+	 */
+	public boolean isWholeList() {
+		return filter == null && order == null;
+	}
+
+	public int getSize() {
+		if (isWholeList()) {
+			return list.getSize();
+		}
+		return getPositions().length;
+	}
+
+	public boolean isEmpty() {
+		return getSize() == 0;
+	}
+
+	/**
+	 * @param i row of the view
+	 * @return Task shown at row i
+	 */
+	public Task getListItem(int i) {
+		if (isWholeList()) {
+			return list.getListItem(i);
+		}
+		return list.getListItem(getPositions()[i]);
+	}
+
+	/**
+	 * @param i row of the view
+	 * @return index in the list of the Task shown at row i, or -1 if there
+	 *         is no row i
+	 */
+	public int getListIndex(int i) {
+		if (i < 0 || i >= getSize()) {
+			return NOT_SHOWN;
+		}
+		return isWholeList() ? i : getPositions()[i];
+	}
+
+	@Override
+	public Iterator<Task> iterator() {
+		return new Iterator<Task>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < getSize();
+			}
+
+			@Override
+			public Task next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return getListItem(next++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		try {
+			write(s, 0, getSize());
+		} catch (IOException e) {
+			// a StringBuilder does not throw
+			throw new AssertionError(e);
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes the rows from from up to to, in the same format as
+	 * TaskList.write, numbered by row of the view
+	 * @param out
+	 * @param from first row to write
+	 * @param to row after the last row to write
+	 * @throws IOException if out cannot be written to
+	 */
+	public void write(Appendable out, int from, int to) throws IOException {
+		if (isWholeList()) {
+			list.write(out, from, to);
+			return;
+		}
+		for (int i = from; i < to; i++) {
+			out.append(Integer.toString(i + OFFSET_INDEX));
+			out.append(INDEX_SEPARATOR);
+			out.append(getListItem(i).toString());
+			out.append(LINE_BREAK);
+		}
+	}
+
+	/**
+	 * @return positions of the rows, worked out again if the list has
+	 *         changed since they were
+	 */
+	private int[] getPositions() {
+		if (positions == null || builtVersion != list.getVersion()) {
+			positions = buildPositions();
+			builtVersion = list.getVersion();
+		}
+		return positions;
+	}
+
+	private int[] buildPositions() {
+		ArrayList<Integer> selected;
+		if (filter == null) {
+			selected = new ArrayList<Integer>(list.getSize());
+			for (int i = 0; i < list.getSize(); i++) {
+				selected.add(i);
+			}
+		} else {
+			selected = filter.select(list);
+		}
+		if (order != null) {
+			Collections.sort(selected, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer i, Integer j) {
+					int result = order.compare(list.getListItem(i), list.getListItem(j));
+					if (result == 0) {
+						result = i.compareTo(j);
+					}
+					return isDescending ? -result : result;
+				}
+			});
+		}
+		int[] built = new int[selected.size()];
+		for (int i = 0; i < built.length; i++) {
+			built[i] = selected.get(i);
+		}
+		return built;
+	}
+}
@@ -1,6 +1,14 @@
 package todomato;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
 import java.util.Scanner;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
 
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
@@ -17,7 +25,11 @@ public class Todomato {
 	private static final String INVALID_INPUT_MSG = "Invalid input: ";
 	private static final String WELCOME_MSG = "Welcome to Todomato";
 	private static final String PROMPT_USER_INPUT = "Command: ";
+	private static final String FIRST_FRAME_MSG = "First frame shown %1$d ms after start up, %2$d tasks not loaded yet";
+	private static final Logger logger = Logger.getLogger(Todomato.class.getName());
 	private static Scanner scan = new Scanner(System.in);
+	// tasks listed by display are written here as they are rendered
+	private static Writer console = new BufferedWriter(new OutputStreamWriter(System.out));
 
 	/**
 	 * Take in and execute user commands until the user wants to exit.
@@ -27,6 +39,9 @@ public class Todomato {
 	 */
 	public static void main(String[] args) throws SchedulerException {
 		new TodomatoFrame();
+		logTimeToFirstFrame();
+		// move old completed tasks out of the list before they are scanned
+		ArchiveProcessor.archiveOnStartUp();
 
 		System.out.println(WELCOME_MSG);
 
@@ -51,12 +66,31 @@ public class Todomato {
 					}
 				}
 				
-				String status = SplitProcessorsHandler.processCommand(command);
+				String status = SplitProcessorsHandler.processCommand(command, console);
+				console.flush();
 				System.out.println(status);
 			} catch (InvalidInputException e) {
 				System.out.println(INVALID_INPUT_MSG + e.getMessage());
+			} catch (IOException e) {
+				System.err.println(e.getMessage());
 			}
 		}
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Logs the time from the start of the JVM until the frame has been shown,
+	 * which should not depend on the size of the data file when lazy loading
+	 * is enabled.
+	 */
+	private static void logTimeToFirstFrame() {
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				long startTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+				logger.info(String.format(FIRST_FRAME_MSG, System.currentTimeMillis() - startTime,
+						Processor.getList().getUnreadCount()));
+			}
+		});
+	}
+
+}
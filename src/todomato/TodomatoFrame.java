@@ -82,6 +82,17 @@ public class TodomatoFrame extends JFrame implements ActionListener {
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
 		initDisplay();
 		initShortcuts();
+		Processor.setDisplayRefresher(new DisplayRefresher() {
+			@Override
+			public void refresh() {
+				table.update();
+			}
+
+			@Override
+			public void refreshRows(TaskListDiff diff) {
+				table.update(diff);
+			}
+		});
 
 		add(panel);
 		setVisible(true);
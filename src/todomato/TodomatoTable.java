@@ -12,8 +12,8 @@ import javax.swing.table.*;
 
 //@author A0120766H
 /**
- * This class consists of a table that is designed to display a user's
- * TaskList. It color codes based on priority and completion status,
+ * This class consists of a table that is designed to display the tasks
+ * of a user's TaskView. It color codes based on priority and completion status,
  * and sets the width of each column.
  *
  */
@@ -72,7 +72,7 @@ public class TodomatoTable extends JTable {
 	private JScrollPane tableDisplay;
 	static Object[][] data;
 	int rowSelected;
-	TaskList list = Processor.getDisplayList();
+	TaskView list = Processor.getDisplaySnapshot();
 
 	/**
 	 * Create a new TodomatoTable.
@@ -82,9 +82,10 @@ public class TodomatoTable extends JTable {
 				STARTTIME_HEADER, ENDTIME_HEADER, STARTDATE_HEADER,
 				ENDDATE_HEADER, LOCATION_HEADER, RECUR_HEADER};
 
-		data = loadData(Processor.getDisplayList());
+		TaskView rows = Processor.getDisplaySnapshot();
+		data = loadData(rows);
 
-		DefaultTableModel model = new DefaultTableModel(data, columnNames) {
+		CustModel model = new CustModel(data, rows) {
 			public Class getColumnClass(int column) {
 				Object value = this.getValueAt(0,column); 
 				return (value==null?Object.class:value.getClass());
@@ -99,7 +100,7 @@ public class TodomatoTable extends JTable {
 		tableDisplay = new JScrollPane(table);
 	}
 
-	private JTable createData(DefaultTableModel model) {
+	private JTable createData(TableModel model) {
 		JTable table = new JTable(model) {
 			public Component prepareRenderer(TableCellRenderer renderer, int row, int column) {
 				Component c = super.prepareRenderer(renderer, row, column);
@@ -173,7 +174,12 @@ public class TodomatoTable extends JTable {
 		table.setAutoCreateColumnsFromModel(canAutoCreateColumnsFromModel);
 	}
 
-	private static Object[][] loadData(TaskList l) {        
+	/**
+	 * Creates the rows for l. Rows of Tasks are left null and filled in by
+	 * loadRow when they are first shown, so that the table does not need
+	 * every Task of a lazily loaded list.
+	 */
+	private static Object[][] loadData(TaskView l) {        
 		Object[][] list = new Object[1][8];
 		if (l.getSize() == 0) {
 			for (int i=0; i<=NUM_COLS; i++) {
@@ -182,21 +188,25 @@ public class TodomatoTable extends JTable {
 			list[0][INDEX_COLUNM_INDEX] = EMPTY_TASK_LIST_INDEX;
 			list[0][DESC_COLUNM_INDEX] = EMPTY_TASK_LIST_DESC;
 		} else {
-			list = new Object[l.getSize()][8];
-			for (int i = 0; i < l.getSize(); i++) {
-				list[i][INDEX_COLUNM_INDEX] = String.valueOf(i+1);
-				list[i][DESC_COLUNM_INDEX] = checkNull(l.getListItem(i).getDescription());
-				list[i][STARTTIME_COLUNM_INDEX] = checkNull(l.getListItem(i).getStartTime());
-				list[i][ENDTIME_COLUNM_INDEX] = checkNull(l.getListItem(i).getEndTime());
-				list[i][STARTDATE_COLUNM_INDEX] = checkNullDate(l.getListItem(i).getStartDate());  
-				list[i][ENDDATE_COLUNM_INDEX] = checkNullDate(l.getListItem(i).getEndDate());                             
-				list[i][LOCATION_COLUNM_INDEX] = checkNull(l.getListItem(i).getLocation());                           
-				list[i][RECUR_COLUNM_INDEX] = checkNull(l.getListItem(i).getRecurrencePeriod());
-			}
+			list = new Object[l.getSize()][];
 		}
 		return list;
 	}
 
+	private static Object[] loadRow(TaskView l, int i) {
+		Object[] row = new Object[8];
+		Task item = l.getListItem(i);
+		row[INDEX_COLUNM_INDEX] = String.valueOf(i+1);
+		row[DESC_COLUNM_INDEX] = checkNull(item.getDescription());
+		row[STARTTIME_COLUNM_INDEX] = checkNull(item.getStartTime());
+		row[ENDTIME_COLUNM_INDEX] = checkNull(item.getEndTime());
+		row[STARTDATE_COLUNM_INDEX] = checkNullDate(item.getStartDate());  
+		row[ENDDATE_COLUNM_INDEX] = checkNullDate(item.getEndDate());                             
+		row[LOCATION_COLUNM_INDEX] = checkNull(item.getLocation());                           
+		row[RECUR_COLUNM_INDEX] = checkNull(item.getRecurrencePeriod());
+		return row;
+	}
+
 	private static Object checkNullDate(DateTime date) {
 		if (date == null) {
 			return "";
@@ -214,18 +224,71 @@ public class TodomatoTable extends JTable {
 	}
 
 	public void update() {
-		data = loadData(Processor.getDisplayList());
-		table.setModel(new CustModel(data));
+		TaskView rows = Processor.getDisplaySnapshot();
+		data = loadData(rows);
+		table.setModel(new CustModel(data, rows));
+	}
+
+	/**
+	 * Shows the rows changed by diff, keeping the rows of the other Tasks
+	 * that were already loaded. The whole table is shown again if it is not
+	 * showing the list diff was applied to.
+	 * 
+	 * @param diff changes that were applied to the display list
+	 */
+	public void update(TaskListDiff diff) {
+		TaskView displayList = Processor.getDisplaySnapshot();
+		int lastSize = displayList.getSize() - diff.getAddedCount() + diff.getRemovedRows().size();
+		if (!(table.getModel() instanceof CustModel) || lastSize == 0 || displayList.getSize() == 0) {
+			update();
+			return;
+		}
+		CustModel model = (CustModel) table.getModel();
+		// each change publishes a new snapshot, so the rows can only be
+		// matched up when both show the whole list
+		if (!model.rowList.isWholeList() || !displayList.isWholeList() || model.data.length != lastSize) {
+			update();
+			return;
+		}
+		model.rowList = displayList;
+
+		boolean isResized = diff.getAddedCount() > 0 || !diff.getRemovedRows().isEmpty();
+		if (isResized) {
+			Object[][] rows = new Object[displayList.getSize()][];
+			int removed = 0;
+			for (int i = 0; i < lastSize; i++) {
+				if (removed < diff.getRemovedRows().size() && diff.getRemovedRows().get(removed) == i) {
+					removed++;
+				} else if (model.data[i] != null) {
+					rows[i - removed] = model.data[i];
+					rows[i - removed][INDEX_COLUNM_INDEX] = String.valueOf(i - removed + 1);
+				}
+			}
+			model.data = rows;
+			data = rows;
+		}
+		for (int row : diff.getUpdatedRows()) {
+			model.data[row] = null;
+		}
+		if (isResized) {
+			model.fireTableDataChanged();
+		} else {
+			for (int row : diff.getUpdatedRows()) {
+				model.fireTableRowsUpdated(row, row);
+			}
+		}
 	}
 
 	class CustModel extends AbstractTableModel {
 		private String[] columnNames = {INDEX_HEADER, DESC_HEADER,
 				STARTTIME_HEADER, ENDTIME_HEADER, STARTDATE_HEADER,
 				ENDDATE_HEADER, LOCATION_HEADER, RECUR_HEADER};
-		private Object[][] data = loadData(list);
+		private Object[][] data;
+		private TaskView rowList;
 
-		public CustModel(Object[][] data) {
+		public CustModel(Object[][] data, TaskView rowList) {
 			this.data = data;
+			this.rowList = rowList;
 		}
 		public int getColumnCount() {
 			return columnNames.length;
@@ -243,6 +306,9 @@ public class TodomatoTable extends JTable {
 			if (getColumnCount() == 0 || getRowCount() == 0) {
 				return null;
 			}
+			if (data[row] == null) {
+				data[row] = loadRow(rowList, row);
+			}
 			return data[row][col];
 		}
 	}       
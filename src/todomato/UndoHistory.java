@@ -0,0 +1,618 @@
+package todomato;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Stack;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+//@author A0120766H
+/**
+ * This class keeps the changes made to a TaskList that can be undone and
+ * redone.
+ *
+ * <p>
+ * The history listens to the list and records, for every Task added,
+ * removed or replaced, the operation that takes it back: removing the added
+ * Task, adding the removed Task back at its position, or putting back the
+ * Task that was replaced. A change holds only the Tasks it touched, so an
+ * undo step takes memory in proportion to the change rather than to the
+ * list. Changes that move many Tasks at once, such as replacing the whole
+ * list, are recorded as a copy of the list before them, which shares its
+ * Tasks with the list.
+ *
+ * <p>
+ * Everything recorded after startChange, until it is called again, belongs
+ * to one change, so a command that changes several Tasks is undone in one
+ * step. Changes made in between by background threads, e.g. a reload of the
+ * data file, are added to the last change, as the changes before them could
+ * not be undone without them. Undoing a change records the operations that
+ * redo it, and the other way round.
+ *
+ * <p>
+ * At most depth changes are kept for undo, and the oldest ones are
+ * forgotten after that. Once the changes that can be undone take more than
+ * the budget in memory, the oldest ones are written to a spill file (see UndoSpillFile)
+ * and read back when they are undone, or forgotten if there is no spill
+ * file. The last change is always kept in memory.
+ *
+ * <p>
+ * With an undo log (see UndoLog), every change is also logged next to the
+ * data file, so that it can still be undone after a restart. The log is only
+ * read when the list is first changed, undone or redone, and only the last
+ * few changes in it are decoded then, the others being read back when they
+ * are undone. Changes that no longer fit in the budget are dropped from
+ * memory and read back from the log in the same way, instead of being
+ * spilled. The last change is logged again by flush, after every command,
+ * as changes made in between by background threads are added to it. The
+ * counts and sizes are
+ * published after every change, so that they can be read on any thread,
+ * e.g. over JMX.
+ *
+ */
+public class UndoHistory implements TaskListListener, UndoHistoryMXBean {
+
+	private static final String OBJECT_NAME = "todomato:type=UndoHistory,name=%1$s";
+	private static final String SPILL_FAILED_MSG = "Could not use the undo spill file, forgetting the changes in it";
+	private static final String LOG_FAILED_MSG = "Could not use the undo log, forgetting the changes that can be undone";
+	private static final String REGISTER_FAILED_MSG = "Could not register %1$s";
+	private static final Logger logger = Logger.getLogger(UndoHistory.class.getName());
+	// number of changes that can be undone next which are kept decoded
+	private static final int PRELOADED_CHANGES = 3;
+
+	private Stack<ListChange> undoList = new Stack<ListChange>();
+	private Stack<ListChange> redoList = new Stack<ListChange>();
+	private TaskList trackedList;
+	// copy of the tracked list as it was before the change being recorded
+	private TaskList lastList;
+	// change that the operations made while undoing or redoing are recorded in
+	private ListChange replayed;
+	private int depth;
+	private long budget;
+	private UndoSpillFile spillFile;
+	private UndoLog log;
+	private long logThreshold;
+	private boolean isLogLoaded = false;
+	private ObjectName objectName = null;
+	// published after every change for other threads
+	private volatile int undoCount = 0;
+	private volatile int redoCount = 0;
+	private volatile int spilledCount = 0;
+	private volatile long memoryBytes = 0;
+	private volatile long spilledBytes = 0;
+
+	/**
+	 * Create a history with the depth and budget set up in Settings, which
+	 * forgets the changes that do not fit in memory
+	 */
+	public UndoHistory() {
+		this(Settings.getUndoDepth(), Settings.getUndoBudget(), null);
+	}
+
+	/**
+	 * @param depth number of changes that can be undone
+	 * @param budget rough number of bytes the changes may take in memory
+	 * @param spillFile file to write the oldest changes to once they take
+	 *            more than budget, or null to forget them
+	 */
+	public UndoHistory(int depth, long budget, File spillFile) {
+		this(depth, budget, spillFile == null ? null : new UndoSpillFile(spillFile), null, 0);
+	}
+
+	/**
+	 * @param depth number of changes that can be undone
+	 * @param budget rough number of bytes the changes may take in memory
+	 * @param logFile file to log the changes to, which is read back for the
+	 *            list if it was logged for it
+	 * @param logThreshold number of bytes the log may grow to before it is
+	 *            compacted
+	 */
+	public UndoHistory(int depth, long budget, File logFile, long logThreshold) {
+		this(depth, budget, null, new UndoLog(logFile), logThreshold);
+	}
+
+	private UndoHistory(int depth, long budget, UndoSpillFile spillFile, UndoLog log, long logThreshold) {
+		this.depth = depth;
+		this.budget = budget;
+		this.spillFile = spillFile;
+		this.log = log;
+		this.logThreshold = logThreshold;
+	}
+
+	/**
+	 * Starts a new change to list, which is undone in one step with the
+	 * changes to list made until the next call. Clears the changes that
+	 * could be redone.
+	 * @param list the list about to be changed
+	 */
+	public void startChange(TaskList list) {
+		track(list);
+		logLastChange();
+		ListChange change = new ListChange();
+		undoList.push(change);
+		if (log != null) {
+			log.pushUndo(change);
+		}
+		clearRedo();
+		trim();
+		checkLog();
+		publishStats();
+	}
+
+	/**
+	 * Undoes the last change to list, if there is one
+	 * @param list
+	 * @return true if a change was undone
+	 */
+	public boolean undo(TaskList list) {
+		track(list);
+		if (undoList.isEmpty()) {
+			return false;
+		}
+		ListChange redone;
+		try {
+			redone = replay(undoList.peek(), list);
+		} catch (IOException e) {
+			stopLogging();
+			publishStats();
+			return false;
+		}
+		undoList.pop();
+		redoList.push(redone);
+		if (log != null) {
+			log.popUndo();
+			log.pushRedo(redone);
+		}
+		if (undoList.isEmpty()) {
+			unspill();
+		}
+		preload();
+		trim();
+		checkLog();
+		publishStats();
+		return true;
+	}
+
+	/**
+	 * Redoes the last change to list that was undone, if there is one
+	 * @param list
+	 * @return true if a change was redone
+	 */
+	public boolean redo(TaskList list) {
+		track(list);
+		if (redoList.isEmpty()) {
+			return false;
+		}
+		ListChange undone;
+		try {
+			undone = replay(redoList.peek(), list);
+		} catch (IOException e) {
+			stopLogging();
+			publishStats();
+			return false;
+		}
+		logLastChange();
+		redoList.pop();
+		undoList.push(undone);
+		if (log != null) {
+			log.popRedo();
+			log.pushUndo(undone);
+		}
+		trim();
+		checkLog();
+		publishStats();
+		return true;
+	}
+
+	/**
+	 * Forgets every change, e.g. after changes that cannot be undone
+	 */
+	public void clear() {
+		undoList.clear();
+		redoList.clear();
+		clearSpillFile();
+		if (log != null) {
+			log.clear();
+			// there is nothing left in it to read
+			isLogLoaded = true;
+		}
+		checkLog();
+		publishStats();
+	}
+
+	/**
+	 * Logs the last change again if operations were added to it since it was
+	 * logged, followed by the state of the list, drops the oldest changes
+	 * from memory if they no longer fit in the budget, and compacts the log once it
+	 * is over the threshold and holds mostly changes that are gone. Called
+	 * after every command, so that the log matches the list when it is saved.
+	 */
+	public void flush() {
+		if (log == null || trackedList == null) {
+			return;
+		}
+		logLastChange();
+		// the last change may have grown past the budget since it was started
+		trim();
+		log.writeState(trackedList.getSize(), trackedList.getNextId());
+		if (log.getLength() > logThreshold && log.getLength() > 2 * getLoggedBytes()) {
+			log.compact(undoList, redoList, trackedList.getSize(), trackedList.getNextId());
+		}
+		checkLog();
+		publishStats();
+	}
+
+	/**
+	 * @return number of Tasks held only for undo and redo in memory,
+	 *         counting a copy of the list as all of its Tasks
+	 */
+	public long getTaskCount() {
+		long tasks = 0;
+		for (ListChange change : undoList) {
+			tasks += change.getTaskCount();
+		}
+		for (ListChange change : redoList) {
+			tasks += change.getTaskCount();
+		}
+		return tasks;
+	}
+
+	@Override
+	public int getUndoCount() {
+		return undoCount;
+	}
+
+	@Override
+	public int getRedoCount() {
+		return redoCount;
+	}
+
+	@Override
+	public int getSpilledCount() {
+		return spilledCount;
+	}
+
+	@Override
+	public long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	@Override
+	public long getSpilledBytes() {
+		return spilledBytes;
+	}
+
+	@Override
+	public int getDepth() {
+		return depth;
+	}
+
+	@Override
+	public long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Makes this history visible over JMX, replacing any history registered
+	 * for a workspace of the same name
+	 * @param name name of the workspace of the list
+	 */
+	public void register(String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			objectName = new ObjectName(String.format(OBJECT_NAME, ObjectName.quote(name)));
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+			server.registerMBean(this, objectName);
+		} catch (JMException e) {
+			logger.warning(String.format(REGISTER_FAILED_MSG, objectName));
+			objectName = null;
+		}
+	}
+
+	/**
+	 * Removes this history from JMX, deletes its spill file and closes its
+	 * log, once the workspace is closed
+	 */
+	public void close() {
+		flush();
+		if (objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (JMException e) {
+				// already unregistered, there is nothing left to remove
+			}
+			objectName = null;
+		}
+		clearSpillFile();
+		if (log != null) {
+			log.close();
+		}
+	}
+
+	@Override
+	public void taskAdded(int index, Task task) {
+		changeToRecord().recordAdded(index);
+		lastList = copyOf(trackedList);
+		publishStats();
+	}
+
+	@Override
+	public void taskRemoved(int index, Task task) {
+		changeToRecord().recordRemoved(index, task);
+		lastList = copyOf(trackedList);
+		publishStats();
+	}
+
+	@Override
+	public void taskUpdated(int index, Task task) {
+		changeToRecord().recordReplaced(index, lastList.getListItem(index));
+		lastList = copyOf(trackedList);
+		publishStats();
+	}
+
+	@Override
+	public void listRestructured() {
+		changeToRecord().recordRestructured(lastList);
+		lastList = copyOf(trackedList);
+		publishStats();
+	}
+
+	/**
+	 * Applies the operations of change to list, recording the ones that take
+	 * it back in a new change
+	 * @param change
+	 * @param list
+	 * @return change that takes back change
+	 * @throws IOException if change could not be read from the log, in which
+	 *             case list is left as it was
+	 */
+	private ListChange replay(ListChange change, TaskList list) throws IOException {
+		replayed = new ListChange();
+		try {
+			change.undo(list);
+			return replayed;
+		} finally {
+			replayed = null;
+		}
+	}
+
+	/**
+	 * A change made outside of undo and redo means that the changes undone
+	 * can no longer be redone
+	 * @return change that the next operation is recorded in
+	 */
+	private ListChange changeToRecord() {
+		if (replayed != null) {
+			return replayed;
+		}
+		clearRedo();
+		if (undoList.isEmpty()) {
+			// there is nothing before it to undo to, so it is not kept
+			return new ListChange();
+		}
+		return undoList.peek();
+	}
+
+	/**
+	 * Forgets the oldest changes beyond the depth, and moves the oldest
+	 * changes in memory to the spill file, or forgets them, while the
+	 * changes that can be undone take more than the budget. The changes
+	 * that can be redone are not counted, so that undoing does not make
+	 * older changes spill. With a log, the oldest changes are only dropped
+	 * from memory instead.
+	 */
+	private void trim() {
+		while (getSpilledChanges() + undoList.size() > depth) {
+			if (getSpilledChanges() > 0) {
+				removeOldestSpilled();
+			} else {
+				undoList.remove(0);
+				if (log != null) {
+					log.dropOldestUndo();
+				}
+			}
+		}
+		if (log != null) {
+			unloadOldest();
+			return;
+		}
+		while (undoList.size() > 1 && estimateSize(undoList) > budget) {
+			ListChange oldest = undoList.remove(0);
+			if (spillFile != null) {
+				spill(oldest);
+			}
+		}
+	}
+
+	private void unloadOldest() {
+		long bytes = estimateSize(undoList);
+		for (int i = 0; i < undoList.size() - 1 && bytes > budget; i++) {
+			ListChange change = undoList.get(i);
+			bytes -= change.getEstimatedSize();
+			change.unload();
+			bytes += change.getEstimatedSize();
+		}
+	}
+
+	/**
+	 * Decodes the changes that can be undone next, if they were only kept in
+	 * the log
+	 */
+	private void preload() {
+		if (log == null) {
+			return;
+		}
+		try {
+			for (int i = undoList.size() - 1; i >= 0 && i >= undoList.size() - PRELOADED_CHANGES; i--) {
+				undoList.get(i).load();
+			}
+		} catch (IOException e) {
+			stopLogging();
+		}
+	}
+
+	/**
+	 * Logs the last change again if operations were added to it since it was
+	 * logged, as only the last change is added to
+	 */
+	private void logLastChange() {
+		if (log != null && !undoList.isEmpty() && !undoList.peek().isLogged()) {
+			log.replaceUndo(undoList.peek());
+		}
+	}
+
+	private void clearRedo() {
+		if (redoList.isEmpty()) {
+			return;
+		}
+		redoList.clear();
+		if (log != null) {
+			log.clearRedo();
+		}
+	}
+
+	private long getLoggedBytes() {
+		long bytes = 0;
+		for (ListChange change : undoList) {
+			bytes += change.getLength();
+		}
+		for (ListChange change : redoList) {
+			bytes += change.getLength();
+		}
+		return bytes;
+	}
+
+	private void checkLog() {
+		if (log != null && log.hasFailed()) {
+			stopLogging();
+		}
+	}
+
+	/**
+	 * Forgets every change, as the ones only kept in the log can no longer be
+	 * read, and goes on without a log
+	 */
+	private void stopLogging() {
+		logger.warning(LOG_FAILED_MSG);
+		undoList.clear();
+		redoList.clear();
+		log.close();
+		log = null;
+	}
+
+	private static int countUnloaded(Stack<ListChange> changes) {
+		int count = 0;
+		for (ListChange change : changes) {
+			if (!change.isLoaded()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private int getSpilledChanges() {
+		return spillFile == null ? 0 : spillFile.getCount();
+	}
+
+	private void spill(ListChange change) {
+		try {
+			spillFile.push(change);
+		} catch (IOException e) {
+			logger.warning(SPILL_FAILED_MSG);
+			clearSpillFile();
+		}
+	}
+
+	/**
+	 * Reads the newest change in the spill file back into memory, if there
+	 * is one
+	 */
+	private void unspill() {
+		if (getSpilledChanges() == 0) {
+			return;
+		}
+		try {
+			undoList.push(spillFile.pop());
+		} catch (IOException e) {
+			logger.warning(SPILL_FAILED_MSG);
+			clearSpillFile();
+		}
+	}
+
+	private void removeOldestSpilled() {
+		try {
+			spillFile.removeOldest();
+		} catch (IOException e) {
+			logger.warning(SPILL_FAILED_MSG);
+			clearSpillFile();
+		}
+	}
+
+	private void clearSpillFile() {
+		if (spillFile == null) {
+			return;
+		}
+		try {
+			spillFile.clear();
+		} catch (IOException e) {
+			logger.warning(SPILL_FAILED_MSG);
+		}
+	}
+
+	private static long estimateSize(Stack<ListChange> changes) {
+		long bytes = 0;
+		for (ListChange change : changes) {
+			bytes += change.getEstimatedSize();
+		}
+		return bytes;
+	}
+
+	private void publishStats() {
+		if (log != null) {
+			spilledCount = countUnloaded(undoList);
+			undoCount = undoList.size();
+			spilledBytes = log.getLength();
+		} else {
+			spilledCount = getSpilledChanges();
+			undoCount = undoList.size() + spilledCount;
+			spilledBytes = spillFile == null ? 0 : spillFile.getByteCount();
+		}
+		redoCount = redoList.size();
+		memoryBytes = estimateSize(undoList) + estimateSize(redoList);
+	}
+
+	/**
+	 * Starts listening to list instead of the list listened to before. A
+	 * list that was replaced, e.g. by a sync, is taken back by copying the
+	 * last one into it. The log is read for the first list tracked.
+	 * @param list
+	 */
+	private void track(TaskList list) {
+		if (list == trackedList) {
+			return;
+		}
+		if (trackedList != null) {
+			trackedList.removeListener(this);
+			changeToRecord().recordRestructured(lastList);
+		} else if (log != null && !isLogLoaded) {
+			isLogLoaded = true;
+			log.load(undoList, redoList, list.getSize(), list.getNextId());
+			preload();
+		}
+		trackedList = list;
+		trackedList.addListener(this);
+		lastList = copyOf(trackedList);
+	}
+
+	private static TaskList copyOf(TaskList taskList) {
+		TaskList copy = new TaskList();
+		copy.deepCopy(taskList);
+		return copy;
+	}
+}
@@ -0,0 +1,49 @@
+package todomato;
+
+//@author A0120766H
+/**
+ * Interface through which the undo history of each open workspace can be
+ * watched over JMX, e.g. with jconsole, under
+ * "todomato:type=UndoHistory,name=<workspace>".
+ *
+ */
+public interface UndoHistoryMXBean {
+
+	/**
+	 * @return number of changes that can be undone, in memory and on disk
+	 */
+	public int getUndoCount();
+
+	/**
+	 * @return number of changes that can be redone
+	 */
+	public int getRedoCount();
+
+	/**
+	 * @return number of changes that can be undone which are kept on disk
+	 */
+	public int getSpilledCount();
+
+	/**
+	 * @return rough number of bytes taken in memory by the changes kept for
+	 *         undo and redo
+	 */
+	public long getMemoryBytes();
+
+	/**
+	 * @return number of bytes taken on disk by the changes kept for undo
+	 */
+	public long getSpilledBytes();
+
+	/**
+	 * @return number of changes that can be undone before the oldest ones
+	 *         are forgotten
+	 */
+	public int getDepth();
+
+	/**
+	 * @return number of bytes the changes that can be undone may take in
+	 *         memory before the oldest ones are forgotten or written to disk
+	 */
+	public long getBudget();
+}
@@ -0,0 +1,423 @@
+package todomato;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+import java.util.logging.Logger;
+
+//@author A0120766H
+/**
+ * This class keeps the changes of an UndoHistory in a file next to the data
+ * file, so that they can still be undone and redone after a restart.
+ *
+ * <p>
+ * The file is a log of records that is only appended to: a change pushed on
+ * the undo or redo stack, written in full, or a change taken off or dropped,
+ * or the redo stack cleared, written as a single byte. Clearing the whole
+ * history empties the file. Reading the log back replays the
+ * records on two stacks, skipping over the changes so that they are only
+ * decoded when they are needed (see ListChange.unloaded). Each batch of
+ * records ends with the size and next id of the list it was written for, and
+ * the log is only read back for a list that still matches them, as the
+ * changes in it could not be undone on a list that was changed without it.
+ *
+ * <p>
+ * A change that is taken off a stack stays in the file, so the log is
+ * compacted now and then by writing only the changes still on the stacks to
+ * a new file, which then replaces the log.
+ *
+ * <p>
+ * Writes do not throw. Once one fails, the log stops writing and hasFailed
+ * returns true, so that the history can stop using it.
+ *
+ */
+class UndoLog {
+
+	private static final byte PUSH_UNDO = 1;
+	private static final byte PUSH_REDO = 2;
+	private static final byte REPLACE_UNDO = 3;
+	private static final byte POP_UNDO = 4;
+	private static final byte POP_REDO = 5;
+	private static final byte DROP_OLDEST_UNDO = 6;
+	private static final byte CLEAR_REDO = 7;
+	private static final byte STATE = 8;
+	// type and length before each change
+	private static final int CHANGE_HEADER_SIZE = 5;
+	private static final int STATE_SIZE = 13;
+	private static final String READ_WRITE_MODE = "rw";
+	private static final String COMPACTING_EXTENSION = ".compacting";
+	private static final String INVALID_LOG_MSG = "Discarding the undo log %1$s, which does not match the data file";
+	private static final Logger logger = Logger.getLogger(UndoLog.class.getName());
+
+	private File file;
+	private File compactingFile;
+	private RandomAccessFile data = null;
+	private long length = 0;
+	// length of the log when the last state was written
+	private long stateLength = -1;
+	private boolean failed = false;
+
+	/**
+	 * @param file file to keep the log in
+	 */
+	UndoLog(File file) {
+		this.file = file;
+		compactingFile = new File(file.getPath() + COMPACTING_EXTENSION);
+	}
+
+	/**
+	 * Reads the stacks kept in the log onto undoList and redoList, as changes
+	 * that are read from the log when they are needed. A log that was not
+	 * written for a list of the given size and next id, or that ends in the
+	 * middle of a record, is cleared.
+	 * @param undoList
+	 * @param redoList
+	 * @param size number of Tasks in the list
+	 * @param nextId next id of the list
+	 * @return true if the stacks were read from the log
+	 */
+	boolean load(Stack<ListChange> undoList, Stack<ListChange> redoList, int size, long nextId) {
+		// left by a compaction that did not finish, and not yet in use
+		compactingFile.delete();
+		if (!file.exists()) {
+			return false;
+		}
+		boolean isValid = false;
+		try {
+			isValid = readRecords(undoList, redoList, size, nextId);
+		} catch (IOException e) {
+			isValid = false;
+		} catch (RuntimeException e) {
+			// a change taken off an empty stack, which the log never holds
+			isValid = false;
+		}
+		if (!isValid) {
+			logger.warning(String.format(INVALID_LOG_MSG, file));
+			undoList.clear();
+			redoList.clear();
+			clear();
+		}
+		return isValid;
+	}
+
+	void pushUndo(ListChange change) {
+		writeChange(PUSH_UNDO, change);
+	}
+
+	void pushRedo(ListChange change) {
+		writeChange(PUSH_REDO, change);
+	}
+
+	/**
+	 * Writes change again in place of the change on top of the undo stack,
+	 * e.g. after operations were added to it
+	 * @param change
+	 */
+	void replaceUndo(ListChange change) {
+		writeChange(REPLACE_UNDO, change);
+	}
+
+	void popUndo() {
+		writeRecord(new byte[] { POP_UNDO });
+	}
+
+	void popRedo() {
+		writeRecord(new byte[] { POP_REDO });
+	}
+
+	void dropOldestUndo() {
+		writeRecord(new byte[] { DROP_OLDEST_UNDO });
+	}
+
+	void clearRedo() {
+		writeRecord(new byte[] { CLEAR_REDO });
+	}
+
+	/**
+	 * Records the size and next id of the list after the records written
+	 * since the last state, if there are any
+	 * @param size
+	 * @param nextId
+	 */
+	void writeState(int size, long nextId) {
+		if (stateLength == length) {
+			return;
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(STATE_SIZE);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(STATE);
+			out.writeInt(size);
+			out.writeLong(nextId);
+			out.flush();
+		} catch (IOException e) {
+			// not thrown when writing to memory
+		}
+		writeRecord(bytes.toByteArray());
+		stateLength = length;
+	}
+
+	/**
+	 * Drops every change and empties the file
+	 */
+	void clear() {
+		length = 0;
+		stateLength = -1;
+		if (data == null) {
+			file.delete();
+			return;
+		}
+		try {
+			data.setLength(0);
+		} catch (IOException e) {
+			fail();
+		}
+	}
+
+	/**
+	 * @param offset start of a change in the log
+	 * @param changeLength number of bytes taken by the change
+	 * @return the change, read from the log
+	 * @throws IOException
+	 */
+	ListChange read(long offset, int changeLength) throws IOException {
+		byte[] bytes = readBytes(offset, changeLength);
+		return ListChange.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	/**
+	 * Rewrites the log with only the changes on undoList and redoList, which
+	 * must all have been written to it, followed by the state of the list
+	 * @param undoList
+	 * @param redoList
+	 * @param size number of Tasks in the list
+	 * @param nextId next id of the list
+	 */
+	void compact(List<ListChange> undoList, List<ListChange> redoList, int size, long nextId) {
+		if (failed) {
+			return;
+		}
+		ArrayList<ListChange> changes = new ArrayList<ListChange>(undoList);
+		changes.addAll(redoList);
+		long[] offsets = new long[changes.size()];
+		long compactedLength = 0;
+		try {
+			DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(
+					new FileOutputStream(compactingFile)));
+			try {
+				for (int i = 0; i < changes.size(); i++) {
+					ListChange change = changes.get(i);
+					byte[] bytes = readBytes(change.getOffset(), change.getLength());
+					compacted.writeByte(i < undoList.size() ? PUSH_UNDO : PUSH_REDO);
+					compacted.writeInt(bytes.length);
+					compacted.write(bytes);
+					offsets[i] = compactedLength + CHANGE_HEADER_SIZE;
+					compactedLength += CHANGE_HEADER_SIZE + bytes.length;
+				}
+				compacted.writeByte(STATE);
+				compacted.writeInt(size);
+				compacted.writeLong(nextId);
+				compactedLength += STATE_SIZE;
+			} finally {
+				compacted.close();
+			}
+			close();
+			if (!file.delete() || !compactingFile.renameTo(file)) {
+				throw new IOException(file.getPath());
+			}
+		} catch (IOException e) {
+			compactingFile.delete();
+			fail();
+			return;
+		}
+		for (int i = 0; i < changes.size(); i++) {
+			changes.get(i).setLocation(this, offsets[i], changes.get(i).getLength());
+		}
+		length = compactedLength;
+		stateLength = length;
+	}
+
+	/**
+	 * @return number of bytes in the log
+	 */
+	long getLength() {
+		return length;
+	}
+
+	/**
+	 * @return true if a write to the log failed, after which the log is no
+	 *         longer written
+	 */
+	boolean hasFailed() {
+		return failed;
+	}
+
+	/**
+	 * Closes the file, which is opened again when the log is next used
+	 */
+	void close() {
+		if (data == null) {
+			return;
+		}
+		try {
+			data.close();
+		} catch (IOException e) {
+			// nothing is lost, as every record was written when it was made
+		}
+		data = null;
+	}
+
+	/**
+	 * Replays the records of the log on undoList and redoList
+	 * @return true if the last state in the log matches size and nextId
+	 */
+	private boolean readRecords(Stack<ListChange> undoList, Stack<ListChange> redoList, int size,
+			long nextId) throws IOException {
+		long fileLength = file.length();
+		long position = 0;
+		int loggedSize = -1;
+		long loggedNextId = -1;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			while (position < fileLength) {
+				byte type = in.readByte();
+				position++;
+				switch (type) {
+				case PUSH_UNDO:
+				case PUSH_REDO:
+				case REPLACE_UNDO:
+					int changeLength = in.readInt();
+					position += CHANGE_HEADER_SIZE - 1;
+					ListChange change = ListChange.unloaded(this, position, changeLength);
+					skipFully(in, changeLength);
+					position += changeLength;
+					if (type == PUSH_REDO) {
+						redoList.push(change);
+					} else {
+						if (type == REPLACE_UNDO) {
+							undoList.pop();
+						}
+						undoList.push(change);
+					}
+					break;
+				case POP_UNDO:
+					undoList.pop();
+					break;
+				case POP_REDO:
+					redoList.pop();
+					break;
+				case DROP_OLDEST_UNDO:
+					undoList.remove(0);
+					break;
+				case CLEAR_REDO:
+					redoList.clear();
+					break;
+				case STATE:
+					loggedSize = in.readInt();
+					loggedNextId = in.readLong();
+					position += STATE_SIZE - 1;
+					break;
+				default:
+					return false;
+				}
+			}
+		} catch (EOFException e) {
+			// the last record was not written in full
+			return false;
+		} finally {
+			in.close();
+		}
+		length = position;
+		stateLength = position;
+		return loggedSize == size && loggedNextId == nextId;
+	}
+
+	private static void skipFully(DataInputStream in, int count) throws IOException {
+		int skipped = 0;
+		while (skipped < count) {
+			int step = in.skipBytes(count - skipped);
+			if (step <= 0) {
+				throw new EOFException();
+			}
+			skipped += step;
+		}
+	}
+
+	private byte[] readBytes(long offset, int count) throws IOException {
+		open();
+		byte[] bytes = new byte[count];
+		data.seek(offset);
+		data.readFully(bytes);
+		return bytes;
+	}
+
+	private void writeChange(byte type, ListChange change) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(type);
+			out.writeInt(0);
+			change.write(out);
+			out.flush();
+		} catch (IOException e) {
+			fail();
+			return;
+		}
+		byte[] record = bytes.toByteArray();
+		int changeLength = record.length - CHANGE_HEADER_SIZE;
+		for (int i = 0; i < 4; i++) {
+			record[1 + i] = (byte) (changeLength >>> (24 - 8 * i));
+		}
+		long start = length;
+		if (writeRecord(record)) {
+			change.setLocation(this, start + CHANGE_HEADER_SIZE, changeLength);
+		}
+	}
+
+	/**
+	 * Appends record to the end of the log
+	 * @return true if it was written
+	 */
+	private boolean writeRecord(byte[] record) {
+		if (failed) {
+			return false;
+		}
+		try {
+			open();
+			data.seek(length);
+			data.write(record);
+			length += record.length;
+			return true;
+		} catch (IOException e) {
+			fail();
+			return false;
+		}
+	}
+
+	private void open() throws IOException {
+		if (data == null) {
+			data = new RandomAccessFile(file, READ_WRITE_MODE);
+			if (data.length() > length) {
+				// records after a failed write, which are not part of the log
+				data.setLength(length);
+			}
+		}
+	}
+
+	private void fail() {
+		failed = true;
+		close();
+	}
+}
@@ -15,15 +15,11 @@ public class UndoProcessor extends Processor {
 	 * @return Status message telling user if there were changes to undo
 	 */
 	public static String processUndo() {		
-		if (!undoList.isEmpty()) {	
-			//add current list to redoList
-			redoList.push(list);
+		//take back the last change, recording it for redo
+		if (history.undo(list)) {
+			saveList();
 			
-			//get latest list from undoList
-			list = undoList.pop();	
-			fileHandler.updateFile(list);
-			
-			displayList = list;
+			showList();
 			return SUCCESS_MSG;
 		} else {
 			return NO_CHANGES_TO_UNDO_MSG;
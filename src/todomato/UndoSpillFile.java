@@ -0,0 +1,125 @@
+package todomato;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+
+//@author A0120766H
+/**
+ * This class keeps the oldest changes of an UndoHistory in a file, as a
+ * stack with the oldest change at the start of the file, so that they can
+ * still be undone without being kept in memory.
+ *
+ * <p>
+ * Changes are appended to the end of the file and taken back from the end,
+ * which truncates the file. Changes dropped from the start are only skipped,
+ * and the file is deleted once it holds no changes. The file is only kept
+ * while the application runs, and one left by an earlier run is deleted.
+ *
+ */
+class UndoSpillFile {
+
+	private static final String READ_WRITE_MODE = "rw";
+
+	private File file;
+	private RandomAccessFile data = null;
+	// start of each change in the file, with the changes before first dropped
+	private ArrayList<Long> offsets = new ArrayList<Long>();
+	private int first = 0;
+	private long end = 0;
+
+	/**
+	 * @param file file to keep the changes in
+	 */
+	UndoSpillFile(File file) {
+		this.file = file;
+		file.delete();
+	}
+
+	/**
+	 * Adds change on top of the changes in the file
+	 * @param change
+	 * @throws IOException
+	 */
+	void push(ListChange change) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		change.write(out);
+		out.flush();
+		if (data == null) {
+			data = new RandomAccessFile(file, READ_WRITE_MODE);
+			file.deleteOnExit();
+		}
+		data.seek(end);
+		data.write(bytes.toByteArray());
+		offsets.add(end);
+		end += bytes.size();
+	}
+
+	/**
+	 * Takes the change on top out of the file
+	 * @return the change added last
+	 * @throws IOException
+	 */
+	ListChange pop() throws IOException {
+		long start = offsets.remove(offsets.size() - 1);
+		byte[] bytes = new byte[(int) (end - start)];
+		data.seek(start);
+		data.readFully(bytes);
+		end = start;
+		if (getCount() == 0) {
+			clear();
+		} else {
+			data.setLength(end);
+		}
+		return ListChange.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	/**
+	 * Drops the oldest change in the file
+	 * @throws IOException
+	 */
+	void removeOldest() throws IOException {
+		first++;
+		if (getCount() == 0) {
+			clear();
+		}
+	}
+
+	/**
+	 * Drops every change and deletes the file
+	 * @throws IOException
+	 */
+	void clear() throws IOException {
+		offsets.clear();
+		first = 0;
+		end = 0;
+		if (data != null) {
+			data.close();
+			data = null;
+		}
+		file.delete();
+	}
+
+	/**
+	 * @return number of changes in the file
+	 */
+	int getCount() {
+		return offsets.size() - first;
+	}
+
+	/**
+	 * @return number of bytes taken by the changes in the file
+	 */
+	long getByteCount() {
+		if (getCount() == 0) {
+			return 0;
+		}
+		return end - offsets.get(first);
+	}
+}
@@ -100,17 +100,25 @@ public class UpdateProcessor extends Processor {
 		int[] whichToEdit = new int[NO_OF_DETAILS_TO_EDIT];
 		Arrays.fill(whichToEdit, NO_EDIT);
 		int[] indices = getTaskIndex(argument);
+		for (int i = 0; i < indices.length; i++) {
+			// indices are shown by the display list, which may be a search
+			indices[i] = getListIndex(indices[i] - 1) + 1;
+		}
 		for (int indice : indices) {
 			int index = indice - 1;
 			printInvalidIndexMsg(indice, argument);
 			whichToEdit = findDetailToEdit(argument);
 			updater(argument, whichToEdit, index);
-			displayList = list;
+			showList();
 		}
 		return UPDATED;
 	}
 
 	/**
+	 * Edits a copy of the task at index and only puts it in the list once
+	 * every detail has been edited, so that a detail that is rejected leaves
+	 * the task in the list as it was
+	 * 
 	 * @param argument
 	 * @param whichToEdit
 	 * @param index
@@ -118,48 +126,52 @@ public class UpdateProcessor extends Processor {
 	 */
 	private static void updater(String argument, int[] whichToEdit, int index)
 			throws InvalidInputException {
+		// the task may be shared with the lists kept for undo
+		Task task = list.getListItem(index).copy();
 		for (int i = 0; i < whichToEdit.length; i++) {
-			updateUpdateTime(index);
+			updateUpdateTime(task);
 			if (whichToEdit[i] != -1) {
 				switch (i) {
 				case 0:
-					updateStartTime(index, whichToEdit[0], argument);
+					updateStartTime(task, whichToEdit[0], argument);
 					break;
 				case 1:
-					updateEndTime(index, whichToEdit[1], argument);
+					updateEndTime(task, whichToEdit[1], argument);
 					break;
 				case 2:
-					updateDesc(index, whichToEdit[2], argument);
+					updateDesc(task, whichToEdit[2], argument);
 					break;
 				case 3:
-					updateStartDate(index, whichToEdit[3], argument);
+					updateStartDate(task, whichToEdit[3], argument);
 					break;
 				case 4:
-					updateEndDate(index, whichToEdit[4], argument);
+					updateEndDate(task, whichToEdit[4], argument);
 					break;
 				case 5:
-					updateLocation(index, whichToEdit[5], argument);
+					updateLocation(task, whichToEdit[5], argument);
 					break;
 				case 6:
-					updateRecur(index, whichToEdit[6], argument);
+					updateRecur(task, whichToEdit[6], argument);
 					break;
 				case 7:
-					updatePriority(index, whichToEdit[7], argument);
+					updatePriority(task, whichToEdit[7], argument);
 					break;
 				case 8:
-					updateCompletion(index);
+					updateCompletion(task);
 					break;
 				case 9:
 					// for !
-					updatePriority(index, whichToEdit[9], argument);
+					updatePriority(task, whichToEdit[9], argument);
 					break;
 				case 10:
 					// for @
-					updateLocation(index, whichToEdit[10], argument);
+					updateLocation(task, whichToEdit[10], argument);
 					break;
 				}
 			}
 		}
+		list.setListItem(index, task);
+		saveList();
 	}
 
 	/**
@@ -220,81 +232,74 @@ public class UpdateProcessor extends Processor {
 	}
 
 	/**
-	 * @param index
+	 * @param task
 	 * 
 	 */
 
-	private static void updateUpdateTime(int index) {
+	private static void updateUpdateTime(Task task) {
 		DateTime currentTime = DateTime.now(TimeZone.getDefault());
-		list.getListItem(index).setUpdateTime(currentTime);
+		task.setUpdateTime(currentTime);
 	}
 
 	/**
-	 * @param index
+	 * @param task
 	 * @param editTime
 	 * @param argument
 	 *            that contains new time 1300
 	 * @return updated task
 	 * @throws InvalidInputException
 	 */
-	private static Task updateStartTime(int index, int editStartTime,
+	private static Task updateStartTime(Task task, int editStartTime,
 			String argument) throws InvalidInputException {
 		argument = argument.substring(editStartTime + NO_OF_CHAR_IN_STIME);
 		String[] parts = argument.split(" ");
 		DateTime time = convertStringToDateTime(parseTimeString(parts[0]));
-		list.getListItem(index).setStartTime(time);
-		if (isStartTimeGreaterThanEndTime(list.getListItem(index))) {
+		task.setStartTime(time);
+		if (isStartTimeGreaterThanEndTime(task)) {
 			throw new InvalidInputException(START_TIME_GT_END_TIME);
-		} else {
-			fileHandler.updateFile(list);
 		}
-		return list.getListItem(index);
+		return task;
 	}
 
-	private static Task updateEndTime(int index, int editEndTime,
+	private static Task updateEndTime(Task task, int editEndTime,
 			String argument) throws InvalidInputException {
 		argument = argument.substring(editEndTime + NO_OF_CHAR_IN_ETIME);
 		String[] parts = argument.split(" ");
 		DateTime time = convertStringToDateTime(parseTimeString(parts[0]));
-		list.getListItem(index).setEndTime(time);
-		if (isStartTimeGreaterThanEndTime(list.getListItem(index))) {
+		task.setEndTime(time);
+		if (isStartTimeGreaterThanEndTime(task)) {
 			throw new InvalidInputException(START_TIME_GT_END_TIME);
-		} else {
-			fileHandler.updateFile(list);
 		}
-		return list.getListItem(index);
+		return task;
 	}
 
-	private static Task updateStartDate(int index, int editDate, String argument)
+	private static Task updateStartDate(Task task, int editDate, String argument)
 			throws InvalidInputException {
 		DateTime date = convertStringToDateTime(parseDateString(argument
 				.substring(editDate + NO_OF_CHAR_IN_SDATE)));
-		list.getListItem(index).setStartDate(date);
+		task.setStartDate(date);
 		// Ensures that any task with a start date has an end date
-		if (list.getListItem(index).getEndDate() == null) {
-			list.getListItem(index).setEndDate(date);
+		if (task.getEndDate() == null) {
+			task.setEndDate(date);
 		}
-		if (isStartTimeGreaterThanEndTime(list.getListItem(index))) {
+		if (isStartTimeGreaterThanEndTime(task)) {
 			throw new InvalidInputException(START_TIME_GT_END_TIME);
-		} else {
-			fileHandler.updateFile(list);
 		}
-		return list.getListItem(index);
+		return task;
 	}
 
-	private static Task updateEndDate(int index, int editDate, String argument)
+	private static Task updateEndDate(Task task, int editDate, String argument)
 			throws InvalidInputException {
 		DateTime date = convertStringToDateTime(parseDateString(argument
 				.substring(editDate + NO_OF_CHAR_IN_EDATE)));
-		list.getListItem(index).setEndDate(date);
-		if (isStartTimeGreaterThanEndTime(list.getListItem(index))) {
+		task.setEndDate(date);
+		if (isStartTimeGreaterThanEndTime(task)) {
 			throw new InvalidInputException(START_TIME_GT_END_TIME);
 		}
-		fileHandler.updateFile(list);
-		return list.getListItem(index);
+		return task;
 	}
 
-	private static Task updateLocation(int index, int editLoc, String argument) {
+	private static Task updateLocation(Task task, int editLoc, String argument) {
 		int stopIndex = argument.length();
 		if (argument.contains(ESC_CHAR)) {
 			int escChar = argument.indexOf(ESC_CHAR);
@@ -305,25 +310,24 @@ public class UpdateProcessor extends Processor {
 			}
 		}
 		if (argument.contains(" @")) {
-			list.getListItem(index).setLocation(
+			task.setLocation(
 					argument.substring(editLoc + NO_OF_CHAR_IN_AT_LOC,
 							stopIndex));
 		} else {
-			list.getListItem(index).setLocation(
+			task.setLocation(
 					argument.substring(editLoc + NO_OF_CHAR_IN_LOC, stopIndex));
 		}
-		fileHandler.updateFile(list);
-		return list.getListItem(index);
+		return task;
 	}
 
 	/**
-	 * @param index
+	 * @param task
 	 * @param editDesc
 	 * @param argument
 	 *            that contains new description
 	 * @return updated task
 	 */
-	private static Task updateDesc(int index, int editDesc, String argument) {
+	private static Task updateDesc(Task task, int editDesc, String argument) {
 		int stopIndex = argument.length();
 		if (argument.contains(ESC_CHAR)) {
 			int escChar = argument.indexOf(ESC_CHAR);
@@ -333,16 +337,15 @@ public class UpdateProcessor extends Processor {
 				stopIndex = escChar;
 			}
 		}
-		list.getListItem(index).setDescription(
+		task.setDescription(
 				argument.substring(editDesc + NO_OF_CHAR_IN_DESC, stopIndex));
-		fileHandler.updateFile(list);
-		return list.getListItem(index);
+		return task;
 	}
 
 	/**
 	 * Updates task with the new recurrent period
 	 * 
-	 * @param index
+	 * @param task
 	 * @param recurDesc
 	 * @param argument
 	 *            that contains recurrence period
@@ -350,35 +353,34 @@ public class UpdateProcessor extends Processor {
 	 * @throws InvalidInputException
 	 */
 
-	private static Task updateRecur(int index, int recurDesc, String argument)
+	private static Task updateRecur(Task task, int recurDesc, String argument)
 			throws InvalidInputException {
 		int stopIndex = argument.length();
-		int userRecurrence = list.getListItem(index).getRecurrencePeriod();
+		int userRecurrence = task.getRecurrencePeriod();
 		try {
 			userRecurrence = Integer.parseInt(argument.substring(recurDesc
 					+ NO_OF_CHAR_IN_RECUR, stopIndex));
 		} catch (NumberFormatException e) {
 			return null;
 		}
-		if (list.getListItem(index).getEndDate() == null) {
+		if (task.getEndDate() == null) {
 			throw new InvalidInputException(INVALID_RECUR);
 		}
-		list.getListItem(index).setRecurrencePeriod(userRecurrence);
-		fileHandler.updateFile(list);
-		return list.getListItem(index);
+		task.setRecurrencePeriod(userRecurrence);
+		return task;
 	}
 
 	/**
 	 * Updates task with the new priority
 	 * 
-	 * @param index
+	 * @param task
 	 * @param recurDesc
 	 * @param argument
 	 *            that contains priority
 	 * @return updated task
 	 */
 
-	private static Task updatePriority(int index, int priorityDesc,
+	private static Task updatePriority(Task task, int priorityDesc,
 			String argument) {
 		int stopIndex = argument.length();
 		String priority = null;
@@ -389,25 +391,23 @@ public class UpdateProcessor extends Processor {
 			priority = parsePriorityFromString(argument.substring(priorityDesc
 					+ NO_OF_CHAR_IN_PRIORITY, stopIndex));
 		}
-		list.getListItem(index).setPriorityLevel(priority);
-		fileHandler.updateFile(list);
-		return list.getListItem(index);
+		task.setPriorityLevel(priority);
+		return task;
 	}
 
 	/**
 	 * Toggles task completion status
 	 * 
-	 * @param index
+	 * @param task
 	 * @return updated tasks
 	 */
-	private static Task updateCompletion(int index) {
-		if (list.getListItem(index).getCompleted()) {
-			list.getListItem(index).setCompleted(false);
+	private static Task updateCompletion(Task task) {
+		if (task.getCompleted()) {
+			task.setCompleted(false);
 		} else {
-			list.getListItem(index).setCompleted(true);
+			task.setCompleted(true);
 		}
-		fileHandler.updateFile(list);
-		return list.getListItem(index);
+		return task;
 	}
 
 	/**
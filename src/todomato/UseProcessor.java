@@ -0,0 +1,129 @@
+package todomato;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+//@author A0120766H
+/**
+ * This class processes use commands by the user, which switch to another
+ * workspace.
+ *
+ * The user should enter the keyword "use" followed by the name of the
+ * workspace, e.g. "use cs2103". A workspace that does not exist yet is
+ * created.
+ *
+ * <p>
+ * Workspaces that were used recently stay in memory, so switching back to
+ * them is instant. The least recently used ones are closed once the
+ * workspaces in memory take more than the budget set in Settings. A
+ * workspace that is not in memory is read on a background thread, and
+ * becomes active on the writer thread (see CommandExecutor) once it has been
+ * read.
+ *
+ */
+public class UseProcessor extends Processor {
+
+	private static final String NAME_FORMAT = "[a-z0-9_]+";
+	private static final String INVALID_NAME_MSG = "Workspace names may only contain letters, digits and _";
+	private static final String ALREADY_USING_MSG = "Already using %1$s";
+	private static final String LOADING_MSG = "Loading %1$s";
+	private static final String SUCCESS_MSG = "Using %1$s";
+	private static final String LOADER_THREAD_NAME = "workspace-loader";
+
+	// workspaces that are not active, from least to most recently used
+	private static LinkedHashMap<String, Workspace> cachedWorkspaces = new LinkedHashMap<String, Workspace>(
+			16, 0.75f, true);
+	private static String loadingName;
+	private static ExecutorService loader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, LOADER_THREAD_NAME);
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+
+	/**
+	 * Switches to the workspace named argument, or starts reading it if it
+	 * is not in memory
+	 *
+	 * @param argument name of the workspace
+	 * @return a status message
+	 * @throws InvalidInputException if the name is not valid
+	 */
+	public static String processUse(String argument) throws InvalidInputException {
+		final String name = argument.trim().toLowerCase();
+		if (!name.matches(NAME_FORMAT)) {
+			throw new InvalidInputException(INVALID_NAME_MSG);
+		}
+		if (name.equals(workspace.getName())) {
+			loadingName = null;
+			return String.format(ALREADY_USING_MSG, name);
+		}
+		if (cachedWorkspaces.containsKey(name)) {
+			loadingName = null;
+			switchTo(cachedWorkspaces.remove(name));
+			return String.format(SUCCESS_MSG, name);
+		}
+		if (!name.equals(loadingName)) {
+			loadingName = name;
+			final Object lock = persistence.getLock();
+			loader.submit(new Runnable() {
+				@Override
+				public void run() {
+					final Workspace loaded = Workspace.open(name, lock);
+					CommandExecutor.submit(new Runnable() {
+						@Override
+						public void run() {
+							synchronized (lock) {
+								if (name.equals(loadingName)) {
+									loadingName = null;
+									switchTo(loaded);
+									refreshDisplay();
+								} else {
+									cachedWorkspaces.put(name, loaded);
+									evictWorkspaces();
+								}
+							}
+						}
+					});
+				}
+			});
+		}
+		return String.format(LOADING_MSG, name);
+	}
+
+	/**
+	 * Makes ws the active workspace and keeps the last one in memory. Must
+	 * hold the lock of the PersistenceService.
+	 *
+	 * @param ws
+	 */
+	private static void switchTo(Workspace ws) {
+		Workspace lastWorkspace = activateWorkspace(ws);
+		cachedWorkspaces.put(lastWorkspace.getName(), lastWorkspace);
+		ArchiveProcessor.clearSearch();
+		evictWorkspaces();
+	}
+
+	/**
+	 * Closes the least recently used workspaces until the workspaces in
+	 * memory fit in the budget. The active workspace is never closed.
+	 */
+	private static void evictWorkspaces() {
+		long size = workspace.estimateSize();
+		for (Workspace ws : cachedWorkspaces.values()) {
+			size += ws.estimateSize();
+		}
+		Iterator<Workspace> leastRecentlyUsed = cachedWorkspaces.values().iterator();
+		while (size > Settings.getWorkspaceBudget() && leastRecentlyUsed.hasNext()) {
+			Workspace ws = leastRecentlyUsed.next();
+			size -= ws.estimateSize();
+			leastRecentlyUsed.remove();
+			ws.close();
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package todomato;
+
+import java.io.File;
+import java.sql.SQLException;
+
+//@author A0120766H
+/**
+ * This class holds everything that belongs to one named task list: its
+ * store and data file, the list with its sync login, the list on display,
+ * and its own undo and redo history.
+ *
+ * <p>
+ * The workspace named "tasks" is kept in "tasks.txt" and is the one used at
+ * start up. Any other workspace is kept in "<name>.txt" next to it, or in
+ * tables starting with "todomato_<name>" when tasks are stored in a database
+ * (see Settings).
+ *
+ * <p>
+ * When watching is enabled (see Settings), changes made to the data file by
+ * other programs while the workspace is open are applied to its list.
+ *
+ */
+public class Workspace {
+
+	public static final String DEFAULT_NAME = "tasks";
+	private static final String DATA_FILE_EXTENSION = ".txt";
+	private static final String DEFAULT_TABLE_PREFIX = "todomato";
+	private static final String TABLE_PREFIX_SEPERATOR = "_";
+	private static final String UNDO_SPILL_EXTENSION = ".undo";
+	private static final String UNDO_LOG_EXTENSION = ".undolog";
+	// rough number of bytes taken by a Task with its dates and Strings
+	private static final long ESTIMATED_TASK_SIZE = 1024;
+
+	private String name;
+	private TaskStore store;
+	private PersistenceService persistence;
+	private TaskArchive archive;
+	private TaskList list;
+	private TaskView displayList;
+	private UndoHistory history;
+	private DataFileWatcher watcher;
+
+	private Workspace(String name, TaskStore store, PersistenceService persistence, TaskArchive archive,
+			UndoHistory history, TaskList list) {
+		this.name = name;
+		this.history = history;
+		this.store = store;
+		this.persistence = persistence;
+		this.archive = archive;
+		this.list = list;
+		this.displayList = new TaskView(list);
+	}
+
+	/**
+	 * Reads the workspace from its store, creating an empty one if it does
+	 * not exist yet
+	 *
+	 * @param name
+	 * @param lock lock shared by the PersistenceService of every workspace
+	 * @return the workspace
+	 */
+	public static Workspace open(String name, Object lock) {
+		String fileLoc = name + DATA_FILE_EXTENSION;
+		TaskStore store = createStore(fileLoc, getTablePrefix(name));
+		Workspace ws = new Workspace(name, store, new PersistenceService(store, lock),
+				new TaskArchive(new File(fileLoc)), createHistory(fileLoc), store.readFile());
+		ws.startWatching();
+		ws.history.register(name);
+		return ws;
+	}
+
+	/**
+	 * Starts picking up changes made to the data file by other programs, if
+	 * the workspace is kept only in a data file that can be watched
+	 */
+	private void startWatching() {
+		if (!(store instanceof FileHandler) || !((FileHandler) store).isWatchable()) {
+			return;
+		}
+		watcher = new DataFileWatcher(((FileHandler) store).getFile(), new Runnable() {
+			@Override
+			public void run() {
+				CommandExecutor.submit(new Runnable() {
+					@Override
+					public void run() {
+						Processor.reloadExternalChanges(Workspace.this);
+					}
+				});
+			}
+		});
+		if (!watcher.start()) {
+			watcher = null;
+		}
+	}
+
+	/**
+	 * @param fileLoc location of the data file
+	 * @return history with the limits set up in Settings, which logs its
+	 *         changes next to the data file if logging is enabled, or writes
+	 *         the oldest ones there if spilling is enabled
+	 */
+	private static UndoHistory createHistory(String fileLoc) {
+		if (Settings.isUndoLogEnabled()) {
+			return new UndoHistory(Settings.getUndoDepth(), Settings.getUndoBudget(),
+					new File(fileLoc + UNDO_LOG_EXTENSION), Settings.getUndoLogThreshold());
+		}
+		if (!Settings.isUndoSpillEnabled()) {
+			return new UndoHistory();
+		}
+		return new UndoHistory(Settings.getUndoDepth(), Settings.getUndoBudget(),
+				new File(fileLoc + UNDO_SPILL_EXTENSION));
+	}
+
+	/**
+	 * Opens the database set up in Settings, filling it from the data file
+	 * the first time, or the data file if there is none or it cannot be
+	 * opened.
+	 *
+	 * @param fileLoc location of the data file
+	 * @param tablePrefix start of the names of the tables in the database
+	 * @return store to read and save the list with
+	 */
+	private static TaskStore createStore(String fileLoc, String tablePrefix) {
+		FileHandler fileHandler = new FileHandler(fileLoc);
+		if (Settings.getStoreUrl() == null) {
+			return fileHandler;
+		}
+		try {
+			JdbcTaskStore jdbcStore = new JdbcTaskStore(Settings.getStoreUrl(), tablePrefix);
+			if (!jdbcStore.exists()) {
+				TaskList fileList = fileHandler.readFile();
+				if (fileList != null) {
+					jdbcStore.writeAll(fileList);
+				}
+			}
+			return jdbcStore;
+		} catch (SQLException e) {
+			return fileHandler;
+		}
+	}
+
+	private static String getTablePrefix(String name) {
+		if (name.equals(DEFAULT_NAME)) {
+			return DEFAULT_TABLE_PREFIX;
+		}
+		return DEFAULT_TABLE_PREFIX + TABLE_PREFIX_SEPERATOR + name;
+	}
+
+	/**
+	 * Saves any pending changes and closes the store, once the workspace is
+	 * no longer kept in memory
+	 */
+	public void close() {
+		if (watcher != null) {
+			watcher.stop();
+		}
+		history.close();
+		persistence.close();
+		store.close();
+	}
+
+	/**
+	 * @return rough number of bytes taken by the tasks of the list and of
+	 *         the changes kept for undo and redo
+	 */
+	public long estimateSize() {
+		long tasks = list.getSize() - list.getUnreadCount() + history.getTaskCount();
+		return tasks * ESTIMATED_TASK_SIZE;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public TaskStore getStore() {
+		return store;
+	}
+
+	public PersistenceService getPersistence() {
+		return persistence;
+	}
+
+	public TaskArchive getArchive() {
+		return archive;
+	}
+
+	public TaskList getList() {
+		return list;
+	}
+
+	public void setList(TaskList list) {
+		this.list = list;
+	}
+
+	public TaskView getDisplayList() {
+		return displayList;
+	}
+
+	public void setDisplayList(TaskView displayList) {
+		this.displayList = displayList;
+	}
+
+	public UndoHistory getHistory() {
+		return history;
+	}
+}